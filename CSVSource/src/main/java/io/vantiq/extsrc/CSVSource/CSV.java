@@ -293,35 +293,26 @@ public class CSV {
         File path = new File(fileFolderPath);
 
         if (fileFilter.accept(path, filename)) {
-            executionPool.execute(new Runnable() {
-                @Override
-                public void run() {
-                    log.info("start executing {}", fullFileName);
-                    try {
-                        String configType = (String) config.get("fileType");
-
-                        if (configType != null && configType.toLowerCase().equals("fixedlength")) {
-                            CSVReader.executeFixedRecord(fullFileName, config, oClient);
-                        } else {
-                            CSVReader.execute(fullFileName, config, oClient);
-                        }
-
-                        File file = new File(fullFileName);
-                        if (deleteAfterProcessing) {
-                            log.info("File {} deleted", fullFileName);
-                            file.delete();
-                        } else if (extensionAfterProcessing != "") {
-                            File newfullFileName = new File(fullFileName.replace(extension, extensionAfterProcessing));
-                            log.info("File {} renamed to {}", fullFileName, newfullFileName);
-                            file.renameTo(newfullFileName);
-                        }
-                    } catch (RejectedExecutionException e) {
-                        log.error(
-                                "The queue of tasks has filled, and as a result the request was unable to be processed.",
-                                e);
-                    } catch (Exception ex) {
-                        log.error("Failure in executing Task", ex);
-                    }
+            log.info("start executing {}", fullFileName);
+            // Reading pauses whenever the client is not writable, leaving the pool's threads free in the meantime
+            CSVReader.executeAsync(fullFileName, config, oClient, executionPool).whenComplete((result, ex) -> {
+                if (ex instanceof RejectedExecutionException) {
+                    log.error("The queue of tasks has filled, and as a result the request was unable to be processed.",
+                            ex);
+                    return;
+                } else if (ex != null) {
+                    log.error("Failure in executing Task", ex);
+                    return;
+                }
+
+                File file = new File(fullFileName);
+                if (deleteAfterProcessing) {
+                    log.info("File {} deleted", fullFileName);
+                    file.delete();
+                } else if (extensionAfterProcessing != "") {
+                    File newfullFileName = new File(fullFileName.replace(extension, extensionAfterProcessing));
+                    log.info("File {} renamed to {}", fullFileName, newfullFileName);
+                    file.renameTo(newfullFileName);
                 }
             });
         }
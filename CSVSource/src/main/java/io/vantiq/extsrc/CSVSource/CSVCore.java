@@ -10,7 +10,6 @@ package io.vantiq.extsrc.CSVSource;
 
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Timer;
 import java.util.concurrent.CompletableFuture;
@@ -21,9 +20,11 @@ import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.vantiq.extjsdk.DispatchExecutors;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
 import io.vantiq.extjsdk.ExtensionWebSocketClient;
 import io.vantiq.extjsdk.Handler;
+import io.vantiq.extjsdk.QueryResponseWriter;
 import io.vantiq.extsrc.CSVSource.exception.VantiqCSVException;
 
 /**
@@ -45,7 +46,6 @@ public class CSVCore {
     CSV csv = null;
 
     final Logger log;
-    final static int RECONNECT_INTERVAL = 5000;
     final static int DEFAULT_BUNDLE_SIZE = 500;
     final static String SELECT_STATEMENT_IDENTIFIER = "select";
 
@@ -54,6 +54,8 @@ public class CSVCore {
 
     ExecutorService queryPool = null;
     ExecutorService publishPool = null;
+    // Runs the publish and query handlers off the websocket's reader thread. Set by start()
+    ExecutorService handlerExecutor = null;
 
     private static final String SYNCH_LOCK = "synchLock";
 
@@ -129,12 +131,13 @@ public class CSVCore {
             oConfigHandler.configComplete = false;
 
             boolean sourcesSucceeded = false;
+            int retryCount = 0;
             while (!sourcesSucceeded) {
                 client.initiateFullConnection(targetVantiqServer, authToken);
                 sourcesSucceeded = exitIfConnectionFails(client, 10);
                 if (!sourcesSucceeded) {
                     try {
-                        Thread.sleep(RECONNECT_INTERVAL);
+                        Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                     } catch (InterruptedException e) {
                         log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                     }
@@ -237,30 +240,17 @@ public class CSVCore {
             bundleFactor = (Integer) request.get("bundleFactor");
         }
 
-        // Send the results of the query
+        // Send the rows in messages of 'bundleFactor' rows, or all in one message if the bundleFactor is 0. The
+        // writer sends an empty 204 response if there are no rows.
+        QueryResponseWriter response = client.openQueryResponse(replyAddress, bundleFactor,
+                bundleFactor == 0 ? 0 : QueryResponseWriter.DEFAULT_MAX_BYTES);
+        response.write(queryArray);
+        response.close();
         if (queryArray.length == 0) {
-            // If data is empty send empty map with 204 code
-            client.sendQueryResponse(204, replyAddress, new LinkedHashMap<>());
             lastRowBundle = null;
-        } else if (bundleFactor == 0) {
-            // If the bundleFactor was specified to be 0, then we sent the entire array
-            client.sendQueryResponse(200, replyAddress, queryArray);
-            lastRowBundle = queryArray;
         } else {
-            // Otherwise, send messages containing 'bundleFactor' number of rows
-            int len = queryArray.length;
-            for (int i = 0; i < len; i += bundleFactor) {
-                HashMap[] rowBundle = Arrays.copyOfRange(queryArray, i, Math.min(queryArray.length, i + bundleFactor));
-
-                // If we reached the last row, send with 200 code
-                if (i + bundleFactor >= len) {
-                    client.sendQueryResponse(200, replyAddress, rowBundle);
-                } else {
-                    // Otherwise, send row with 100 code signifying more data to come
-                    client.sendQueryResponse(100, replyAddress, rowBundle);
-                }
-                lastRowBundle = rowBundle;
-            }
+            lastRowBundle = Arrays.copyOfRange(queryArray, queryArray.length - response.getLastChunkRows(),
+                    queryArray.length);
         }
     }
 
@@ -275,9 +265,17 @@ public class CSVCore {
      *         never return false).
      */
     public boolean start(int timeout) {
+        if (handlerExecutor == null) {
+            // Publishes and queries still run one at a time in the order they arrived, but no longer hold up the
+            // acknowledgements of notifications
+            handlerExecutor = DispatchExecutors.serial("csvHandlers#" + sourceName);
+        }
         boolean sourcesSucceeded = false;
+        int retryCount = 0;
         while (!sourcesSucceeded) {
             client = new ExtensionWebSocketClient(sourceName);
+            client.setPublishExecutor(handlerExecutor);
+            client.setQueryExecutor(handlerExecutor);
             oConfigHandler = new CSVHandleConfiguration(this);
 
             client.setConfigHandler(oConfigHandler);
@@ -289,7 +287,7 @@ public class CSVCore {
             sourcesSucceeded = exitIfConnectionFails(client, timeout);
             if (!sourcesSucceeded) {
                 try {
-                    Thread.sleep(RECONNECT_INTERVAL);
+                    Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                 } catch (InterruptedException e) {
                     log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                 }
@@ -316,6 +314,10 @@ public class CSVCore {
             client.stop();
             client = null;
         }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdownNow();
+            handlerExecutor = null;
+        }
     }
 
     /**
@@ -8,6 +8,7 @@
 package io.vantiq.extsrc.CSVSource;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
@@ -17,6 +18,9 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,7 +60,19 @@ public class CSVReader {
         m.put("segment", numPacket);
         m.put("lines", file);
         if (oClient != null) {
-            oClient.sendNotification(m);
+            // Queue the segment rather than wait for it to be written, so that the client stops being writable
+            // while segments back up and a pausable reader stops reading
+            CompletableFuture<Boolean> acked = oClient.sendNotificationAsync(m);
+            if (acked.isCompletedExceptionally()) {
+                // The writer's queue is full, as it can be when the file is not read pausably, so wait for room
+                oClient.sendNotification(m);
+            } else {
+                acked.whenComplete((ok, error) -> {
+                    if (error != null) {
+                        log.error("Segment {} of file {} could not be sent.", numPacket, filename, error);
+                    }
+                });
+            }
         } else {
             segmentList.add(m); // this for auto testing only , will not allocate space in production
         }
@@ -114,31 +130,37 @@ public class CSVReader {
     }
 
     /**
-     * Responsible for reading records from the file and converting to events to be
-     * sent to server. Each record is a fixed record and, based on the schema
-     * object, we extract the field.
+     * Reads the records of a file one at a time.
+     */
+    interface RecordReader extends Closeable {
+        /**
+         * @return the next record, or null at the end of the file.
+         * @throws IOException
+         */
+        Map<String, String> next() throws IOException;
+    }
+
+    /**
+     * Opens a reader for a file of fixed length records. Each record is a fixed
+     * record and, based on the schema object, we extract the field.
      * 
      * @param csvFile
      * @param config
-     * @param oClient
      * @return
-     * @throws InterruptedException
-     * @throws VantiqCSVException
+     * @throws IOException
+     * @throws VantiqCSVException if the record size is missing or too small for
+     *                            the schema
      */
     @SuppressWarnings("unchecked")
-    static public ArrayList<Map<String, String>> executeFixedRecord(String csvFile, Map<String, Object> config,
-            ExtensionWebSocketClient oClient) throws InterruptedException, VantiqCSVException {
-
-        int numOfRecords; // This is the total number of records/lines processed from the file.
-        int packetIndex = 0;
+    static RecordReader openFixedRecord(String csvFile, Map<String, Object> config)
+            throws IOException, VantiqCSVException {
         Map<String, Map<String, String>> schema = null;
-        Map<String, FixedRecordfieldInfo> recordMetaData = null;
 
         if (config.get("schema") != null) {
             schema = (Map<String, Map<String, String>>) config.get("schema");
         }
 
-        recordMetaData = fixedRecord(schema);
+        Map<String, FixedRecordfieldInfo> recordMetaData = fixedRecord(schema);
 
         int calculatedRecordSize = fixedRecordLength(recordMetaData);
         int recordSize = 0;
@@ -159,25 +181,16 @@ public class CSVReader {
             throw new VantiqCSVException(s);
         }
 
-        boolean extendedLogging = false;
-        if (config.get("extendedLogging") != null) {
-            extendedLogging = Boolean.parseBoolean(config.get("extendedLogging").toString());
-        }
-
-        int MaxLinesInEvent = (int) config.get(MAX_LINES_IN_EVENT);
-
-        int SleepBetweenPackets = 0;
-        if (config.get("waitBetweenTx") != null) {
-            SleepBetweenPackets = (int) config.get("waitBetweenTx");
-        }
-
-        ArrayList<Map<String, String>> file = new ArrayList<Map<String, String>>();
         Set<String> fieldList = recordMetaData.keySet();
-
-        try (InputStream inputStream = new FileInputStream(csvFile)) {
-            numOfRecords = 0;
-            byte[] tempBuffer = new byte[recordSize];
-            while (inputStream.read(tempBuffer) != -1) {
+        InputStream inputStream = new FileInputStream(csvFile);
+        byte[] tempBuffer = new byte[recordSize];
+
+        return new RecordReader() {
+            @Override
+            public Map<String, String> next() throws IOException {
+                if (inputStream.read(tempBuffer) == -1) {
+                    return null;
+                }
                 Map<String, String> lineValues = new HashMap<String, String>();
 
                 for (String key : fieldList) {
@@ -199,34 +212,206 @@ public class CSVReader {
 
                     lineValues.put(key, t);
                 }
+                return lineValues;
+            }
 
-                file.add(lineValues);
+            @Override
+            public void close() throws IOException {
+                inputStream.close();
+            }
+        };
+    }
+
+    /**
+     * Opens a reader for a delimited file. Each line is split by the delimiter
+     * and then, based on the schema object, determine the attribute name.
+     * 
+     * @param csvFile
+     * @param config
+     * @return
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    static RecordReader openDelimited(String csvFile, Map<String, Object> config) throws IOException {
+        Map<String, String> schema = null;
+
+        if (config.get("schema") != null) {
+            schema = (Map<String, String>) config.get("schema");
+        }
+
+        String configDelimiter = ",";
+        if (config.get("delimiter") != null) {
+            configDelimiter = config.get("delimiter").toString();
+        }
+        boolean configProcessNullValues = false;
+        if (config.get("processNullValues") != null) {
+            configProcessNullValues = Boolean.parseBoolean(config.get("processNullValues").toString());
+        }
+
+        boolean configSkipFirstLine = false;
+        if (config.get("skipFirstLine") != null) {
+            configSkipFirstLine = Boolean.parseBoolean(config.get("skipFirstLine").toString());
+        }
+
+        Map<String, String> lineSchema = schema;
+        String delimiter = configDelimiter;
+        boolean processNullValues = configProcessNullValues;
+        boolean skipFirstLine = configSkipFirstLine;
+        BufferedReader br = new BufferedReader(new FileReader(csvFile));
+
+        return new RecordReader() {
+            boolean firstLine = true;
+
+            @Override
+            public Map<String, String> next() throws IOException {
+                String line = br.readLine();
+                if (line != null && firstLine && skipFirstLine) {
+                    line = br.readLine();
+                }
+                firstLine = false;
+                if (line == null) {
+                    return null;
+                }
 
+                // use comma as separator
+                String[] values = line.split(delimiter);
+                Map<String, String> lineValues = new HashMap<String, String>();
+
+                int schemaFieldIndex = 0;
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i].length() != 0) {
+                        String currField = setFieldName(schemaFieldIndex, lineSchema);
+                        lineValues.put(currField, values[i]);
+                        schemaFieldIndex++;
+                    } else if (processNullValues) {
+                        schemaFieldIndex++;
+                    }
+                }
+                return lineValues;
+            }
+
+            @Override
+            public void close() throws IOException {
+                br.close();
+            }
+        };
+    }
+
+    /**
+     * Opens the reader for the file type given in the configuration.
+     */
+    static RecordReader open(String csvFile, Map<String, Object> config) throws IOException, VantiqCSVException {
+        String configType = (String) config.get("fileType");
+        if (configType != null && configType.toLowerCase().equals("fixedlength")) {
+            return openFixedRecord(csvFile, config);
+        }
+        return openDelimited(csvFile, config);
+    }
+
+    /**
+     * Groups the records of a file into segments of at most `maxLinesInEvent`
+     * lines and sends each segment as a notification.
+     */
+    static class SegmentSender {
+        final String csvFile;
+        final RecordReader reader;
+        final ExtensionWebSocketClient oClient;
+        final int maxLinesInEvent;
+        final int sleepBetweenPackets;
+        final boolean extendedLogging;
+
+        int numOfRecords = 0; // This is the total number of records/lines processed from the file.
+        int packetIndex = 0;
+        ArrayList<Map<String, String>> file = new ArrayList<Map<String, String>>();
+
+        SegmentSender(String csvFile, RecordReader reader, Map<String, Object> config,
+                ExtensionWebSocketClient oClient) {
+            this.csvFile = csvFile;
+            this.reader = reader;
+            this.oClient = oClient;
+            this.maxLinesInEvent = (int) config.get(MAX_LINES_IN_EVENT);
+
+            boolean logging = false;
+            if (config.get("extendedLogging") != null) {
+                logging = Boolean.parseBoolean(config.get("extendedLogging").toString());
+            }
+            this.extendedLogging = logging;
+
+            // Only fixed length files have ever paused between segments
+            int sleep = 0;
+            String configType = (String) config.get("fileType");
+            if (configType != null && configType.toLowerCase().equals("fixedlength")
+                    && config.get("waitBetweenTx") != null) {
+                sleep = (int) config.get("waitBetweenTx");
+            }
+            this.sleepBetweenPackets = sleep;
+        }
+
+        /**
+         * Sends segments until the end of the file or, if {@code pausable}, until
+         * the client stops being writable.
+         * 
+         * @param pausable whether to stop reading when the client is not writable
+         * @return true once the whole file has been sent, false if reading paused
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        boolean send(boolean pausable) throws IOException, InterruptedException {
+            while (true) {
+                if (pausable && file.isEmpty() && oClient != null && !oClient.isWritable()) {
+                    // Leave the rest of the file unread until Vantiq catches up
+                    return false;
+                }
+                Map<String, String> lineValues = reader.next();
+                if (lineValues == null) {
+                    break;
+                }
+
+                file.add(lineValues);
                 numOfRecords++;
 
-                if (file.size() >= MaxLinesInEvent) {
+                if (file.size() >= maxLinesInEvent) {
                     if (extendedLogging) {
-                        log.info("TX Packet {} Size {} Total num of Records {}", packetIndex, MaxLinesInEvent,
+                        log.info("TX Packet {} Size {} Total num of Records {}", packetIndex, maxLinesInEvent,
                                 numOfRecords);
                     }
                     sendNotification(csvFile, packetIndex, file, oClient);
-                    if (SleepBetweenPackets > 0) {
-                        Thread.sleep(SleepBetweenPackets);
+                    if (sleepBetweenPackets > 0) {
+                        Thread.sleep(sleepBetweenPackets);
                     }
                     file = new ArrayList<Map<String, String>>();
                     packetIndex++;
                 }
-
             }
             if (file.size() > 0) {
                 if (extendedLogging) {
-                    log.info("TX Last Packet Packet {} Size {} Total num of Records {}", packetIndex, MaxLinesInEvent,
-                            numOfRecords);
+                    log.info("TX Last Packet Packet {} Size {} Total num of Records {}", packetIndex,
+                            maxLinesInEvent, numOfRecords);
                 }
                 sendNotification(csvFile, packetIndex, file, oClient);
             }
-            return file;
+            return true;
+        }
+    }
 
+    /**
+     * Responsible for reading records from the file and converting to events to be
+     * sent to server. Each record is a fixed record and, based on the schema
+     * object, we extract the field.
+     * 
+     * @param csvFile
+     * @param config
+     * @param oClient
+     * @return
+     * @throws InterruptedException
+     * @throws VantiqCSVException
+     */
+    static public ArrayList<Map<String, String>> executeFixedRecord(String csvFile, Map<String, Object> config,
+            ExtensionWebSocketClient oClient) throws InterruptedException, VantiqCSVException {
+        try (RecordReader reader = openFixedRecord(csvFile, config)) {
+            SegmentSender sender = new SegmentSender(csvFile, reader, config, oClient);
+            sender.send(false);
+            return sender.file;
         } catch (IOException ex) {
             log.error("executeFixedRecord - {}", ex);
         }
@@ -243,88 +428,97 @@ public class CSVReader {
      * @param oClient
      * @return
      */
-    @SuppressWarnings("unchecked")
     static public ArrayList<Map<String, String>> execute(String csvFile, Map<String, Object> config,
             ExtensionWebSocketClient oClient) {
-        String line = "";
-        int numOfRecords; // This is the total number of records/lines processed from the file.
-        int packetIndex = 0;
-        Map<String, String> schema = null;
-
-        if (config.get("schema") != null) {
-            schema = (Map<String, String>) config.get("schema");
-        }
-
-        boolean extendedLogging = false;
-        if (config.get("extendedLogging") != null) {
-            extendedLogging = Boolean.parseBoolean(config.get("extendedLogging").toString());
+        try (RecordReader reader = openDelimited(csvFile, config)) {
+            SegmentSender sender = new SegmentSender(csvFile, reader, config, oClient);
+            sender.send(false);
+            return sender.file;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        return null;
+    }
 
-        String delimiter = ",";
-        if (config.get("delimiter") != null) {
-            delimiter = config.get("delimiter").toString();
-        }
-        boolean processNullValues = false;
-        if (config.get("processNullValues") != null) {
-            processNullValues = Boolean.parseBoolean(config.get("processNullValues").toString());
-        }
+    /**
+     * Sends the records of a file to the source without tying up a thread while
+     * the client is not writable. Reading stops whenever
+     * {@link ExtensionWebSocketClient#isWritable()} is false, and continues on
+     * {@code executor} once the client is writable again.
+     * 
+     * @param csvFile
+     * @param config
+     * @param oClient
+     * @param executor - runs each stretch of reading
+     * @return a future that completes once the whole file has been sent, or
+     *         exceptionally if it could not be read.
+     */
+    static public CompletableFuture<Void> executeAsync(String csvFile, Map<String, Object> config,
+            ExtensionWebSocketClient oClient, Executor executor) {
+        AsyncFileSender sender = new AsyncFileSender(csvFile, config, oClient, executor);
+        sender.resume();
+        return sender.done;
+    }
 
-        boolean skipFirstLine = false;
-        if (config.get("skipFirstLine") != null) {
-            skipFirstLine = Boolean.parseBoolean(config.get("skipFirstLine").toString());
+    /**
+     * Runs each stretch of reading for {@link #executeAsync}. The file is opened
+     * by the first stretch, so that files waiting for the executor hold no file
+     * handles.
+     */
+    static class AsyncFileSender implements Runnable {
+        final String csvFile;
+        final Map<String, Object> config;
+        final ExtensionWebSocketClient oClient;
+        final Executor executor;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        RecordReader reader = null;
+        SegmentSender sender = null;
+
+        AsyncFileSender(String csvFile, Map<String, Object> config, ExtensionWebSocketClient oClient,
+                Executor executor) {
+            this.csvFile = csvFile;
+            this.config = config;
+            this.oClient = oClient;
+            this.executor = executor;
         }
 
-        int MaxLinesInEvent = (int) config.get(MAX_LINES_IN_EVENT);
-        ArrayList<Map<String, String>> file = new ArrayList<Map<String, String>>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-            numOfRecords = 0;
-            while ((line = br.readLine()) != null) {
-
-                if (!skipFirstLine) {
-                    // use comma as separator
-                    String[] values = line.split(delimiter);
-                    Map<String, String> lineValues = new HashMap<String, String>();
-
-                    int schemaFieldIndex = 0;
-                    for (int i = 0; i < values.length; i++) {
-                        if (values[i].length() != 0) {
-                            String currField = setFieldName(schemaFieldIndex, schema);
-                            lineValues.put(currField, values[i]);
-                            schemaFieldIndex++;
-                        } else if (processNullValues) {
-                            schemaFieldIndex++;
-                        }
-                    }
-
-                    file.add(lineValues);
-                    numOfRecords++;
-
-                    if (file.size() >= MaxLinesInEvent) {
-                        if (extendedLogging) {
-                            log.info("TX Packet {} Size {} Total num of Records {}", packetIndex, MaxLinesInEvent,
-                                    numOfRecords);
-                        }
-                        sendNotification(csvFile, packetIndex, file, oClient);
-                        file = new ArrayList<Map<String, String>>();
-                        packetIndex++;
-                    }
+        @Override
+        public void run() {
+            try {
+                if (reader == null) {
+                    reader = open(csvFile, config);
+                    sender = new SegmentSender(csvFile, reader, config, oClient);
+                }
+                if (sender.send(true)) {
+                    reader.close();
+                    done.complete(null);
                 } else {
-                    skipFirstLine = false;
+                    oClient.onWritable(this::resume);
                 }
+            } catch (Exception e) {
+                fail(e);
             }
-            if (file.size() > 0) {
-                if (extendedLogging) {
-                    log.info("TX Last Packet Packet {} Size {} Total num of Records {}", packetIndex, MaxLinesInEvent,
-                            numOfRecords);
-                }
+        }
 
-                sendNotification(csvFile, packetIndex, file, oClient);
+        void resume() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                fail(e);
             }
-            return file;
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return null;
+
+        void fail(Exception e) {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ioe) {
+                    log.warn("Could not close {}", csvFile, ioe);
+                }
+            }
+            done.completeExceptionally(e);
+        }
     }
 }
@@ -17,10 +17,18 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import io.vantiq.extjsdk.ExtensionWebSocketClient;
+import io.vantiq.extjsdk.MockVantiqServer;
+
 public class TestCSVReader extends TestCSVBase{
     
     static Map<String,Object> config ;
@@ -213,6 +221,44 @@ public class TestCSVReader extends TestCSVBase{
         assertTrue("Unexpected field flag in first of line of csv file in array", content.get(0).get("field7").equals("marty"));
     }
     
+    @Test
+    public void testReadingPausesWhileNotWritable() throws Exception {
+        CreateFileForTest(testFullFilePath, "line,0,0");
+        for (int i = 1; i < 20; i++) {
+            AppendFileForTest(testFullFilePath, "line," + i + "," + i);
+        }
+        config.put("maxLinesInEvent", 1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ExtensionWebSocketClient client = new ExtensionWebSocketClient("csvSource");
+        try (MockVantiqServer server = new MockVantiqServer()) {
+            // Vantiq acknowledges one segment at a time, slowly, so that segments back up in the writer's queue
+            server.setAckLatency(20, TimeUnit.MILLISECONDS);
+            client.setNotificationWindowLimits(1, 1);
+            client.setWritabilityWaterMarks(1, 3);
+            assertTrue("Should connect to the mock server",
+                    client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS));
+
+            // Each stretch of reading runs on the executor, so more than one stretch means reading paused
+            AtomicInteger stretches = new AtomicInteger();
+            Executor counting = task -> {
+                stretches.incrementAndGet();
+                pool.execute(task);
+            };
+            CSVReader.executeAsync(testFullFilePath, config, client, counting).get(30, TimeUnit.SECONDS);
+            assertTrue("Reading should have paused while segments were backed up", stretches.get() > 1);
+
+            for (int i = 0; i < 300 && server.getAckCount("csvSource") < 20; i++) {
+                Thread.sleep(100);
+            }
+            assertTrue("Unexpected number of segments sent", server.getNotificationCount("csvSource") == 20);
+            assertTrue("Unexpected number of segments acknowledged", server.getAckCount("csvSource") == 20);
+        } finally {
+            client.stop();
+            pool.shutdownNow();
+        }
+    }
+
 // ================================================= Helper functions =================================================
     void CreateFileForTest(String fileName,String content)    {
         try
@@ -23,6 +23,7 @@ import java.util.concurrent.ExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.vantiq.extjsdk.DispatchExecutors;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
 import io.vantiq.extjsdk.ExtensionWebSocketClient;
 import io.vantiq.extjsdk.Handler;
@@ -43,11 +44,11 @@ public class EasyModbusCore {
     EasyModbusHandleConfiguration easyModbusConfigHandler;
 
     Timer pollTimer = null;
+    boolean conflatePolledRows = false;
     ExtensionWebSocketClient client = null;
     EasyModbus easyModbus = null;
 
     final Logger log;
-    final static int RECONNECT_INTERVAL = 5000;
     final static int DEFAULT_BUNDLE_SIZE = 500;
     final static String SELECT_STATEMENT_IDENTIFIER = "select";
 
@@ -56,6 +57,8 @@ public class EasyModbusCore {
 
     ExecutorService queryPool = null;
     ExecutorService publishPool = null;
+    // Runs the publish and query handlers off the websocket's reader thread. Set by start()
+    ExecutorService handlerExecutor = null;
 
     private static final String SYNCH_LOCK = "synchLock";
 
@@ -104,12 +107,13 @@ public class EasyModbusCore {
             easyModbusConfigHandler.configComplete = false;
 
             boolean sourcesSucceeded = false;
+            int retryCount = 0;
             while (!sourcesSucceeded) {
                 client.initiateFullConnection(targetVantiqServer, authToken);
                 sourcesSucceeded = exitIfConnectionFails(client, 10);
                 if (!sourcesSucceeded) {
                     try {
-                        Thread.sleep(RECONNECT_INTERVAL);
+                        Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                     } catch (InterruptedException e) {
                         log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                     }
@@ -151,9 +155,17 @@ public class EasyModbusCore {
      *         never return false).
      */
     public boolean start(int timeout) {
+        if (handlerExecutor == null) {
+            // Publishes and queries still run one at a time in the order they arrived, but no longer hold up the
+            // acknowledgements of notifications
+            handlerExecutor = DispatchExecutors.serial("easyModbusHandlers#" + sourceName);
+        }
         boolean sourcesSucceeded = false;
+        int retryCount = 0;
         while (!sourcesSucceeded) {
             client = new ExtensionWebSocketClient(sourceName);
+            client.setPublishExecutor(handlerExecutor);
+            client.setQueryExecutor(handlerExecutor);
             easyModbusConfigHandler = new EasyModbusHandleConfiguration(this);
 
             client.setConfigHandler(easyModbusConfigHandler);
@@ -164,7 +176,7 @@ public class EasyModbusCore {
             sourcesSucceeded = exitIfConnectionFails(client, timeout);
             if (!sourcesSucceeded) {
                 try {
-                    Thread.sleep(RECONNECT_INTERVAL);
+                    Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                 } catch (InterruptedException e) {
                     log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                 }
@@ -297,8 +309,16 @@ public class EasyModbusCore {
 
             HashMap[] queryMap = localEasyModbus.processQuery(pollQuery);
             if (queryMap != null) {
-                for (HashMap h : queryMap) {
-                    client.sendNotification(h);
+                for (int i = 0; i < queryMap.length; i++) {
+                    if (conflatePolledRows) {
+                        // Each poll reads the same registers, so a row not yet sent is replaced by the same row of a
+                        // later poll
+                        if (!client.sendConflatedNotification(pollQuery + "#" + i, queryMap[i])) {
+                            log.warn("Dropped a polled row since the notification queue is full.");
+                        }
+                    } else {
+                        client.sendNotification(queryMap[i]);
+                    }
                 }
             }
         } catch (VantiqEasyModbusException e) {
@@ -389,6 +409,10 @@ public class EasyModbusCore {
             client.stop();
             client = null;
         }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdownNow();
+            handlerExecutor = null;
+        }
     }
 
     /**
@@ -63,6 +63,7 @@ public class EasyModbusHandleConfiguration extends Handler<ExtensionServiceMessa
     private static final String BUFFER_SIZE = "Size";
     private static final String POLL_TIME = "pollTime";
     private static final String POLL_QUERY = "pollQuery";
+    private static final String CONFLATE_POLLED_ROWS = "conflatePolledRows";
     private static final String ASYNCH_PROCESSING = "asynchronousProcessing";
     private static final String MAX_ACTIVE = "maxActiveTasks";
     private static final String MAX_QUEUED = "maxQueuedTasks";
@@ -165,6 +166,8 @@ public class EasyModbusHandleConfiguration extends Handler<ExtensionServiceMessa
             return false;
         }
 
+        source.conflatePolledRows = Boolean.TRUE.equals(config.get(CONFLATE_POLLED_ROWS));
+
         // Create polling query if specified
         if (config.get(POLL_TIME) instanceof Integer) {
             if (config.get(POLL_QUERY) instanceof String) {
@@ -15,14 +15,18 @@ import static org.apache.camel.ExchangePattern.InOut;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vantiq.extjsdk.AsyncHandler;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
 import io.vantiq.extjsdk.ExtensionWebSocketClient;
 import io.vantiq.extjsdk.Handler;
+import io.vantiq.extjsdk.JsonCodec;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -38,7 +42,7 @@ public class VantiqConsumer extends DefaultConsumer {
 
     private ExecutorService executorService;
     
-    ObjectMapper mapper = new ObjectMapper();
+    ObjectMapper mapper = JsonCodec.mapper();
     
     public VantiqConsumer(VantiqEndpoint endpoint, Processor processor) {
         super(endpoint, processor);
@@ -71,22 +75,22 @@ public class VantiqConsumer extends DefaultConsumer {
     /**
      * A handler for dealing with publishes to Camel.
      */
-    private final Handler<ExtensionServiceMessage> publishHandler = new Handler<>() {
+    private final Handler<ExtensionServiceMessage> publishHandler = new AsyncHandler<>() {
         @Override
-        public void handleMessage(ExtensionServiceMessage message) {
-            // When we get a message, process it in the background...
-            executorService.submit( () -> processMessage(message, InOnly));
+        public CompletionStage<?> handleMessageAsync(ExtensionServiceMessage message) {
+            // When we get a message, process it in the background, letting the client know when it is done...
+            return CompletableFuture.runAsync(() -> processMessage(message, InOnly), executorService);
         }
     };
     
     /**
      * A handler for dealing with queries to Camel.
      */
-    private final Handler<ExtensionServiceMessage> queryHandler = new Handler<>() {
+    private final Handler<ExtensionServiceMessage> queryHandler = new AsyncHandler<>() {
         @Override
-        public void handleMessage(ExtensionServiceMessage message) {
-            // When we get a message, process it in the background...
-            executorService.submit( () -> processMessage(message, InOut));
+        public CompletionStage<?> handleMessageAsync(ExtensionServiceMessage message) {
+            // When we get a message, process it in the background, letting the client know when it is done...
+            return CompletableFuture.runAsync(() -> processMessage(message, InOut), executorService);
         }
     };
     
@@ -98,7 +102,12 @@ public class VantiqConsumer extends DefaultConsumer {
         } else {
             boolean convertToStream = false;
             ExtensionServiceMessage message = (ExtensionServiceMessage) msg;
-            Object msgBody = message.getObject();
+            boolean outputJson = endpoint.isConsumerOutputJson() || endpoint.isConsumerOutputJsonStream();
+            // JSON output of an unstructured message can be parsed straight from the received bytes, skipping the
+            // Map that getObject() would build.
+            boolean treeFromRaw = outputJson && !endpoint.isStructuredMessageHeader()
+                    && message.getRawObject() != null;
+            Object msgBody = treeFromRaw ? null : message.getObject();
             Map<String, Object> camelHdrs = null;
             Object camelBody = null;
             if (endpoint.isStructuredMessageHeader() && msgBody instanceof Map) {
@@ -121,11 +130,11 @@ public class VantiqConsumer extends DefaultConsumer {
                 log.debug("Structured message -- hdrs: {}, message: {}", camelHdrs, camelBody);
             }
             Object output = msgBody;
-            if (endpoint.isConsumerOutputJson() || endpoint.isConsumerOutputJsonStream()) {
+            if (outputJson) {
                 // Convert to JSON output
                 // Things coming from Vantiq will be Strings or a Vail objects/Maps.  This should be
                 // sufficient for those conversions.
-                JsonNode jnode  = mapper.valueToTree(msgBody);
+                JsonNode jnode  = treeFromRaw ? message.getObjectAsTree() : mapper.valueToTree(msgBody);
 
                 output = Objects.requireNonNullElse(jnode, "");
                 if (log.isDebugEnabled()) {
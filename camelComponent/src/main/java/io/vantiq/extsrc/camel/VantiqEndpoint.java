@@ -74,6 +74,12 @@ public class VantiqEndpoint extends DefaultEndpoint {
     @Setter
     private boolean sendPings;
     
+    public static final String SHARED_CONNECTION_PARAM = "sharedConnection";
+    @UriParam(defaultValue = "false")
+    @Getter
+    @Setter
+    private boolean sharedConnection;
+    
     public static final String NO_SSL_PARAM = "noSsl";
     @UriParam(defaultValue = "false")
     @Getter
@@ -274,6 +280,7 @@ public class VantiqEndpoint extends DefaultEndpoint {
                     // Reconfig's are handled here by auto-reconnect.
             
                     vantiqClient = buildVantiqClient(sourceName, failedMessageQueueSize);
+                    vantiqClient.setUseSharedConnection(sharedConnection);
                     CompletableFuture<Boolean> fut =
                             vantiqClient.initiateFullConnection(correctedVantiqUrl, accessToken, sendPings);
             
@@ -24,6 +24,7 @@ import com.fasterxml.jackson.databind.node.ContainerNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
+import io.vantiq.extjsdk.JsonCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.Exchange;
 import org.apache.camel.ExchangePattern;
@@ -49,18 +50,19 @@ import java.util.Map;
 
 @Slf4j
 public class VantiqProducer extends DefaultProducer {
+    // The mapper in the java SDK is not configured to serialize dates to strings. We will configure our own to
+    // do so and perform the conversion before sending. It is shared by every producer, so that each one does not
+    // build its own serializers.
+    private static final ObjectMapper DATE_STRING_MAPPER =
+            JsonCodec.newMapper().registerModule(new JavaTimeModule())
+                                 .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
     private final VantiqEndpoint endpoint;
-    ObjectMapper mapper;
+    ObjectMapper mapper = DATE_STRING_MAPPER;
     
     public VantiqProducer(VantiqEndpoint endpoint) {
         super(endpoint);
         this.endpoint = endpoint;
-        // The mapper in the java SDK is not configured to serialize dates to strings. We will configure ourselves to
-        // do so and perform the conversion before sending.
-        JavaTimeModule mod = new JavaTimeModule();
-        mapper =
-                new ObjectMapper().registerModule(mod)
-                                  .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
     }
     
     @SuppressWarnings("unchecked")
@@ -33,7 +33,6 @@ public class CamelCore {
     
     CamelHandleConfiguration camelConfigHandler;
     ExtensionWebSocketClient    client  = null;
-    final static int RECONNECT_INTERVAL = 5000;
     private static final String SYNCH_LOCK = "synchLock";
 
     /**
@@ -72,12 +71,13 @@ public class CamelCore {
             camelConfigHandler.configComplete = false;
             
             boolean sourcesSucceeded = false;
+            int retryCount = 0;
             while (!sourcesSucceeded) {
                 client.initiateFullConnection(targetVantiqServer, authToken);
                 sourcesSucceeded = exitIfConnectionFails(client, 10);
                 if (!sourcesSucceeded) {
                     try {
-                        Thread.sleep(RECONNECT_INTERVAL);
+                        Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                     } catch (InterruptedException e) {
                         log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                     }
@@ -113,6 +113,7 @@ public class CamelCore {
      */
     public boolean start(int timeout) {
         boolean sourceSucceeded = false;
+        int retryCount = 0;
         while (!sourceSucceeded) {
             client = new ExtensionWebSocketClient(sourceName);
             ClientRegistry.registerClient(sourceName, targetVantiqServer, client);
@@ -126,7 +127,7 @@ public class CamelCore {
             sourceSucceeded = exitIfConnectionFails(client, timeout);
             if (!sourceSucceeded) {
                 try {
-                    Thread.sleep(RECONNECT_INTERVAL);
+                    Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                 } catch (InterruptedException e) {
                     log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                 }
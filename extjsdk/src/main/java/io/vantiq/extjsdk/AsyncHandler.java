@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link Handler} that starts its work and returns without waiting for it to finish.
+ * <p>
+ * The {@link ExtensionWebSocketListener} counts a message as in flight from the time it is dispatched until the
+ * {@link CompletionStage} returned by {@link #handleMessageAsync} completes, so that limits set with
+ * {@link ExtensionWebSocketClient#setMaxQueriesInFlight} and {@link ExtensionWebSocketClient#setMaxPublishesInFlight}
+ * cover the whole of the work rather than just the call that started it. A failed stage is logged as an exception
+ * thrown by a synchronous handler would be.
+ *
+ * @param <T>   The type of the message that will be received.
+ */
+public abstract class AsyncHandler<T> extends Handler<T> {
+
+    /**
+     * Starts the actions to be performed upon {@code message}. This should not block, since it runs on the websocket's
+     * reader thread unless an executor has been set for the handler.
+     * <p>
+     * Throwing a {@link java.util.concurrent.RejectedExecutionException} has the same effect as the handler's executor
+     * rejecting the message.
+     *
+     * @param message   A message to be handled
+     * @return          A {@link CompletionStage} that completes when the actions are done, or null if they already are.
+     */
+    public abstract CompletionStage<?> handleMessageAsync(T message);
+
+    /**
+     * Starts the actions to be performed upon {@code message}, without waiting for them to finish.
+     *
+     * @param message   A message to be handled
+     */
+    @Override
+    public final void handleMessage(T message) {
+        handleMessageAsync(message);
+    }
+
+    /**
+     * Creates an {@link AsyncHandler} with an empty {@link Map} for {@link #variable}
+     */
+    public AsyncHandler() {
+        super();
+    }
+
+    /**
+     * Creates an {@link AsyncHandler} with {@link #variable} equal to {@code variable}
+     *
+     * @param variable    The Map that will be the initial value of {@link #variable}
+     */
+    public AsyncHandler(Map variable) {
+        super(variable);
+    }
+}
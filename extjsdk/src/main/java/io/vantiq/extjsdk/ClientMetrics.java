@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics an {@link ExtensionWebSocketClient} records about its source, labelled with the source's name, and with
+ * the shard's index for the additional connections of a client with {@link NotificationShards several shards}.
+ */
+class ClientMetrics {
+    static final String PREFIX = "vantiq_connector_";
+
+    private final MetricsRegistry registry;
+    private final String[] labels;
+
+    final MetricsRegistry.Counter notificationsSent;
+    final MetricsRegistry.Counter notificationsAcked;
+    final MetricsRegistry.Counter notificationErrors;
+    final MetricsRegistry.Counter reconnects;
+    final MetricsRegistry.Counter failedMessageEvictions;
+    final MetricsRegistry.Counter notificationsConflated;
+    final MetricsRegistry.Counter notificationsDropped;
+    final MetricsRegistry.Histogram ackRoundTrip;
+    final MetricsRegistry.Summary notificationSerialized;
+    final MetricsRegistry.Summary notificationWritten;
+    final MetricsRegistry.Summary notificationAcked;
+    final MetricsRegistry.Summary sourceHandedOver;
+    final MetricsRegistry.Summary sourceAcked;
+    /**
+     * The time messages waited in each {@link OutboundLanes outbound lane}, indexed by the lane's ordinal.
+     */
+    final MetricsRegistry.Histogram[] laneWaits = new MetricsRegistry.Histogram[OutboundLanes.Lane.values().length];
+
+    private final ConcurrentMap<String, MetricsRegistry.Histogram> handlerRunTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, MetricsRegistry.Histogram> handlerQueueTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, MetricsRegistry.Counter> handlerRejections = new ConcurrentHashMap<>();
+
+    ClientMetrics(MetricsRegistry registry, ExtensionWebSocketClient client) {
+        this.registry = registry;
+        this.labels = client.shard == 0 ? new String[] {"source", client.getSourceName()}
+                : new String[] {"source", client.getSourceName(), "shard", Integer.toString(client.shard)};
+
+        notificationsSent = registry.counter(PREFIX + "notifications_sent_total",
+                "Notifications written to the websocket.", labels());
+        notificationsAcked = registry.counter(PREFIX + "notifications_acked_total",
+                "Notifications acknowledged by Vantiq, successfully or not.", labels());
+        notificationErrors = registry.counter(PREFIX + "notification_errors_total",
+                "Notifications for which Vantiq reported an error.", labels());
+        reconnects = registry.counter(PREFIX + "reconnects_total",
+                "Attempts to reconnect to the source after Vantiq asked for it.", labels());
+        failedMessageEvictions = registry.counter(PREFIX + "failed_message_evictions_total",
+                "Messages dropped from the in-memory failed message queue because it was full.", labels());
+        notificationsConflated = registry.counter(PREFIX + "notifications_conflated_total",
+                "Conflated notifications replaced by a newer value for the same key before being sent.",
+                labels());
+        notificationsDropped = registry.counter(PREFIX + "notifications_dropped_total",
+                "Conflated notifications dropped because the queue or the values held while disconnected were full.",
+                labels());
+        ackRoundTrip = registry.histogram(PREFIX + "notification_ack_seconds",
+                "Time from writing a notification to receiving its acknowledgement.",
+                MetricsRegistry.LATENCY_BUCKETS, labels());
+
+        String stageHelp = "Time from a connector handing a notification to the client to each stage of sending it.";
+        notificationSerialized = registry.summary(PREFIX + "notification_latency_seconds", stageHelp,
+                labels("stage", "serialized"));
+        notificationWritten = registry.summary(PREFIX + "notification_latency_seconds", stageHelp,
+                labels("stage", "written"));
+        notificationAcked = registry.summary(PREFIX + "notification_latency_seconds", stageHelp,
+                labels("stage", "acked"));
+        String sourceHelp = "Time from a connector receiving a notification's data from its own source to the "
+                + "notification being handed to the client and acknowledged.";
+        sourceHandedOver = registry.summary(PREFIX + "notification_source_latency_seconds", sourceHelp,
+                labels("stage", "handover"));
+        sourceAcked = registry.summary(PREFIX + "notification_source_latency_seconds", sourceHelp,
+                labels("stage", "acked"));
+
+        for (OutboundLanes.Lane lane : OutboundLanes.Lane.values()) {
+            laneWaits[lane.ordinal()] = registry.histogram(PREFIX + "outbound_lane_wait_seconds",
+                    "Time messages waited in their outbound lane before being written to the websocket.",
+                    MetricsRegistry.LATENCY_BUCKETS, labels("lane", lane.label()));
+            registry.gauge(PREFIX + "outbound_lane_bytes",
+                    "Bytes of messages waiting in each outbound lane.",
+                    () -> client.outboundLanes.getQueuedBytes(lane), labels("lane", lane.label()));
+        }
+
+        registry.gauge(PREFIX + "notification_window_size",
+                "Notifications that may be awaiting acknowledgement at once.",
+                () -> client.outstandingNotifications.getWindowSize(), labels());
+        registry.gauge(PREFIX + "notifications_outstanding",
+                "Notifications awaiting acknowledgement.",
+                () -> client.outstandingNotifications.getOutstanding(), labels());
+        registry.counter(PREFIX + "notification_window_wait_seconds_total",
+                "Time spent waiting for room in the notification window.",
+                () -> client.outstandingNotifications.getBlockedNanos() / (double) TimeUnit.SECONDS.toNanos(1),
+                labels());
+        registry.counter(PREFIX + "notification_window_waits_total",
+                "Notifications that had to wait for room in the notification window.",
+                () -> client.outstandingNotifications.getBlockedCount(), labels());
+        registry.gauge(PREFIX + "notifications_queued",
+                "Notifications waiting for the notification writer.",
+                () -> client.notificationWriter.getQueuedCount(), labels());
+        registry.gauge(PREFIX + "writable",
+                "Whether the client is writable (1) or asking producers to pause (0).",
+                () -> client.notificationWriter.isWritable() ? 1 : 0, labels());
+        registry.gauge(PREFIX + "notifications_held",
+                "Conflated notifications held until the source reconnects.",
+                () -> client.notificationWriter.getHeldCount(), labels());
+        registry.gauge(PREFIX + "failed_messages",
+                "Messages held until the source reconnects.",
+                () -> client.failedMessageQueue.size(), labels());
+        registry.counter(PREFIX + "failed_message_journal_evictions_total",
+                "Messages dropped from the failed message journal because it was full.",
+                () -> {
+                    Queue<Object> queue = client.failedMessageQueue;
+                    return queue instanceof MappedMessageJournal ? ((MappedMessageJournal) queue).getEvictedCount() : 0;
+                }, labels());
+
+        if (client.shard == 0) {
+            // The shards share the primary client's rate limiter and in-flight limits, so only it reports them
+            registry.counter(PREFIX + "notification_throttle_seconds_total",
+                    "Time notifications waited for the source's notification rate limits.",
+                    () -> client.rateLimiter.getThrottledNanos() / (double) TimeUnit.SECONDS.toNanos(1),
+                    labels());
+            registry.counter(PREFIX + "notifications_throttled_total",
+                    "Notifications that had to wait for the source's notification rate limits.",
+                    () -> client.rateLimiter.getThrottledCount(), labels());
+            registry.gauge(PREFIX + "handler_in_flight",
+                    "Messages whose handler has not yet finished.",
+                    () -> client.listener.getPublishesInFlight(), labels("handler", "publish"));
+            registry.gauge(PREFIX + "handler_in_flight",
+                    "Messages whose handler has not yet finished.",
+                    () -> client.listener.getQueriesInFlight(), labels("handler", "query"));
+        }
+    }
+
+    /**
+     * @param extra Alternating names and values of labels to add to the client's own.
+     * @return      The client's labels followed by {@code extra}.
+     */
+    private String[] labels(String... extra) {
+        String[] all = Arrays.copyOf(labels, labels.length + extra.length);
+        System.arraycopy(extra, 0, all, labels.length, extra.length);
+        return all;
+    }
+
+    /**
+     * Records the acknowledgement of a notification.
+     *
+     * @param success           Whether Vantiq accepted the notification.
+     * @param roundTripNanos    The time since the notification was written.
+     */
+    void acknowledged(boolean success, long roundTripNanos) {
+        notificationsAcked.increment();
+        if (!success) {
+            notificationErrors.increment();
+        }
+        ackRoundTrip.observeNanos(roundTripNanos);
+    }
+
+    /**
+     * Records a notification being handed to the client by its connector.
+     *
+     * @param pending   The notification.
+     */
+    void notificationHandedOver(NotificationWriter.PendingNotification pending) {
+        if (pending.receivedAt > 0) {
+            sourceHandedOver.observeNanos(sinceReceived(pending));
+        }
+    }
+
+    /**
+     * Records a notification having been serialized.
+     *
+     * @param pending   The notification.
+     */
+    void notificationSerialized(NotificationWriter.PendingNotification pending) {
+        notificationSerialized.observeNanos(System.nanoTime() - pending.handedAt);
+    }
+
+    /**
+     * Records a notification having been handed to the websocket.
+     *
+     * @param pending   The notification.
+     */
+    void notificationWritten(NotificationWriter.PendingNotification pending) {
+        notificationWritten.observeNanos(System.nanoTime() - pending.handedAt);
+    }
+
+    /**
+     * Records the acknowledgement of a notification against the times it was handed over and received.
+     *
+     * @param pending   The notification.
+     */
+    void notificationAcked(NotificationWriter.PendingNotification pending) {
+        notificationAcked.observeNanos(System.nanoTime() - pending.handedAt);
+        if (pending.receivedAt > 0) {
+            sourceAcked.observeNanos(sinceReceived(pending));
+        }
+    }
+
+    private static long sinceReceived(NotificationWriter.PendingNotification pending) {
+        // The receipt time comes from the connector's own source, so it can only be compared with the wall clock
+        return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - pending.receivedAt);
+    }
+
+    /**
+     * Records a run of one of the listener's handlers.
+     *
+     * @param handlerName   The handler that ran, e.g. "publish".
+     * @param queuedNanos   The time between receiving the message and starting the handler.
+     * @param runNanos      The time the handler took, including the work an {@link AsyncHandler} left running.
+     */
+    void handlerRan(String handlerName, long queuedNanos, long runNanos) {
+        handlerQueueTimes.computeIfAbsent(handlerName, h -> registry.histogram(PREFIX + "handler_queue_seconds",
+                "Time messages waited for a handler's executor.", MetricsRegistry.LATENCY_BUCKETS,
+                labels("handler", h))).observeNanos(queuedNanos);
+        handlerRunTimes.computeIfAbsent(handlerName, h -> registry.histogram(PREFIX + "handler_seconds",
+                "Time taken by a handler.", MetricsRegistry.LATENCY_BUCKETS,
+                labels("handler", h))).observeNanos(runNanos);
+    }
+
+    /**
+     * Records a message rejected by one of the listener's handlers, its executor, or its in-flight limit.
+     *
+     * @param handlerName   The handler whose message was rejected, e.g. "query".
+     */
+    void handlerRejected(String handlerName) {
+        handlerRejections.computeIfAbsent(handlerName, h -> registry.counter(PREFIX + "handler_rejected_total",
+                "Messages rejected because a handler, its executor, or its in-flight limit was full.",
+                labels("handler", h))).increment();
+    }
+}
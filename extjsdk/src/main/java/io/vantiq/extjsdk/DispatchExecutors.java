@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factories for the {@link Executor}s that an {@link ExtensionWebSocketListener} can use to run its handlers off of the
+ * websocket's reader thread. See {@link ExtensionWebSocketListener#setPublishExecutor} and its siblings.
+ * <p>
+ * The executors created here are bounded: once they have as much work as they are allowed to hold, further tasks are
+ * rejected with a {@link RejectedExecutionException} rather than blocking the reader thread. The listener reports
+ * rejected queries back to Vantiq as errors so that they do not wait for a timeout.
+ */
+public final class DispatchExecutors {
+
+    /**
+     * The number of tasks that may wait for a thread of the {@link #shared} executor.
+     */
+    static final int SHARED_QUEUE_SIZE = 4096;
+
+    /**
+     * The number of tasks that may wait for the thread of a {@link #serial} executor.
+     */
+    static final int SERIAL_QUEUE_SIZE = 1024;
+
+    private static ExecutorService shared = null;
+
+    private DispatchExecutors() {
+    }
+
+    /**
+     * Returns the bounded executor shared by every source in this JVM, creating it on first use. It has two daemon
+     * threads per processor, and is meant for the work started by an {@link AsyncHandler} that does not need threads
+     * of its own. Work that blocks for long periods, such as database calls, should use its own bounded pool instead,
+     * so that it cannot hold up other sources.
+     *
+     * @return  The shared {@link ExecutorService}. It should not be shut down.
+     */
+    public static synchronized ExecutorService shared() {
+        if (shared == null) {
+            shared = bounded("vantiqShared", 2 * Runtime.getRuntime().availableProcessors(), SHARED_QUEUE_SIZE);
+        }
+        return shared;
+    }
+
+    /**
+     * Creates a fixed-size pool of daemon threads with a bounded queue.
+     *
+     * @param name      The prefix for the names of the pool's threads.
+     * @param threads   The number of threads. Use 1 to run handlers in the order their messages arrived.
+     * @param queueSize The number of tasks that may wait for a thread before further tasks are rejected.
+     * @return          The new {@link ExecutorService}.
+     */
+    public static ExecutorService bounded(String name, int threads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), daemonThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates a single daemon thread with a bounded queue, which runs handlers one at a time in the order their
+     * messages arrived, as they would run on the websocket's reader thread, but without holding up the reader.
+     *
+     * @param name  The name of the thread.
+     * @return      The new {@link ExecutorService}.
+     */
+    public static ExecutorService serial(String name) {
+        return bounded(name, 1, SERIAL_QUEUE_SIZE);
+    }
+
+    /**
+     * Creates an executor that runs each task on its own virtual thread, with at most {@code maxConcurrent} tasks
+     * running at once. Virtual threads require Java 21 or later.
+     *
+     * @param maxConcurrent The number of tasks that may be running at once before further tasks are rejected.
+     * @return              The new {@link Executor}.
+     * @throws UnsupportedOperationException if the running JVM does not support virtual threads.
+     */
+    public static Executor virtualThreads(int maxConcurrent) {
+        ExecutorService delegate;
+        try {
+            // Looked up reflectively since the SDK is built for Java 8
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            delegate = (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later.", e);
+        }
+        return limitConcurrency(delegate, maxConcurrent);
+    }
+
+    /**
+     * Wraps {@code delegate} so that at most {@code maxConcurrent} of the tasks given to it run at once, rejecting
+     * tasks beyond that.
+     *
+     * @param delegate      The {@link Executor} that runs the tasks.
+     * @param maxConcurrent The number of tasks that may be running at once.
+     * @return              The wrapping {@link Executor}.
+     */
+    public static Executor limitConcurrency(Executor delegate, int maxConcurrent) {
+        Semaphore permits = new Semaphore(maxConcurrent);
+        return task -> {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("Executor already has " + maxConcurrent + " tasks running.");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException ree) {
+                permits.release();
+                throw ree;
+            }
+        };
+    }
+
+    static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
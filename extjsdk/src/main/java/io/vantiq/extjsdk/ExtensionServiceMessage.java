@@ -9,6 +9,9 @@
 
 package io.vantiq.extjsdk;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.MediaType;
 
 import java.util.HashMap;
@@ -87,10 +90,21 @@ public class ExtensionServiceMessage {
     public Map parameters;
 
     /**
-     * The body content of the operation.
+     * The body content of the operation. For messages received from Vantiq this is filled in when the message is
+     * decoded, unless the listener defers decoding it (see
+     * {@link ExtensionWebSocketListener#setDeferObjectDecoding(boolean)}), in which case it is null until
+     * {@link #getObject()} is first called.
      */
     public Object object;
 
+    /**
+     * The unparsed body of a received message, and the value {@link #object} was parsed from, if it has been.
+     */
+    private RawJson rawObject;
+    private Object parsedObject;
+
+    private static final ObjectMapper mapper = JsonCodec.mapper();
+
     /**
      * The execution context that should be established for this message.
      */
@@ -143,9 +157,44 @@ public class ExtensionServiceMessage {
         return asMap().toString();
     }
 
-    public Object getObject() {
+    /**
+     * Returns the body content of the operation. If decoding the body of a received message was deferred, it is parsed
+     * on the first call.
+     *
+     * @return  The body, typically a {@link Map}.
+     */
+    public synchronized Object getObject() {
+        if (object == null && rawObject != null) {
+            object = rawObject.parse();
+            parsedObject = object;
+        }
         return this.object;
     }
+
+    /**
+     * Returns the body content of the operation as a {@link JsonNode}. For a received message this is parsed directly
+     * from the received bytes, without building the {@link Map} returned by {@link #getObject()}.
+     *
+     * @return  The body as a {@link JsonNode}.
+     */
+    @JsonIgnore
+    public JsonNode getObjectAsTree() {
+        RawJson raw = getRawObject();
+        if (raw != null) {
+            return raw.parseTree();
+        }
+        return mapper.valueToTree(getObject());
+    }
+
+    /**
+     * Returns the unparsed body of a received message, for handlers that forward it without looking inside.
+     *
+     * @return  The body's JSON, or null if this message was not received from Vantiq or its body has been replaced.
+     */
+    @JsonIgnore
+    public synchronized RawJson getRawObject() {
+        return object == null || object == parsedObject ? rawObject : null;
+    }
     
     public String getSourceName() {
         return this.resourceId;
@@ -212,7 +261,8 @@ public class ExtensionServiceMessage {
         m.put("isSystemResource", isSystemResource);
         if (resourceId != null) m.put("resourceId", resourceId);
         if (parameters != null) m.put("parameters", parameters);
-        if (object != null) m.put("object", object);
+        Object body = getObject();
+        if (body != null) m.put("object", body);
         if (sessionId != null) m.put("sessionId", sessionId);
         if (contentType != null) m.put("contentType", contentType);
         if (responseType != null) m.put("responseType", responseType);
@@ -231,6 +281,18 @@ public class ExtensionServiceMessage {
      * @return - the DataMessage populated with the mapOfMessage contents.
      */
     public ExtensionServiceMessage fromMap(Map mapOfMessage) {
+        return fromMap(mapOfMessage, false);
+    }
+
+    /**
+     * Convert the contents of the Map into the contents of this DataMessage.
+     *
+     * @param mapOfMessage - the map representation of the message.
+     * @param deferObject - whether an object received as raw JSON is left unparsed until {@link #getObject()} is
+     *                    called, rather than parsed into {@link #object} now.
+     * @return - the DataMessage populated with the mapOfMessage contents.
+     */
+    public ExtensionServiceMessage fromMap(Map mapOfMessage, boolean deferObject) {
         Map m = mapOfMessage;
         if (m.containsKey("namespaceName")) namespaceName = (String) m.get("namespaceName");
         if (m.containsKey("locale")) locale = (String) m.get("locale");
@@ -238,7 +300,22 @@ public class ExtensionServiceMessage {
         if (m.containsKey("isSystemResource")) isSystemResource = (boolean) m.get("isSystemResource");
         if (m.containsKey("resourceName")) resourceName = (String) m.get("resourceName");
         if (m.containsKey("resourceId")) resourceId = (String) m.get("resourceId");
-        if (m.containsKey("object")) object = m.get("object");
+        if (m.containsKey("object")) {
+            Object o = m.get("object");
+            if (o instanceof RawJson) {
+                // Kept so that the object can also be read as a tree or forwarded as is. See getRawObject()
+                rawObject = (RawJson) o;
+                parsedObject = null;
+                object = null;
+                if (!deferObject) {
+                    getObject();
+                }
+            } else {
+                rawObject = null;
+                parsedObject = null;
+                object = o;
+            }
+        }
         if (m.containsKey("sessionId")) sessionId = (String) m.get("sessionId");
         if (m.containsKey("contentType")) contentType = (String) m.get("contentType");
         if (m.containsKey("responseType")) responseType = (String) m.get("responseType");
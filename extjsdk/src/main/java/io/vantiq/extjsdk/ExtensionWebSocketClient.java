@@ -14,9 +14,12 @@ package io.vantiq.extjsdk;
 
 // For decoding of the messages received
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.collect.EvictingQueue;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -26,6 +29,7 @@ import java.util.concurrent.*;
 import java.util.Queue;
 import java.util.UUID;
 // WebSocket imports
+import okio.Buffer;
 import okio.ByteString;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -70,10 +74,58 @@ public class ExtensionWebSocketClient {
      */
     private static final String FAILED_MESAGE_QUEUE_SIZE = "FAILED_MESSAGE_QUEUE_SIZE";
 
+    /**
+     * The env var used to keep failed messages in a disk-backed journal in the given directory instead of in memory
+     */
+    private static final String FAILED_MESSAGE_JOURNAL_DIR = "FAILED_MESSAGE_JOURNAL_DIR";
+
+    /**
+     * The env var used to overwrite the default number of bytes the failed message journal may use
+     */
+    private static final String FAILED_MESSAGE_JOURNAL_SIZE = "FAILED_MESSAGE_JOURNAL_SIZE";
+
+    /**
+     * The default number of bytes the failed message journal may use
+     */
+    private static final long DEFAULT_FAILED_MESSAGE_JOURNAL_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * The env var used to overwrite the floor of the notification window
+     */
+    private static final String NOTIFICATION_WINDOW_MIN = "NOTIFICATION_WINDOW_MIN";
+
+    /**
+     * The env var used to overwrite the ceiling of the notification window
+     */
+    private static final String NOTIFICATION_WINDOW_MAX = "NOTIFICATION_WINDOW_MAX";
+
+    /**
+     * The env var used to overwrite the number of notifications that may be queued for the writer thread
+     */
+    private static final String NOTIFICATION_QUEUE_SIZE = "NOTIFICATION_QUEUE_SIZE";
+
+    /**
+     * How long {@link #doCoreReconnect} waits for each attempt to connect to the source
+     */
+    private static final long RECONNECT_ATTEMPT_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Runs the attempts of {@link #doCoreReconnect}, and waits out the delays between them, without tying up a thread
+     * while an attempt is in progress or a delay is pending
+     */
+    private static final ScheduledExecutorService reconnectScheduler =
+            Executors.newSingleThreadScheduledExecutor(DispatchExecutors.daemonThreadFactory("vantiqReconnect"));
+
     /**
      * An {@link ObjectMapper} used to transform objects into JSON before sending
      */
-    private ObjectMapper mapper = new ObjectMapper();
+    private ObjectMapper mapper = JsonCodec.mapper();
+
+    /**
+     * An {@link ObjectWriter} from {@link #mapper}, used to serialize outgoing messages without looking up the
+     * configuration on each call.
+     */
+    private ObjectWriter writer = JsonCodec.writer();
 
     /**
      * The WebSocket used to talk to the Vantiq deployment. null when no connection is established
@@ -81,9 +133,54 @@ public class ExtensionWebSocketClient {
     WebSocket webSocket = null;
 
     /**
-     * The semaphore used to manage sending source notifications back to Vantiq.
+     * The window used to manage sending source notifications back to Vantiq.
+     */
+    NotificationWindow outstandingNotifications = null;
+
+    /**
+     * The writer that serializes and sends notifications in order on its own thread.
+     */
+    NotificationWriter notificationWriter;
+
+    /**
+     * The prioritized lanes through which every message is written to the websocket.
+     */
+    OutboundLanes outboundLanes;
+
+    /**
+     * Limits the rate at which notifications are sent. Unlimited unless set by {@link #setNotificationRateLimit}, the
+     * server.config file, or the source's configuration. Shared by all of a source's {@link NotificationShards shards}.
+     */
+    final NotificationRateLimiter rateLimiter;
+
+    /**
+     * The index of this client among its source's notification shards. 0 unless this is one of the additional
+     * connections opened by {@link NotificationShards}.
+     */
+    final int shard;
+
+    /**
+     * The additional connections notifications are spread across, or null if this client sends on its own websocket
+     * only. See {@link #setNotificationShards}.
      */
-    Semaphore outstandingNotifications = null;
+    volatile NotificationShards shards = null;
+
+    /**
+     * How long to wait between attempts to reconnect. See {@link #setReconnectPolicy}.
+     */
+    private volatile ReconnectPolicy reconnectPolicy;
+
+    /**
+     * Whether the failed message queue is being flushed after a reconnection. While it is, new notifications join the
+     * end of the queue so that they follow the ones held from before. Only set while holding {@link #resumeLock}.
+     */
+    private volatile boolean resuming = false;
+    private final Object resumeLock = new Object();
+
+    /**
+     * The metrics this client records in the default {@link MetricsRegistry}.
+     */
+    ClientMetrics metrics;
 
     /**
      * The name of the source this client is connected to.
@@ -138,6 +235,11 @@ public class ExtensionWebSocketClient {
     // Used by the listener to indicate that we've hit a window in reactivation logic.
     boolean retryConnect = false;
 
+    /**
+     * Whether {@link #initiateFullConnection} uses a {@link SharedConnection} rather than a websocket of its own
+     */
+    private boolean useSharedConnection = false;
+
     /**
      * The data to be used for authentication. This will be either a {@link String} containing an authentication token or
      * a {@link Map} containing the username and password.
@@ -218,22 +320,142 @@ public class ExtensionWebSocketClient {
          * @param utility                   Utils Utils instance to be used for this client
          */
     public ExtensionWebSocketClient (String sourceName, int failedMessageQueueSize, InstanceConfigUtils utility) {
+        this(sourceName, failedMessageQueueSize, utility, null, 0);
+    }
+
+    /**
+     * Creates an {@link ExtensionWebSocketClient} for one of the notification shards of {@code primary}'s source.
+     *
+     * @param primary   The client the connector created, which is shard 0.
+     * @param shard     The index of the shard.
+     */
+    ExtensionWebSocketClient(ExtensionWebSocketClient primary, int shard) {
+        this(primary.sourceName, DEFAULT_FAILED_MESSAGE_QUEUE_SIZE, primary.utils, primary, shard);
+    }
+
+    private ExtensionWebSocketClient(String sourceName, int failedMessageQueueSize, InstanceConfigUtils utility,
+                                     ExtensionWebSocketClient primary, int shard) {
         this.sourceName = sourceName;
-        outstandingNotifications = new Semaphore(5, true);
-        log = LoggerFactory.getLogger(this.getClass().getCanonicalName() + "#" + sourceName);
+        this.shard = shard;
+        this.rateLimiter = primary == null ? new NotificationRateLimiter() : primary.rateLimiter;
+        this.reconnectPolicy = primary == null ? ReconnectPolicy.DEFAULT : primary.reconnectPolicy;
+        log = LoggerFactory.getLogger(this.getClass().getCanonicalName() + "#" + sourceName
+                + (shard == 0 ? "" : "#" + shard));
         if (utility == null) {
             utility = Utils.getInstanceUtilsConfigInstance();
             utils = utility;
         }
         listener = new ExtensionWebSocketListener(this);
 
-        // Check for Environment Variable to overwrite failedMessageQueue size, otherwise use default
-        if (System.getenv(FAILED_MESAGE_QUEUE_SIZE) != null) {
+        // Check for Environment Variable to keep failed messages on disk, or to overwrite failedMessageQueue size,
+        // otherwise use default
+        if (System.getenv(FAILED_MESSAGE_JOURNAL_DIR) != null) {
+            try {
+                long journalSize = DEFAULT_FAILED_MESSAGE_JOURNAL_SIZE;
+                if (System.getenv(FAILED_MESSAGE_JOURNAL_SIZE) != null) {
+                    journalSize = Long.parseLong(System.getenv(FAILED_MESSAGE_JOURNAL_SIZE));
+                }
+                useFailedMessageJournal(new File(System.getenv(FAILED_MESSAGE_JOURNAL_DIR)), journalSize);
+            } catch (NumberFormatException e) {
+                log.error("The " + FAILED_MESSAGE_JOURNAL_SIZE + " '" + System.getenv(FAILED_MESSAGE_JOURNAL_SIZE)
+                        + "' is not a number of bytes. Failed messages will be queued in memory.", e);
+                failedMessageQueue = EvictingQueue.create(failedMessageQueueSize);
+            } catch (IOException | IllegalArgumentException e) {
+                // IllegalArgumentException when the journal size is too small to hold its segments
+                log.error("Could not open the failed message journal. Failed messages will be queued in memory.", e);
+                failedMessageQueue = EvictingQueue.create(failedMessageQueueSize);
+            }
+        } else if (System.getenv(FAILED_MESAGE_QUEUE_SIZE) != null) {
             int customQueueSize = Integer.parseInt(System.getenv(FAILED_MESAGE_QUEUE_SIZE));
             failedMessageQueue = EvictingQueue.create(customQueueSize);
         } else {
             failedMessageQueue = EvictingQueue.create(failedMessageQueueSize);
         }
+
+        // Check for Environment Variables to overwrite the notification window limits, otherwise use defaults
+        try {
+            int windowMin = NotificationWindow.DEFAULT_MIN_WINDOW;
+            int windowMax = NotificationWindow.DEFAULT_MAX_WINDOW;
+            if (System.getenv(NOTIFICATION_WINDOW_MIN) != null) {
+                windowMin = Integer.parseInt(System.getenv(NOTIFICATION_WINDOW_MIN));
+            }
+            if (System.getenv(NOTIFICATION_WINDOW_MAX) != null) {
+                windowMax = Integer.parseInt(System.getenv(NOTIFICATION_WINDOW_MAX));
+            }
+            outstandingNotifications = new NotificationWindow(windowMin, Math.max(windowMin, windowMax));
+        } catch (NumberFormatException e) {
+            log.error("The " + NOTIFICATION_WINDOW_MIN + " '" + System.getenv(NOTIFICATION_WINDOW_MIN) + "' or "
+                    + NOTIFICATION_WINDOW_MAX + " '" + System.getenv(NOTIFICATION_WINDOW_MAX) + "' is not a number. "
+                    + "The default notification window limits will be used.", e);
+            outstandingNotifications = new NotificationWindow();
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid notification window limits. The default limits will be used.", e);
+            outstandingNotifications = new NotificationWindow();
+        }
+
+        int notificationQueueSize = NotificationWriter.DEFAULT_QUEUE_CAPACITY;
+        if (System.getenv(NOTIFICATION_QUEUE_SIZE) != null) {
+            try {
+                notificationQueueSize = Integer.parseInt(System.getenv(NOTIFICATION_QUEUE_SIZE));
+            } catch (NumberFormatException e) {
+                notificationQueueSize = 0;
+            }
+            if (notificationQueueSize <= 0) {
+                log.error("The " + NOTIFICATION_QUEUE_SIZE + " '" + System.getenv(NOTIFICATION_QUEUE_SIZE)
+                        + "' is not a positive number. The default of " + NotificationWriter.DEFAULT_QUEUE_CAPACITY
+                        + " will be used.");
+                notificationQueueSize = NotificationWriter.DEFAULT_QUEUE_CAPACITY;
+            }
+        }
+        notificationWriter = new NotificationWriter(this, notificationQueueSize);
+        outboundLanes = new OutboundLanes(this);
+        metrics = new ClientMetrics(MetricsRegistry.getDefault(), this);
+    }
+
+    /**
+     * Keeps messages that could not be sent because the connection to Vantiq dropped in a disk-backed
+     * {@link MappedMessageJournal} rather than in memory. Any messages already queued are moved to the journal, and
+     * any left unsent in the journal by a previous run will be sent once the source connects. The journal is kept in
+     * a subdirectory of {@code directory} named for this client's source.
+     *
+     * @param directory The directory in which to keep the journal.
+     * @param maxBytes  The most disk space the journal may use. Once full, the oldest messages are dropped.
+     * @throws IOException if the journal cannot be opened.
+     */
+    public void useFailedMessageJournal(File directory, long maxBytes) throws IOException {
+        // Each shard keeps its own journal, since each resends its own messages when it reconnects
+        String journalName = shard == 0 ? sourceName : sourceName + "#" + shard;
+        MappedMessageJournal journal = new MappedMessageJournal(new File(directory, journalName), maxBytes);
+        Queue<Object> oldQueue = failedMessageQueue;
+        if (oldQueue != null) {
+            journal.addAll(oldQueue);
+        }
+        failedMessageQueue = journal;
+    }
+
+    /**
+     * Replaces the window that limits the number of outstanding notifications with one using the given floor and
+     * ceiling. This should be called before any notifications are sent.
+     *
+     * @param minWindow The smallest number of notifications that may be outstanding at once.
+     * @param maxWindow The largest number of notifications that may be outstanding at once.
+     */
+    public void setNotificationWindowLimits(int minWindow, int maxWindow) {
+        outstandingNotifications = new NotificationWindow(minWindow, maxWindow);
+        NotificationShards localShards = shards;
+        if (localShards != null) {
+            localShards.setNotificationWindowLimits(minWindow, maxWindow);
+        }
+    }
+
+    /**
+     * Obtain the {@link NotificationWindow} that limits the number of outstanding notifications. Its current size
+     * and the time senders have spent waiting on it can be used to size the window limits.
+     *
+     * @return  The {@link NotificationWindow} used by this client.
+     */
+    public NotificationWindow getNotificationWindow() {
+        return outstandingNotifications;
     }
 
     /**
@@ -252,12 +474,15 @@ public class ExtensionWebSocketClient {
             port = DEFAULT_TCP_PROBE_PORT;
         }
 
+        startMetricsEndpoint();
         try {
             livenessSocket = new ServerSocket(port);
             probeFuture = CompletableFuture.runAsync(() -> {
                 while (true) {
                     try {
-                        livenessSocket.accept();
+                        // Serves metrics to scrapers, and closes the connections made by plain TCP probes
+                        MetricsEndpoint.respondAsync(livenessSocket.accept(), MetricsRegistry.getDefault(),
+                                MetricsEndpoint.PROBE_RESPONDERS);
                     } catch (IOException e) {
                         log.error("An error occurred while attempting to listen for TCP Probe messages.", e);
                     }
@@ -269,6 +494,20 @@ public class ExtensionWebSocketClient {
         }
     }
 
+    /**
+     * Starts serving metrics on the metrics port, if one is set in the server.config file.
+     */
+    private void startMetricsEndpoint() {
+        Integer metricsPort = utils.obtainMetricsPort();
+        if (metricsPort != null) {
+            try {
+                MetricsEndpoint.startShared(metricsPort);
+            } catch (IOException e) {
+                log.error("An exception occurred while trying to serve metrics on port {}.", metricsPort, e);
+            }
+        }
+    }
+
     /**
      * Cancels the probeFuture, and sets it to null. This kills the ServerSocket, which will indicate to K8s that the
      * connector is not ready/healthy.
@@ -312,8 +551,14 @@ public class ExtensionWebSocketClient {
      *              fully completed, or {@code false} when the connection fails at any point along the way.
      */
     public CompletableFuture<Boolean> initiateFullConnection(String url, String token) {
+        applyServerConfig();
+        if (useSharedConnection) {
+            initiateSharedConnection(url, token, utils.obtainSendPingStatus());
+            return connectToSource();
+        }
         initiateWebsocketConnection(url);
         authenticate(token);
+        connectShards(url, token, utils.obtainSendPingStatus());
         return connectToSource();
     }
     
@@ -330,11 +575,132 @@ public class ExtensionWebSocketClient {
      *              fully completed, or {@code false} when the connection fails at any point along the way.
      */
     public CompletableFuture<Boolean> initiateFullConnection(String url, String token, boolean sendPings) {
+        applyServerConfig();
+        if (useSharedConnection) {
+            initiateSharedConnection(url, token, sendPings);
+            return connectToSource();
+        }
         initiateWebsocketConnection(url, sendPings);
         authenticate(token);
+        connectShards(url, token, sendPings);
         return connectToSource();
     }
+
+    /**
+     * Applies the settings of the server.config file that {@link #initiateFullConnection} uses, for both of its forms.
+     */
+    private void applyServerConfig() {
+        if (shard != 0) {
+            // The shards share the primary client's limiter and take up its settings when they are created
+            return;
+        }
+        applyServerConfigRateLimit();
+        ReconnectPolicy configuredPolicy = utils.obtainReconnectPolicy();
+        if (configuredPolicy != null) {
+            setReconnectPolicy(configuredPolicy);
+        }
+        Integer shardCount = utils.obtainNotificationShards();
+        if (shardCount != null && shards == null) {
+            setNotificationShards(shardCount);
+        }
+    }
+
+    /**
+     * Spreads this client's notifications across {@code count} websockets to its source rather than one, for sources
+     * whose rate is more than a single ordered connection can carry. {@link #initiateFullConnection} then opens and
+     * authenticates {@code count - 1} connections besides this client's own, each with its own notification writer,
+     * window, and acknowledgements. {@link #sendNotification} spreads notifications across the connected shards in
+     * turn, while {@link #sendPartitionedNotification} keeps all notifications with the same key on the same shard,
+     * and so in order. If one of the additional connections drops, it is reopened on its own while the others carry
+     * on; notifications sent to it by key in the meantime are held in its failed message queue until it reconnects.
+     * <p>
+     * Publishes and queries arriving on any shard are given to this client's handlers. Configuration messages are
+     * handled only by this client, and the notification rate limits apply to the source as a whole. Shards are not
+     * used with {@link #setUseSharedConnection a shared connection}.
+     * <p>
+     * This must be called before {@link #initiateFullConnection}. The count may also be set with the
+     * {@code notificationShards} property of the server.config file.
+     *
+     * @param count The number of websockets to use, including this client's own. 1 to use only this client's own.
+     * @throws IllegalArgumentException if {@code count} is less than 1.
+     * @throws IllegalStateException if the shards have already been set.
+     */
+    public synchronized void setNotificationShards(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("A source needs at least one notification shard, but " + count
+                    + " were requested.");
+        }
+        if (shards != null) {
+            throw new IllegalStateException("The notification shards have already been set.");
+        }
+        if (count > 1) {
+            shards = new NotificationShards(this, count);
+            log.info("Spreading notifications across {} connections.", count);
+        }
+    }
+
+    /**
+     * @return  The number of websockets this client's notifications are spread across.
+     */
+    public int getNotificationShards() {
+        NotificationShards localShards = shards;
+        return localShards == null ? 1 : localShards.size();
+    }
+
+    /**
+     * Opens the additional notification shards, if there are any.
+     */
+    private void connectShards(String url, String token, boolean sendPings) {
+        NotificationShards localShards = shards;
+        if (localShards != null) {
+            localShards.connect(url, token, sendPings);
+        }
+    }
     
+    /**
+     * Specify whether {@link #initiateFullConnection} should share a single websocket with every other client that
+     * connects to the same Vantiq server with the same token, rather than open one of its own. Sharing saves the
+     * threads, memory and handshakes of a websocket per source when a connector runs many sources. Initially set to
+     * {@code false}. See {@link SharedConnection}.
+     *
+     * @param value Should the client share its websocket
+     */
+    public void setUseSharedConnection(boolean value) {
+        useSharedConnection = value;
+    }
+
+    /**
+     * @return  Whether {@link #initiateFullConnection} shares a websocket with other clients.
+     */
+    public boolean isUsingSharedConnection() {
+        return useSharedConnection;
+    }
+
+    /**
+     * Joins the {@link SharedConnection} to the given URL for the given token, opening it if necessary. Does nothing
+     * if a connection has already been established.
+     *
+     * @param url       The url of the Vantiq system to which you wish to connect.
+     * @param token     An authentication token capable of accessing the target namespace
+     * @param sendPings Whether to send pings, if the shared connection must be opened.
+     */
+    private synchronized void initiateSharedConnection(String url, String token, boolean sendPings) {
+        authData = token;
+        // Authentication is only attempted once per shared connection, so a failed one means joining a new connection
+        boolean authFailed = authFuture != null && !authFuture.getNow(true);
+        if (webSocket == null || !webSocketFuture.getNow(true) || authFailed) {
+            if (webSocket != null) {
+                // Leave the connection that failed before joining a new one
+                webSocket.cancel();
+            }
+            webSocketFuture = new CompletableFuture<>();
+            authFuture = new CompletableFuture<>();
+            SharedConnection.Channel channel = SharedConnection.attach(this, validifyUrl(url), token, sendPings);
+            webSocket = channel;
+            channel.start();
+        }
+    }
+
     /**
      * Creates a WebSocket connection to the given URL. Does nothing if a connection has already been established
      *
@@ -361,15 +727,9 @@ public class ExtensionWebSocketClient {
         if (webSocket == null || !webSocketFuture.getNow(true)) {
             webSocketFuture = new CompletableFuture<>();
 
-            // Start the connection attempt
-            OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
-                    .readTimeout(0, TimeUnit.MILLISECONDS)
-                    .writeTimeout(0, TimeUnit.MILLISECONDS);
-            if (sendPings) {
-                clientBuilder.pingInterval(5000, TimeUnit.MILLISECONDS);
-            }
-
-            OkHttpClient client = clientBuilder.build();
+            // Start the connection attempt. Every websocket shares one OkHttp dispatcher, connection pool and TLS
+            // setup, so a reconnection reuses them rather than building them all again.
+            OkHttpClient client = sendPings ? SharedConnection.PINGING_HTTP_CLIENT : SharedConnection.HTTP_CLIENT;
 
             Request request = new Request.Builder().url(validifyUrl(url)).build();
             webSocket = client.newWebSocket(request, listener);
@@ -431,13 +791,294 @@ public class ExtensionWebSocketClient {
 
     /**
      * Sends a notification to the specified source if it is connected.
+     * <p>
+     * The notification is handed to this client's writer thread, and this method returns once it has been written to
+     * the websocket. It blocks while the notification window or the writer's queue is full.
      *
      * @param data  The data to be sent to the source.  Data cannot be an array or List.
      */
     // Fills in a notification message to sourceName with data
     // Requires this client to be connected to the source
     public void sendNotification(Object data) {
+        sendNotification(data, 0);
+    }
+
+    /**
+     * Sends a notification as for {@link #sendNotification(Object)}, recording the time from {@code receivedAt} to
+     * its hand-over and acknowledgement in the source latency metrics.
+     *
+     * @param data          The data to be sent to the source.  Data cannot be an array or List.
+     * @param receivedAt    When the connector received the data from its own source, in milliseconds since the
+     *                      epoch, such as the arrival time of a packet or the timestamp of a message. 0 if unknown.
+     */
+    public void sendNotification(Object data, long receivedAt) {
+        NotificationShards localShards = shards;
+        (localShards == null ? this : localShards.next()).writeNotification(data, receivedAt);
+    }
+
+    /**
+     * Sends a notification on the shard for {@code key}, so that notifications with the same key are delivered in the
+     * order they were sent even when they are spread across {@link #setNotificationShards several connections}.
+     * Otherwise the same as {@link #sendNotification}.
+     *
+     * @param key   Identifies the sequence the notification belongs to, such as a device id. Keys are compared with
+     *              {@code equals}.
+     * @param data  The data to be sent to the source.  Data cannot be an array or List.
+     */
+    public void sendPartitionedNotification(Object key, Object data) {
+        sendPartitionedNotification(key, data, 0);
+    }
+
+    /**
+     * Sends a notification as for {@link #sendPartitionedNotification(Object, Object)}, recording the time from
+     * {@code receivedAt} as for {@link #sendNotification(Object, long)}.
+     *
+     * @param key           Identifies the sequence the notification belongs to.
+     * @param data          The data to be sent to the source.  Data cannot be an array or List.
+     * @param receivedAt    When the connector received the data, in milliseconds since the epoch. 0 if unknown.
+     */
+    public void sendPartitionedNotification(Object key, Object data, long receivedAt) {
+        NotificationShards localShards = shards;
+        (localShards == null ? this : localShards.forKey(key)).writeNotification(data, receivedAt);
+    }
+
+    /**
+     * Sends a notification on the shard for {@code key} without blocking the caller. See
+     * {@link #sendPartitionedNotification} and {@link #sendNotificationAsync}.
+     *
+     * @param key   Identifies the sequence the notification belongs to. Keys are compared with {@code equals}.
+     * @param data  The data to be sent to the source.  Data cannot be an array or List.
+     * @return      A {@link CompletableFuture} that completes as for {@link #sendNotificationAsync}.
+     */
+    public CompletableFuture<Boolean> sendPartitionedNotificationAsync(Object key, Object data) {
+        return sendPartitionedNotificationAsync(key, data, 0);
+    }
+
+    /**
+     * Sends a notification as for {@link #sendPartitionedNotificationAsync(Object, Object)}, recording the time from
+     * {@code receivedAt} as for {@link #sendNotification(Object, long)}.
+     *
+     * @param key           Identifies the sequence the notification belongs to.
+     * @param data          The data to be sent to the source.  Data cannot be an array or List.
+     * @param receivedAt    When the connector received the data, in milliseconds since the epoch. 0 if unknown.
+     * @return              A {@link CompletableFuture} that completes as for {@link #sendNotificationAsync}.
+     */
+    public CompletableFuture<Boolean> sendPartitionedNotificationAsync(Object key, Object data, long receivedAt) {
+        NotificationShards localShards = shards;
+        return (localShards == null ? this : localShards.forKey(key)).writeNotificationAsync(data, receivedAt);
+    }
+
+    /**
+     * Sends a notification on this client's own connection, blocking as described for {@link #sendNotification}.
+     *
+     * @param data          The data to be sent to the source.
+     * @param receivedAt    When the connector received the data, in milliseconds since the epoch, or 0.
+     */
+    private void writeNotification(Object data, long receivedAt) {
+        ExtensionServiceMessage msg = buildNotification(data);
+        if (!isConnected()) {
+            queueFailedMessage(msg);
+        } else if (!holdWhileResuming(msg)) {
+            try {
+                notificationWriter.put(msg, receivedAt).written.get();
+            } catch (InterruptedException ie) {
+                log.warn("Interrupted while waiting to send a notification. The notification may not have been sent.",
+                        ie);
+            } catch (ExecutionException ee) {
+                if (ee.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ee.getCause();
+                }
+                log.warn("Failed to write a notification to the websocket.", ee.getCause());
+            }
+        }
+    }
+
+    /**
+     * Sends a notification to the specified source without blocking the caller.
+     * <p>
+     * The notification is queued for this client's writer thread, which serializes and writes notifications in the
+     * order they were queued as the notification window allows.
+     *
+     * @param data  The data to be sent to the source.  Data cannot be an array or List.
+     * @return      A {@link CompletableFuture} that completes as {@code true} when Vantiq acknowledges the
+     *              notification, or {@code false} if Vantiq reported an error for it or it could not be sent on the
+     *              current connection (in which case it is held in the failed message queue until the source
+     *              reconnects, or until the messages held from before the source reconnected have been sent). It
+     *              completes exceptionally with a
+     *              {@link java.util.concurrent.RejectedExecutionException} if the writer's queue is full, or with
+     *              the error encountered if the write fails.
+     */
+    public CompletableFuture<Boolean> sendNotificationAsync(Object data) {
+        return sendNotificationAsync(data, 0);
+    }
+
+    /**
+     * Sends a notification as for {@link #sendNotificationAsync(Object)}, recording the time from {@code receivedAt}
+     * as for {@link #sendNotification(Object, long)}.
+     *
+     * @param data          The data to be sent to the source.  Data cannot be an array or List.
+     * @param receivedAt    When the connector received the data, in milliseconds since the epoch. 0 if unknown.
+     * @return              A {@link CompletableFuture} that completes as for {@link #sendNotificationAsync(Object)}.
+     */
+    public CompletableFuture<Boolean> sendNotificationAsync(Object data, long receivedAt) {
+        NotificationShards localShards = shards;
+        return (localShards == null ? this : localShards.next()).writeNotificationAsync(data, receivedAt);
+    }
+
+    /**
+     * Queues a notification for this client's own connection. See {@link #sendNotificationAsync}.
+     *
+     * @param data          The data to be sent to the source.
+     * @param receivedAt    When the connector received the data, in milliseconds since the epoch, or 0.
+     * @return              A {@link CompletableFuture} that completes as for {@link #sendNotificationAsync}.
+     */
+    private CompletableFuture<Boolean> writeNotificationAsync(Object data, long receivedAt) {
+        ExtensionServiceMessage msg = buildNotification(data);
+        if (!isConnected()) {
+            queueFailedMessage(msg);
+        } else if (!holdWhileResuming(msg)) {
+            return notificationWriter.offer(msg, receivedAt).acked;
+        }
+        return CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * Sends a notification reporting the latest value for {@code key}, for telemetry where only the most recent value
+     * matters. Never blocks.
+     * <p>
+     * If a notification for the same key is still waiting to be written, it is replaced in place by this one, so a
+     * source reporting faster than Vantiq accepts notifications drops its intermediate values instead of stalling.
+     * While the source is not connected, only the latest value for each key is held, and those are sent once the
+     * source reconnects. The number of keys waiting at once is bounded by the writer's queue, so memory use stays
+     * bounded however many values are reported.
+     *
+     * @param key   Identifies what {@code data} reports on, such as a node id or register address. Keys are compared
+     *              with {@code equals}.
+     * @param data  The data to be sent to the source.  Data cannot be an array or List.
+     * @return      {@code true} if the notification will be sent unless superseded, or {@code false} if it was
+     *              dropped because the writer's queue is full of other keys.
+     */
+    public boolean sendConflatedNotification(Object key, Object data) {
+        if (key == null) {
+            throw new IllegalArgumentException("Conflated notifications require a key.");
+        }
+        // Each key is conflated on the shard it is partitioned to
+        NotificationShards localShards = shards;
+        ExtensionWebSocketClient target = localShards == null ? this : localShards.forKey(key);
+        return target.notificationWriter.offerLatest(key, buildNotification(data));
+    }
+
+    /**
+     * Reports whether notifications can be queued without building a backlog, so that producers can stop pulling
+     * from their source while Vantiq catches up instead of blocking a thread in {@link #sendNotification}. The client
+     * stops being writable when the notification writer's queue reaches its high water mark, and becomes writable
+     * again once the queue has drained to its low water mark. See {@link #setWritabilityWaterMarks}.
+     * <p>
+     * Notifications may still be sent while the client is not writable; they are queued as usual. A client with
+     * {@link #setNotificationShards several shards} is writable only while all of them are.
+     *
+     * @return  {@code true} if the client is writable.
+     */
+    public boolean isWritable() {
+        NotificationShards localShards = shards;
+        return localShards == null ? notificationWriter.isWritable() : localShards.isWritable();
+    }
+
+    /**
+     * Registers a callback to run once the client is writable. If the client is writable now, the callback runs
+     * immediately on the calling thread. Otherwise it runs once on the notification writer's thread when the client
+     * becomes writable again, so it should do no more than resume a paused producer or hand work to an executor.
+     *
+     * @param callback  The callback to run.
+     */
+    public void onWritable(Runnable callback) {
+        NotificationShards localShards = shards;
+        if (localShards == null) {
+            notificationWriter.onWritable(callback);
+        } else {
+            localShards.onWritable(callback);
+        }
+    }
+
+    /**
+     * Sets the depths of the notification writer's queue at which the client stops and starts being
+     * {@link #isWritable writable}. By default the client stops being writable when the queue is three quarters full
+     * and becomes writable again when it is a quarter full.
+     *
+     * @param low   The depth to which the queue must drain before the client is writable again.
+     * @param high  The depth at which the client stops being writable.
+     * @throws IllegalArgumentException unless {@code 0 <= low < high <= } the queue's capacity.
+     */
+    public void setWritabilityWaterMarks(int low, int high) {
+        notificationWriter.setWaterMarks(low, high);
+        NotificationShards localShards = shards;
+        if (localShards != null) {
+            localShards.setWritabilityWaterMarks(low, high);
+        }
+    }
+
+    /**
+     * Limits the rate at which this client sends notifications, smoothing bursts so that a source does not exceed its
+     * namespace's event quota. Notifications beyond the limits wait in the notification writer's queue, so the client
+     * stops being {@link #isWritable writable} while they are held back. A source may send a second's worth of
+     * notifications at once after it has been idle.
+     * <p>
+     * The limits may also be set with the {@code notificationRateLimit} and {@code notificationByteRateLimit}
+     * properties of the server.config file, or of the source's configuration, which takes precedence. The time spent
+     * waiting for the limits is reported in the {@code vantiq_connector_notification_throttle_seconds_total} metric.
+     *
+     * @param eventsPerSecond   The most notifications to send per second, or 0 for no limit.
+     * @param bytesPerSecond    The most bytes of notifications to send per second, or 0 for no limit.
+     * @throws IllegalArgumentException if either limit is negative.
+     */
+    public void setNotificationRateLimit(double eventsPerSecond, long bytesPerSecond) {
+        rateLimiter.setLimits(eventsPerSecond, bytesPerSecond);
+        if (eventsPerSecond > 0 || bytesPerSecond > 0) {
+            log.info("Limiting notifications to {} per second and {} bytes per second (0 means no limit).",
+                    eventsPerSecond, bytesPerSecond);
+        }
+    }
+
+    /**
+     * Applies the notification rate limits from the server.config file, if any are set there.
+     */
+    private void applyServerConfigRateLimit() {
+        Double eventsPerSecond = utils.obtainNotificationRateLimit();
+        Long bytesPerSecond = utils.obtainNotificationByteRateLimit();
+        if (eventsPerSecond != null || bytesPerSecond != null) {
+            setNotificationRateLimit(eventsPerSecond == null ? 0 : eventsPerSecond,
+                    bytesPerSecond == null ? 0 : bytesPerSecond);
+        }
+    }
 
+    /**
+     * Applies the notification rate limits from the configuration of the source, if any are set there. Limits that
+     * are not set keep their current value.
+     *
+     * @param config    The source's configuration, as found at {@code object.config} in the configuration message.
+     */
+    void applySourceRateLimit(Map<?, ?> config) {
+        if (shard != 0) {
+            // The shards share the primary client's limiter, which applies the source's configuration
+            return;
+        }
+        Object eventsPerSecond = config.get(Utils.NOTIFICATION_RATE_LIMIT_PROPERTY_NAME);
+        Object bytesPerSecond = config.get(Utils.NOTIFICATION_BYTE_RATE_LIMIT_PROPERTY_NAME);
+        if (eventsPerSecond instanceof Number || bytesPerSecond instanceof Number) {
+            setNotificationRateLimit(eventsPerSecond instanceof Number ? ((Number) eventsPerSecond).doubleValue()
+                            : rateLimiter.getEventsPerSecond(),
+                    bytesPerSecond instanceof Number ? ((Number) bytesPerSecond).longValue()
+                            : rateLimiter.getBytesPerSecond());
+        }
+    }
+
+    /**
+     * Creates the notification message for {@code data}.
+     *
+     * @param data  The data to be sent to the source.  Data cannot be an array or List.
+     * @return      The notification message.
+     */
+    private ExtensionServiceMessage buildNotification(Object data) {
         if (data != null && (data.getClass().isArray() || data instanceof List)) {
             throw new IllegalArgumentException("Notifications cannot be lists or arrays.");
         }
@@ -448,23 +1089,7 @@ public class ExtensionWebSocketClient {
         m.put("object", data);
         ExtensionServiceMessage msg = new ExtensionServiceMessage("");
         msg.fromMap(m);
-        if (isConnected()) {
-            Semaphore localOutstandingNotifications = outstandingNotifications;
-            try {
-                localOutstandingNotifications.acquire();
-                this.send(msg);
-            } catch (InterruptedException ie) {
-                log.warn("Obtaining space to sent notifications was interrupted.", ie);
-            } catch (Exception e) {
-                // If we get an exception during the send, we're unlikely to get a response so release now.
-                if (localOutstandingNotifications != null) {
-                    localOutstandingNotifications.release();
-                }
-                throw e;
-            }
-        } else {
-            failedMessageQueue.add(msg);
-        }
+        return msg;
     }
 
     /**
@@ -475,9 +1100,57 @@ public class ExtensionWebSocketClient {
      * receipt of a response message.
      */
     void acknowledgeNotification() {
-        Semaphore localOutstandingNotifications = outstandingNotifications;
+        acknowledgeNotification(true);
+    }
+
+    /**
+     * Acknowledge the notification, noting whether Vantiq reported an error for it. Errors shrink the window of
+     * outstanding notifications.
+     *
+     * @param success   Whether the response acknowledging the notification indicated success.
+     */
+    void acknowledgeNotification(boolean success) {
+        NotificationWindow localOutstandingNotifications = outstandingNotifications;
         if (localOutstandingNotifications != null) {
-            localOutstandingNotifications.release();
+            long roundTripNanos = localOutstandingNotifications.acknowledge(success);
+            if (roundTripNanos >= 0) {
+                metrics.acknowledged(success, roundTripNanos);
+            }
+        }
+        notificationWriter.acknowledge(success);
+    }
+
+    /**
+     * Holds a message that could not be sent until the source reconnects, counting any message the in-memory queue
+     * drops to make room for it.
+     *
+     * @param message   The message to hold.
+     */
+    void queueFailedMessage(Object message) {
+        Queue<Object> queue = failedMessageQueue;
+        if (queue instanceof EvictingQueue && ((EvictingQueue<Object>) queue).remainingCapacity() == 0) {
+            metrics.failedMessageEvictions.increment();
+        }
+        queue.add(message);
+    }
+
+    /**
+     * Adds a notification to the failed message queue instead of the notification writer if the queue is still being
+     * flushed after a reconnection, so that it is not sent ahead of the notifications held from before.
+     *
+     * @param message   The notification.
+     * @return          Whether the notification was queued.
+     */
+    private boolean holdWhileResuming(ExtensionServiceMessage message) {
+        if (!resuming) {
+            return false;
+        }
+        synchronized (resumeLock) {
+            if (!resuming) {
+                return false;
+            }
+            queueFailedMessage(message);
+            return true;
         }
     }
 
@@ -494,7 +1167,7 @@ public class ExtensionWebSocketClient {
         if (isConnected()) {
             send(response);
         } else {
-            failedMessageQueue.add(response);
+            queueFailedMessage(response);
         }
     }
     
@@ -516,7 +1189,7 @@ public class ExtensionWebSocketClient {
         if (isConnected()) {
             send(response);
         } else {
-            failedMessageQueue.add(response);
+            queueFailedMessage(response);
         }
     }
 
@@ -538,10 +1211,39 @@ public class ExtensionWebSocketClient {
         if (isConnected()) {
             send(response);
         } else {
-            failedMessageQueue.add(response);
+            queueFailedMessage(response);
         }
     }
 
+    /**
+     * Starts a response to a specific query message whose rows are sent as they are produced, in chunks of at most
+     * {@link QueryResponseWriter#DEFAULT_MAX_ROWS} rows or {@link QueryResponseWriter#DEFAULT_MAX_BYTES} bytes.
+     *
+     * @param replyAddress  The address where the reply will go. This is a UUID that must be obtained from the original
+     *                      query message through {@link ExtensionServiceMessage#extractReplyAddress(Object)}
+     * @return              The {@link QueryResponseWriter} to write the rows to. It must be closed to end the
+     *                      response.
+     */
+    public QueryResponseWriter openQueryResponse(String replyAddress) {
+        return openQueryResponse(replyAddress, QueryResponseWriter.DEFAULT_MAX_ROWS,
+                QueryResponseWriter.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Starts a response to a specific query message whose rows are sent as they are produced.
+     *
+     * @param replyAddress  The address where the reply will go. This is a UUID that must be obtained from the original
+     *                      query message through {@link ExtensionServiceMessage#extractReplyAddress(Object)}
+     * @param maxRows       The most rows in each message, or 0 for no limit. This is what connectors call the
+     *                      query's {@code bundleFactor}.
+     * @param maxBytes      The most bytes of rows in each message, or 0 for no limit.
+     * @return              The {@link QueryResponseWriter} to write the rows to. It must be closed to end the
+     *                      response.
+     */
+    public QueryResponseWriter openQueryResponse(String replyAddress, int maxRows, long maxBytes) {
+        return new QueryResponseWriter(this, replyAddress, maxRows, maxBytes, mapper);
+    }
+
     /**
      * Sends an error for a specific query message
      *
@@ -579,32 +1281,229 @@ public class ExtensionWebSocketClient {
             return;
         }
         log.trace("Sending message");
+        ByteString bytes;
         try {
-            byte[] bytes = mapper.writeValueAsBytes(obj);
-            synchronized (this) {
-                if (webSocket != null) {
-                    this.webSocket.send(ByteString.of(bytes));
-                }
-            }
+            bytes = serialize(obj);
+        } catch (Exception e) {
+            log.warn("Error sending to WebSocket", e);
+            return;
+        }
+        sendFrame(bytes, laneFor(obj));
+    }
+
+    /**
+     * Serializes and writes a notification for this client's {@link NotificationWriter}, recording when it was
+     * serialized and when it was handed to the websocket in the notification latency metrics.
+     * <p>
+     * Unlike {@link #send}, this throws if the notification is not sent, so that the writer can release its place in
+     * the {@link NotificationWindow} rather than wait for an acknowledgement that will not come.
+     *
+     * @param message   The notification.
+     * @param pending   The notification's place in the writer, which carries its timestamps.
+     * @throws IOException if the notification cannot be serialized.
+     * @throws InterruptedException if interrupted while waiting for room in the notification lane.
+     * @throws IllegalStateException if the websocket is not open.
+     */
+    void sendNotificationMessage(ExtensionServiceMessage message, NotificationWriter.PendingNotification pending)
+            throws IOException, InterruptedException {
+        if (!isOpen()) {
+            throw new IllegalStateException("The websocket is not open, so the notification was not sent.");
+        }
+        ByteString bytes = serialize(message);
+        metrics.notificationSerialized(pending);
+        sendFrame(bytes, OutboundLanes.Lane.NOTIFICATION, () -> metrics.notificationWritten(pending));
+    }
+
+    /**
+     * Writes an already serialized message to the websocket through its {@link OutboundLanes lane}, waiting for room
+     * in the lane if it is full. Used directly by senders, such as {@link QueryResponseWriter}, that build their
+     * messages' JSON themselves. A message that cannot be written is logged and dropped.
+     *
+     * @param bytes The JSON of the message.
+     * @param lane  The lane for the message.
+     */
+    void sendFrame(ByteString bytes, OutboundLanes.Lane lane) {
+        if (!isOpen()) {
+            return;
+        }
+        try {
+            sendFrame(bytes, lane, null);
+        } catch (InterruptedException ie) {
+            log.warn("Interrupted while waiting for room in the {} lane. The message was not sent.", lane.label());
+            Thread.currentThread().interrupt();
         } catch (IllegalStateException ise) {
+            // The websocket was closed since we checked
             log.warn("Error sending to WebSocket", ise);
-            sourceHasDisconnected();
-            close();
+        }
+    }
+
+    /**
+     * Writes an already serialized message as for {@link #sendFrame(ByteString, OutboundLanes.Lane)}, running
+     * {@code onWritten} once the message has been handed to the websocket. Unlike that method, this throws if the
+     * message is not written.
+     *
+     * @param bytes     The JSON of the message.
+     * @param lane      The lane for the message.
+     * @param onWritten Run once the message is handed to the websocket, or {@code null}.
+     * @throws InterruptedException if interrupted while waiting for room in the lane.
+     * @throws IllegalStateException if the websocket is not open.
+     * @throws RuntimeException if OkHttp reports that the websocket has failed, in which case the source is treated
+     *                          as disconnected.
+     */
+    void sendFrame(ByteString bytes, OutboundLanes.Lane lane, Runnable onWritten) throws InterruptedException {
+        WebSocket localWebSocket = webSocket;
+        if (!isOpen() || localWebSocket == null) {
+            throw new IllegalStateException("The websocket is not open, so the message was not sent.");
+        }
+        try {
+            outboundLanes.send(localWebSocket, bytes, lane, onWritten);
+        } catch (IllegalStateException ise) {
+            sendFailed(ise);
             throw new RuntimeException("Lost connection to Vantiq source", ise);
-        } catch (Exception e) {
-            log.warn("Error sending to WebSocket", e);
+        }
+        if (lane == OutboundLanes.Lane.NOTIFICATION) {
+            rateLimiter.charge(bytes.size());
         }
     }
 
+    /**
+     * Handles OkHttp reporting that the websocket has failed while sending, by treating the source as disconnected.
+     *
+     * @param ise   The exception OkHttp threw.
+     */
+    void sendFailed(IllegalStateException ise) {
+        log.warn("Error sending to WebSocket", ise);
+        sourceHasDisconnected();
+        close();
+    }
+
+    /**
+     * Chooses the outbound lane for a message: query responses and notifications have lanes of their own, and
+     * everything else is a control message. Messages read back from the failed message journal arrive as maps.
+     *
+     * @param obj   The message to be sent.
+     * @return      The lane for {@code obj}.
+     */
+    static OutboundLanes.Lane laneFor(Object obj) {
+        if (obj instanceof Response) {
+            return OutboundLanes.Lane.QUERY;
+        }
+        Object op = null;
+        if (obj instanceof ExtensionServiceMessage) {
+            op = ((ExtensionServiceMessage) obj).getOp();
+        } else if (obj instanceof Map) {
+            Map map = (Map) obj;
+            if (map.containsKey("status") && !map.containsKey("op")) {
+                return OutboundLanes.Lane.QUERY;
+            }
+            op = map.get("op");
+        }
+        return ExtensionServiceMessage.OP_NOTIFICATION.equals(op) ? OutboundLanes.Lane.NOTIFICATION
+                : OutboundLanes.Lane.CONTROL;
+    }
+
+    /**
+     * Serializes {@code obj} into the calling thread's reusable {@link Buffer} and takes the result as a
+     * {@link ByteString}.
+     * <p>
+     * Jackson writes straight into the buffer's pooled segments, avoiding the intermediate array produced by
+     * {@link ObjectMapper#writeValueAsBytes}. For larger messages the {@link ByteString} shares those segments rather
+     * than copying them; smaller ones are copied once into an array of the exact size.
+     *
+     * @param obj   The object to serialize.
+     * @return      The JSON form of {@code obj}.
+     * @throws IOException if {@code obj} cannot be serialized.
+     */
+    ByteString serialize(Object obj) throws IOException {
+        SendBuffer sendBuffer = SEND_BUFFER.get();
+        try {
+            writer.writeValue(sendBuffer.out, obj);
+            return sendBuffer.buffer.readByteString();
+        } finally {
+            // Don't leave a partial message behind if serialization failed
+            sendBuffer.buffer.clear();
+        }
+    }
+
+    /**
+     * A per-thread {@link Buffer} and the {@link OutputStream} that writes to it, reused for every message the thread
+     * sends.
+     */
+    private static class SendBuffer {
+        final Buffer buffer = new Buffer();
+        final OutputStream out = buffer.outputStream();
+    }
+
+    private static final ThreadLocal<SendBuffer> SEND_BUFFER = ThreadLocal.withInitial(SendBuffer::new);
+
     /**
      * Method used to resend all messages in failedMessageQueue after a successful reconnection
+     * <p>
+     * The messages are resent in order on a thread of their own, since the listener calls this on the thread that
+     * reads acknowledgements. Notifications go through the notification writer, and so wait for the rate limits and
+     * the notification window like any other, rather than arriving at Vantiq in one burst. Until the queue is empty,
+     * notifications sent by the connector are added to its end, so that they follow the ones held from before.
      */
     public void flushQueue() {
-        int currentQueueSize = failedMessageQueue.size();
-        for (int i = 0; i < currentQueueSize; i++) {
-            Object obj = failedMessageQueue.poll();
-            send(obj);
+        if (failedMessageQueue.isEmpty()) {
+            notificationWriter.releaseHeld();
+            return;
         }
+        synchronized (resumeLock) {
+            if (resuming) {
+                // Already being flushed
+                return;
+            }
+            resuming = true;
+        }
+        Thread flusher = new Thread(this::resume, "failedMessageFlush#" + sourceName + (shard == 0 ? "" : "#" + shard));
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Resends the messages in the failed message queue until it is empty or the source disconnects again.
+     */
+    private void resume() {
+        int resent = 0;
+        try {
+            while (isConnected()) {
+                Object obj = failedMessageQueue.poll();
+                if (obj == null) {
+                    // Notifications are only added to the queue while resuming under the lock, so none can be left
+                    synchronized (resumeLock) {
+                        if (failedMessageQueue.isEmpty()) {
+                            resuming = false;
+                            break;
+                        }
+                    }
+                    continue;
+                }
+                if (laneFor(obj) == OutboundLanes.Lane.NOTIFICATION) {
+                    // Messages read back from the journal are maps
+                    ExtensionServiceMessage msg = obj instanceof ExtensionServiceMessage ? (ExtensionServiceMessage) obj
+                            : new ExtensionServiceMessage("").fromMap((Map) obj);
+                    notificationWriter.put(msg, 0);
+                } else {
+                    send(obj);
+                }
+                resent++;
+            }
+        } catch (InterruptedException e) {
+            log.warn("Flushing the failed message queue was interrupted.");
+        } catch (RuntimeException e) {
+            log.error("Flushing the failed message queue failed. The remaining messages are held until the source "
+                    + "reconnects.", e);
+        } finally {
+            if (resuming) {
+                // Anything left is sent after the next reconnection
+                synchronized (resumeLock) {
+                    resuming = false;
+                }
+            }
+        }
+        log.debug("Resent {} messages held while the source was disconnected.", resent);
+        notificationWriter.releaseHeld();
     }
 
     /** 
@@ -748,56 +1647,119 @@ public class ExtensionWebSocketClient {
         return sourceFuture;
     }
     
-    private static final Integer MAX_RETRIES = 10;
     /**
      * Method called by reconnectHandlers that actually does the reconnect work.
+     * <p>
+     * If Vantiq reports that the source is in the midst of being reactivated, the connection is retried up to the
+     * {@link #getReconnectPolicy() reconnect policy's} maximum number of retries, waiting a jittered, growing delay
+     * before each so that the sources reactivated together don't all retry together.
+     *
      * @return  Returns boolean completable indicating if the reconnect was successful, used by the caller
      */
     public CompletableFuture<Boolean> doCoreReconnect() {
-        return CompletableFuture.supplyAsync(() -> {
-            boolean isReconnected = false;
+        metrics.reconnects.increment();
+        ReconnectPolicy policy = reconnectPolicy;
+        CompletableFuture<Boolean> reconnected = new CompletableFuture<>();
+        reconnectScheduler.execute(() -> {
             // Ensure that retry is not turned on, possibly left from some previous connect attempt
             retryConnect = false;
-            for (int retryCount = 0; retryCount < MAX_RETRIES; retryCount++) {
-                // This loop exists only for connection retry attempts.  In most cases, we break out of the loop
-                // immediately.  But when retries are necessary due to the restart window (between deactivation &
-                // reactivation), we will retry the connection attempt.  We limit those attempts since that restart
-                // window should not be very long.
-                
-                CompletableFuture<Boolean> success = connectToSource();
-                try {
-                    if (!success.get(10, TimeUnit.SECONDS)) {
-                        if (!isOpen()) {
-                            log.error("Failed to connect to server url .");
-                        } else if (!isAuthed()) {
-                            log.error("Failed to authenticate within 10 seconds using the given authentication data.");
-                        } else if (retryConnect) {
-                            // First, reset
-                            log.warn("Retrying connection (count: {}) due to hitting reactivation window", retryCount);
-                            retryConnect = false;
-                            continue;
-                        } else {
-                            log.error("Failed to connect within 10 seconds");
-                            // We could not reconnect to the source - close the connection which also triggers
-                            // the extension source close handler so it can decide what to do next (e.g., forever
-                            // retry connection, exit extension source)
-                            this.close();
-                        }
-                    } else {
-                        isReconnected = true;
-                    }
-                } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            attemptReconnect(policy, 0, reconnected);
+        });
+        return reconnected;
+    }
+
+    /**
+     * Makes one attempt to connect to the source for {@link #doCoreReconnect}. Retries are needed only when Vantiq
+     * reports that the source is in the restart window (between deactivation and reactivation), in which case the
+     * next attempt is scheduled after the policy's delay. We limit those attempts since that restart window should
+     * not be very long. Runs on {@link #reconnectScheduler}.
+     *
+     * @param policy        The policy giving the number of retries and the delays between them.
+     * @param retryCount    The number of attempts already made.
+     * @param reconnected   Completed with whether the source reconnected once no more attempts will be made.
+     */
+    private void attemptReconnect(ReconnectPolicy policy, int retryCount, CompletableFuture<Boolean> reconnected) {
+        CompletableFuture<Boolean> attempt = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = reconnectScheduler.schedule(
+                () -> attempt.completeExceptionally(new TimeoutException("No response from the source")),
+                RECONNECT_ATTEMPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        try {
+            connectToSource().whenComplete((success, error) -> {
+                if (error != null) {
+                    attempt.completeExceptionally(error);
+                } else {
+                    attempt.complete(success);
+                }
+            });
+        } catch (RuntimeException e) {
+            attempt.completeExceptionally(e);
+        }
+        attempt.whenCompleteAsync((success, error) -> {
+            timeout.cancel(false);
+            try {
+                if (error != null) {
                     retryConnect = false;  // Just to make certain.
-                    log.error("Could not reconnect to source within 10 seconds: ", e);
+                    log.error("Could not reconnect to source within 10 seconds: ", error);
+                } else if (success) {
+                    reconnected.complete(true);
+                    return;
+                } else if (!isOpen()) {
+                    log.error("Failed to connect to server url .");
+                } else if (!isAuthed()) {
+                    log.error("Failed to authenticate within 10 seconds using the given authentication data.");
+                } else if (retryConnect) {
+                    // First, reset
+                    retryConnect = false;
+                    if (retryCount < policy.getMaxRetries()) {
+                        long delay = policy.getDelayMs(retryCount);
+                        log.warn("Retrying connection (count: {}) in {}ms due to hitting reactivation window",
+                                retryCount, delay);
+                        reconnectScheduler.schedule(() -> attemptReconnect(policy, retryCount + 1, reconnected),
+                                delay, TimeUnit.MILLISECONDS);
+                        return;
+                    }
+                    log.error("The source was still being reactivated after {} retries.", retryCount);
+                } else {
+                    log.error("Failed to connect within 10 seconds");
+                    // We could not reconnect to the source - close the connection which also triggers
+                    // the extension source close handler so it can decide what to do next (e.g., forever
+                    // retry connection, exit extension source)
+                    this.close();
                 }
-                break;
+            } catch (RuntimeException e) {
+                log.error("Could not reconnect to source: ", e);
             }
-            
-            return isReconnected;
-    
-        });
+            reconnected.complete(false);
+        }, reconnectScheduler);
     }
     
+    /**
+     * Sets how long to wait between attempts to reconnect: in {@link #doCoreReconnect} while Vantiq reactivates the
+     * source, in the additional {@link #setNotificationShards notification shards}, and in connectors that loop on
+     * reconnecting after their websocket closes. Initially {@link ReconnectPolicy#DEFAULT}. The delays may also be set
+     * with the {@code reconnectInitialDelay} and {@code reconnectMaxDelay} properties of the server.config file, in
+     * milliseconds.
+     *
+     * @param policy    The policy to use.
+     */
+    public void setReconnectPolicy(ReconnectPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("A reconnect policy is required.");
+        }
+        reconnectPolicy = policy;
+        NotificationShards localShards = shards;
+        if (localShards != null) {
+            localShards.setReconnectPolicy(policy);
+        }
+    }
+
+    /**
+     * @return  The policy for how long to wait between attempts to reconnect.
+     */
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
     /**
      * Returns a {@link CompletableFuture} that will return true when a connection succeeds, or false when
      * it fails. Returns {@code null} if {@link #connectToSource} has not been called yet.
@@ -873,7 +1835,8 @@ public class ExtensionWebSocketClient {
      * functions as false.
      */
     public void close() {
-        this.stop();
+        // Any other notification shards carry on, and reconnect on their own
+        this.disconnect();
 
         ExtensionWebSocketListener oldListener = listener;
         listener = new ExtensionWebSocketListener(this);
@@ -885,12 +1848,29 @@ public class ExtensionWebSocketClient {
     }
     
     /**
-     * Orders the close of the websocket connection with the expectation that it will not reopen. Additionally,
+     * Orders the close of the websocket connection, and of any other
+     * {@link #setNotificationShards notification shards}, with the expectation that it will not reopen. Additionally,
      * completes all {@link CompletableFuture} obtained from the connection and authentication functions as false.
      */
     public void stop() {
+        NotificationShards localShards = shards;
+        if (localShards != null) {
+            localShards.stop();
+        }
+        disconnect();
+    }
+
+    /**
+     * Closes this client's own websocket connection and completes all {@link CompletableFuture} obtained from the
+     * connection and authentication functions as false.
+     */
+    private void disconnect() {
         // Saving and nulling before closing so EWSListener can know when it is closed by the client 
         WebSocket socket = webSocket;
+        if (socket != null) {
+            // Hand over anything still waiting in the lanes, as it would already have been with OkHttp before the close
+            outboundLanes.flush(socket);
+        }
         webSocket = null;
         if (socket != null) {
             try {
@@ -907,6 +1887,13 @@ public class ExtensionWebSocketClient {
         // Calling declareUnhealthy to make sure the TCP Listener is not left open
         declareUnhealthy();
 
+        // Acknowledgements for anything sent on this connection will never arrive, so don't leave senders waiting
+        NotificationWindow localOutstandingNotifications = outstandingNotifications;
+        if (localOutstandingNotifications != null) {
+            localOutstandingNotifications.reset();
+        }
+        notificationWriter.reset();
+
         synchronized (this) {
             // Make sure anything still using these futures know that they are no longer valid
             if (webSocketFuture != null) {
@@ -979,7 +1966,7 @@ public class ExtensionWebSocketClient {
      * contents.
      * <br>
      * The handler will receive a {@link Map} that represents the Publish message. The most
-     * significant part will be msg.object which contains the data published to the source
+     * significant part will be msg.getObject() which contains the data published to the source
      *
      * @param publishHandler    {@link Handler} that deals with any publishes from a source without its own publish
      *                          {@link Handler}
@@ -995,8 +1982,8 @@ public class ExtensionWebSocketClient {
      * <br>
      * The handler will receive an {@link Map} that represents the Query message. The most
      * significant parts will be msg.getMessageHeaders().get("REPLY_ADDR_HEADER") which contains a String representing the
-     * return address and must be sent as part of the response, and msg.object being a {@link Map} with query options
-     * specified by "WITH" in the SELECT statement.
+     * return address and must be sent as part of the response, and msg.getObject() being a {@link Map} with query
+     * options specified by "WITH" in the SELECT statement.
      *
      * @param queryHandler   {@link Handler} that deals with any queries from a source without its own query
      *                       {@link Handler}
@@ -1011,8 +1998,8 @@ public class ExtensionWebSocketClient {
      * config received, make sure to call this before {@link ExtensionWebSocketClient#connectToSource}
      * <p>
      * The handler will receive an {@link Map} that represents the Configuration message. The most
-     * significant parts will be msg.resourceId which will contain the source's name, and msg.object.config that
-     * will contain the source's config as a {@link Map}
+     * significant parts will be msg.resourceId which will contain the source's name, and the "config" property of
+     * msg.getObject() that will contain the source's config as a {@link Map}
      *
      * @param configHandler {@link Handler} that deals with any configurations from a source without its own
      *                      configuration {@link Handler}
@@ -1047,4 +2034,75 @@ public class ExtensionWebSocketClient {
     public void setReconnectHandler(Handler<ExtensionServiceMessage> reconnectHandler) {
         this.listener.setReconnectHandler(reconnectHandler);
     }
-}
\ No newline at end of file
+
+    /**
+     * Set the {@link Executor} on which the HTTP {@link Handler} runs, instead of the websocket's reader thread. See
+     * {@link ExtensionWebSocketListener#setHttpExecutor}.
+     *
+     * @param httpExecutor  The {@link Executor} for the HTTP handler, or null to run it on the reader thread.
+     */
+    public void setHttpExecutor(Executor httpExecutor) {
+        this.listener.setHttpExecutor(httpExecutor);
+    }
+
+    /**
+     * Set the {@link Executor} on which the Publish {@link Handler} runs, instead of the websocket's reader thread.
+     * See {@link ExtensionWebSocketListener#setPublishExecutor}.
+     *
+     * @param publishExecutor   The {@link Executor} for the Publish handler, or null to run it on the reader thread.
+     */
+    public void setPublishExecutor(Executor publishExecutor) {
+        this.listener.setPublishExecutor(publishExecutor);
+    }
+
+    /**
+     * Set the {@link Executor} on which the Query {@link Handler} runs, instead of the websocket's reader thread.
+     * See {@link ExtensionWebSocketListener#setQueryExecutor}.
+     *
+     * @param queryExecutor The {@link Executor} for the Query handler, or null to run it on the reader thread.
+     */
+    public void setQueryExecutor(Executor queryExecutor) {
+        this.listener.setQueryExecutor(queryExecutor);
+    }
+
+    /**
+     * Set the {@link Executor} on which the Configuration {@link Handler} runs, instead of the websocket's reader
+     * thread. See {@link ExtensionWebSocketListener#setConfigExecutor}.
+     *
+     * @param configExecutor    The {@link Executor} for the Configuration handler, or null to run it on the reader
+     *                          thread.
+     */
+    public void setConfigExecutor(Executor configExecutor) {
+        this.listener.setConfigExecutor(configExecutor);
+    }
+
+    /**
+     * Set the most Publish messages that may be in flight at once, counting the work left running by an
+     * {@link AsyncHandler}. See {@link ExtensionWebSocketListener#setMaxPublishesInFlight}.
+     *
+     * @param max   The most Publish messages that may be in flight at once, or 0 for no limit.
+     */
+    public void setMaxPublishesInFlight(int max) {
+        this.listener.setMaxPublishesInFlight(max);
+    }
+
+    /**
+     * Set whether the object of a received message is left unparsed until a handler asks for it. See
+     * {@link ExtensionWebSocketListener#setDeferObjectDecoding}.
+     *
+     * @param deferObjectDecoding   Whether to defer parsing the object of received messages.
+     */
+    public void setDeferObjectDecoding(boolean deferObjectDecoding) {
+        this.listener.setDeferObjectDecoding(deferObjectDecoding);
+    }
+
+    /**
+     * Set the most queries that may be in flight at once, counting the work left running by an {@link AsyncHandler}.
+     * See {@link ExtensionWebSocketListener#setMaxQueriesInFlight}.
+     *
+     * @param max   The most queries that may be in flight at once, or 0 for no limit.
+     */
+    public void setMaxQueriesInFlight(int max) {
+        this.listener.setMaxQueriesInFlight(max);
+    }
+}
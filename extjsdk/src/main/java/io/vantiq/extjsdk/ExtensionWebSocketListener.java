@@ -24,6 +24,9 @@ import java.io.EOFException;
 import java.net.ConnectException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A listener that deals with messages received from a Vantiq deployment for Extension sources. It uses {@link Handler}
@@ -69,6 +72,40 @@ public class ExtensionWebSocketListener extends WebSocketListener {
      */
     Handler<ExtensionServiceMessage> reconnectHandler = null;
 
+    /**
+     * The {@link Executor} that runs {@link #httpHandler}. null to run it on the websocket's reader thread. Set by
+     * {@link #setHttpExecutor}
+     */
+    Executor httpExecutor = null;
+
+    /**
+     * The {@link Executor} that runs {@link #publishHandler}. null to run it on the websocket's reader thread. Set by
+     * {@link #setPublishExecutor}
+     */
+    Executor publishExecutor = null;
+
+    /**
+     * The {@link Executor} that runs {@link #queryHandler}. null to run it on the websocket's reader thread. Set by
+     * {@link #setQueryExecutor}
+     */
+    Executor queryExecutor = null;
+
+    /**
+     * The {@link Executor} that runs {@link #configHandler}. null to run it on the websocket's reader thread. Set by
+     * {@link #setConfigExecutor}
+     */
+    Executor configExecutor = null;
+
+    /**
+     * Counts the Publish messages whose handler has not yet finished. Set by {@link #setMaxPublishesInFlight}
+     */
+    InFlightLimit publishesInFlight = new InFlightLimit();
+
+    /**
+     * Counts the Query messages whose handler has not yet finished. Set by {@link #setMaxQueriesInFlight}
+     */
+    InFlightLimit queriesInFlight = new InFlightLimit();
+
     /**
      * An Slf4j logger
      */
@@ -82,7 +119,18 @@ public class ExtensionWebSocketListener extends WebSocketListener {
     /**
      * {@link ObjectMapper} used to translate the received message into a {@link Map}
      */
-    ObjectMapper mapper = new ObjectMapper();
+    ObjectMapper mapper = JsonCodec.mapper();
+
+    /**
+     * Decodes received messages, locating the {@code object} of an {@link ExtensionServiceMessage} without parsing it.
+     */
+    InboundMessageDecoder decoder = new InboundMessageDecoder(mapper);
+
+    /**
+     * Whether the {@code object} of a received {@link ExtensionServiceMessage} is left unparsed until a handler asks
+     * for it. Set by {@link #setDeferObjectDecoding}
+     */
+    boolean deferObjectDecoding = false;
 
     /**
      * Whether this listener has been closed, and should not make any more changes to its client.
@@ -116,7 +164,7 @@ public class ExtensionWebSocketListener extends WebSocketListener {
      * Set the {@link Handler} for any Publish messages that are received.
      * <br>
      * The handler will receive a {@link Map} that represents the Publish message. The most
-     * significant part will be msg.object which contains the data published to the source
+     * significant part will be msg.getObject() which contains the data published to the source
      *
      * @param publishHandler    {@link Handler} that deals with any publishes from a source without its own publish
      *                          {@link Handler}
@@ -132,9 +180,9 @@ public class ExtensionWebSocketListener extends WebSocketListener {
      * "Unset Handler: No handler has been set for source &lt;sourceName&gt;".
      * <br>
      * The handler will receive an {@link Map} that represents the Query message. The most
-     * significant parts will be msg.getMessageHeaders().get("REPLY_ADDR_HEADER") which contains a String representing the
-     * return address and must be sent as part of the response, and msg.object being a {@link Map} with query options
-     * specified by "WITH" in the SELECT statement.
+     * significant parts will be msg.getMessageHeaders().get("REPLY_ADDR_HEADER") which contains a String representing
+     * the return address and must be sent as part of the response, and msg.getObject() being a {@link Map} with query
+     * options specified by "WITH" in the SELECT statement.
      *
      * @param queryHandler   {@link Handler} that deals with any queries from a source without its own query
      *                       {@link Handler}
@@ -150,8 +198,8 @@ public class ExtensionWebSocketListener extends WebSocketListener {
      * config received, make sure to call this before {@link ExtensionWebSocketClient#connectToSource}
      * <p>
      * The handler will receive an {@link Map} that represents the Configuration message. The most
-     * significant parts will be msg.resourceId which will contain the source's name, and msg.object.config that
-     * will contain the source's config as a {@link Map}
+     * significant parts will be msg.resourceId which will contain the source's name, and the "config" property of
+     * msg.getObject() that will contain the source's config as a {@link Map}
      *
      * @param configHandler {@link Handler} that deals with any configurations from a source without its own
      *                      configuration {@link Handler}
@@ -189,6 +237,195 @@ public class ExtensionWebSocketListener extends WebSocketListener {
         this.reconnectHandler = reconnectHandler;
     }
     
+    /**
+     * Set the {@link Executor} on which the HTTP {@link Handler} runs. By default, handlers run on the websocket's
+     * reader thread, which is also the thread that processes acknowledgements of notifications. Acknowledgements are
+     * always processed on the reader thread before the handler is dispatched, so an executor keeps a slow handler
+     * from delaying them.
+     * <p>
+     * If the executor rejects a message, it is logged and dropped. {@link DispatchExecutors} provides suitable
+     * bounded executors.
+     *
+     * @param httpExecutor  The {@link Executor} for the HTTP handler, or null to run it on the reader thread.
+     */
+    public void setHttpExecutor(Executor httpExecutor) {
+        this.httpExecutor = httpExecutor;
+    }
+
+    /**
+     * Set the {@link Executor} on which the Publish {@link Handler} runs. By default, handlers run on the websocket's
+     * reader thread, so a slow handler delays the processing of every later message, including acknowledgements of
+     * notifications.
+     * <p>
+     * If the executor rejects a message, it is logged and dropped. {@link DispatchExecutors} provides suitable
+     * bounded executors. Use a single thread if publishes must be handled in the order they were received.
+     *
+     * @param publishExecutor   The {@link Executor} for the Publish handler, or null to run it on the reader thread.
+     */
+    public void setPublishExecutor(Executor publishExecutor) {
+        this.publishExecutor = publishExecutor;
+    }
+
+    /**
+     * Set the {@link Executor} on which the Query {@link Handler} runs. By default, handlers run on the websocket's
+     * reader thread, so a slow handler delays the processing of every later message, including acknowledgements of
+     * notifications.
+     * <p>
+     * If the executor rejects a query, an error is sent back to Vantiq in response. {@link DispatchExecutors}
+     * provides suitable bounded executors.
+     *
+     * @param queryExecutor The {@link Executor} for the Query handler, or null to run it on the reader thread.
+     */
+    public void setQueryExecutor(Executor queryExecutor) {
+        this.queryExecutor = queryExecutor;
+    }
+
+    /**
+     * Set the {@link Executor} on which the Configuration {@link Handler} runs. By default, handlers run on the
+     * websocket's reader thread. The source is marked as connected before the handler is dispatched.
+     * <p>
+     * If the executor rejects a message, it is logged and dropped. {@link DispatchExecutors} provides suitable
+     * bounded executors.
+     *
+     * @param configExecutor    The {@link Executor} for the Configuration handler, or null to run it on the reader
+     *                          thread.
+     */
+    public void setConfigExecutor(Executor configExecutor) {
+        this.configExecutor = configExecutor;
+    }
+
+    /**
+     * Set the most Publish messages that may be in flight at once. A message is in flight from the time it is
+     * dispatched to the Publish {@link Handler} until the handler returns, or for an {@link AsyncHandler}, until the
+     * {@link CompletionStage} it returned completes. Publishes beyond the limit are logged and dropped.
+     *
+     * @param max   The most Publish messages that may be in flight at once, or 0 for no limit, which is the default.
+     * @throws IllegalArgumentException if {@code max} is negative.
+     */
+    public void setMaxPublishesInFlight(int max) {
+        publishesInFlight.setMax(max);
+    }
+
+    /**
+     * Set the most queries that may be in flight at once. A query is in flight from the time it is dispatched to the
+     * Query {@link Handler} until the handler returns, or for an {@link AsyncHandler}, until the
+     * {@link CompletionStage} it returned completes. Queries beyond the limit are answered with an error.
+     *
+     * @param max   The most queries that may be in flight at once, or 0 for no limit, which is the default.
+     * @throws IllegalArgumentException if {@code max} is negative.
+     */
+    public void setMaxQueriesInFlight(int max) {
+        queriesInFlight.setMax(max);
+    }
+
+    /**
+     * Set whether the object of a received message is left unparsed until a handler asks for it. By default it is
+     * parsed when the message arrives, and {@link ExtensionServiceMessage#object} holds it. When deferred, handlers
+     * must read it through {@link ExtensionServiceMessage#getObject()}, since the field stays null until then.
+     * Handlers that only route or forward a message can then use {@link ExtensionServiceMessage#getObjectAsTree()} or
+     * {@link ExtensionServiceMessage#getRawObject()} without building its {@link Map} form.
+     *
+     * @param deferObjectDecoding   Whether to defer parsing the object of received messages.
+     */
+    public void setDeferObjectDecoding(boolean deferObjectDecoding) {
+        this.deferObjectDecoding = deferObjectDecoding;
+    }
+
+    /**
+     * @return  The number of Publish messages whose handler has not yet finished.
+     */
+    public int getPublishesInFlight() {
+        return publishesInFlight.getInFlight();
+    }
+
+    /**
+     * @return  The number of queries whose handler has not yet finished.
+     */
+    public int getQueriesInFlight() {
+        return queriesInFlight.getInFlight();
+    }
+
+    /**
+     * Runs {@code handler} on {@code executor}, or on the calling thread if {@code executor} is null, logging anything
+     * it throws and recording how long it waited and ran in the client's metrics. For an {@link AsyncHandler}, the run
+     * lasts until the {@link CompletionStage} it returned completes.
+     *
+     * @param executor      The {@link Executor} to run the handler on, or null.
+     * @param limit         The count of messages of this kind in flight, or null if they are not counted.
+     * @param handlerName   The name of the handler, used to label its metrics.
+     * @param errorMessage  The message to log if the handler fails.
+     * @param handler       The handler to run.
+     * @param message       The message to give to {@code handler}.
+     * @param onRejected    Run if {@code limit} has been reached or the message is rejected by {@code executor} or
+     *                      {@code handler}. May be null.
+     */
+    private <T> void dispatch(Executor executor, InFlightLimit limit, String handlerName, String errorMessage,
+                              Handler<T> handler, T message, Runnable onRejected) {
+        ClientMetrics metrics = client.metrics;
+        if (limit != null && !limit.tryAcquire()) {
+            log.error("The {} handler already has {} messages in flight. Rejecting the message.", handlerName,
+                    limit.getMax());
+            rejected(handlerName, onRejected);
+            return;
+        }
+        long queuedAt = System.nanoTime();
+        Runnable guarded = () -> {
+            long startedAt = System.nanoTime();
+            Runnable finished = () -> {
+                if (limit != null) {
+                    limit.release();
+                }
+                metrics.handlerRan(handlerName, startedAt - queuedAt, System.nanoTime() - startedAt);
+            };
+            CompletionStage<?> stage = null;
+            try {
+                if (handler instanceof AsyncHandler) {
+                    stage = ((AsyncHandler<T>) handler).handleMessageAsync(message);
+                } else {
+                    handler.handleMessage(message);
+                }
+            }
+            catch (RejectedExecutionException ree) {
+                log.error("The {} handler rejected the message. {}", handlerName, ree.getMessage());
+                rejected(handlerName, onRejected);
+            }
+            catch (Exception e) {
+                log.error(errorMessage, e);
+            }
+            if (stage == null) {
+                finished.run();
+                return;
+            }
+            stage.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    log.error(errorMessage, failure);
+                }
+                finished.run();
+            });
+        };
+        if (executor == null) {
+            guarded.run();
+            return;
+        }
+        try {
+            executor.execute(guarded);
+        }
+        catch (RejectedExecutionException ree) {
+            log.error("Handler executor rejected the message. {}", ree.getMessage());
+            if (limit != null) {
+                limit.release();
+            }
+            rejected(handlerName, onRejected);
+        }
+    }
+
+    private void rejected(String handlerName, Runnable onRejected) {
+        client.metrics.handlerRejected(handlerName);
+        if (onRejected != null) {
+            onRejected.run();
+        }
+    }
+
     /**
      * Called when its {@link ExtensionWebSocketClient} is closed. Stops this listener from dealing with any future 
      * auth, config, Query, or reconnect messages. It keeps its handlers and will finish any Publish messages in 
@@ -235,16 +472,30 @@ public class ExtensionWebSocketListener extends WebSocketListener {
             return; // Do nothing if closed at this point
         }
         
-        // Convert the data from a Json string/byte array to a map
+        // Convert the data from a Json string/byte array to a map. The message's object is left as raw JSON
         Map msg;
         try {
-            msg = mapper.readValue(data, Map.class);
+            msg = decoder.decode(data);
         }
         catch (Exception e) {
             log.warn("Failed to interpret WebSocket message as Map.", e);
             return;
         }
-        
+        onDecodedMessage(msg);
+    }
+
+    /**
+     * Passes a received message, already decoded by {@link #decoder}, on to the related handler. Messages received by
+     * a {@link SharedConnection} are decoded once by the connection and handed to the listener of the source they are
+     * for.
+     *
+     * @param msg   The decoded message.
+     */
+    void onDecodedMessage(Map msg) {
+        if (this.isClosed) {
+            return;
+        }
+
         //Check to see if we should use log with Debug, or with Error
         if (msg.containsKey("status")) {
             int statusCheck = (Integer) msg.get("status");
@@ -287,15 +538,12 @@ public class ExtensionWebSocketListener extends WebSocketListener {
                     }
                     client.sourceFuture.complete(false);
                 } else {
-                    client.acknowledgeNotification();
+                    client.acknowledgeNotification(message.getStatus() < 300);
                 }
                 if (this.httpHandler != null) {
-                    try {
-                        this.httpHandler.handleMessage(message);
-                    }
-                    catch (Exception e) {
-                        log.error("Error occurred when running the HTTP handler.", e);
-                    }
+                    Handler<Response> handler = this.httpHandler;
+                    dispatch(httpExecutor, null, "http", "Error occurred when running the HTTP handler.",
+                            handler, message, null);
                 }
                 else {
                     log.trace("Http response received with no handler set");
@@ -330,19 +578,16 @@ public class ExtensionWebSocketListener extends WebSocketListener {
             }
         }
         else {
-            ExtensionServiceMessage message = new ExtensionServiceMessage("").fromMap(msg);
+            ExtensionServiceMessage message = new ExtensionServiceMessage("").fromMap(msg, deferObjectDecoding);
             if (client.isConnected()) {
                 log.debug("Message with op '{}' received", message.getOp());
                 log.debug("Map of ExtensionServiceMessage: {}", message);
                 if (message.getOp().equals(ExtensionServiceMessage.OP_PUBLISH))
                 {
                     if (this.publishHandler != null) {
-                        try {
-                            this.publishHandler.handleMessage(message);
-                        }
-                        catch (Exception e) {
-                            log.error("Error occurred when running the Publish handler.", e);
-                        }
+                        Handler<ExtensionServiceMessage> handler = this.publishHandler;
+                        dispatch(publishExecutor, publishesInFlight, "publish",
+                                "Error occurred when running the Publish handler.", handler, message, null);
                     }
                     else {
                         log.debug("Publish received with no handler set");
@@ -350,12 +595,14 @@ public class ExtensionWebSocketListener extends WebSocketListener {
                 }
                 else if (message.getOp().equals(ExtensionServiceMessage.OP_QUERY)) {
                     if (this.queryHandler != null && !isClosed) {
-                        try {
-                            this.queryHandler.handleMessage(message);
-                        }
-                        catch (Exception e) {
-                            log.error("Error occurred when running the Query handler.", e);
-                        }
+                        Handler<ExtensionServiceMessage> handler = this.queryHandler;
+                        dispatch(queryExecutor, queriesInFlight, "query",
+                                "Error occurred when running the Query handler.", handler, message,
+                                // Let the query fail now rather than wait for a timeout
+                                () -> client.sendQueryError(ExtensionServiceMessage.extractReplyAddress(msg),
+                                        "io.vantiq.extjsdk.queryRejected",
+                                        "Source {0} is too busy to handle the query.",
+                                        new Object[] {message.getSourceName()}));
                     } else {
                         log.warn("Query received with no user-set handler");
                         log.debug("Full message: {}", message);
@@ -411,14 +658,21 @@ public class ExtensionWebSocketListener extends WebSocketListener {
                     // a dropped connection
                     client.flushQueue();
                 }
-                if (this.configHandler != null) {
+                Object object = message.getObject();
+                if (object instanceof Map && ((Map) object).get("config") instanceof Map) {
                     try {
-                        this.configHandler.handleMessage(message);
+                        client.applySourceRateLimit((Map) ((Map) object).get("config"));
                     }
-                    catch (Exception e) {
-                        log.error("Error occurred when running the Configuration handler.", e);
+                    catch (IllegalArgumentException e) {
+                        log.error("Ignoring the notification rate limits in the source's configuration. {}",
+                                e.getMessage());
                     }
                 }
+                if (this.configHandler != null) {
+                    Handler<ExtensionServiceMessage> handler = this.configHandler;
+                    dispatch(configExecutor, null, "configuration",
+                            "Error occurred when running the Configuration handler.", handler, message, null);
+                }
                 else {
                     log.warn("Configuration received with no handler set");
                 }
@@ -430,8 +684,9 @@ public class ExtensionWebSocketListener extends WebSocketListener {
     }
 
     /**
-     * Sets this Listener's handlers to the same as {@code listener}. This function is intended to allow handlers to
-     * maintain state even if the parent {@link ExtensionWebSocketClient} is closed due to websocket issues.
+     * Sets this Listener's handlers, and the executors they run on, to the same as {@code listener}. This function is
+     * intended to allow handlers to maintain state even if the parent {@link ExtensionWebSocketClient} is closed due to
+     * websocket issues.
      * 
      * @param listener  The {@link ExtensionWebSocketListener} to copy the handlers from.
      */
@@ -442,6 +697,13 @@ public class ExtensionWebSocketListener extends WebSocketListener {
         this.httpHandler = listener.httpHandler;
         this.queryHandler = listener.queryHandler;
         this.reconnectHandler = listener.reconnectHandler;
+        this.httpExecutor = listener.httpExecutor;
+        this.publishExecutor = listener.publishExecutor;
+        this.queryExecutor = listener.queryExecutor;
+        this.configExecutor = listener.configExecutor;
+        // Shared, so that messages still in flight are counted against the new listener's limits
+        this.publishesInFlight = listener.publishesInFlight;
+        this.queriesInFlight = listener.queriesInFlight;
     }
     
     /**
@@ -485,8 +747,8 @@ public class ExtensionWebSocketListener extends WebSocketListener {
     }
 
     /**
-     * Logs the error and closes the client. Only closes the client on an {@link EOFException} with no message, as that appears to
-     * be the result of closing the connection with the Vantiq deployment.
+     * Logs the error and closes the client. Only closes the client on an {@link EOFException} with no message, as that
+     * appears to be the result of closing the connection with the Vantiq deployment.
      * @param webSocket The {@link WebSocket} that opened this listener.
      * @param t         The {@link Throwable} that initiated the failure.
      * @param response  The {@link okhttp3.Response} that caused the failure, if any.
@@ -507,7 +769,9 @@ public class ExtensionWebSocketListener extends WebSocketListener {
         // what caused it, so we will close
         if (client.isOpen()) {
             client.close();
-        } else { // The websocket never opened, so it must be a problem connecting. Mark the failure and let the user handle it
+        } else if (client.webSocketFuture != null) {
+            // The websocket never opened, so it must be a problem connecting. Mark the failure and let the user
+            // handle it. The future is gone if the client was stopped before the failure arrived.
             client.webSocketFuture.complete(false);
         }
     }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the messages of one kind that an {@link ExtensionWebSocketListener} has dispatched to a handler and that have
+ * not yet finished, optionally refusing more than a set number at once.
+ */
+class InFlightLimit {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int max = 0;
+
+    /**
+     * @param max   The most messages that may be in flight at once, or 0 for no limit.
+     * @throws IllegalArgumentException if {@code max} is negative.
+     */
+    void setMax(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("The in-flight limit cannot be negative, was " + max + ".");
+        }
+        this.max = max;
+    }
+
+    /**
+     * @return  The most messages that may be in flight at once, or 0 for no limit.
+     */
+    int getMax() {
+        return max;
+    }
+
+    /**
+     * @return  The number of messages in flight.
+     */
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Counts another message as in flight, unless the limit has been reached.
+     *
+     * @return  true if the message may be dispatched, false if it should be rejected. Each true must be matched by a
+     *          call to {@link #release}.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            int limit = max;
+            if (limit > 0 && current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Marks a message counted by {@link #tryAcquire} as finished.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decodes the frames received from Vantiq with a streaming parser.
+ * <p>
+ * The envelope of a message ({@code op}, {@code status}, {@code resourceId}, {@code messageHeaders}, and so on) is
+ * parsed into a {@link Map} as before, but a structured {@code object} is only located, not parsed. It is placed in the
+ * {@link Map} as a {@link RawJson}, which {@link ExtensionServiceMessage} parses when the message is built, or if the
+ * listener defers decoding, the first time a handler asks for it.
+ */
+class InboundMessageDecoder {
+    /**
+     * The field holding the body of an {@link ExtensionServiceMessage}, whose parsing is deferred.
+     */
+    static final String OBJECT_FIELD = "object";
+
+    private final ObjectMapper mapper;
+
+    InboundMessageDecoder(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Decodes a received frame.
+     *
+     * @param data  The frame's bytes. Retained by any {@link RawJson} in the result, so it must not be modified.
+     * @return      The message's fields, with a structured {@code object} held as a {@link RawJson}.
+     * @throws IOException if the frame is not a JSON object.
+     */
+    Map<String, Object> decode(byte[] data) throws IOException {
+        Map<String, Object> msg = new LinkedHashMap<>();
+        try (JsonParser parser = mapper.getFactory().createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object but found " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (OBJECT_FIELD.equals(field) && (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY)) {
+                    int start = (int) parser.currentTokenLocation().getByteOffset();
+                    parser.skipChildren();
+                    int end = (int) parser.currentLocation().getByteOffset();
+                    msg.put(field, new RawJson(data, start, end - start));
+                } else {
+                    msg.put(field, parser.readValueAs(Object.class));
+                }
+            }
+        }
+        return msg;
+    }
+}
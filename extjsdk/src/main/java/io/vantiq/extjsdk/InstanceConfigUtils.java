@@ -9,7 +9,13 @@
 package io.vantiq.extjsdk;
 
 import static io.vantiq.extjsdk.Utils.AUTH_TOKEN_PROPERTY_NAME;
+import static io.vantiq.extjsdk.Utils.METRICS_PORT_PROPERTY_NAME;
+import static io.vantiq.extjsdk.Utils.NOTIFICATION_BYTE_RATE_LIMIT_PROPERTY_NAME;
+import static io.vantiq.extjsdk.Utils.NOTIFICATION_RATE_LIMIT_PROPERTY_NAME;
+import static io.vantiq.extjsdk.Utils.NOTIFICATION_SHARDS_PROPERTY_NAME;
 import static io.vantiq.extjsdk.Utils.PORT_PROPERTY_NAME;
+import static io.vantiq.extjsdk.Utils.RECONNECT_INITIAL_DELAY_PROPERTY_NAME;
+import static io.vantiq.extjsdk.Utils.RECONNECT_MAX_DELAY_PROPERTY_NAME;
 import static io.vantiq.extjsdk.Utils.SECRET_CREDENTIALS;
 import static io.vantiq.extjsdk.Utils.SEND_PING_PROPERTY_NAME;
 import static io.vantiq.extjsdk.Utils.SERVER_CONFIG_DIR;
@@ -153,6 +159,152 @@ public class InstanceConfigUtils {
         return null;
     }
 
+    /**
+     * Helper method used to get the metrics port if specified in the server.config. When set, the connector's metrics
+     * are served on this port in addition to the TCP probe port.
+     *
+     * @return An Integer for the port value provided in the server.config file, or null if none was specified.
+     */
+    public Integer obtainMetricsPort() {
+        Properties localServerConfigProps;
+
+        // Get a local copy of the props while synchronized
+        synchronized (this) {
+            localServerConfigProps = serverConfigProperties;
+        }
+
+        if (localServerConfigProps != null) {
+            String portString = localServerConfigProps.getProperty(METRICS_PORT_PROPERTY_NAME);
+            if (portString != null) {
+                return Integer.valueOf(portString);
+            }
+        } else {
+            throw new RuntimeException("Error occurred when checking for the metricsPort property. The " +
+                    "server.config properties have not yet been captured. Before checking for specific properties, " +
+                    "the 'obtainServerConfig' method must first be called.");
+        }
+
+        return null;
+    }
+
+    /**
+     * Helper method used to get the notification rate limit if specified in the server.config. When set, each source
+     * sends at most this many notifications per second.
+     *
+     * @return A Double for the limit provided in the server.config file, or null if none was specified.
+     */
+    public Double obtainNotificationRateLimit() {
+        Properties localServerConfigProps;
+
+        // Get a local copy of the props while synchronized
+        synchronized (this) {
+            localServerConfigProps = serverConfigProperties;
+        }
+
+        if (localServerConfigProps != null) {
+            String limitString = localServerConfigProps.getProperty(NOTIFICATION_RATE_LIMIT_PROPERTY_NAME);
+            if (limitString != null) {
+                return Double.valueOf(limitString);
+            }
+        } else {
+            throw new RuntimeException("Error occurred when checking for the notificationRateLimit property. The " +
+                    "server.config properties have not yet been captured. Before checking for specific properties, " +
+                    "the 'obtainServerConfig' method must first be called.");
+        }
+
+        return null;
+    }
+
+    /**
+     * Helper method used to get the notification byte rate limit if specified in the server.config. When set, each
+     * source sends at most this many bytes of notifications per second.
+     *
+     * @return A Long for the limit provided in the server.config file, or null if none was specified.
+     */
+    public Long obtainNotificationByteRateLimit() {
+        Properties localServerConfigProps;
+
+        // Get a local copy of the props while synchronized
+        synchronized (this) {
+            localServerConfigProps = serverConfigProperties;
+        }
+
+        if (localServerConfigProps != null) {
+            String limitString = localServerConfigProps.getProperty(NOTIFICATION_BYTE_RATE_LIMIT_PROPERTY_NAME);
+            if (limitString != null) {
+                return Long.valueOf(limitString);
+            }
+        } else {
+            throw new RuntimeException("Error occurred when checking for the notificationByteRateLimit property. The " +
+                    "server.config properties have not yet been captured. Before checking for specific properties, " +
+                    "the 'obtainServerConfig' method must first be called.");
+        }
+
+        return null;
+    }
+
+    /**
+     * Helper method used to get the number of notification shards if specified in the server.config. When set, each
+     * source spreads its notifications across this many websockets.
+     *
+     * @return An Integer for the number of shards provided in the server.config file, or null if none was specified.
+     */
+    public Integer obtainNotificationShards() {
+        Properties localServerConfigProps;
+
+        // Get a local copy of the props while synchronized
+        synchronized (this) {
+            localServerConfigProps = serverConfigProperties;
+        }
+
+        if (localServerConfigProps != null) {
+            String shardsString = localServerConfigProps.getProperty(NOTIFICATION_SHARDS_PROPERTY_NAME);
+            if (shardsString != null) {
+                return Integer.valueOf(shardsString);
+            }
+        } else {
+            throw new RuntimeException("Error occurred when checking for the notificationShards property. The " +
+                    "server.config properties have not yet been captured. Before checking for specific properties, " +
+                    "the 'obtainServerConfig' method must first be called.");
+        }
+
+        return null;
+    }
+
+    /**
+     * Helper method used to get the reconnect policy's delays if specified in the server.config. Delays that are not
+     * specified keep their defaults.
+     *
+     * @return A {@link ReconnectPolicy} using the reconnectInitialDelay and reconnectMaxDelay provided in the
+     *         server.config file, in milliseconds, or null if neither was specified.
+     */
+    public ReconnectPolicy obtainReconnectPolicy() {
+        Properties localServerConfigProps;
+
+        // Get a local copy of the props while synchronized
+        synchronized (this) {
+            localServerConfigProps = serverConfigProperties;
+        }
+
+        if (localServerConfigProps != null) {
+            String initialString = localServerConfigProps.getProperty(RECONNECT_INITIAL_DELAY_PROPERTY_NAME);
+            String maxString = localServerConfigProps.getProperty(RECONNECT_MAX_DELAY_PROPERTY_NAME);
+            if (initialString != null || maxString != null) {
+                long initialDelay = initialString != null ? Long.parseLong(initialString)
+                        : ReconnectPolicy.DEFAULT_INITIAL_DELAY_MS;
+                long maxDelay = maxString != null ? Long.parseLong(maxString)
+                        : Math.max(initialDelay, ReconnectPolicy.DEFAULT_MAX_DELAY_MS);
+                return new ReconnectPolicy(initialDelay, maxDelay, ReconnectPolicy.DEFAULT_MAX_RETRIES);
+            }
+        } else {
+            throw new RuntimeException("Error occurred when checking for the reconnect properties. The " +
+                    "server.config properties have not yet been captured. Before checking for specific properties, " +
+                    "the 'obtainServerConfig' method must first be called.");
+        }
+
+        return null;
+    }
+
     /**
      * Helper method used to get the sendPings property if specified in the server.config
      *
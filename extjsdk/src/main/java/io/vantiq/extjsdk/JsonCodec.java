@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The JSON codec shared by the SDK and the connectors built on it.
+ * <p>
+ * An {@link ObjectMapper} caches the serializers and deserializers it builds for each type, but only for itself, so
+ * every component that creates its own mapper builds them all again and keeps its own copy. Everything here comes from
+ * one mapper, and the {@link ObjectReader}s and {@link ObjectWriter}s it hands out are created once per type and kept.
+ * Readers and writers are immutable and thread-safe, and having resolved their root type's (de)serializer they skip
+ * looking it up on each call, so they may be held in static fields and used from any thread.
+ * <p>
+ * When running on Java 11 or later, the mapper uses Jackson's Blackbird module, which replaces the reflection used to
+ * read and write bean properties with generated accessors. On Java 8 the mapper behaves exactly as a plain
+ * {@code new ObjectMapper()}.
+ * <p>
+ * The shared mapper must not be reconfigured. Callers that need a different configuration, such as extra modules or
+ * features, should start from {@link #newMapper()} and keep the result rather than create one per message.
+ */
+public final class JsonCodec {
+    private static final Logger log = LoggerFactory.getLogger(JsonCodec.class);
+
+    private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+    private static final Module BYTECODE_ACCESSORS = loadBytecodeAccessors();
+    private static final ObjectMapper MAPPER = newMapper();
+    private static final ObjectReader READER = MAPPER.readerFor(Object.class);
+    private static final ObjectReader MAP_READER = MAPPER.readerFor(Map.class);
+    private static final ObjectWriter WRITER = MAPPER.writer();
+
+    private static final ConcurrentMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private JsonCodec() {}
+
+    /**
+     * @return  The mapper shared by the SDK. It must not be reconfigured.
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Creates a mapper configured as the shared one, for callers that need to configure it further. The mapper
+     * should be kept and reused, since each one builds its own serializers and deserializers.
+     *
+     * @return  A new mapper.
+     */
+    public static ObjectMapper newMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        if (BYTECODE_ACCESSORS != null) {
+            mapper.registerModule(BYTECODE_ACCESSORS);
+        }
+        return mapper;
+    }
+
+    /**
+     * @return  A reader that parses JSON as plain Java objects: {@link Map}s, {@link java.util.List}s and scalars.
+     */
+    public static ObjectReader reader() {
+        return READER;
+    }
+
+    /**
+     * @return  A reader that parses a JSON object as a {@link Map}.
+     */
+    public static ObjectReader mapReader() {
+        return MAP_READER;
+    }
+
+    /**
+     * @param type  The type to parse JSON as.
+     * @return      The reader for {@code type}.
+     */
+    public static ObjectReader readerFor(Class<?> type) {
+        return readerFor(MAPPER.constructType(type));
+    }
+
+    /**
+     * @param type  The type to parse JSON as.
+     * @return      The reader for {@code type}.
+     */
+    public static ObjectReader readerFor(TypeReference<?> type) {
+        return readerFor(MAPPER.constructType(type));
+    }
+
+    private static ObjectReader readerFor(JavaType type) {
+        return readers.computeIfAbsent(type, MAPPER::readerFor);
+    }
+
+    /**
+     * @return  A writer that serializes any value according to its runtime type.
+     */
+    public static ObjectWriter writer() {
+        return WRITER;
+    }
+
+    /**
+     * Returns a writer that serializes values as {@code type}. Its serializer is resolved once rather than on each
+     * call, but values are only written as far as {@code type} declares, so a subclass's additional properties are
+     * dropped. Use {@link #writer()} for values whose type varies.
+     *
+     * @param type  The type to serialize values as.
+     * @return      The writer for {@code type}.
+     */
+    public static ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(MAPPER.constructType(type), MAPPER::writerFor);
+    }
+
+    /**
+     * @return  Whether the mapper reads and writes bean properties through generated accessors rather than
+     *          reflection.
+     */
+    public static boolean usesBytecodeAccessors() {
+        return BYTECODE_ACCESSORS != null;
+    }
+
+    /**
+     * Creates the Blackbird module if this JVM can use it. Blackbird defines its accessors through
+     * {@code MethodHandles.privateLookupIn}, which was added in Java 9 and is only supported by Blackbird from Java 11,
+     * so it is loaded by name to keep the SDK usable on Java 8.
+     */
+    private static Module loadBytecodeAccessors() {
+        String specVersion = System.getProperty("java.specification.version", "1.8");
+        if (specVersion.startsWith("1.") || Integer.parseInt(specVersion.split("\\.")[0]) < 11) {
+            log.debug("Java {} is too old for generated JSON accessors; using reflection.", specVersion);
+            return null;
+        }
+        try {
+            return (Module) Class.forName(BLACKBIRD_MODULE).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Could not load generated JSON accessors; using reflection.", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A disk-backed {@link java.util.Queue} for messages that could not be sent to Vantiq, used in place of the in-memory
+ * failed message queue when a connector must ride out long outages without losing data or growing its heap.
+ * <p>
+ * Messages are serialized to JSON and appended to a journal of fixed-size, memory-mapped segment files. When the tail
+ * segment fills, a new one is started; when every message in the head segment has been read, the segment is deleted.
+ * The journal is bounded by bytes: once adding a message would exceed the limit, the oldest segment is dropped, so
+ * like the in-memory queue it keeps the most recent messages. Reads return messages in the order they were added, as
+ * the {@link java.util.Map} (or other JSON value) produced by deserializing them, which is what
+ * {@link ExtensionWebSocketClient#send} needs to resend them.
+ * <p>
+ * Each record is a 4-byte length followed by the JSON bytes. Reading a record negates its length in place, so a
+ * journal reopened after a restart resumes with the first unread message.
+ * <p>
+ * The heap used does not depend on how much is journaled: the segments themselves live in mapped memory, and only a
+ * small descriptor is kept per segment.
+ */
+public class MappedMessageJournal extends AbstractQueue<Object> {
+    /**
+     * The default size of each segment file.
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".seg";
+    private static final int LENGTH_BYTES = 4;
+
+    private static final Logger log = LoggerFactory.getLogger(MappedMessageJournal.class);
+
+    /**
+     * A single mapped segment file.
+     */
+    private static class Segment {
+        final long sequence;
+        final File file;
+        final MappedByteBuffer buffer;
+        int readPosition = 0;
+        int writePosition = 0;
+        int unread = 0;
+
+        Segment(long sequence, File file, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final int segmentBytes;
+    private final ObjectMapper mapper;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private int size = 0;
+    private long evictedCount = 0;
+    private long nextSequence = 0;
+
+    /**
+     * Opens (or creates) a journal in {@code directory}, using segments of {@link #DEFAULT_SEGMENT_BYTES} or a
+     * quarter of {@code maxBytes}, whichever is smaller. Any unread messages left in the directory by a previous run
+     * are recovered.
+     *
+     * @param directory The directory holding the segment files. It is created if necessary, and should not be
+     *                  shared with another journal.
+     * @param maxBytes  The most disk space the journal's segments may use.
+     * @throws IOException if the directory or its segments cannot be opened.
+     */
+    public MappedMessageJournal(File directory, long maxBytes) throws IOException {
+        this(directory, maxBytes, (int) Math.min(DEFAULT_SEGMENT_BYTES, maxBytes / 4), JsonCodec.mapper());
+    }
+
+    /**
+     * Opens (or creates) a journal in {@code directory}. Any unread messages left in the directory by a previous run
+     * are recovered.
+     *
+     * @param directory     The directory holding the segment files. It is created if necessary, and should not be
+     *                      shared with another journal.
+     * @param maxBytes      The most disk space the journal's segments may use. Must hold at least two segments.
+     * @param segmentBytes  The size of each segment file. A single message larger than this cannot be journaled.
+     * @param mapper        The {@link ObjectMapper} used to serialize and deserialize messages.
+     * @throws IOException if the directory or its segments cannot be opened.
+     */
+    public MappedMessageJournal(File directory, long maxBytes, int segmentBytes, ObjectMapper mapper)
+            throws IOException {
+        if (segmentBytes <= LENGTH_BYTES || maxBytes < 2L * segmentBytes) {
+            throw new IllegalArgumentException("The journal must hold at least two segments. Received max bytes: "
+                    + maxBytes + ", segment bytes: " + segmentBytes);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create journal directory '" + directory.getAbsolutePath() + "'");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.segmentBytes = segmentBytes;
+        this.mapper = mapper;
+        recover();
+    }
+
+    @Override
+    public synchronized boolean offer(Object message) {
+        byte[] bytes;
+        try {
+            bytes = mapper.writeValueAsBytes(message);
+        } catch (IOException e) {
+            log.error("Could not serialize message for the failed message journal. It will be dropped.", e);
+            return false;
+        }
+        int recordBytes = LENGTH_BYTES + bytes.length;
+        if (recordBytes > segmentBytes) {
+            log.error("Message of {} bytes is too large for the failed message journal's {} byte segments. "
+                    + "It will be dropped.", bytes.length, segmentBytes);
+            return false;
+        }
+
+        try {
+            Segment tail = segments.peekLast();
+            if (tail == null || tail.writePosition + recordBytes > segmentBytes) {
+                // Make room for a new segment by dropping the oldest, the way the in-memory queue evicts
+                while ((long) (segments.size() + 1) * segmentBytes > maxBytes) {
+                    Segment oldest = segments.pollFirst();
+                    evictedCount += oldest.unread;
+                    size -= oldest.unread;
+                    log.warn("Failed message journal is full. Dropping {} of the oldest messages.", oldest.unread);
+                    deleteSegment(oldest);
+                }
+                tail = createSegment(nextSequence++);
+                segments.addLast(tail);
+            }
+            // Write the body and the terminator that follows it before the length, so that a partially written
+            // record is never seen as valid when the journal is reopened
+            tail.buffer.position(tail.writePosition + LENGTH_BYTES);
+            tail.buffer.put(bytes);
+            if (tail.writePosition + recordBytes + LENGTH_BYTES <= segmentBytes) {
+                tail.buffer.putInt(tail.writePosition + recordBytes, 0);
+            }
+            tail.buffer.putInt(tail.writePosition, bytes.length);
+            tail.writePosition += recordBytes;
+            tail.unread++;
+            size++;
+            return true;
+        } catch (IOException e) {
+            log.error("Could not write to the failed message journal. The message will be dropped.", e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized Object poll() {
+        Segment head = advanceToReadable();
+        if (head == null) {
+            return null;
+        }
+        int length = head.buffer.getInt(head.readPosition);
+        Object message = readRecord(head, head.readPosition, length);
+        // Mark the record as read, so that it is not replayed if the journal is reopened
+        head.buffer.putInt(head.readPosition, -length);
+        head.readPosition += LENGTH_BYTES + length;
+        head.unread--;
+        size--;
+        advanceToReadable();
+        return message;
+    }
+
+    @Override
+    public synchronized Object peek() {
+        Segment head = advanceToReadable();
+        if (head == null) {
+            return null;
+        }
+        return readRecord(head, head.readPosition, head.buffer.getInt(head.readPosition));
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return  The number of messages dropped because the journal was full.
+     */
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * @return  The disk space, in bytes, currently used by the journal's segments.
+     */
+    public synchronized long getJournalBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the unread messages, oldest first. The iterator does not support
+     * removal.
+     *
+     * @return  An iterator over the unread messages.
+     */
+    @Override
+    public synchronized Iterator<Object> iterator() {
+        List<Object> snapshot = new ArrayList<>(size);
+        for (Segment segment : segments) {
+            int position = segment.readPosition;
+            while (position + LENGTH_BYTES <= segment.writePosition) {
+                int length = segment.buffer.getInt(position);
+                if (length > 0) {
+                    snapshot.add(readRecord(segment, position, length));
+                }
+                position += LENGTH_BYTES + Math.abs(length);
+            }
+        }
+        final Iterator<Object> it = snapshot.iterator();
+        return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                if (!it.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Removes fully read segments from the head of the journal.
+     *
+     * @return  The head segment if it has an unread record, otherwise null.
+     */
+    private Segment advanceToReadable() {
+        Segment head;
+        while ((head = segments.peekFirst()) != null) {
+            if (head.unread > 0) {
+                return head;
+            }
+            if (head == segments.peekLast()) {
+                // Keep the tail for writing, but start it over since everything in it has been read
+                head.buffer.putInt(0, 0);
+                head.readPosition = 0;
+                head.writePosition = 0;
+                return null;
+            }
+            deleteSegment(segments.pollFirst());
+        }
+        return null;
+    }
+
+    private Object readRecord(Segment segment, int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = segment.buffer.duplicate();
+        view.position(position + LENGTH_BYTES);
+        view.get(bytes);
+        try {
+            return mapper.readValue(bytes, Object.class);
+        } catch (IOException e) {
+            log.error("Could not read message from the failed message journal segment '{}'.",
+                    segment.file.getName(), e);
+            return null;
+        }
+    }
+
+    private Segment createSegment(long sequence) throws IOException {
+        File file = new File(directory, SEGMENT_PREFIX + String.format("%019d", sequence) + SEGMENT_SUFFIX);
+        return new Segment(sequence, file, map(file));
+    }
+
+    private MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            // The mapping remains valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        // The mapping itself is released when the buffer is garbage collected
+        if (!segment.file.delete()) {
+            log.warn("Could not delete failed message journal segment '{}'.", segment.file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Reopens any segments left by a previous run, skipping records that were already read.
+     */
+    private void recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+                && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            long sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length()));
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            if (file.length() != segmentBytes) {
+                log.warn("Ignoring failed message journal segment '{}' since its size does not match the "
+                        + "configured segment size.", file.getAbsolutePath());
+                continue;
+            }
+
+            Segment segment = new Segment(sequence, file, map(file));
+            int position = 0;
+            boolean sawUnread = false;
+            while (position + LENGTH_BYTES <= segmentBytes) {
+                int length = segment.buffer.getInt(position);
+                if (length == 0 || position + LENGTH_BYTES + Math.abs(length) > segmentBytes) {
+                    break;
+                }
+                if (length > 0) {
+                    segment.unread++;
+                    sawUnread = true;
+                } else if (!sawUnread) {
+                    segment.readPosition = position + LENGTH_BYTES - length;
+                }
+                position += LENGTH_BYTES + Math.abs(length);
+            }
+            segment.writePosition = position;
+            if (segment.unread == 0) {
+                deleteSegment(segment);
+            } else {
+                segments.addLast(segment);
+                size += segment.unread;
+            }
+        }
+        if (size > 0) {
+            log.info("Recovered {} unsent messages from the failed message journal in '{}'.", size,
+                    directory.getAbsolutePath());
+        }
+    }
+}
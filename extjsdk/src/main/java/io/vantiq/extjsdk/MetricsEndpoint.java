@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Serves a {@link MetricsRegistry} over HTTP as Prometheus text, in response to {@code GET /metrics}.
+ * <p>
+ * The TCP probe opened by {@link ExtensionWebSocketClient#declareHealthy()} answers through {@link #respond}, so the
+ * metrics can be scraped from the probe port; connections that send nothing, as a Kubernetes TCP probe does, are
+ * simply closed. When the {@code metricsPort} property is set in the server.config file, the metrics are also served
+ * on that port, which stays open whether or not the connector is healthy.
+ */
+public class MetricsEndpoint implements AutoCloseable {
+    /**
+     * The path the metrics are served from.
+     */
+    public static final String METRICS_PATH = "/metrics";
+
+    /**
+     * How long to wait for a connection to send its request before closing it.
+     */
+    static final int READ_TIMEOUT_MS = 2000;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final Logger log = LoggerFactory.getLogger(MetricsEndpoint.class);
+
+    /**
+     * Answers the connections accepted by the TCP probe.
+     */
+    static final ExecutorService PROBE_RESPONDERS = DispatchExecutors.bounded("tcpProbe", 2, 16);
+
+    private static MetricsEndpoint shared = null;
+
+    private final ServerSocket serverSocket;
+    private final MetricsRegistry registry;
+    private final ExecutorService responders = DispatchExecutors.bounded("metricsEndpoint", 2, 16);
+
+    /**
+     * Starts serving {@code registry} on {@code port}.
+     *
+     * @param port      The port to listen on, or 0 to use any free port.
+     * @param registry  The registry to serve.
+     * @throws IOException if the port cannot be opened.
+     */
+    public MetricsEndpoint(int port, MetricsRegistry registry) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.registry = registry;
+        Thread acceptor = DispatchExecutors.daemonThreadFactory("metricsEndpointAcceptor").newThread(this::accept);
+        acceptor.start();
+    }
+
+    /**
+     * Starts serving the default registry on {@code port}, unless it is already being served. The endpoint stays
+     * open for the life of the JVM.
+     *
+     * @param port  The port to listen on.
+     * @return      The endpoint serving the default registry.
+     * @throws IOException if the port cannot be opened.
+     */
+    public static synchronized MetricsEndpoint startShared(int port) throws IOException {
+        if (shared == null) {
+            shared = new MetricsEndpoint(port, MetricsRegistry.getDefault());
+            log.info("Serving metrics on port {}.", shared.getPort());
+        }
+        return shared;
+    }
+
+    /**
+     * @return  The port the endpoint is listening on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        responders.shutdown();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                respondAsync(socket, registry, responders);
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.error("An error occurred while listening for metrics requests.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers {@code socket} on one of {@code responders}, closing it if they are all busy.
+     *
+     * @param socket        A newly accepted connection.
+     * @param registry      The registry to serve.
+     * @param responders    The executor to answer on.
+     */
+    static void respondAsync(Socket socket, MetricsRegistry registry, ExecutorService responders) {
+        try {
+            responders.execute(() -> respond(socket, registry));
+        } catch (RejectedExecutionException ree) {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Answers a single connection and closes it. A {@code GET} for {@link #METRICS_PATH} receives the metrics, other
+     * HTTP requests receive a 404, and connections that send nothing are closed.
+     *
+     * @param socket    A newly accepted connection.
+     * @param registry  The registry to serve.
+     */
+    static void respond(Socket socket, MetricsRegistry registry) {
+        try {
+            socket.setSoTimeout(READ_TIMEOUT_MS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            String requestLine = in.readLine();
+            if (requestLine == null) {
+                // A plain TCP probe
+                return;
+            }
+            // Skip the headers
+            String header;
+            do {
+                header = in.readLine();
+            } while (header != null && !header.isEmpty());
+
+            String[] parts = requestLine.split(" ");
+            String path = parts.length > 1 ? parts[1] : "";
+            int query = path.indexOf('?');
+            if (query >= 0) {
+                path = path.substring(0, query);
+            }
+            OutputStream out = socket.getOutputStream();
+            if (parts[0].equals("GET") && path.equals(METRICS_PATH)) {
+                writeResponse(out, "200 OK", CONTENT_TYPE, registry.scrape());
+            } else {
+                writeResponse(out, "404 Not Found", "text/plain; charset=utf-8", "Not Found\n");
+            }
+        } catch (SocketTimeoutException e) {
+            // Nothing was sent, as with a TCP probe that holds its connection open
+        } catch (IOException e) {
+            log.debug("Failed to answer metrics request.", e);
+        } finally {
+            closeQuietly(socket);
+        }
+    }
+
+    private static void writeResponse(OutputStream out, String status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + "\r\n"
+                + "Content-Type: " + contentType + "\r\n"
+                + "Content-Length: " + bytes.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing more to do
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import org.HdrHistogram.Recorder;
+
+/**
+ * A lightweight registry of counters, gauges, histograms and summaries, written out in the Prometheus text format.
+ * <p>
+ * Each {@link ExtensionWebSocketClient} records its notification, acknowledgement, failed message, reconnection and
+ * handler metrics in the {@link #getDefault() default registry}, labelled with its source's name. Connectors can add
+ * their own, such as the time spent waiting on the system they connect to, so that a slow connector can be traced to
+ * Vantiq, to its source system, or to its own threads. The default registry is served by {@link MetricsEndpoint}.
+ * <p>
+ * Metrics are identified by their name and labels. Asking for a metric that already exists returns the existing one,
+ * so callers need not hold onto them. Labels are given as alternating names and values, e.g.
+ * {@code counter("requests_total", "Requests handled.", "source", "mySource")}.
+ */
+public class MetricsRegistry {
+    /**
+     * Histogram buckets, in seconds, suited to the latency of messages and handlers.
+     */
+    public static final double[] LATENCY_BUCKETS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    /**
+     * The name of the histogram returned by {@link #sourceOperationTime}.
+     */
+    public static final String SOURCE_OPERATION_SECONDS = "vantiq_connector_source_operation_seconds";
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    /**
+     * @return  The registry shared by every client in this JVM.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    // Sorted so that scrapes list the metrics in a stable order
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the counter with the given name and labels, creating it if necessary.
+     *
+     * @param name      The metric's name. By Prometheus convention, counters end in {@code _total}.
+     * @param help      A description of the metric.
+     * @param labels    Alternating label names and values.
+     * @return          The counter.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").series.computeIfAbsent(labelText(labels), l -> new Counter());
+    }
+
+    /**
+     * Returns the histogram with the given name and labels, creating it if necessary.
+     *
+     * @param name      The metric's name. By Prometheus convention, durations are in seconds and end in
+     *                  {@code _seconds}.
+     * @param help      A description of the metric.
+     * @param buckets   The upper bounds of the histogram's buckets, in increasing order. Only used when the histogram
+     *                  is created.
+     * @param labels    Alternating label names and values.
+     * @return          The histogram.
+     */
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) family(name, help, "histogram").series.computeIfAbsent(labelText(labels),
+                l -> new Histogram(buckets));
+    }
+
+    /**
+     * Returns the summary with the given name and labels, creating it if necessary.
+     *
+     * @param name      The metric's name. By Prometheus convention, durations are in seconds and end in
+     *                  {@code _seconds}.
+     * @param help      A description of the metric.
+     * @param labels    Alternating label names and values.
+     * @return          The summary.
+     */
+    public Summary summary(String name, String help, String... labels) {
+        return (Summary) family(name, help, "summary").series.computeIfAbsent(labelText(labels), l -> new Summary());
+    }
+
+    /**
+     * Registers a gauge whose value is read from {@code value} whenever the registry is written. Registering a gauge
+     * that already exists replaces its source.
+     *
+     * @param name      The metric's name.
+     * @param help      A description of the metric.
+     * @param value     Provides the gauge's current value.
+     * @param labels    Alternating label names and values.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge").series.put(labelText(labels), new Sampled(value));
+    }
+
+    /**
+     * Registers a counter whose value is kept elsewhere and read from {@code value} whenever the registry is
+     * written. Registering a counter that already exists replaces its source.
+     *
+     * @param name      The metric's name.
+     * @param help      A description of the metric.
+     * @param value     Provides the counter's current value.
+     * @param labels    Alternating label names and values.
+     */
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "counter").series.put(labelText(labels), new Sampled(value));
+    }
+
+    /**
+     * Returns the histogram of time a connector spends waiting on the system it connects to, such as a database query
+     * or a file read. Connectors record these so that their time can be told apart from time spent sending to Vantiq.
+     *
+     * @param sourceName    The name of the connector's source.
+     * @param operation     The kind of operation, e.g. "query" or "publish".
+     * @return              The histogram, in seconds.
+     */
+    public Histogram sourceOperationTime(String sourceName, String operation) {
+        return histogram(SOURCE_OPERATION_SECONDS, "Time spent in operations on the system the connector connects to.",
+                LATENCY_BUCKETS, "source", sourceName, "operation", operation);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format.
+     *
+     * @param out   Where to write the metrics.
+     * @throws IOException if {@code out} cannot be written to.
+     */
+    public void write(Appendable out) throws IOException {
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Metric> series : family.series.entrySet()) {
+                series.getValue().write(out, family.name, series.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return  Every metric in the Prometheus text exposition format.
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            write(sb);
+        } catch (IOException e) {
+            // Not possible for a StringBuilder
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric '" + name + "' is already registered as a " + family.type
+                    + ", not a " + type + ".");
+        }
+        return family;
+    }
+
+    private static String labelText(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs.");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"");
+            String value = String.valueOf(labels[i + 1]);
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                if (ch == '\\' || ch == '"') {
+                    sb.append('\\').append(ch);
+                } else if (ch == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(ch);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private static void writeSample(Appendable out, String name, String labels, double value) throws IOException {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private static String formatValue(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "+Inf";
+        } else if (value == (long) value) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static class Family {
+        final String name;
+        final String help;
+        final String type;
+        final ConcurrentMap<String, Metric> series = new ConcurrentHashMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private interface Metric {
+        void write(Appendable out, String name, String labels) throws IOException;
+    }
+
+    /**
+     * A count that only increases.
+     */
+    public static final class Counter implements Metric {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+
+        @Override
+        public void write(Appendable out, String name, String labels) throws IOException {
+            writeSample(out, name, labels, count.sum());
+        }
+    }
+
+    /**
+     * A distribution of observed values, counted into fixed buckets.
+     */
+    public static final class Histogram implements Metric {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds.clone();
+            this.buckets = new LongAdder[bounds.length];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * @param value The value observed, e.g. a duration in seconds.
+         */
+        public void observe(double value) {
+            for (int i = 0; i < bounds.length; i++) {
+                if (value <= bounds[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(value);
+        }
+
+        /**
+         * @param nanos A duration in nanoseconds, recorded in seconds.
+         */
+        public void observeNanos(long nanos) {
+            observe(nanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getSum() {
+            return sum.sum();
+        }
+
+        @Override
+        public void write(Appendable out, String name, String labels) throws IOException {
+            String separator = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += buckets[i].sum();
+                writeSample(out, name + "_bucket", separator + "le=\"" + formatValue(bounds[i]) + "\"", cumulative);
+            }
+            // Read the count once so that the +Inf bucket and the count agree
+            long total = Math.max(count.sum(), cumulative);
+            writeSample(out, name + "_bucket", separator + "le=\"+Inf\"", total);
+            writeSample(out, name + "_sum", labels, sum.sum());
+            writeSample(out, name + "_count", labels, total);
+        }
+    }
+
+    /**
+     * A distribution of durations, reported as quantiles over the last {@link #WINDOW_NANOS one to two minutes} along
+     * with the count and sum of every duration observed.
+     * <p>
+     * Durations are recorded into an HdrHistogram {@link Recorder}, which is wait-free for the threads recording and
+     * keeps three significant digits however large the duration, so tail latencies are reported exactly rather than
+     * to the nearest bucket. The recorded durations are collected into the current window whenever the summary is
+     * read, and a window is kept for a minute after it is replaced so that the quantiles never cover less than a
+     * minute's observations.
+     */
+    public static final class Summary implements Metric {
+        /**
+         * The quantiles written out.
+         */
+        static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+        /**
+         * How long observations stay in the current window before it is replaced.
+         */
+        static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+        private static final int SIGNIFICANT_DIGITS = 3;
+
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        // All guarded by this
+        private org.HdrHistogram.Histogram interval = null;
+        private org.HdrHistogram.Histogram current = new org.HdrHistogram.Histogram(SIGNIFICANT_DIGITS);
+        private org.HdrHistogram.Histogram previous = new org.HdrHistogram.Histogram(SIGNIFICANT_DIGITS);
+        private long currentStartedAt = System.nanoTime();
+
+        Summary() {
+        }
+
+        /**
+         * @param nanos A duration in nanoseconds, reported in seconds. Negative durations, which can only come from
+         *              clocks on different machines, are recorded as 0.
+         */
+        public void observeNanos(long nanos) {
+            nanos = Math.max(0, nanos);
+            recorder.recordValue(nanos);
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @param quantile  The quantile, from 0 to 1.
+         * @return          The duration at {@code quantile} over the recent window, in seconds, or 0 if there have
+         *                  been no recent observations.
+         */
+        public double getQuantile(double quantile) {
+            return snapshot().getValueAtPercentile(quantile * 100) / (double) TimeUnit.SECONDS.toNanos(1);
+        }
+
+        /**
+         * Collects what has been recorded since the last read and combines the current and previous windows.
+         *
+         * @return  The observations of the recent window.
+         */
+        private synchronized org.HdrHistogram.Histogram snapshot() {
+            interval = recorder.getIntervalHistogram(interval);
+            long now = System.nanoTime();
+            if (now - currentStartedAt >= WINDOW_NANOS) {
+                // A window older than two minutes is of no use, as when nothing has read the summary for a while
+                boolean stale = now - currentStartedAt >= 2 * WINDOW_NANOS;
+                previous = stale ? new org.HdrHistogram.Histogram(SIGNIFICANT_DIGITS) : current;
+                current = new org.HdrHistogram.Histogram(SIGNIFICANT_DIGITS);
+                currentStartedAt = now;
+            }
+            current.add(interval);
+            org.HdrHistogram.Histogram combined = current.copy();
+            combined.add(previous);
+            return combined;
+        }
+
+        @Override
+        public void write(Appendable out, String name, String labels) throws IOException {
+            String separator = labels.isEmpty() ? "" : labels + ",";
+            org.HdrHistogram.Histogram recent = snapshot();
+            for (double quantile : QUANTILES) {
+                writeSample(out, name, separator + "quantile=\"" + formatValue(quantile) + "\"",
+                        recent.getValueAtPercentile(quantile * 100) / (double) TimeUnit.SECONDS.toNanos(1));
+            }
+            writeSample(out, name + "_sum", labels, sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1));
+            writeSample(out, name + "_count", labels, count.sum());
+        }
+    }
+
+    /**
+     * A gauge or counter whose value is read when written.
+     */
+    private static final class Sampled implements Metric {
+        private final DoubleSupplier value;
+
+        Sampled(DoubleSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public void write(Appendable out, String name, String labels) throws IOException {
+            writeSample(out, name, labels, value.getAsDouble());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets limiting the rate at which an {@link ExtensionWebSocketClient} sends notifications, in notifications
+ * per second and in bytes per second. A client with several notification shards shares one limiter between them, so
+ * that the limits apply to the source as a whole.
+ * <p>
+ * Each bucket holds up to one second's worth of tokens, so a source that has been quiet may send a burst of that size
+ * before being held to the rate. The notification writer calls {@link #acquire} before sending each notification,
+ * which waits until a notification token is available and the byte bucket is not in debt. Since a notification's size
+ * is only known once it has been serialized, its bytes are taken afterwards by {@link #charge}, which may leave the
+ * byte bucket in debt; the next notification then waits until the debt has been repaid. The rate is held on average
+ * while any single notification, however large, can still be sent.
+ * <p>
+ * While a notification waits, the writer's queue fills, so producers watching
+ * {@link ExtensionWebSocketClient#isWritable} pause rather than building a backlog.
+ */
+class NotificationRateLimiter {
+    /**
+     * The longest the writer sleeps at once while throttled, so that it notices a change to the limits promptly.
+     */
+    static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // All guarded by this
+    private double eventsPerSecond = 0;
+    private long bytesPerSecond = 0;
+    private double eventTokens = 0;
+    private double byteTokens = 0;
+    private long refilledAt = System.nanoTime();
+
+    // Written while synchronized, read without
+    private volatile long throttledNanos = 0;
+    private volatile long throttledCount = 0;
+
+    /**
+     * Sets the limits. Each bucket starts full.
+     *
+     * @param eventsPerSecond   The most notifications to send per second, or 0 for no limit.
+     * @param bytesPerSecond    The most bytes of notifications to send per second, or 0 for no limit.
+     * @throws IllegalArgumentException if either limit is negative.
+     */
+    synchronized void setLimits(double eventsPerSecond, long bytesPerSecond) {
+        if (eventsPerSecond < 0 || bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Rate limits cannot be negative, but were " + eventsPerSecond
+                    + " notifications and " + bytesPerSecond + " bytes per second.");
+        }
+        this.eventsPerSecond = eventsPerSecond;
+        this.bytesPerSecond = bytesPerSecond;
+        this.eventTokens = eventCapacity();
+        this.byteTokens = bytesPerSecond;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * @return  The most notifications to send per second, or 0 for no limit.
+     */
+    synchronized double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    /**
+     * @return  The most bytes of notifications to send per second, or 0 for no limit.
+     */
+    synchronized long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return  The total time notifications have waited for the limits.
+     */
+    long getThrottledNanos() {
+        return throttledNanos;
+    }
+
+    /**
+     * @return  The number of notifications that had to wait for the limits.
+     */
+    long getThrottledCount() {
+        return throttledCount;
+    }
+
+    /**
+     * Waits until the limits allow another notification to be sent, and takes a notification token for it.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void acquire() throws InterruptedException {
+        long startedAt = 0;
+        try {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    waitNanos = nanosUntilAvailable();
+                    if (waitNanos <= 0) {
+                        if (eventsPerSecond > 0) {
+                            eventTokens -= 1;
+                        }
+                        return;
+                    }
+                }
+                if (startedAt == 0) {
+                    startedAt = System.nanoTime();
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, MAX_SLEEP_NANOS));
+            }
+        } finally {
+            if (startedAt != 0) {
+                // The writers of every notification shard may acquire at once
+                synchronized (this) {
+                    throttledNanos += System.nanoTime() - startedAt;
+                    throttledCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the bytes of a notification that has been sent from the byte bucket, going into debt if necessary.
+     *
+     * @param bytes The size of the notification.
+     */
+    synchronized void charge(long bytes) {
+        if (bytesPerSecond > 0) {
+            refill();
+            byteTokens -= bytes;
+        }
+    }
+
+    /**
+     * Refills the buckets and computes how long until a notification may be sent. Must be called while synchronized.
+     *
+     * @return  The nanoseconds to wait, or 0 if a notification may be sent now.
+     */
+    private long nanosUntilAvailable() {
+        refill();
+        double waitSeconds = 0;
+        if (eventsPerSecond > 0 && eventTokens < 1) {
+            waitSeconds = (1 - eventTokens) / eventsPerSecond;
+        }
+        if (bytesPerSecond > 0 && byteTokens < 0) {
+            waitSeconds = Math.max(waitSeconds, -byteTokens / bytesPerSecond);
+        }
+        return waitSeconds <= 0 ? 0 : Math.max(1, (long) Math.ceil(waitSeconds * NANOS_PER_SECOND));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - refilledAt) / NANOS_PER_SECOND;
+        refilledAt = now;
+        if (eventsPerSecond > 0) {
+            eventTokens = Math.min(eventCapacity(), eventTokens + elapsedSeconds * eventsPerSecond);
+        }
+        if (bytesPerSecond > 0) {
+            byteTokens = Math.min(bytesPerSecond, byteTokens + elapsedSeconds * bytesPerSecond);
+        }
+    }
+
+    private double eventCapacity() {
+        // At least one, so that rates below one per second still let a notification through
+        return Math.max(1, eventsPerSecond);
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The websockets an {@link ExtensionWebSocketClient} spreads its notifications across when its source sends more than
+ * one ordered connection can carry. See {@link ExtensionWebSocketClient#setNotificationShards}.
+ * <p>
+ * Shard 0 is the client the connector created. The others are clients of their own for the same source, each with its
+ * own websocket, notification writer, window and failed message queue, so a slow or dropped shard holds up only the
+ * notifications sent on it. They share the primary client's rate limiter, and are given its publish and query
+ * handlers whenever they connect. They ignore configuration messages, which the primary client handles for the
+ * source, and reconnect on their own: after Vantiq asks them to, and after their websocket closes, until the primary
+ * client is stopped. Reconnections after a close wait as the primary client's {@link ReconnectPolicy} directs.
+ */
+class NotificationShards {
+    private static final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "vantiqShardReconnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ExtensionWebSocketClient primary;
+    private final ExtensionWebSocketClient[] shards;
+    private final AtomicBoolean[] reconnecting;
+    /**
+     * The attempts to reconnect each shard since it last connected.
+     */
+    private final AtomicInteger[] attempts;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Logger log;
+
+    // Set by connect(), and read by the reconnections it schedules
+    private volatile boolean stopped = true;
+    private volatile String url;
+    private volatile String token;
+    private volatile boolean sendPings;
+
+    /**
+     * @param primary   The client the connector created.
+     * @param count     The number of shards, including {@code primary}.
+     */
+    NotificationShards(ExtensionWebSocketClient primary, int count) {
+        this.primary = primary;
+        this.log = LoggerFactory.getLogger(this.getClass().getCanonicalName() + "#" + primary.getSourceName());
+        shards = new ExtensionWebSocketClient[count];
+        reconnecting = new AtomicBoolean[count];
+        attempts = new AtomicInteger[count];
+        shards[0] = primary;
+        for (int i = 1; i < count; i++) {
+            shards[i] = newShard(i);
+            reconnecting[i] = new AtomicBoolean();
+            attempts[i] = new AtomicInteger();
+        }
+    }
+
+    private ExtensionWebSocketClient newShard(int index) {
+        ExtensionWebSocketClient shard = new ExtensionWebSocketClient(primary, index);
+        NotificationWindow window = primary.getNotificationWindow();
+        shard.setNotificationWindowLimits(window.getMinWindow(), window.getMaxWindow());
+        shard.setWritabilityWaterMarks(primary.notificationWriter.getLowWaterMark(),
+                primary.notificationWriter.getHighWaterMark());
+        shard.setCloseHandler(new Handler<ExtensionWebSocketClient>() {
+            @Override
+            public void handleMessage(ExtensionWebSocketClient client) {
+                log.warn("The websocket for notification shard {} closed.", index);
+                scheduleReconnect(index);
+            }
+        });
+        return shard;
+    }
+
+    /**
+     * @return  The number of shards, including the primary client.
+     */
+    int size() {
+        return shards.length;
+    }
+
+    /**
+     * @param index The index of the shard.
+     * @return      The shard's client. Shard 0 is the primary client.
+     */
+    ExtensionWebSocketClient get(int index) {
+        return shards[index];
+    }
+
+    /**
+     * Opens the shards other than the primary client, each with its own websocket.
+     *
+     * @param url       The url of the Vantiq server.
+     * @param token     The token to authenticate with.
+     * @param sendPings Whether to send pings.
+     */
+    void connect(String url, String token, boolean sendPings) {
+        this.url = url;
+        this.token = token;
+        this.sendPings = sendPings;
+        stopped = false;
+        for (int i = 1; i < shards.length; i++) {
+            connectShard(i);
+        }
+    }
+
+    private void connectShard(int index) {
+        ExtensionWebSocketClient shard = shards[index];
+
+        // Take up the primary client's handlers as they are now, leaving configuration and reconnection to the shard
+        shard.useHandlersFrom(primary);
+        shard.setConfigHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                log.debug("Notification shard {} connected.", index);
+            }
+        });
+        shard.setReconnectHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                shard.doCoreReconnect();
+            }
+        });
+
+        shard.initiateFullConnection(url, token, sendPings).whenComplete((connected, error) -> {
+            if (Boolean.TRUE.equals(connected)) {
+                attempts[index].set(0);
+            } else if (!stopped) {
+                log.error("Notification shard {} could not connect to the source.", index);
+                shard.stop();
+                scheduleReconnect(index);
+            }
+        });
+    }
+
+    private void scheduleReconnect(int index) {
+        if (stopped || !reconnecting[index].compareAndSet(false, true)) {
+            return;
+        }
+        long delay = primary.getReconnectPolicy().getDelayMs(attempts[index].getAndIncrement());
+        reconnector.schedule(() -> {
+            reconnecting[index].set(false);
+            if (!stopped) {
+                log.info("Reconnecting notification shard {}.", index);
+                connectShard(index);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes the shards other than the primary client, and stops them reconnecting.
+     */
+    void stop() {
+        stopped = true;
+        for (int i = 1; i < shards.length; i++) {
+            shards[i].stop();
+        }
+    }
+
+    /**
+     * Picks the shard for a notification with no key, taking the connected shards in turn.
+     *
+     * @return  The next connected shard, or the primary client if none are connected, which holds the notification
+     *          in its failed message queue.
+     */
+    ExtensionWebSocketClient next() {
+        int start = Math.floorMod(next.getAndIncrement(), shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            ExtensionWebSocketClient shard = shards[(start + i) % shards.length];
+            if (shard.isConnected()) {
+                return shard;
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * Picks the shard for a notification with a key. A key always maps to the same shard, whether or not it is
+     * connected, so that its notifications stay in order.
+     *
+     * @param key   The notification's key.
+     * @return      The shard for {@code key}.
+     */
+    ExtensionWebSocketClient forKey(Object key) {
+        return shards[Math.floorMod(key == null ? 0 : key.hashCode(), shards.length)];
+    }
+
+    /**
+     * @return  Whether every shard is writable.
+     */
+    boolean isWritable() {
+        for (ExtensionWebSocketClient shard : shards) {
+            if (!shard.notificationWriter.isWritable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs {@code callback} once every shard is writable.
+     *
+     * @param callback  The callback to run once.
+     */
+    void onWritable(Runnable callback) {
+        for (ExtensionWebSocketClient shard : shards) {
+            if (!shard.notificationWriter.isWritable()) {
+                // Check all of them again once this one is writable
+                shard.notificationWriter.onWritable(() -> onWritable(callback));
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    void setNotificationWindowLimits(int minWindow, int maxWindow) {
+        for (int i = 1; i < shards.length; i++) {
+            shards[i].setNotificationWindowLimits(minWindow, maxWindow);
+        }
+    }
+
+    void setReconnectPolicy(ReconnectPolicy policy) {
+        for (int i = 1; i < shards.length; i++) {
+            shards[i].setReconnectPolicy(policy);
+        }
+    }
+
+    void setWritabilityWaterMarks(int low, int high) {
+        for (int i = 1; i < shards.length; i++) {
+            shards[i].setWritabilityWaterMarks(low, high);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Flow control window for notifications sent by an {@link ExtensionWebSocketClient}.
+ * <p>
+ * The window limits the number of notifications that may be outstanding (sent but not yet acknowledged by Vantiq).
+ * Its size adapts to the acknowledgements received using additive-increase/multiplicative-decrease (AIMD): each
+ * timely, successful acknowledgement grows the window by roughly one notification per round trip, and an error
+ * acknowledgement or a round trip time well above the best observed one halves it. The window never shrinks below
+ * its floor or grows beyond its ceiling, and it is halved at most once per window's worth of notifications so that a
+ * single burst of slow acknowledgements does not collapse it.
+ * <p>
+ * Acknowledgements are matched to notifications in the order the notifications were sent, which is the order in
+ * which Vantiq responds over the websocket.
+ */
+public class NotificationWindow {
+    /**
+     * The default floor for the window. This matches the fixed number of outstanding notifications that the client
+     * allowed before the window was adaptive.
+     */
+    public static final int DEFAULT_MIN_WINDOW = 5;
+
+    /**
+     * The default ceiling for the window.
+     */
+    public static final int DEFAULT_MAX_WINDOW = 500;
+
+    /**
+     * How many times the best observed round trip time an acknowledgement may take before it is treated as a sign
+     * of congestion.
+     */
+    static final int CONGESTED_RTT_FACTOR = 4;
+
+    /**
+     * Round trip times below this are never treated as congestion, so that jitter on very fast links does not
+     * shrink the window.
+     */
+    static final long MIN_CONGESTED_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition spaceAvailable = lock.newCondition();
+
+    private final int minWindow;
+    private final int maxWindow;
+
+    /**
+     * The current window size. Fractional so that the additive increase can be spread across a window of acks.
+     */
+    private double window;
+
+    /**
+     * The send time ({@link System#nanoTime()}) of each outstanding notification, oldest first.
+     */
+    private final ArrayDeque<Long> sendTimes = new ArrayDeque<>();
+
+    private long sentCount = 0;
+    private long ackedCount = 0;
+    private long errorCount = 0;
+
+    /**
+     * The {@link #sentCount} at the time of the last decrease. Congestion signals for notifications sent before
+     * then do not shrink the window again.
+     */
+    private long decreaseMark = 0;
+
+    private long minRttNanos = Long.MAX_VALUE;
+    private long lastRttNanos = 0;
+    private long blockedNanos = 0;
+    private long blockedCount = 0;
+
+    /**
+     * Creates a window with the default floor and ceiling.
+     */
+    public NotificationWindow() {
+        this(DEFAULT_MIN_WINDOW, DEFAULT_MAX_WINDOW);
+    }
+
+    /**
+     * Creates a window that will stay between {@code minWindow} and {@code maxWindow} notifications. The window
+     * starts at its floor.
+     *
+     * @param minWindow The smallest number of outstanding notifications the window will allow. Must be at least 1.
+     * @param maxWindow The largest number of outstanding notifications the window will allow. Must be at least
+     *                  {@code minWindow}.
+     */
+    public NotificationWindow(int minWindow, int maxWindow) {
+        if (minWindow < 1 || maxWindow < minWindow) {
+            throw new IllegalArgumentException("Notification window limits must satisfy 1 <= min <= max. Received min: "
+                    + minWindow + ", max: " + maxWindow);
+        }
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+        this.window = minWindow;
+    }
+
+    /**
+     * Waits until the window has room for another notification, then counts it as outstanding.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting for room in the window.
+     */
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            long waitStart = 0;
+            while (sendTimes.size() >= (int) window) {
+                if (waitStart == 0) {
+                    waitStart = System.nanoTime();
+                }
+                spaceAvailable.await();
+            }
+            long now = System.nanoTime();
+            if (waitStart != 0) {
+                blockedNanos += now - waitStart;
+                blockedCount++;
+            }
+            sendTimes.addLast(now);
+            sentCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the space taken by the most recent {@link #acquire()} without treating it as acknowledged. Used when
+     * the notification could not be sent, so no acknowledgement will arrive.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            if (sendTimes.pollLast() != null) {
+                sentCount--;
+                spaceAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the acknowledgement of the oldest outstanding notification and adjusts the window. Acknowledgements
+     * that arrive when nothing is outstanding are ignored.
+     *
+     * @param success   Whether Vantiq accepted the notification. An unsuccessful acknowledgement shrinks the window.
+     * @return          The round trip time of the acknowledged notification in nanoseconds, or -1 if nothing was
+     *                  outstanding.
+     */
+    public long acknowledge(boolean success) {
+        lock.lock();
+        try {
+            Long sentAt = sendTimes.pollFirst();
+            if (sentAt == null) {
+                return -1;
+            }
+            ackedCount++;
+            long rtt = System.nanoTime() - sentAt;
+            lastRttNanos = rtt;
+            if (rtt < minRttNanos) {
+                minRttNanos = rtt;
+            }
+
+            boolean congested = !success;
+            if (!success) {
+                errorCount++;
+            } else if (rtt > MIN_CONGESTED_RTT_NANOS && rtt / CONGESTED_RTT_FACTOR > minRttNanos) {
+                congested = true;
+            }
+
+            if (congested) {
+                // Only back off once for the notifications that were in flight when congestion was first seen
+                if (ackedCount > decreaseMark) {
+                    window = Math.max(minWindow, window / 2);
+                    decreaseMark = sentCount;
+                }
+            } else if (window < maxWindow) {
+                window = Math.min(maxWindow, window + 1 / window);
+            }
+            spaceAvailable.signalAll();
+            return rtt;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets all outstanding notifications and wakes any waiting senders. Called when the connection is lost,
+     * since acknowledgements for notifications sent on that connection will never arrive. The current window size
+     * and statistics are kept.
+     */
+    public void reset() {
+        lock.lock();
+        try {
+            sentCount -= sendTimes.size();
+            sendTimes.clear();
+            decreaseMark = Math.min(decreaseMark, sentCount);
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return  The number of notifications currently allowed to be outstanding.
+     */
+    public int getWindowSize() {
+        lock.lock();
+        try {
+            return (int) window;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return  The number of notifications sent but not yet acknowledged.
+     */
+    public int getOutstanding() {
+        lock.lock();
+        try {
+            return sendTimes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return  The floor of the window.
+     */
+    public int getMinWindow() {
+        return minWindow;
+    }
+
+    /**
+     * @return  The ceiling of the window.
+     */
+    public int getMaxWindow() {
+        return maxWindow;
+    }
+
+    /**
+     * @return  The total time, in nanoseconds, that senders have spent waiting for room in the window.
+     */
+    public long getBlockedNanos() {
+        lock.lock();
+        try {
+            return blockedNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return  The number of times a sender had to wait for room in the window.
+     */
+    public long getBlockedCount() {
+        lock.lock();
+        try {
+            return blockedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return  The round trip time, in nanoseconds, of the most recently acknowledged notification. 0 if none have
+     *          been acknowledged.
+     */
+    public long getLastRoundTripNanos() {
+        lock.lock();
+        try {
+            return lastRttNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return  The number of notifications acknowledged.
+     */
+    public long getAckedCount() {
+        lock.lock();
+        try {
+            return ackedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return  The number of acknowledgements that reported an error.
+     */
+    public long getErrorCount() {
+        lock.lock();
+        try {
+            return errorCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "NotificationWindow{window=" + (int) window + ", outstanding=" + sendTimes.size()
+                    + ", min=" + minWindow + ", max=" + maxWindow + ", blockedMs="
+                    + TimeUnit.NANOSECONDS.toMillis(blockedNanos) + "}";
+        } finally {
+            lock.unlock();
+        }
+    }
+}
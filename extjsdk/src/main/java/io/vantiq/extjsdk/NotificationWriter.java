@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outbound pipeline for notifications sent by an {@link ExtensionWebSocketClient}.
+ * <p>
+ * Producers place notifications on a bounded queue, and a single writer thread drains it in order. The writer waits
+ * for the client's {@link NotificationRateLimiter rate limits} and for room in its {@link NotificationWindow},
+ * serializes each notification, and writes it to the websocket, so callers never block on the limits, the window, or
+ * serialization. The writer thread is started when there is work and exits after it has been idle for a while.
+ * <p>
+ * Notifications queued with {@link #offerLatest} are conflated by key: the queue holds a placeholder for the key, and
+ * the newest value for that key is looked up only once the writer has room in the window to send it. Values that
+ * arrive in the meantime replace the pending one in place, so a source reporting faster than Vantiq accepts sends
+ * its most recent readings rather than falling behind. The same applies while the source is disconnected, when the
+ * latest value for each key is held until the source reconnects instead of being added to the failed message queue.
+ * <p>
+ * The writer also tracks whether the client is writable, in the manner of Netty's channel writability. The client
+ * stops being writable once the queue reaches its high water mark, and becomes writable again, running any callbacks
+ * registered with {@link #onWritable}, once the writer has drained it to its low water mark. Producers that check
+ * {@link #isWritable} can stop pulling from their source rather than blocking in {@link #put}.
+ * <p>
+ * Each notification is stamped when it is handed over, and the client's metrics record the time from then until it
+ * is serialized, handed to the websocket, and acknowledged, along with the time since the connector received its
+ * data when the connector supplies that.
+ */
+class NotificationWriter {
+    /**
+     * The default number of notifications that may be queued for the writer.
+     */
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * How long the writer thread waits for more work before exiting.
+     */
+    static final long IDLE_TIMEOUT_MS = 30_000;
+
+    /**
+     * A notification waiting to be written, along with the futures tracking it.
+     */
+    static class PendingNotification {
+        final ExtensionServiceMessage message;
+        /**
+         * The conflation key of a placeholder queued by {@link #offerLatest}, whose message is looked up when it is
+         * written. null for other notifications.
+         */
+        final Object key;
+        /**
+         * Completes once the notification has been handed to the websocket, or placed on the failed message queue.
+         */
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+        /**
+         * Completes with whether Vantiq accepted the notification. Completes as false if the notification could not
+         * be sent on the current connection.
+         */
+        final CompletableFuture<Boolean> acked = new CompletableFuture<>();
+        /**
+         * When the notification was handed to the client, from {@link System#nanoTime}.
+         */
+        final long handedAt = System.nanoTime();
+        /**
+         * When the connector received the notification's data from its source, in milliseconds since the epoch, or 0
+         * if the connector did not say.
+         */
+        final long receivedAt;
+
+        PendingNotification(ExtensionServiceMessage message, Object key, long receivedAt) {
+            this.message = message;
+            this.key = key;
+            this.receivedAt = receivedAt;
+        }
+    }
+
+    private final ExtensionWebSocketClient client;
+    private final Logger log;
+    private final BlockingQueue<PendingNotification> queue;
+
+    /**
+     * The notifications written and not yet acknowledged, in the order they were written.
+     */
+    private final ConcurrentLinkedDeque<PendingNotification> awaitingAck = new ConcurrentLinkedDeque<>();
+
+    /**
+     * The newest unsent value for each key with a placeholder in the queue. Guarded by itself, and also guards
+     * {@link #held}.
+     */
+    private final Map<Object, ExtensionServiceMessage> latest = new HashMap<>();
+
+    /**
+     * The newest value for each key that could not be sent because the source was not connected, oldest key first.
+     * Bounded by {@link #heldCapacity}.
+     */
+    private final LinkedHashMap<Object, ExtensionServiceMessage> held = new LinkedHashMap<>();
+    private final int heldCapacity;
+
+    private Thread writerThread = null;
+
+    private final int queueCapacity;
+    private volatile int highWaterMark;
+    private volatile int lowWaterMark;
+    private volatile boolean writable = true;
+
+    /**
+     * Callbacks waiting for the client to become writable. Guarded by itself.
+     */
+    private final List<Runnable> writableCallbacks = new ArrayList<>();
+
+    NotificationWriter(ExtensionWebSocketClient client, int queueCapacity) {
+        this.client = client;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.heldCapacity = queueCapacity;
+        this.queueCapacity = queueCapacity;
+        this.highWaterMark = Math.max(1, queueCapacity * 3 / 4);
+        this.lowWaterMark = queueCapacity / 4;
+        this.log = LoggerFactory.getLogger(this.getClass().getCanonicalName() + "#" + client.getSourceName());
+    }
+
+    /**
+     * Queues a notification without blocking.
+     *
+     * @param message     The notification to send.
+     * @param receivedAt  When the connector received the notification's data, in milliseconds since the epoch, or 0.
+     * @return            The queued notification. If the queue is full its futures have already completed
+     *                    exceptionally with a {@link RejectedExecutionException}.
+     */
+    PendingNotification offer(ExtensionServiceMessage message, long receivedAt) {
+        PendingNotification pending = new PendingNotification(message, null, receivedAt);
+        client.metrics.notificationHandedOver(pending);
+        if (queue.offer(pending)) {
+            checkHighWater();
+            ensureRunning();
+        } else {
+            RejectedExecutionException ree = new RejectedExecutionException("Notification queue for source "
+                    + client.getSourceName() + " is full.");
+            pending.written.completeExceptionally(ree);
+            pending.acked.completeExceptionally(ree);
+        }
+        return pending;
+    }
+
+    /**
+     * Queues a notification, waiting for space in the queue if necessary.
+     *
+     * @param message     The notification to send.
+     * @param receivedAt  When the connector received the notification's data, in milliseconds since the epoch, or 0.
+     * @return            The queued notification.
+     * @throws InterruptedException if interrupted while waiting for space in the queue.
+     */
+    PendingNotification put(ExtensionServiceMessage message, long receivedAt) throws InterruptedException {
+        PendingNotification pending = new PendingNotification(message, null, receivedAt);
+        client.metrics.notificationHandedOver(pending);
+        queue.put(pending);
+        checkHighWater();
+        ensureRunning();
+        return pending;
+    }
+
+    /**
+     * Queues the newest value for {@code key} without blocking. If a value for the key is already waiting to be
+     * written it is replaced in place, keeping its position in the queue.
+     *
+     * @param key       Identifies the value being reported, such as a node id or register address.
+     * @param message   The notification to send.
+     * @return          false if the value was dropped because the queue is full, true otherwise.
+     */
+    boolean offerLatest(Object key, ExtensionServiceMessage message) {
+        synchronized (latest) {
+            if (latest.containsKey(key)) {
+                latest.put(key, message);
+                client.metrics.notificationsConflated.increment();
+                return true;
+            }
+            if (!client.isConnected()) {
+                hold(key, message);
+                return true;
+            }
+            if (!queue.offer(new PendingNotification(null, key, 0))) {
+                client.metrics.notificationsDropped.increment();
+                return false;
+            }
+            // The writer takes the lock before looking up the value, so it cannot see the placeholder before this
+            latest.put(key, message);
+        }
+        checkHighWater();
+        ensureRunning();
+        return true;
+    }
+
+    /**
+     * Queues the values held while the source was disconnected. Called once the source has reconnected.
+     */
+    void releaseHeld() {
+        List<Map.Entry<Object, ExtensionServiceMessage>> entries;
+        synchronized (latest) {
+            entries = new ArrayList<>(held.entrySet());
+            held.clear();
+        }
+        for (Map.Entry<Object, ExtensionServiceMessage> entry : entries) {
+            offerLatest(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Keeps the newest value for {@code key} until the source reconnects, dropping the value of the oldest key if
+     * too many are held. Must be called while synchronized on {@link #latest}.
+     */
+    private void hold(Object key, ExtensionServiceMessage message) {
+        if (held.containsKey(key)) {
+            client.metrics.notificationsConflated.increment();
+        } else if (held.size() >= heldCapacity) {
+            Iterator<Object> oldest = held.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+            client.metrics.notificationsDropped.increment();
+        }
+        held.put(key, message);
+    }
+
+    /**
+     * @return  The number of conflated values held until the source reconnects.
+     */
+    int getHeldCount() {
+        synchronized (latest) {
+            return held.size();
+        }
+    }
+
+    /**
+     * @return  Whether the queue is below its high water mark, or has drained to its low water mark since reaching it.
+     */
+    boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Runs {@code callback} once the client is writable: immediately on the calling thread if it is writable now, and
+     * otherwise on the writer thread once the queue drains to its low water mark.
+     *
+     * @param callback  The callback to run once.
+     */
+    void onWritable(Runnable callback) {
+        synchronized (writableCallbacks) {
+            if (!writable) {
+                writableCallbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Sets the queue depths at which the client stops and starts being writable.
+     *
+     * @param low   The depth to which the queue must drain before the client is writable again.
+     * @param high  The depth at which the client stops being writable.
+     * @throws IllegalArgumentException unless {@code 0 <= low < high <= } the queue's capacity.
+     */
+    void setWaterMarks(int low, int high) {
+        if (low < 0 || low >= high || high > queueCapacity) {
+            throw new IllegalArgumentException("Water marks must satisfy 0 <= low < high <= " + queueCapacity
+                    + ", but were low = " + low + " and high = " + high + ".");
+        }
+        lowWaterMark = low;
+        highWaterMark = high;
+        checkHighWater();
+        checkLowWater();
+    }
+
+    /**
+     * @return  The depth to which the queue must drain before the client is writable again.
+     */
+    int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    /**
+     * @return  The depth at which the client stops being writable.
+     */
+    int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    private void checkHighWater() {
+        if (writable && queue.size() >= highWaterMark) {
+            synchronized (writableCallbacks) {
+                writable = false;
+            }
+            // The writer may have drained the queue before seeing the change
+            checkLowWater();
+        }
+    }
+
+    private void checkLowWater() {
+        if (writable || queue.size() > lowWaterMark) {
+            return;
+        }
+        List<Runnable> callbacks;
+        synchronized (writableCallbacks) {
+            if (writable) {
+                return;
+            }
+            writable = true;
+            callbacks = new ArrayList<>(writableCallbacks);
+            writableCallbacks.clear();
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                log.warn("A writability callback failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Completes the ack future of the oldest notification awaiting acknowledgement.
+     *
+     * @param success   Whether the acknowledgement reported success.
+     */
+    void acknowledge(boolean success) {
+        PendingNotification pending = awaitingAck.pollFirst();
+        if (pending != null) {
+            client.metrics.notificationAcked(pending);
+            pending.acked.complete(success);
+        }
+    }
+
+    /**
+     * Fails every notification awaiting acknowledgement, since the connection they were written to is gone.
+     */
+    void reset() {
+        PendingNotification pending;
+        while ((pending = awaitingAck.pollFirst()) != null) {
+            pending.acked.complete(false);
+        }
+    }
+
+    /**
+     * @return  The number of notifications queued but not yet written.
+     */
+    int getQueuedCount() {
+        return queue.size();
+    }
+
+    private synchronized void ensureRunning() {
+        if (writerThread == null) {
+            writerThread = new Thread(this::drain, "notificationWriter#" + client.getSourceName());
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Decides whether the writer thread should exit. Done while synchronized so that a producer that queued work
+     * just after the poll timed out will either be seen here or will start a new writer.
+     *
+     * @return  true if the writer should exit.
+     */
+    private synchronized boolean retireIfIdle() {
+        if (queue.isEmpty()) {
+            writerThread = null;
+            return true;
+        }
+        return false;
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                PendingNotification pending = queue.poll(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (pending == null) {
+                    if (retireIfIdle()) {
+                        return;
+                    }
+                    continue;
+                }
+                checkLowWater();
+                write(pending);
+            }
+        } catch (InterruptedException ie) {
+            log.warn("Notification writer was interrupted.", ie);
+            synchronized (this) {
+                writerThread = null;
+            }
+            if (!queue.isEmpty()) {
+                ensureRunning();
+            }
+        }
+    }
+
+    private void write(PendingNotification pending) throws InterruptedException {
+        NotificationWindow window = client.outstandingNotifications;
+        try {
+            // Wait for the rate limit before the window, so that a throttled notification does not hold a slot
+            client.rateLimiter.acquire();
+            window.acquire();
+        } catch (InterruptedException ie) {
+            pending.written.completeExceptionally(ie);
+            pending.acked.completeExceptionally(ie);
+            throw ie;
+        }
+        ExtensionServiceMessage message = pending.message;
+        if (pending.key != null) {
+            // Only now that there is room to send it do we take the newest value for the key
+            synchronized (latest) {
+                message = latest.remove(pending.key);
+                if (!client.isConnected()) {
+                    window.release();
+                    hold(pending.key, message);
+                    pending.written.complete(null);
+                    pending.acked.complete(false);
+                    return;
+                }
+            }
+        }
+        if (!client.isConnected()) {
+            // The connection dropped while this was queued. Hold onto it until we reconnect.
+            window.release();
+            client.queueFailedMessage(message);
+            pending.written.complete(null);
+            pending.acked.complete(false);
+            return;
+        }
+
+        // Register for the ack before writing so that a fast ack can't arrive before we're listening for it
+        awaitingAck.addLast(pending);
+        try {
+            client.sendNotificationMessage(message, pending);
+            client.metrics.notificationsSent.increment();
+            pending.written.complete(null);
+        } catch (InterruptedException ie) {
+            abandon(window, pending, ie);
+            throw ie;
+        } catch (Exception e) {
+            log.warn("Failed to send a notification.", e);
+            abandon(window, pending, e);
+        }
+    }
+
+    /**
+     * Gives up on a notification that was not sent. No ack will come for it, so its slot in the window is released
+     * and it no longer waits for one, which keeps later acks matched to their own notifications.
+     */
+    private void abandon(NotificationWindow window, PendingNotification pending, Exception cause) {
+        window.release();
+        awaitingAck.removeLastOccurrence(pending);
+        pending.written.completeExceptionally(cause);
+        pending.acked.completeExceptionally(cause);
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import okhttp3.WebSocket;
+import okio.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The prioritized outbound lanes of an {@link ExtensionWebSocketClient}.
+ * <p>
+ * OkHttp writes a websocket's messages strictly in the order they were sent, so a query response sent behind a
+ * backlog of notifications would wait for all of them. To avoid that, messages are handed straight to the websocket
+ * only while less than {@link #SOCKET_HIGH_WATER_BYTES} are waiting to be written by it. Beyond that, each message
+ * waits in the lane for its kind of traffic, and a writer thread hands them over as the websocket drains: control
+ * messages first, then query responses, then notifications. So that a busy lane cannot starve the ones below it, a
+ * lane with messages waiting is passed over at most {@link #MAX_PASSES} times in a row.
+ * <p>
+ * Each lane is bounded by the bytes it holds, and senders wait for room in their lane. Messages within a lane are
+ * always written in the order they were sent. Messages still waiting when the websocket they were sent on is replaced
+ * are dropped, as OkHttp would have dropped them.
+ */
+class OutboundLanes {
+    /**
+     * The kinds of outbound traffic, highest priority first.
+     */
+    enum Lane {
+        /**
+         * Authentication, connection requests, and anything else not listed below.
+         */
+        CONTROL(1024 * 1024),
+        /**
+         * Responses to queries, including query errors.
+         */
+        QUERY(4L * 1024 * 1024),
+        /**
+         * Notifications to the source.
+         */
+        NOTIFICATION(4L * 1024 * 1024);
+
+        /**
+         * The most bytes that may wait in the lane. A message larger than this may still wait in an empty lane.
+         */
+        final long capacity;
+
+        Lane(long capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return  The name of the lane as used in metrics labels.
+         */
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Messages wait in their lanes whenever more than this many bytes are waiting to be written by the websocket. This
+     * keeps OkHttp's queue short enough that a message jumping ahead in the lanes is not held up by much, while leaving
+     * well clear of the 16MB at which OkHttp closes the websocket.
+     */
+    static final long SOCKET_HIGH_WATER_BYTES = 1024 * 1024;
+
+    /**
+     * The most times in a row that a lane with messages waiting may be passed over for higher priority ones.
+     */
+    static final int MAX_PASSES = 4;
+
+    /**
+     * How often the writer checks whether the websocket has drained, since OkHttp does not report it.
+     */
+    static final long DRAIN_POLL_MS = 5;
+
+    /**
+     * How long the writer thread waits for more work before exiting.
+     */
+    static final long IDLE_TIMEOUT_MS = 30_000;
+
+    /**
+     * A message waiting in a lane.
+     */
+    private static class Frame {
+        final WebSocket socket;
+        final ByteString bytes;
+        final Runnable onWritten;
+        final long queuedAt = System.nanoTime();
+
+        Frame(WebSocket socket, ByteString bytes, Runnable onWritten) {
+            this.socket = socket;
+            this.bytes = bytes;
+            this.onWritten = onWritten;
+        }
+    }
+
+    private static final Lane[] LANES = Lane.values();
+
+    private final ExtensionWebSocketClient client;
+    private final Logger log;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition frameQueued = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+
+    // All guarded by lock
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Frame>[] queues = new ArrayDeque[LANES.length];
+    private final long[] queuedBytes = new long[LANES.length];
+    private final int[] passes = new int[LANES.length];
+    private Thread writerThread = null;
+
+    OutboundLanes(ExtensionWebSocketClient client) {
+        this.client = client;
+        this.log = LoggerFactory.getLogger(this.getClass().getCanonicalName() + "#" + client.getSourceName());
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Writes a message to {@code socket} now if nothing of the same or higher priority is waiting and the websocket
+     * has room, and otherwise queues it in its lane, waiting for room in the lane if necessary.
+     *
+     * @param socket    The websocket to write to.
+     * @param bytes     The message.
+     * @param lane      The lane for the message.
+     * @param onWritten Run once the message has been handed to the websocket, or null.
+     * @throws InterruptedException if interrupted while waiting for room in the lane. The message is not sent.
+     * @throws IllegalStateException if OkHttp reports that the websocket has failed.
+     */
+    void send(WebSocket socket, ByteString bytes, Lane lane, Runnable onWritten) throws InterruptedException {
+        int l = lane.ordinal();
+        lock.lock();
+        try {
+            if (socket.queueSize() < SOCKET_HIGH_WATER_BYTES && lanesEmptyThrough(l)) {
+                write(socket, bytes, l, 0, onWritten);
+                return;
+            }
+            while (queuedBytes[l] > 0 && queuedBytes[l] + bytes.size() > lane.capacity) {
+                spaceAvailable.await();
+            }
+            queues[l].addLast(new Frame(socket, bytes, onWritten));
+            queuedBytes[l] += bytes.size();
+            if (writerThread == null) {
+                writerThread = new Thread(this::drain, "outboundWriter#" + client.getSourceName());
+                writerThread.setDaemon(true);
+                writerThread.start();
+            }
+            frameQueued.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every message waiting for {@code socket}, highest priority first, regardless of how much the websocket
+     * already holds. Used before the client closes the websocket, so that messages sent before the close are not lost.
+     *
+     * @param socket    The websocket about to be closed.
+     */
+    void flush(WebSocket socket) {
+        lock.lock();
+        try {
+            for (int l = 0; l < queues.length; l++) {
+                Frame frame;
+                while ((frame = queues[l].pollFirst()) != null) {
+                    queuedBytes[l] -= frame.bytes.size();
+                    if (frame.socket == socket) {
+                        write(socket, frame.bytes, l, System.nanoTime() - frame.queuedAt, frame.onWritten);
+                    }
+                }
+            }
+            spaceAvailable.signalAll();
+        } catch (Exception e) {
+            log.warn("Could not write the waiting messages before closing the websocket.", e);
+            discard(socket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param lane  The lane to check.
+     * @return      The number of bytes waiting in {@code lane}.
+     */
+    long getQueuedBytes(Lane lane) {
+        lock.lock();
+        try {
+            return queuedBytes[lane.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return  The number of messages waiting in all of the lanes.
+     */
+    int getQueuedCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (ArrayDeque<Frame> queue : queues) {
+                count += queue.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean lanesEmptyThrough(int lane) {
+        for (int l = 0; l <= lane; l++) {
+            if (!queues[l].isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Chooses the lane to write from next: the highest priority lane that has been passed over too often, or else
+     * the highest priority lane with anything waiting.
+     *
+     * @return  The lane's index, or -1 if every lane is empty.
+     */
+    private int nextLane() {
+        int highest = -1;
+        for (int l = 0; l < queues.length; l++) {
+            if (!queues[l].isEmpty()) {
+                if (passes[l] >= MAX_PASSES) {
+                    return l;
+                }
+                if (highest < 0) {
+                    highest = l;
+                }
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Writes a message and records it against its lane. Must be called while holding {@link #lock}.
+     */
+    private void write(WebSocket socket, ByteString bytes, int lane, long waitedNanos, Runnable onWritten) {
+        if (LANES[lane] == Lane.QUERY && socket instanceof SharedConnection.Channel) {
+            // Vantiq does not answer query responses, so a shared connection must not wait for an answer to route
+            ((SharedConnection.Channel) socket).sendUnanswered(bytes);
+        } else {
+            socket.send(bytes);
+        }
+        if (onWritten != null) {
+            onWritten.run();
+        }
+        passes[lane] = 0;
+        for (int l = lane + 1; l < queues.length; l++) {
+            if (!queues[l].isEmpty()) {
+                passes[l]++;
+            }
+        }
+        client.metrics.laneWaits[lane].observeNanos(waitedNanos);
+    }
+
+    /**
+     * Drops every message waiting for {@code socket}. Must be called while holding {@link #lock}.
+     */
+    private void discard(WebSocket socket) {
+        int dropped = 0;
+        for (int l = 0; l < queues.length; l++) {
+            Iterator<Frame> it = queues[l].iterator();
+            while (it.hasNext()) {
+                Frame frame = it.next();
+                if (frame.socket == socket) {
+                    it.remove();
+                    queuedBytes[l] -= frame.bytes.size();
+                    dropped++;
+                }
+            }
+        }
+        if (dropped > 0) {
+            log.warn("Dropped {} outbound messages since the websocket they were sent on is gone.", dropped);
+        }
+        spaceAvailable.signalAll();
+    }
+
+    private void drain() {
+        IllegalStateException failure = null;
+        lock.lock();
+        try {
+            while (true) {
+                int l = nextLane();
+                if (l < 0) {
+                    frameQueued.await(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (nextLane() < 0) {
+                        writerThread = null;
+                        return;
+                    }
+                    continue;
+                }
+                Frame frame = queues[l].peekFirst();
+                if (frame.socket != client.webSocket) {
+                    discard(frame.socket);
+                    continue;
+                }
+                if (frame.socket.queueSize() >= SOCKET_HIGH_WATER_BYTES) {
+                    frameQueued.await(DRAIN_POLL_MS, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                queues[l].pollFirst();
+                queuedBytes[l] -= frame.bytes.size();
+                spaceAvailable.signalAll();
+                try {
+                    write(frame.socket, frame.bytes, l, System.nanoTime() - frame.queuedAt, frame.onWritten);
+                } catch (IllegalStateException ise) {
+                    discard(frame.socket);
+                    failure = ise;
+                    writerThread = null;
+                    return;
+                } catch (Exception e) {
+                    log.warn("Error sending to WebSocket", e);
+                }
+            }
+        } catch (InterruptedException ie) {
+            log.warn("Outbound writer was interrupted.", ie);
+            writerThread = null;
+        } finally {
+            lock.unlock();
+            if (failure != null) {
+                // Handled as a failed send would be, but outside the lock since it runs the close handler
+                client.sendFailed(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import okio.Buffer;
+import okio.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streams the rows answering a query back to Vantiq, so that a connector never needs to hold the whole result.
+ * Obtained from {@link ExtensionWebSocketClient#openQueryResponse}.
+ * <p>
+ * Rows are serialized as they are {@link #write written} and collected into a chunk. Once a chunk reaches its row or
+ * byte limit it is sent with {@link ExtensionWebSocketClient#QUERY_CHUNK_CODE}, and {@link #close()} sends the last
+ * chunk with {@link ExtensionWebSocketClient#QUERY_DATA_CODE}. A query that produced no rows is answered with an empty
+ * 204 response, as connectors have always done. Only one chunk is held at a time, so memory use does not grow with
+ * the size of the result.
+ * <p>
+ * Chunks are sent through the client's query response lane, which is written ahead of any backlog of notifications.
+ * Sending a chunk waits while the lane is full, so a fast source cannot outrun the connection to Vantiq. Chunks that
+ * cannot be sent because the source is not connected are dropped.
+ * <p>
+ * A writer is not thread-safe, and should be used by the thread answering the query.
+ */
+public class QueryResponseWriter implements AutoCloseable {
+    /**
+     * The default number of rows in each chunk.
+     */
+    public static final int DEFAULT_MAX_ROWS = 500;
+
+    /**
+     * The default number of bytes in each chunk.
+     */
+    public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(QueryResponseWriter.class);
+
+    private final ExtensionWebSocketClient client;
+    private final String replyAddress;
+    private final int maxRows;
+    private final long maxBytes;
+    private final ObjectWriter writer;
+
+    // The frame from its headers up to the start of the body, which is the same for every chunk
+    private final byte[] frameHeader;
+
+    private final Buffer chunk = new Buffer();
+    private final Buffer row = new Buffer();
+    private final OutputStream rowOut = row.outputStream();
+    private int chunkRows = 0;
+
+    private long rowCount = 0;
+    private int chunksSent = 0;
+    private int lastChunkRows = 0;
+    private boolean closed = false;
+
+    /**
+     * @param client        The client to send the response with.
+     * @param replyAddress  The reply address of the query being answered.
+     * @param maxRows       The most rows in each chunk, or 0 for no limit.
+     * @param maxBytes      The most bytes of rows in each chunk, or 0 for no limit. A single row larger than this is
+     *                      sent in a chunk of its own.
+     * @param mapper        The {@link ObjectMapper} used to serialize rows.
+     */
+    QueryResponseWriter(ExtensionWebSocketClient client, String replyAddress, int maxRows, long maxBytes,
+                        ObjectMapper mapper) {
+        this.client = client;
+        this.replyAddress = replyAddress;
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.writer = mapper.writer();
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(ExtensionServiceMessage.RESPONSE_ADDRESS_HEADER, replyAddress);
+        try {
+            frameHeader = (",\"headers\":" + mapper.writeValueAsString(headers)
+                    + ",\"contentType\":" + mapper.writeValueAsString(new Response().getContentType())
+                    + ",\"body\":[").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize query response headers", e);
+        }
+    }
+
+    /**
+     * Adds a row to the response, first sending the current chunk if the row would take it over its limits.
+     *
+     * @param data  The row to add.
+     * @throws IllegalStateException if the writer has been closed.
+     * @throws IllegalArgumentException if the row cannot be serialized.
+     */
+    public void write(Map data) {
+        if (closed) {
+            throw new IllegalStateException("Query response has already been closed.");
+        }
+        try {
+            writer.writeValue(rowOut, data);
+        } catch (IOException e) {
+            row.clear();
+            throw new IllegalArgumentException("Row could not be serialized for the query response.", e);
+        }
+
+        if (chunkRows > 0 && ((maxRows > 0 && chunkRows >= maxRows)
+                || (maxBytes > 0 && chunk.size() + row.size() + 1 > maxBytes))) {
+            sendChunk(ExtensionWebSocketClient.QUERY_CHUNK_CODE);
+        }
+        if (chunkRows > 0) {
+            chunk.writeByte(',');
+        }
+        chunk.write(row, row.size());
+        chunkRows++;
+        rowCount++;
+    }
+
+    /**
+     * Adds each of {@code rows} to the response.
+     *
+     * @param rows  The rows to add.
+     */
+    public void write(Map[] rows) {
+        for (Map data : rows) {
+            write(data);
+        }
+    }
+
+    /**
+     * Ends the response, sending the final chunk with {@link ExtensionWebSocketClient#QUERY_DATA_CODE}, or an empty
+     * 204 response if no rows were written. Closing a writer again has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (chunkRows > 0) {
+            sendChunk(ExtensionWebSocketClient.QUERY_DATA_CODE);
+        } else {
+            client.sendQueryResponse(204, replyAddress, new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Ends the response with an error instead of the rows not yet sent, for a query that fails after it has started
+     * returning rows. See {@link ExtensionWebSocketClient#sendQueryError}.
+     *
+     * @param messageCode       The code identifying the error.
+     * @param messageTemplate   The error message, with parameters to substitute written as {#}.
+     * @param parameters        The parameters for the message.
+     */
+    public void fail(String messageCode, String messageTemplate, Object[] parameters) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunk.clear();
+        chunkRows = 0;
+        client.sendQueryError(replyAddress, messageCode, messageTemplate, parameters);
+    }
+
+    /**
+     * @return  The number of rows written so far.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return  The number of chunks sent so far, including the final one.
+     */
+    public int getChunksSent() {
+        return chunksSent;
+    }
+
+    /**
+     * @return  The number of rows in the most recently sent chunk.
+     */
+    public int getLastChunkRows() {
+        return lastChunkRows;
+    }
+
+    /**
+     * @return  Whether the response has been ended by {@link #close()} or {@link #fail}.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void sendChunk(int status) {
+        Buffer frame = new Buffer();
+        frame.writeUtf8("{\"status\":").writeUtf8(Integer.toString(status));
+        frame.write(frameHeader);
+        frame.write(chunk, chunk.size());
+        frame.writeUtf8("]}");
+        ByteString bytes = frame.readByteString();
+        lastChunkRows = chunkRows;
+        chunkRows = 0;
+        chunksSent++;
+
+        if (!client.isConnected()) {
+            log.warn("Dropping a query response chunk for reply address {} since the source is not connected.",
+                    replyAddress);
+            return;
+        }
+        client.sendFrame(bytes, OutboundLanes.Lane.QUERY);
+    }
+}
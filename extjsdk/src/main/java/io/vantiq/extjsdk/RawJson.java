@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A JSON value that has been located in a received message but not yet parsed. Holds a reference to the bytes of the
+ * received frame rather than a copy.
+ * <p>
+ * {@link InboundMessageDecoder} uses this for the {@code object} of received messages so that handlers that only route
+ * or forward a message do not pay to build its {@link java.util.Map} form. See
+ * {@link ExtensionServiceMessage#getObject()}, {@link ExtensionServiceMessage#getObjectAsTree()} and
+ * {@link ExtensionServiceMessage#getRawObject()}.
+ */
+public final class RawJson {
+    private static final ObjectReader reader = JsonCodec.reader();
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    RawJson(byte[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return  The number of bytes in the JSON value.
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * @return  A copy of the JSON value's bytes, encoded in UTF-8.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(data, offset, offset + length);
+    }
+
+    /**
+     * Parses the value as plain Java objects, the same way a whole message is parsed into a {@link java.util.Map}.
+     *
+     * @return  The value as a {@link java.util.Map}, {@link java.util.List}, or scalar.
+     * @throws UncheckedIOException if the value is not valid JSON.
+     */
+    public Object parse() {
+        try {
+            return reader.readValue(data, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not parse message object", e);
+        }
+    }
+
+    /**
+     * Parses the value as a {@link JsonNode}.
+     *
+     * @return  The value as a {@link JsonNode}.
+     * @throws UncheckedIOException if the value is not valid JSON.
+     */
+    public JsonNode parseTree() {
+        try {
+            return reader.readTree(data, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not parse message object", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(data, offset, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long a connector waits between attempts to reconnect to its source.
+ * <p>
+ * The wait grows exponentially with each failed attempt, from {@link #getInitialDelayMs() the initial delay} up to
+ * {@link #getMaxDelayMs() a cap}, and each wait is chosen at random between zero and that bound ("full jitter"). When
+ * Vantiq restarts, every connector connected to it loses its connection at the same moment; the jitter spreads their
+ * reconnections out instead of having all of them retry together on a fixed interval, and the growing bound keeps
+ * them from piling on while Vantiq is still unavailable.
+ * <p>
+ * Connectors use the policy of their {@link ExtensionWebSocketClient#getReconnectPolicy() client}, counting the
+ * attempts since the connection was lost:
+ * <pre>
+ * int attempt = 0;
+ * while (!connected) {
+ *     ...
+ *     Thread.sleep(client.getReconnectPolicy().getDelayMs(attempt++));
+ * }
+ * </pre>
+ */
+public class ReconnectPolicy {
+    /**
+     * The default bound on the wait before the first retry.
+     */
+    public static final long DEFAULT_INITIAL_DELAY_MS = 1000;
+    /**
+     * The default cap on the wait between retries.
+     */
+    public static final long DEFAULT_MAX_DELAY_MS = 60_000;
+    /**
+     * The default number of times {@link ExtensionWebSocketClient#doCoreReconnect} retries a source that Vantiq
+     * reports is being reactivated.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 10;
+
+    /**
+     * The policy used by clients that have not been given one of their own.
+     */
+    public static final ReconnectPolicy DEFAULT =
+            new ReconnectPolicy(DEFAULT_INITIAL_DELAY_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_MAX_RETRIES);
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final int maxRetries;
+
+    /**
+     * @param initialDelayMs    The bound on the wait before the first retry, in milliseconds. It doubles with each
+     *                          further attempt.
+     * @param maxDelayMs        The cap on the wait between retries, in milliseconds.
+     * @param maxRetries        The number of times {@link ExtensionWebSocketClient#doCoreReconnect} retries a source
+     *                          that Vantiq reports is being reactivated before giving up.
+     * @throws IllegalArgumentException if a delay is not positive, {@code maxDelayMs} is less than
+     *                          {@code initialDelayMs}, or {@code maxRetries} is negative.
+     */
+    public ReconnectPolicy(long initialDelayMs, long maxDelayMs, int maxRetries) {
+        if (initialDelayMs <= 0 || maxDelayMs < initialDelayMs) {
+            throw new IllegalArgumentException("The reconnect delays must be positive, with the maximum ("
+                    + maxDelayMs + "ms) at least the initial delay (" + initialDelayMs + "ms).");
+        }
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("The number of retries cannot be negative, but was " + maxRetries
+                    + ".");
+        }
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Picks how long to wait before the next attempt.
+     *
+     * @param attempt   The number of attempts that have failed since the connection was lost, less one. That is, 0
+     *                  before the first retry.
+     * @return          A random wait in milliseconds, between 0 and the smaller of {@code initialDelayMs * 2^attempt}
+     *                  and {@code maxDelayMs}.
+     */
+    public long getDelayMs(int attempt) {
+        return ThreadLocalRandom.current().nextLong(getBoundMs(attempt) + 1);
+    }
+
+    /**
+     * @param attempt   As for {@link #getDelayMs}.
+     * @return          The longest {@link #getDelayMs} may wait for {@code attempt}, in milliseconds.
+     */
+    public long getBoundMs(int attempt) {
+        // Shifting past the cap's bit length would overflow, and is capped anyway
+        int shift = Math.max(0, Math.min(attempt, Long.numberOfLeadingZeros(initialDelayMs) - 1));
+        return Math.min(maxDelayMs, initialDelayMs << shift);
+    }
+
+    public long getInitialDelayMs() {
+        return initialDelayMs;
+    }
+
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconnectPolicy{initialDelayMs=" + initialDelayMs + ", maxDelayMs=" + maxDelayMs + ", maxRetries="
+                + maxRetries + "}";
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single authenticated websocket carrying the traffic of every {@link ExtensionWebSocketClient} that connects to the
+ * same Vantiq server with the same token, for connectors that run many sources at once. Clients opt in with
+ * {@link ExtensionWebSocketClient#setUseSharedConnection}, and are otherwise used exactly as before.
+ * <p>
+ * Each client is given a {@link Channel}, which it uses as its websocket. The connection authenticates once, and
+ * replays the result to clients that join later. Messages from Vantiq that name a source in their {@code resourceId}
+ * are handed to that source's listener. Responses name no source, so they are handed to the client that sent the
+ * oldest request not yet answered, relying on Vantiq answering the requests on a connection in order, as the
+ * {@link NotificationWindow} already does. When the websocket closes or fails, every client is told, just as if its own
+ * websocket had; the websocket is closed once the last client leaves.
+ * <p>
+ * All shared connections use the same OkHttp dispatcher and connection pool, as do the websockets clients open for
+ * themselves.
+ */
+public class SharedConnection {
+    private static final Logger log = LoggerFactory.getLogger(SharedConnection.class);
+
+    static final OkHttpClient HTTP_CLIENT = new OkHttpClient.Builder()
+            .readTimeout(0, TimeUnit.MILLISECONDS)
+            .writeTimeout(0, TimeUnit.MILLISECONDS)
+            .build();
+    static final OkHttpClient PINGING_HTTP_CLIENT = HTTP_CLIENT.newBuilder()
+            .pingInterval(5000, TimeUnit.MILLISECONDS)
+            .build();
+
+    private static final ByteString CONNECT_OP = ByteString.encodeUtf8(
+            "\"op\":\"" + ExtensionServiceMessage.OP_CONNECT_EXTENSION + "\"");
+
+    private static final ConcurrentMap<String, SharedConnection> connections = new ConcurrentHashMap<>();
+
+    private final String key;
+    private final String url;
+    private final String token;
+    private final ObjectMapper mapper = JsonCodec.mapper();
+    private final InboundMessageDecoder decoder = new InboundMessageDecoder(mapper);
+    private final WebSocket webSocket;
+
+    // Guarded by this
+    private final Map<String, Channel> channels = new LinkedHashMap<>();
+    private final ArrayDeque<PendingRequest> awaitingResponse = new ArrayDeque<>();
+    private boolean opened = false;
+    private Map<String, Object> authResponse = null;
+    private boolean closed = false;
+
+    /**
+     * Returns a channel on the shared connection to {@code url} using {@code token}, opening the connection if there
+     * is none. The channel carries no traffic until it is {@link Channel#start() started}.
+     *
+     * @param client    The client the channel is for.
+     * @param url       The websocket url of the Vantiq server.
+     * @param token     The authentication token.
+     * @param sendPings Whether to ping the server, if the connection must be opened.
+     * @return          The client's channel.
+     */
+    static Channel attach(ExtensionWebSocketClient client, String url, String token, boolean sendPings) {
+        SharedConnection connection = connections.computeIfAbsent(url + "\n" + token,
+                k -> new SharedConnection(k, url, token, sendPings));
+        return connection.new Channel(client);
+    }
+
+    /**
+     * @return  The number of shared connections currently open.
+     */
+    public static int getConnectionCount() {
+        return connections.size();
+    }
+
+    private SharedConnection(String key, String url, String token, boolean sendPings) {
+        this.key = key;
+        this.url = url;
+        this.token = token;
+        OkHttpClient httpClient = sendPings ? PINGING_HTTP_CLIENT : HTTP_CLIENT;
+        this.webSocket = httpClient.newWebSocket(new Request.Builder().url(url).build(), new Listener());
+        log.info("Opening shared connection to {}", url);
+    }
+
+    /**
+     * @return  The number of sources using this connection.
+     */
+    synchronized int getChannelCount() {
+        return channels.size();
+    }
+
+    /**
+     * Adds {@code channel} to the connection, and brings its client up to date with the connection's state.
+     */
+    private void join(Channel channel) {
+        boolean isOpen;
+        boolean isClosed;
+        Map<String, Object> auth;
+        synchronized (this) {
+            isClosed = closed;
+            if (!closed) {
+                Channel existing = channels.putIfAbsent(channel.sourceName, channel);
+                if (existing != null && existing != channel) {
+                    throw new IllegalStateException("Source '" + channel.sourceName
+                            + "' is already using the shared connection to " + url);
+                }
+            }
+            isOpen = opened && !closed;
+            auth = authResponse;
+        }
+        if (isClosed) {
+            complete(channel.client.webSocketFuture, false);
+            return;
+        } else if (!isOpen) {
+            // The client will be told when the websocket opens
+            return;
+        }
+        complete(channel.client.webSocketFuture, true);
+        if (auth != null) {
+            channel.deliver(auth);
+        }
+    }
+
+    /**
+     * Removes {@code channel} from the connection, closing the websocket if it was the last.
+     */
+    private void leave(Channel channel) {
+        synchronized (this) {
+            // Responses to the channel's outstanding requests will still arrive, so they stay in awaitingResponse
+            channel.left = true;
+            if (!channels.remove(channel.sourceName, channel) || !channels.isEmpty() || closed) {
+                return;
+            }
+            closed = true;
+        }
+        connections.remove(key, this);
+        log.info("Closing shared connection to {} as no sources are using it", url);
+        webSocket.close(1000, "Closed by client");
+    }
+
+    /**
+     * Writes a frame for a channel.
+     *
+     * @param channel       The channel sending the frame.
+     * @param bytes         The JSON of the message.
+     * @param expectsReply  Whether Vantiq answers the message. Query responses and errors are not answered, so they
+     *                      must not take a place in {@link #awaitingResponse}.
+     */
+    private boolean send(Channel channel, ByteString bytes, boolean expectsReply) {
+        // Only a source that isn't connected sends connection requests, so don't look for them otherwise
+        boolean isConnect = expectsReply && !channel.client.isConnected() && bytes.indexOf(CONNECT_OP) >= 0;
+        synchronized (this) {
+            if (closed || channel.left) {
+                return false;
+            }
+            if (!expectsReply) {
+                return webSocket.send(bytes);
+            }
+            // The request is queued with the frame so that the order of awaitingResponse matches the websocket's
+            awaitingResponse.add(new PendingRequest(channel, isConnect));
+            if (!webSocket.send(bytes)) {
+                awaitingResponse.pollLast();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static void complete(CompletableFuture<Boolean> future, boolean value) {
+        if (future != null) {
+            future.complete(value);
+        }
+    }
+
+    /**
+     * Routes a decoded message from Vantiq to the listeners of the sources it is for.
+     */
+    private void route(Map<String, Object> msg) {
+        Object op = msg.get("op");
+        if (op == null) {
+            List<Channel> targets = null;
+            PendingRequest request = null;
+            synchronized (this) {
+                if (authResponse == null) {
+                    authResponse = msg;
+                    targets = new ArrayList<>(channels.values());
+                } else {
+                    request = awaitingResponse.poll();
+                }
+            }
+            if (targets != null) {
+                if (!Integer.valueOf(200).equals(msg.get("status"))) {
+                    // Let clients that join later start over with a new connection
+                    log.warn("Authentication failed on the shared connection to {}", url);
+                    connections.remove(key, this);
+                }
+                for (Channel channel : targets) {
+                    channel.deliver(msg);
+                }
+            } else if (request != null) {
+                request.channel.deliver(msg);
+            } else {
+                log.debug("Response received on the shared connection to {} with no request awaiting it", url);
+            }
+            return;
+        }
+
+        Channel channel;
+        synchronized (this) {
+            channel = channels.get(msg.get("resourceId"));
+            if (channel != null && ExtensionServiceMessage.OP_CONFIGURE_EXTENSION.equals(op)) {
+                // The configuration is the answer to the connection request, so no response will follow it
+                Iterator<PendingRequest> it = awaitingResponse.iterator();
+                while (it.hasNext()) {
+                    PendingRequest request = it.next();
+                    if (request.channel == channel && request.isConnect) {
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+        }
+        if (channel != null) {
+            channel.deliver(msg);
+        } else {
+            log.warn("Message with op '{}' received on the shared connection to {} for unknown source '{}'", op, url,
+                    msg.get("resourceId"));
+        }
+    }
+
+    /**
+     * Marks the connection closed and returns the channels that were using it.
+     */
+    private List<Channel> closeAll() {
+        List<Channel> targets;
+        synchronized (this) {
+            closed = true;
+            targets = new ArrayList<>(channels.values());
+            channels.clear();
+            awaitingResponse.clear();
+        }
+        connections.remove(key, this);
+        return targets;
+    }
+
+    /**
+     * A request awaiting its response.
+     */
+    private static class PendingRequest {
+        final Channel channel;
+        final boolean isConnect;
+
+        PendingRequest(Channel channel, boolean isConnect) {
+            this.channel = channel;
+            this.isConnect = isConnect;
+        }
+    }
+
+    /**
+     * A client's view of the shared connection, which the client uses as its {@link WebSocket}. Closing the channel
+     * removes the client from the connection without closing the websocket for the others.
+     */
+    class Channel implements WebSocket {
+        final ExtensionWebSocketClient client;
+        final String sourceName;
+        volatile boolean left = false;
+
+        Channel(ExtensionWebSocketClient client) {
+            this.client = client;
+            this.sourceName = client.getSourceName();
+        }
+
+        /**
+         * Starts routing messages to the client, and brings it up to date with the connection's state. The client's
+         * futures must be in place first.
+         */
+        void start() {
+            join(this);
+        }
+
+        /**
+         * @return  The connection this channel belongs to.
+         */
+        SharedConnection getConnection() {
+            return SharedConnection.this;
+        }
+
+        void deliver(Map<String, Object> msg) {
+            if (!left) {
+                client.getListener().onDecodedMessage(msg);
+            }
+        }
+
+        @Override
+        public boolean send(@NotNull ByteString bytes) {
+            return SharedConnection.this.send(this, bytes, true);
+        }
+
+        @Override
+        public boolean send(@NotNull String text) {
+            return SharedConnection.this.send(this, ByteString.encodeUtf8(text), true);
+        }
+
+        /**
+         * Writes a message that Vantiq does not answer, such as a query response, so that no response is awaited for
+         * it.
+         *
+         * @param bytes The JSON of the message.
+         * @return      Whether the message was queued by the websocket.
+         */
+        boolean sendUnanswered(@NotNull ByteString bytes) {
+            return SharedConnection.this.send(this, bytes, false);
+        }
+
+        @Override
+        public long queueSize() {
+            return webSocket.queueSize();
+        }
+
+        @NotNull
+        @Override
+        public Request request() {
+            return webSocket.request();
+        }
+
+        @Override
+        public boolean close(int code, String reason) {
+            leave(this);
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            leave(this);
+        }
+    }
+
+    private class Listener extends WebSocketListener {
+        @Override
+        public void onOpen(@NotNull WebSocket socket, @NotNull okhttp3.Response response) {
+            List<Channel> targets;
+            synchronized (SharedConnection.this) {
+                opened = true;
+                targets = new ArrayList<>(channels.values());
+            }
+            log.info("Shared connection to {} open", url);
+
+            Map<String, Object> authMsg = new LinkedHashMap<>();
+            authMsg.put("op", "validate");
+            authMsg.put("resourceName", "system.credentials");
+            authMsg.put("object", token);
+            try {
+                socket.send(ByteString.of(mapper.writeValueAsBytes(authMsg)));
+            } catch (Exception e) {
+                log.error("Could not send authentication on the shared connection to {}", url, e);
+            }
+            for (Channel channel : targets) {
+                complete(channel.client.webSocketFuture, true);
+            }
+        }
+
+        @Override
+        public void onMessage(@NotNull WebSocket socket, @NotNull ByteString bytes) {
+            Map<String, Object> msg;
+            try {
+                msg = decoder.decode(bytes.toByteArray());
+            } catch (Exception e) {
+                log.warn("Failed to interpret WebSocket message as Map.", e);
+                return;
+            }
+            route(msg);
+        }
+
+        @Override
+        public void onMessage(@NotNull WebSocket socket, @NotNull String text) {
+            onMessage(socket, ByteString.encodeUtf8(text));
+        }
+
+        @Override
+        public void onClosing(@NotNull WebSocket socket, int code, @NotNull String reason) {
+            // Answer the server's close so that the websocket finishes closing, and the sources are told
+            socket.close(1000, null);
+        }
+
+        @Override
+        public void onClosed(@NotNull WebSocket socket, int code, @NotNull String reason) {
+            log.info("Shared connection to {} closed with code {}", url, code);
+            for (Channel channel : closeAll()) {
+                // A client whose websocket never opened isn't closed by its listener, so tell it the connection failed
+                CompletableFuture<Boolean> opening = channel.client.webSocketFuture;
+                channel.client.getListener().onClosed(channel, code, reason);
+                complete(opening, false);
+            }
+        }
+
+        @Override
+        public void onFailure(@NotNull WebSocket socket, @NotNull Throwable t, okhttp3.Response response) {
+            for (Channel channel : closeAll()) {
+                channel.client.getListener().onFailure(channel, t, response);
+            }
+        }
+    }
+}
@@ -14,6 +14,12 @@ public class Utils {
     private static final String SYNCH_LOCK = "UtilsSyncLock";
     public static final String SEND_PING_PROPERTY_NAME = "sendPings";
     public static final String PORT_PROPERTY_NAME = "tcpProbePort";
+    public static final String METRICS_PORT_PROPERTY_NAME = "metricsPort";
+    public static final String NOTIFICATION_RATE_LIMIT_PROPERTY_NAME = "notificationRateLimit";
+    public static final String NOTIFICATION_BYTE_RATE_LIMIT_PROPERTY_NAME = "notificationByteRateLimit";
+    public static final String NOTIFICATION_SHARDS_PROPERTY_NAME = "notificationShards";
+    public static final String RECONNECT_INITIAL_DELAY_PROPERTY_NAME = "reconnectInitialDelay";
+    public static final String RECONNECT_MAX_DELAY_PROPERTY_NAME = "reconnectMaxDelay";
     public static final String SERVER_CONFIG_DIR = "serverConfig";
     public static final String SERVER_CONFIG_FILENAME = "server.config";
     public static final String SECRET_CREDENTIALS = "CONNECTOR_AUTH_TOKEN";
@@ -62,6 +68,16 @@ public class Utils {
         return staticInstance.obtainTCPProbePort();
     }
 
+    /**
+     * Helper method used to get the metrics port if specified in the server.config
+     *
+     * @return An Integer for the port value provided in the server.config file, or null if none was specified.
+     */
+    public static Integer obtainMetricsPort() {
+        ensureStaticInstance();
+        return staticInstance.obtainMetricsPort();
+    }
+
     /**
      * Helper method used to get the sendPings property if specified in the server.config
      *
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * Drives a connector against a {@link MockVantiqServer} and measures its end-to-end throughput and acknowledgement
+ * latency, entirely in-process so that it runs offline.
+ * <p>
+ * {@link #run} calls a driver once per event. The driver makes the connector under test produce one notification for
+ * its source, however that connector is fed: by calling {@code sendNotification} directly, writing a line to a file,
+ * sending a UDP packet, and so on. The harness then waits until the server has acknowledged a notification for each
+ * event, and reports the events per second and the percentiles of the time from each event being handed to the
+ * driver to its notification being acknowledged. The notifications must reach the server in the order the events
+ * were driven, as they do for a connector sending on a single websocket.
+ * <p>
+ * {@link #timeToRecover} drops the connector's websocket, as a Vantiq restart would, and measures how long the
+ * connector takes to reconnect its source.
+ * <p>
+ * {@link #main} runs the harness against the SDK itself. With Gradle, run
+ * {@code ./gradlew :extjsdk:loadHarness -PloadEvents=100000 -PloadPayloadBytes=256 -PloadAckLatencyMs=1}.
+ */
+public class LoadHarness {
+
+    /**
+     * The number of times {@link #main} drops the connection to measure the time to recover.
+     */
+    static final int RECOVERY_DROPS = 5;
+
+    /**
+     * The outcome of a run.
+     */
+    public static class Result {
+        /**
+         * The number of events driven.
+         */
+        public final int events;
+        /**
+         * The time from driving the first event to the acknowledgement of the last.
+         */
+        public final long elapsedNanos;
+        private final long[] latencies;
+
+        Result(int events, long elapsedNanos, long[] latencies) {
+            this.events = events;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+            Arrays.sort(this.latencies);
+        }
+
+        /**
+         * @return  The events acknowledged per second.
+         */
+        public double getEventsPerSecond() {
+            return events / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        /**
+         * @param percentile    The percentile, from 0 to 100.
+         * @return              The latency from driving an event to its acknowledgement at {@code percentile}, in
+         *                      nanoseconds.
+         */
+        public long getLatencyNanos(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d events in %.3fs: %.0f events/sec, ack latency p50=%.3fms "
+                            + "p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms", events, elapsedNanos / 1e9,
+                    getEventsPerSecond(), millis(50), millis(90), millis(99), millis(99.9), millis(100));
+        }
+
+        private double millis(double percentile) {
+            return getLatencyNanos(percentile) / 1e6;
+        }
+    }
+
+    /**
+     * Drives {@code events} events through a connector and waits for all of them to be acknowledged.
+     *
+     * @param server        The server the connector is connected to.
+     * @param sourceName    The name of the connector's source.
+     * @param events        The number of events to drive.
+     * @param driver        Makes the connector produce one notification for the event numbered by its argument.
+     * @param timeoutMs     The longest to wait for the acknowledgements after driving the last event.
+     * @return              The throughput and latencies.
+     * @throws TimeoutException if not every event was acknowledged in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public static Result run(MockVantiqServer server, String sourceName, int events, IntConsumer driver,
+                             long timeoutMs) throws TimeoutException, InterruptedException {
+        int alreadyAcked = server.getAckCount(sourceName);
+        long[] drivenAt = new long[events];
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            drivenAt[i] = System.nanoTime();
+            driver.accept(i);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (server.getAckCount(sourceName) < alreadyAcked + events) {
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException("Only " + (server.getAckCount(sourceName) - alreadyAcked) + " of "
+                        + events + " events were acknowledged within " + timeoutMs + "ms.");
+            }
+            Thread.sleep(1);
+        }
+
+        long[] ackedAt = server.getAckTimes(sourceName);
+        long[] latencies = new long[events];
+        for (int i = 0; i < events; i++) {
+            latencies[i] = ackedAt[alreadyAcked + i] - drivenAt[i];
+        }
+        return new Result(events, ackedAt[alreadyAcked + events - 1] - start, latencies);
+    }
+
+    /**
+     * Drops every connection to the server, as a restarted Vantiq server would, and measures how long the connector
+     * takes to connect to its source again.
+     *
+     * @param server        The server the connector is connected to.
+     * @param sourceName    The name of the connector's source.
+     * @param timeoutMs     The longest to wait for the connector to reconnect.
+     * @return              The time from the drop until the connector asked to connect to its source again, in
+     *                      nanoseconds.
+     * @throws IOException if the server could not be restarted.
+     * @throws TimeoutException if the connector did not reconnect in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public static long timeToRecover(MockVantiqServer server, String sourceName, long timeoutMs)
+            throws IOException, TimeoutException, InterruptedException {
+        long start = System.nanoTime();
+        server.dropConnections();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!server.isSourceConnected(sourceName)) {
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException("The source did not reconnect within " + timeoutMs + "ms.");
+            }
+            Thread.sleep(1);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Creates a close handler that reconnects the way the connectors do: at once, and then after the delays of the
+     * client's {@link ReconnectPolicy} for as long as the attempts fail.
+     *
+     * @param url   The url of the server.
+     * @return      The close handler.
+     */
+    public static Handler<ExtensionWebSocketClient> reconnectingCloseHandler(String url) {
+        AtomicBoolean reconnecting = new AtomicBoolean();
+        return new Handler<ExtensionWebSocketClient>() {
+            @Override
+            public void handleMessage(ExtensionWebSocketClient client) {
+                // A failed attempt closes the client again, which must not start a second loop
+                if (!reconnecting.compareAndSet(false, true)) {
+                    return;
+                }
+                new Thread(() -> {
+                    try {
+                        int attempt = 0;
+                        while (!client.initiateFullConnection(url, "token", false).get(10, TimeUnit.SECONDS)) {
+                            Thread.sleep(client.getReconnectPolicy().getDelayMs(attempt++));
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Could not reconnect to the mock server.", e);
+                    } finally {
+                        reconnecting.set(false);
+                    }
+                }, "harnessReconnect").start();
+            }
+        };
+    }
+
+    /**
+     * Measures the SDK's own notification path: a client connected to a {@link MockVantiqServer} sends notifications
+     * of a given size as fast as it is allowed to, and then recovers from having its connection dropped a few times.
+     *
+     * @param args  The number of events, the approximate size of each in bytes, and the server's ack latency in
+     *              milliseconds. Each is optional, defaulting to 100000, 256, and 0.
+     * @throws Exception if the run fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int payloadBytes = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        long ackLatencyMs = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        try (MockVantiqServer server = new MockVantiqServer()) {
+            server.setAckLatency(ackLatencyMs, TimeUnit.MILLISECONDS);
+            ExtensionWebSocketClient client = new ExtensionWebSocketClient("loadSource");
+            if (!client.initiateFullConnection(server.getUrl(), "token", false).get(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Could not connect to the mock server.");
+            }
+
+            Map<String, Object> payload = new LinkedHashMap<>();
+            char[] filler = new char[Math.max(0, payloadBytes - 30)];
+            Arrays.fill(filler, 'x');
+            payload.put("data", new String(filler));
+
+            // Warm up, then measure
+            run(server, "loadSource", Math.min(events, 10_000), i -> client.sendNotification(payload), 60_000);
+            Result result = run(server, "loadSource", events, i -> client.sendNotification(payload), 60_000);
+            System.out.println(result);
+
+            client.setCloseHandler(reconnectingCloseHandler(server.getUrl()));
+            long totalNanos = 0;
+            long worstNanos = 0;
+            for (int i = 0; i < RECOVERY_DROPS; i++) {
+                long nanos = timeToRecover(server, "loadSource", 60_000);
+                totalNanos += nanos;
+                worstNanos = Math.max(worstNanos, nanos);
+                // Let the client finish connecting before dropping it again
+                while (!client.isConnected()) {
+                    Thread.sleep(1);
+                }
+            }
+            System.out.println(String.format(Locale.ROOT, "Recovered from %d dropped connections: mean time to recover "
+                    + "%.1fms, max %.1fms", RECOVERY_DROPS, totalNanos / 1e6 / RECOVERY_DROPS, worstNanos / 1e6));
+            client.stop();
+        }
+    }
+}
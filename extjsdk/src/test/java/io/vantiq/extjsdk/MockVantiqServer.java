@@ -0,0 +1,507 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.ByteString;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An in-process stand-in for a Vantiq server, speaking the websocket protocol that {@link ExtensionWebSocketClient}
+ * and {@link ExtensionWebSocketListener} expect, so that connectors can be exercised through the real OkHttp stack
+ * without credentials or a network.
+ * <p>
+ * It accepts any number of websockets. On each, it answers authentication with a 200 response (or a 401 if a
+ * {@link #setValidToken valid token} is set and not given), answers connection requests with the source's
+ * {@link #setSourceConfig configuration}, and acknowledges notifications after the {@link #setAckLatency ack latency}.
+ * Acknowledgements are always sent in the order the notifications arrived, since the client matches them up by order.
+ * Tests can {@link #publish} to a source, {@link #query} it and collect the rows of the response, or ask it to
+ * {@link #requestReconnect reconnect}.
+ * <p>
+ * Connect a client to {@link #getUrl()} with {@code initiateFullConnection(server.getUrl(), <token>, false)}.
+ */
+public class MockVantiqServer implements Closeable {
+
+    private volatile MockWebServer server;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ScheduledExecutorService ackScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mockVantiqAcks");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Session> sourceSessions = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> sourceConfigs = new ConcurrentHashMap<>();
+    private final Map<String, SourceStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, PendingQuery> pendingQueries = new ConcurrentHashMap<>();
+
+    private volatile long ackLatencyNanos = 0;
+    private volatile String validToken = null;
+    private volatile boolean recordNotifications = false;
+    private final List<Map> notifications = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Creates and starts the server on an ephemeral port.
+     *
+     * @throws IOException if the server cannot be started.
+     */
+    public MockVantiqServer() throws IOException {
+        // MockWebServer only lets the port be reused when one is given, and dropConnections() needs to reuse it
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = newServer();
+        server.start(port);
+    }
+
+    private MockWebServer newServer() {
+        MockWebServer mockServer = new MockWebServer();
+        mockServer.setDispatcher(new Dispatcher() {
+            @NotNull
+            @Override
+            public MockResponse dispatch(@NotNull RecordedRequest request) {
+                return new MockResponse().withWebSocketUpgrade(new Session());
+            }
+        });
+        return mockServer;
+    }
+
+    /**
+     * @return  The URL to give to {@link ExtensionWebSocketClient#initiateFullConnection}.
+     */
+    public String getUrl() {
+        return "http://localhost:" + server.getPort();
+    }
+
+    /**
+     * Sets the configuration sent to {@code sourceName} when it connects, as found at {@code object.config} in the
+     * configuration message. Sources without one are sent an empty configuration.
+     *
+     * @param sourceName    The name of the source.
+     * @param config        The source's configuration.
+     */
+    public void setSourceConfig(String sourceName, Map<String, Object> config) {
+        sourceConfigs.put(sourceName, config);
+    }
+
+    /**
+     * Sets how long the server waits before acknowledging each notification.
+     *
+     * @param latency   The delay.
+     * @param unit      The unit of {@code latency}.
+     */
+    public void setAckLatency(long latency, TimeUnit unit) {
+        ackLatencyNanos = unit.toNanos(latency);
+    }
+
+    /**
+     * Sets the only token that authenticates. By default any token does.
+     *
+     * @param token The token to accept, or null to accept any.
+     */
+    public void setValidToken(String token) {
+        validToken = token;
+    }
+
+    /**
+     * Sets whether the notifications received are kept for {@link #getNotifications}. By default they are only
+     * counted, so that load tests do not fill the heap.
+     *
+     * @param record    Whether to keep the notifications.
+     */
+    public void setRecordNotifications(boolean record) {
+        recordNotifications = record;
+    }
+
+    /**
+     * @return  The notifications received while {@link #setRecordNotifications recording}, as sent.
+     */
+    public List<Map> getNotifications() {
+        synchronized (notifications) {
+            return new ArrayList<>(notifications);
+        }
+    }
+
+    /**
+     * @param sourceName    The name of the source.
+     * @return              The number of notifications received from {@code sourceName}.
+     */
+    public int getNotificationCount(String sourceName) {
+        SourceStats s = stats.get(sourceName);
+        return s == null ? 0 : s.size();
+    }
+
+    /**
+     * @param sourceName    The name of the source.
+     * @return              The number of notifications from {@code sourceName} that have been acknowledged.
+     */
+    public int getAckCount(String sourceName) {
+        SourceStats s = stats.get(sourceName);
+        return s == null ? 0 : s.ackCount();
+    }
+
+    /**
+     * Returns the {@link System#nanoTime} at which the server acknowledged each notification from {@code sourceName},
+     * in the order the notifications arrived. Notifications not yet acknowledged are omitted.
+     *
+     * @param sourceName    The name of the source.
+     * @return              The acknowledgement times.
+     */
+    public long[] getAckTimes(String sourceName) {
+        SourceStats s = stats.get(sourceName);
+        return s == null ? new long[0] : s.ackTimes();
+    }
+
+    /**
+     * @return  The number of websockets currently open to the server.
+     */
+    public int getConnectionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @param sourceName    The name of the source.
+     * @return              Whether a client has connected to the source since the server last dropped its
+     *                      connections.
+     */
+    public boolean isSourceConnected(String sourceName) {
+        return sourceSessions.containsKey(sourceName);
+    }
+
+    /**
+     * Forgets the notifications received so far, for every source.
+     */
+    public void resetNotifications() {
+        stats.clear();
+        notifications.clear();
+    }
+
+    /**
+     * Sends a Publish message to a connected source.
+     *
+     * @param sourceName    The name of the source.
+     * @param object        The data published.
+     */
+    public void publish(String sourceName, Map<String, Object> object) {
+        Map<String, Object> msg = sourceMessage(ExtensionServiceMessage.OP_PUBLISH, sourceName, object);
+        msg.put(ExtensionServiceMessage.PROPERTY_MESSAGE_HEADERS, new LinkedHashMap<>());
+        sessionFor(sourceName).send(msg);
+    }
+
+    /**
+     * Sends a query to a connected source and collects the rows of its response, however many chunks it is sent in.
+     *
+     * @param sourceName    The name of the source.
+     * @param object        The query's parameters.
+     * @return              A {@link CompletableFuture} completing with the rows of the response, or exceptionally with
+     *                      an {@link IllegalStateException} carrying the body of an error response.
+     */
+    public CompletableFuture<List<Object>> query(String sourceName, Map<String, Object> object) {
+        String replyAddress = UUID.randomUUID().toString();
+        PendingQuery pending = new PendingQuery();
+        pendingQueries.put(replyAddress, pending);
+
+        Map<String, Object> headers = new LinkedHashMap<>();
+        headers.put(ExtensionServiceMessage.ORIGIN_ADDRESS_HEADER, replyAddress);
+        Map<String, Object> msg = sourceMessage(ExtensionServiceMessage.OP_QUERY, sourceName, object);
+        msg.put(ExtensionServiceMessage.PROPERTY_MESSAGE_HEADERS, headers);
+        sessionFor(sourceName).send(msg);
+        return pending.result;
+    }
+
+    /**
+     * Tells a connected source that it must reconnect, as Vantiq does when the source is updated.
+     *
+     * @param sourceName    The name of the source.
+     */
+    public void requestReconnect(String sourceName) {
+        sessionFor(sourceName).send(sourceMessage(ExtensionServiceMessage.OP_RECONNECT_REQUIRED, sourceName, null));
+    }
+
+    /**
+     * Abruptly closes every open websocket by restarting the server on the same port, as a restarted Vantiq server
+     * would. Clients may connect again once this returns.
+     *
+     * @throws IOException if the server cannot be restarted.
+     */
+    public void dropConnections() throws IOException {
+        MockWebServer oldServer = server;
+        int port = oldServer.getPort();
+        oldServer.shutdown();
+        sessions.clear();
+        sourceSessions.clear();
+
+        MockWebServer newServer = newServer();
+        newServer.start(port);
+        server = newServer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ackScheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    private Session sessionFor(String sourceName) {
+        Session session = sourceSessions.get(sourceName);
+        if (session == null) {
+            throw new IllegalStateException("Source " + sourceName + " is not connected.");
+        }
+        return session;
+    }
+
+    private Map<String, Object> sourceMessage(String op, String sourceName, Object object) {
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("op", op);
+        msg.put("resourceName", ExtensionServiceMessage.RESOURCE_NAME_SOURCES);
+        msg.put("resourceId", sourceName);
+        msg.put("object", object);
+        return msg;
+    }
+
+    private static Map<String, Object> status(int code) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", code);
+        return response;
+    }
+
+    /**
+     * The notifications received from one source, and when each was acknowledged.
+     */
+    private static class SourceStats {
+        private int received = 0;
+        private int acked = 0;
+        private long[] ackTimes = new long[1024];
+
+        synchronized int received() {
+            return received++;
+        }
+
+        synchronized void acked(int index, long at) {
+            if (index >= ackTimes.length) {
+                ackTimes = Arrays.copyOf(ackTimes, Math.max(index + 1, ackTimes.length * 2));
+            }
+            ackTimes[index] = at;
+            acked++;
+        }
+
+        synchronized int size() {
+            return received;
+        }
+
+        synchronized int ackCount() {
+            return acked;
+        }
+
+        synchronized long[] ackTimes() {
+            // Acks are sent in order, so the first acked entries are the filled ones
+            return Arrays.copyOf(ackTimes, acked);
+        }
+    }
+
+    /**
+     * The rows received so far in response to a query.
+     */
+    private static class PendingQuery {
+        final List<Object> rows = new ArrayList<>();
+        final CompletableFuture<List<Object>> result = new CompletableFuture<>();
+    }
+
+    /**
+     * A reply waiting for its time to be sent.
+     */
+    private static class ScheduledReply {
+        final long due;
+        final Runnable reply;
+
+        ScheduledReply(long due, Runnable reply) {
+            this.due = due;
+            this.reply = reply;
+        }
+    }
+
+    /**
+     * One websocket open to the server.
+     */
+    private class Session extends WebSocketListener {
+        volatile WebSocket socket;
+        // Guarded by this
+        final ArrayDeque<ScheduledReply> scheduled = new ArrayDeque<>();
+        long lastReplyDue = 0;
+
+        @Override
+        public void onOpen(@NotNull WebSocket webSocket, @NotNull okhttp3.Response response) {
+            socket = webSocket;
+            sessions.add(this);
+        }
+
+        @Override
+        public void onMessage(@NotNull WebSocket webSocket, @NotNull ByteString bytes) {
+            try {
+                received(mapper.readValue(bytes.toByteArray(), Map.class));
+            } catch (IOException e) {
+                throw new AssertionError("The client sent a message that is not JSON.", e);
+            }
+        }
+
+        @Override
+        public void onMessage(@NotNull WebSocket webSocket, @NotNull String text) {
+            try {
+                received(mapper.readValue(text, Map.class));
+            } catch (IOException e) {
+                throw new AssertionError("The client sent a message that is not JSON.", e);
+            }
+        }
+
+        @Override
+        public void onClosing(@NotNull WebSocket webSocket, int code, @NotNull String reason) {
+            webSocket.close(1000, null);
+            closed();
+        }
+
+        @Override
+        public void onFailure(@NotNull WebSocket webSocket, @NotNull Throwable t, okhttp3.Response response) {
+            closed();
+        }
+
+        private void closed() {
+            sessions.remove(this);
+            sourceSessions.values().removeIf(s -> s == this);
+        }
+
+        private void received(Map msg) {
+            Object op = msg.get("op");
+            if (op == null) {
+                queryResponse(msg);
+            } else if ("validate".equals(op) || "authenticate".equals(op)) {
+                String token = validToken;
+                boolean valid = token == null || token.equals(msg.get("object"));
+                reply(status(valid ? 200 : 401));
+            } else if (ExtensionServiceMessage.OP_CONNECT_EXTENSION.equals(op)) {
+                String sourceName = (String) msg.get("resourceId");
+                sourceSessions.put(sourceName, this);
+                Map<String, Object> object = new LinkedHashMap<>();
+                object.put("config", sourceConfigs.getOrDefault(sourceName, new LinkedHashMap<>()));
+                reply(sourceMessage(ExtensionServiceMessage.OP_CONFIGURE_EXTENSION, sourceName, object));
+            } else if (ExtensionServiceMessage.OP_NOTIFICATION.equals(op)) {
+                String sourceName = (String) msg.get("resourceId");
+                SourceStats source = stats.computeIfAbsent(sourceName, s -> new SourceStats());
+                int index = source.received();
+                if (recordNotifications) {
+                    notifications.add(msg);
+                }
+                acknowledge(source, index);
+            } else {
+                reply(status(200));
+            }
+        }
+
+        private void queryResponse(Map msg) {
+            Object headers = msg.get("headers");
+            Object address = headers instanceof Map
+                    ? ((Map) headers).get(ExtensionServiceMessage.RESPONSE_ADDRESS_HEADER) : null;
+            PendingQuery pending = address == null ? null : pendingQueries.get(address);
+            if (pending == null) {
+                return;
+            }
+            int code = ((Number) msg.get("status")).intValue();
+            Object body = msg.get("body");
+            if (code >= 400) {
+                pendingQueries.remove(address);
+                pending.result.completeExceptionally(new IllegalStateException(String.valueOf(body)));
+                return;
+            }
+            if (body instanceof List) {
+                pending.rows.addAll((List) body);
+            } else if (body != null) {
+                pending.rows.add(body);
+            }
+            if (code != ExtensionWebSocketClient.QUERY_CHUNK_CODE) {
+                pendingQueries.remove(address);
+                pending.result.complete(pending.rows);
+            }
+        }
+
+        private void acknowledge(SourceStats source, int index) {
+            schedule(() -> {
+                send(status(200));
+                source.acked(index, System.nanoTime());
+            });
+        }
+
+        private void reply(Map<String, Object> msg) {
+            schedule(() -> send(msg));
+        }
+
+        /**
+         * Runs {@code reply} after the ack latency, but never before a reply scheduled earlier on this websocket.
+         */
+        private void schedule(Runnable reply) {
+            long latency = ackLatencyNanos;
+            synchronized (this) {
+                if (latency == 0 && scheduled.isEmpty()) {
+                    reply.run();
+                    return;
+                }
+                long now = System.nanoTime();
+                long due = Math.max(now + latency, lastReplyDue);
+                lastReplyDue = due;
+                scheduled.addLast(new ScheduledReply(due, reply));
+                ackScheduler.schedule(this::sendDue, due - now, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Sends every scheduled reply that is due, in the order they were scheduled. Each reply schedules a call to
+         * this, so no reply waits past its time even if the scheduler runs the calls out of order.
+         */
+        private synchronized void sendDue() {
+            long now = System.nanoTime();
+            ScheduledReply next;
+            while ((next = scheduled.peekFirst()) != null && next.due <= now) {
+                scheduled.pollFirst();
+                next.reply.run();
+            }
+        }
+
+        void send(Map<String, Object> msg) {
+            try {
+                socket.send(ByteString.of(mapper.writeValueAsBytes(msg)));
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
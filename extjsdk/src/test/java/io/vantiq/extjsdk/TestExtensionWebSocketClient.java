@@ -23,6 +23,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import okio.ByteString;
 import org.jetbrains.annotations.NotNull;
@@ -342,6 +344,173 @@ public class TestExtensionWebSocketClient extends ExtjsdkTestBase {
         assert socket.compareData("resourceId", srcName);
     }
 
+    @Test
+    public void testNotificationAsync() throws Exception {
+        markSourceConnected(true);
+
+        Map<String,Object> m = new LinkedHashMap<>();
+        m.put("msg", "str");
+
+        CompletableFuture<Boolean> acked = client.sendNotificationAsync(m);
+        // Wait up to 5 seconds for the writer thread to send it
+        waitUntilTrue(5 * 1000, () -> socket.receivedMessage());
+
+        assert socket.compareData("op", ExtensionServiceMessage.OP_NOTIFICATION);
+        assert socket.compareData("object.msg", "str");
+        assert !acked.isDone();
+
+        client.acknowledgeNotification(true);
+        assert acked.get(5, TimeUnit.SECONDS);
+
+        // Notifications sent while disconnected are held for the reconnect and complete as false
+        markSourceConnected(false);
+        acked = client.sendNotificationAsync(m);
+        assert !acked.get(5, TimeUnit.SECONDS);
+        assert client.failedMessageQueue.size() == 1;
+    }
+
+    @Test
+    public void testConflatedNotification() throws Exception {
+        List<Map> sent = new ArrayList<>();
+        client.webSocket = new FalseWebSocket() {
+            @Override
+            public boolean send(@NotNull ByteString bytes) {
+                try {
+                    synchronized (sent) {
+                        sent.add((Map) mapper.readValue(bytes.toByteArray(), Map.class).get("object"));
+                    }
+                } catch (IOException e) {
+                    throw new AssertionError("Notification was not valid JSON", e);
+                }
+                return super.send(bytes);
+            }
+        };
+        client.setNotificationWindowLimits(1, 1);
+        markSourceConnected(true);
+
+        // The first notification fills the window, so later values for a key replace each other while they wait
+        assert client.sendConflatedNotification("a", reading(1));
+        waitUntilTrue(5 * 1000, () -> client.getNotificationWindow().getOutstanding() == 1);
+        assert client.sendConflatedNotification("a", reading(2));
+        assert client.sendConflatedNotification("b", reading(3));
+        assert client.sendConflatedNotification("a", reading(4));
+        assert client.sendConflatedNotification("b", reading(5));
+
+        client.acknowledgeNotification(true);
+        waitUntilTrue(5 * 1000, () -> sentCount(sent) == 2);
+        client.acknowledgeNotification(true);
+        waitUntilTrue(5 * 1000, () -> sentCount(sent) == 3);
+        client.acknowledgeNotification(true);
+        synchronized (sent) {
+            assert sent.size() == 3;
+            assert sent.get(0).get("value").equals(1);
+            assert sent.get(1).get("value").equals(4);
+            assert sent.get(2).get("value").equals(5);
+        }
+
+        // While disconnected only the latest value for each key is held, rather than every value
+        markSourceConnected(false);
+        for (int i = 0; i < 10; i++) {
+            assert client.sendConflatedNotification(i % 2 == 0 ? "a" : "b", reading(i));
+        }
+        assert client.failedMessageQueue.isEmpty();
+        assert client.notificationWriter.getHeldCount() == 2;
+
+        markSourceConnected(true);
+        client.flushQueue();
+        assert client.notificationWriter.getHeldCount() == 0;
+        waitUntilTrue(5 * 1000, () -> sentCount(sent) == 4);
+        client.acknowledgeNotification(true);
+        waitUntilTrue(5 * 1000, () -> sentCount(sent) == 5);
+        synchronized (sent) {
+            assert sent.size() == 5;
+            assert sent.get(3).get("value").equals(8);
+            assert sent.get(4).get("value").equals(9);
+        }
+    }
+
+    @Test
+    public void testWritability() throws Exception {
+        client.setNotificationWindowLimits(1, 1);
+        client.setWritabilityWaterMarks(1, 3);
+        markSourceConnected(true);
+
+        AtomicInteger callbacks = new AtomicInteger();
+        client.onWritable(callbacks::incrementAndGet);
+        assert client.isWritable();
+        assert callbacks.get() == 1;
+
+        // The first notification fills the window, so the rest back up in the writer's queue
+        client.sendNotificationAsync(reading(0));
+        waitUntilTrue(5 * 1000, () -> client.getNotificationWindow().getOutstanding() == 1);
+        for (int i = 1; i < 5; i++) {
+            client.sendNotificationAsync(reading(i));
+        }
+        assert !client.isWritable();
+        client.onWritable(callbacks::incrementAndGet);
+        assert callbacks.get() == 1;
+
+        // Becomes writable again only once the queue drains to the low water mark
+        for (int i = 0; i < 4 && !client.isWritable(); i++) {
+            client.acknowledgeNotification(true);
+            Thread.sleep(50);
+        }
+        waitUntilTrue(5 * 1000, () -> client.isWritable());
+        assert client.isWritable();
+        assert callbacks.get() == 2;
+        assert client.notificationWriter.getQueuedCount() <= 1;
+
+        try {
+            client.setWritabilityWaterMarks(3, 3);
+            fail("Water marks with low not below high should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testUnsentNotificationReleasesWindow() throws Exception {
+        client.setNotificationWindowLimits(2, 2);
+        markSourceConnected(true);
+
+        // The second notification cannot be serialized, so it is never written and no ack will come for it
+        CompletableFuture<Boolean> first = client.sendNotificationAsync(reading(1));
+        Map<String, Object> unserializable = new LinkedHashMap<>();
+        unserializable.put("value", new Unserializable());
+        CompletableFuture<Boolean> failed = client.sendNotificationAsync(unserializable);
+        CompletableFuture<Boolean> third = client.sendNotificationAsync(reading(3));
+        waitUntilTrue(5 * 1000, () -> failed.isDone() && client.getNotificationWindow().getOutstanding() == 2);
+        assert failed.isCompletedExceptionally();
+        assert client.getNotificationWindow().getOutstanding() == 2;
+
+        // Each ack completes the notification it answers
+        client.acknowledgeNotification(true);
+        assert first.get(5, TimeUnit.SECONDS);
+        assert !third.isDone();
+        client.acknowledgeNotification(false);
+        assert !third.get(5, TimeUnit.SECONDS);
+        assert client.getNotificationWindow().getOutstanding() == 0;
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+        // A notification-sized payload of about 64KB
+        Map<String, Object> payload = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            payload.put("field" + i, "value of about fifty characters for field number " + i);
+        }
+        ExtensionServiceMessage msg = new ExtensionServiceMessage("");
+        msg.object = payload;
+
+        // The pooled buffer writes the same JSON as the mapper, and leaves nothing behind for the next message
+        for (int i = 0; i < 3; i++) {
+            ByteString bytes = client.serialize(msg);
+            assert bytes.equals(ByteString.of(mapper.writeValueAsBytes(msg)));
+            Map decoded = mapper.readValue(bytes.toByteArray(), Map.class);
+            assert payload.equals(decoded.get("object"));
+        }
+    }
+
     @Test
     public void testOpenAndClose() {
         // Setup a client and listener and mark things "connected"
@@ -426,8 +595,11 @@ public class TestExtensionWebSocketClient extends ExtjsdkTestBase {
         // see that the queue was flushed
         newClient.webSocketFuture = CompletableFuture.completedFuture(true);
         newClient.authFuture = CompletableFuture.completedFuture(true);
-        newClient.sourceFuture = CompletableFuture.completedFuture(false);
+        // Pending, as connectToSource() leaves it until the configuration arrives
+        newClient.sourceFuture = new CompletableFuture<>();
         newClient.listener.onMessage(client.webSocket, testListener.createConfigResponse(new LinkedHashMap<>(), srcName));
+        // The queue is flushed on a thread of its own, through the notification writer
+        waitUntilTrue(5 * 1000, () -> newClient.getNotificationWindow().getOutstanding() == 1);
         assert newClient.failedMessageQueue.size() == 0;
 
         // Now lets do the same thing with a query
@@ -444,8 +616,9 @@ public class TestExtensionWebSocketClient extends ExtjsdkTestBase {
 
         newClient.webSocketFuture = CompletableFuture.completedFuture(true);
         newClient.authFuture = CompletableFuture.completedFuture(true);
-        newClient.sourceFuture = CompletableFuture.completedFuture(false);
+        newClient.sourceFuture = new CompletableFuture<>();
         newClient.listener.onMessage(client.webSocket, testListener.createConfigResponse(new LinkedHashMap<>(), srcName));
+        waitUntilTrue(5 * 1000, () -> newClient.failedMessageQueue.isEmpty());
         assert newClient.failedMessageQueue.size() == 0;
     }
 
@@ -531,6 +704,27 @@ public class TestExtensionWebSocketClient extends ExtjsdkTestBase {
         markWsConnected(true);
         client.authFuture = CompletableFuture.completedFuture(success);
     }
+    /**
+     * A value that Jackson cannot serialize.
+     */
+    public static class Unserializable {
+        public String getValue() {
+            throw new IllegalStateException("Cannot be serialized");
+        }
+    }
+
+    private Map<String, Object> reading(int value) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("value", value);
+        return m;
+    }
+
+    private int sentCount(List<Map> sent) {
+        synchronized (sent) {
+            return sent.size();
+        }
+    }
+
     private void markSourceConnected(boolean success) {
         markAuthSuccess(true);
         client.sourceFuture = CompletableFuture.completedFuture(success);
@@ -22,9 +22,16 @@ import org.junit.Test;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class TestExtensionWebSocketListener extends ExtjsdkTestBase {
 
@@ -194,8 +201,152 @@ public class TestExtensionWebSocketListener extends ExtjsdkTestBase {
         assert qHandler.compareSourceName( srcName);
         assert qHandler.compareValue(key, val);
     }
+
+    @Test
+    public void testLazyObject() {
+        connectToSource(srcName, null);
+
+        Map<String,Object> nested = new LinkedHashMap<>();
+        nested.put("value", 5);
+        Map<String,Object> publishMessage = new LinkedHashMap<>();
+        publishMessage.put("publish", "info");
+        publishMessage.put("nested", nested);
+
+        // By default the object is parsed when the message arrives
+        listener.onMessage(client.webSocket, TestListener.createPublishMessage(publishMessage, srcName));
+        ExtensionServiceMessage message = pHandler.lastMessage;
+        assert publishMessage.equals(message.object);
+        assert message.getRawObject() != null;
+
+        listener.setDeferObjectDecoding(true);
+        listener.onMessage(client.webSocket, TestListener.createPublishMessage(publishMessage, srcName));
+        message = pHandler.lastMessage;
+
+        // The object is held as raw JSON until it is asked for
+        assert message.object == null;
+        assert message.getRawObject() != null;
+        assert message.getObjectAsTree().get("nested").get("value").asInt() == 5;
+        assert message.object == null;
+
+        assert publishMessage.equals(message.getObject());
+        assert message.getRawObject() != null;
+
+        // Replacing the object means the raw JSON no longer describes it
+        message.object = "replaced";
+        assert message.getRawObject() == null;
+        assert message.getObjectAsTree().asText().equals("replaced");
+    }
     
-    @Test 
+    @Test
+    public void testHandlersOnExecutors() throws InterruptedException {
+        connectToSource(srcName, null);
+
+        // A publish handler that blocks until released
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch published = new CountDownLatch(1);
+        Handler<ExtensionServiceMessage> slowHandler = new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // Test will fail on the latch below
+                }
+                published.countDown();
+            }
+        };
+        client.setPublishHandler(slowHandler);
+        ExecutorService publishExecutor = DispatchExecutors.bounded("publish", 1, 1);
+        client.setPublishExecutor(publishExecutor);
+
+        try {
+            listener.onMessage(client.webSocket, TestListener.createPublishMessage(new LinkedHashMap(), srcName));
+
+            // The reader thread is free, so HTTP responses (and the acks they carry) are still handled
+            listener.onMessage(client.webSocket, TestListener.createHttpMessage(new Response().status(200)));
+            assert hHandler.compareStatus(200);
+
+            // One publish is running and one is queued, so the next is rejected rather than blocking
+            listener.onMessage(client.webSocket, TestListener.createPublishMessage(new LinkedHashMap(), srcName));
+            listener.onMessage(client.webSocket, TestListener.createPublishMessage(new LinkedHashMap(), srcName));
+
+            release.countDown();
+            assert published.await(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            publishExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectedQuery() {
+        connectToSource(srcName, null);
+
+        client.setQueryExecutor(task -> {
+            throw new RejectedExecutionException("Always busy");
+        });
+        listener.onMessage(client.webSocket, TestListener.createQueryMessage(new LinkedHashMap(), srcName));
+
+        Response resp = null;
+        try {
+            resp = client.getLastMessageAsResponse();
+        } catch (Exception e) {
+            fail("Could not interpret the rejected query response");
+        }
+        assert resp.getStatus() == 400;
+        assert "io.vantiq.extjsdk.queryRejected".equals(((Map) resp.getBody()).get("messageCode"));
+        assert qHandler.compareMessage(null);
+    }
+
+    @Test
+    public void testAsyncHandlerInFlightLimit() {
+        connectToSource(srcName, null);
+
+        // Queries complete only when the test says so
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        client.setQueryHandler(new AsyncHandler<ExtensionServiceMessage>() {
+            @Override
+            public CompletionStage<?> handleMessageAsync(ExtensionServiceMessage message) {
+                CompletableFuture<Void> done = new CompletableFuture<>();
+                running.add(done);
+                return done;
+            }
+        });
+        client.setMaxQueriesInFlight(2);
+
+        listener.onMessage(client.webSocket, TestListener.createQueryMessage(new LinkedHashMap(), srcName));
+        listener.onMessage(client.webSocket, TestListener.createQueryMessage(new LinkedHashMap(), srcName));
+        assert running.size() == 2;
+        assert listener.getQueriesInFlight() == 2;
+
+        // The handler has returned, but its work has not finished, so the next query is over the limit
+        listener.onMessage(client.webSocket, TestListener.createQueryMessage(new LinkedHashMap(), srcName));
+        assert running.size() == 2;
+        Response resp = null;
+        try {
+            resp = client.getLastMessageAsResponse();
+        } catch (Exception e) {
+            fail("Could not interpret the rejected query response");
+        }
+        assert resp.getStatus() == 400;
+        assert "io.vantiq.extjsdk.queryRejected".equals(((Map) resp.getBody()).get("messageCode"));
+
+        // Failing counts as finishing
+        running.get(0).complete(null);
+        running.get(1).completeExceptionally(new IllegalStateException("Query failed"));
+        assert listener.getQueriesInFlight() == 0;
+        listener.onMessage(client.webSocket, TestListener.createQueryMessage(new LinkedHashMap(), srcName));
+        assert running.size() == 3;
+
+        // The count carries over to the listener that replaces this one
+        ExtensionWebSocketListener next = new ExtensionWebSocketListener(client);
+        next.useHandlersFromListener(listener);
+        assert next.getQueriesInFlight() == 1;
+        running.get(2).complete(null);
+        assert next.getQueriesInFlight() == 0;
+    }
+
+    @Test
     public void testHttp() {
         connectToSource(srcName, null);
         
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Test;
+
+public class TestJsonCodec extends ExtjsdkTestBase {
+
+    @Test
+    public void testReadersAndWritersAreCached() {
+        assert JsonCodec.readerFor(Map.class) == JsonCodec.readerFor(Map.class);
+        assert JsonCodec.readerFor(new TypeReference<List<String>>() {})
+                == JsonCodec.readerFor(new TypeReference<List<String>>() {});
+        assert JsonCodec.writerFor(Response.class) == JsonCodec.writerFor(Response.class);
+        assert JsonCodec.newMapper() != JsonCodec.mapper();
+    }
+
+    @Test
+    public void testBytecodeAccessorsOnModernJava() {
+        String specVersion = System.getProperty("java.specification.version");
+        boolean modern = !specVersion.startsWith("1.") && Integer.parseInt(specVersion.split("\\.")[0]) >= 11;
+        assert JsonCodec.usesBytecodeAccessors() == modern;
+        assert JsonCodec.mapper().getRegisteredModuleIds().isEmpty() != modern;
+    }
+
+    @Test
+    public void testMessageRoundTrip() throws Exception {
+        ExtensionServiceMessage message = new ExtensionServiceMessage("");
+        message.op = ExtensionServiceMessage.OP_NOTIFICATION;
+        message.resourceName = ExtensionServiceMessage.RESOURCE_NAME_SOURCES;
+        message.resourceId = "codecSource";
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("count", 3);
+        object.put("name", "value");
+        message.object = object;
+
+        byte[] bytes = JsonCodec.writer().writeValueAsBytes(message);
+        Map<String, Object> decoded = JsonCodec.mapReader().readValue(bytes);
+        assert ExtensionServiceMessage.OP_NOTIFICATION.equals(decoded.get("op"));
+        assert "codecSource".equals(decoded.get("resourceId"));
+        assert object.equals(decoded.get("object"));
+
+        // A bean serializes the same whether its serializer is resolved ahead of time or not
+        Response response = new Response().status(200).body(object);
+        assert new String(JsonCodec.writerFor(Response.class).writeValueAsBytes(response), StandardCharsets.UTF_8)
+                .equals(JsonCodec.writer().writeValueAsString(response));
+    }
+}
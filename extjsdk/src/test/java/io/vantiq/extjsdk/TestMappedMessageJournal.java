@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMappedMessageJournal extends ExtjsdkTestBase {
+
+    // Small segments so that tests roll over and evict quickly
+    static final int SEGMENT_BYTES = 1024;
+
+    File journalDir;
+
+    @Before
+    public void setup() throws IOException {
+        journalDir = Files.createTempDirectory("journalTest").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(journalDir);
+    }
+
+    static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        f.delete();
+    }
+
+    @Test
+    public void testInOrderAcrossSegments() throws IOException {
+        MappedMessageJournal journal = openJournal(8 * SEGMENT_BYTES);
+        for (int i = 0; i < 100; i++) {
+            assert journal.offer(message(i));
+        }
+        assert journal.size() == 100;
+        assert countSegments() > 1;
+
+        Iterator<Object> it = journal.iterator();
+        assert ((Map) it.next()).get("seq").equals(0);
+
+        for (int i = 0; i < 100; i++) {
+            Map m = (Map) journal.poll();
+            assert m.get("seq").equals(i);
+        }
+        assert journal.poll() == null;
+        assert journal.isEmpty();
+        // Fully read segments are removed, leaving only the one being written
+        assert countSegments() == 1;
+    }
+
+    @Test
+    public void testEvictsOldestWhenFull() throws IOException {
+        MappedMessageJournal journal = openJournal(2 * SEGMENT_BYTES);
+        for (int i = 0; i < 200; i++) {
+            journal.offer(message(i));
+        }
+        assert journal.getEvictedCount() > 0;
+        assert journal.size() + journal.getEvictedCount() == 200;
+        assert journal.getJournalBytes() <= 2 * SEGMENT_BYTES;
+
+        // What is left is the most recent messages, still in order
+        int expected = (int) journal.getEvictedCount();
+        Object m;
+        while ((m = journal.poll()) != null) {
+            assert ((Map) m).get("seq").equals(expected++);
+        }
+        assert expected == 200;
+    }
+
+    @Test
+    public void testResumesAfterReopen() throws IOException {
+        MappedMessageJournal journal = openJournal(8 * SEGMENT_BYTES);
+        for (int i = 0; i < 50; i++) {
+            journal.offer(message(i));
+        }
+        for (int i = 0; i < 20; i++) {
+            journal.poll();
+        }
+
+        MappedMessageJournal reopened = openJournal(8 * SEGMENT_BYTES);
+        assert reopened.size() == 30;
+        assert ((Map) reopened.peek()).get("seq").equals(20);
+
+        reopened.offer(message(50));
+        for (int i = 20; i <= 50; i++) {
+            assert ((Map) reopened.poll()).get("seq").equals(i);
+        }
+    }
+
+    @Test
+    public void testClientUsesJournal() throws IOException {
+        FalseClient client = new FalseClient("journalSource");
+        client.failedMessageQueue.add(message(0));
+        client.useFailedMessageJournal(journalDir, 8 * MappedMessageJournal.DEFAULT_SEGMENT_BYTES);
+        assert client.failedMessageQueue instanceof MappedMessageJournal;
+        assert client.failedMessageQueue.size() == 1;
+
+        client.sendNotification(message(1));
+        assert client.failedMessageQueue.size() == 2;
+        assert new File(journalDir, "journalSource").isDirectory();
+    }
+
+    MappedMessageJournal openJournal(long maxBytes) throws IOException {
+        return new MappedMessageJournal(journalDir, maxBytes, SEGMENT_BYTES, new ObjectMapper());
+    }
+
+    int countSegments() {
+        File[] files = journalDir.listFiles((dir, name) -> name.endsWith(MappedMessageJournal.SEGMENT_SUFFIX));
+        return files == null ? 0 : files.length;
+    }
+
+    static Map<String, Object> message(int seq) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("seq", seq);
+        m.put("payload", "some data to take up space in the segment");
+        return m;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class TestMetricsRegistry extends ExtjsdkTestBase {
+
+    @Test
+    public void testPrometheusFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests_total", "Requests handled.", "source", "a").increment();
+        registry.counter("requests_total", "Requests handled.", "source", "a").add(2);
+        registry.gauge("depth", "Queue depth.", () -> 7, "source", "quote\"d");
+        MetricsRegistry.Histogram h = registry.histogram("latency_seconds", "Latency.", new double[] {0.1, 1});
+        h.observe(0.05);
+        h.observe(0.5);
+        h.observe(5);
+
+        String text = registry.scrape();
+        assert text.contains("# TYPE requests_total counter\n");
+        assert text.contains("requests_total{source=\"a\"} 3\n");
+        assert text.contains("depth{source=\"quote\\\"d\"} 7\n");
+        assert text.contains("# TYPE latency_seconds histogram\n");
+        assert text.contains("latency_seconds_bucket{le=\"0.1\"} 1\n");
+        assert text.contains("latency_seconds_bucket{le=\"1\"} 2\n");
+        assert text.contains("latency_seconds_bucket{le=\"+Inf\"} 3\n");
+        assert text.contains("latency_seconds_sum 5.55\n");
+        assert text.contains("latency_seconds_count 3\n");
+
+        try {
+            registry.histogram("requests_total", "Not a histogram.", MetricsRegistry.LATENCY_BUCKETS);
+            assert false : "Registering a metric under a second type should fail";
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testSummary() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Summary s = registry.summary("stage_seconds", "Stage latency.", "stage", "acked");
+        for (int i = 1; i <= 1000; i++) {
+            s.observeNanos(i * 1_000_000L);
+        }
+        s.observeNanos(-5);
+
+        assert s.getCount() == 1001;
+        assert Math.abs(s.getQuantile(0.5) - 0.5) < 0.001 : s.getQuantile(0.5);
+        assert Math.abs(s.getQuantile(0.99) - 0.99) < 0.001 : s.getQuantile(0.99);
+
+        String text = registry.scrape();
+        assert text.contains("# TYPE stage_seconds summary\n");
+        assert text.contains("stage_seconds{stage=\"acked\",quantile=\"0.999\"} ");
+        assert text.contains("stage_seconds_sum{stage=\"acked\"} 500.5\n") : text;
+        assert text.contains("stage_seconds_count{stage=\"acked\"} 1001\n");
+    }
+
+    @Test
+    public void testClientMetrics() {
+        FalseClient client = new FalseClient("metricsSource");
+        client.initiateWebsocketConnection("unused");
+        client.webSocketFuture = CompletableFuture.completedFuture(true);
+        client.authFuture = CompletableFuture.completedFuture(true);
+        client.sourceFuture = CompletableFuture.completedFuture(true);
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("value", 1);
+        for (int i = 0; i < 3; i++) {
+            client.sendNotification(data);
+            client.acknowledgeNotification(i != 0);
+        }
+
+        String text = MetricsRegistry.getDefault().scrape();
+        assert text.contains("vantiq_connector_notifications_sent_total{source=\"metricsSource\"} 3\n") : text;
+        assert text.contains("vantiq_connector_notifications_acked_total{source=\"metricsSource\"} 3\n");
+        assert text.contains("vantiq_connector_notification_errors_total{source=\"metricsSource\"} 1\n");
+        assert text.contains("vantiq_connector_notification_ack_seconds_count{source=\"metricsSource\"} 3\n");
+        assert text.contains("vantiq_connector_notifications_outstanding{source=\"metricsSource\"} 0\n");
+    }
+
+    @Test
+    public void testEndpoint() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("scraped_total", "A counter to find.").increment();
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(0, registry)) {
+            HttpURLConnection conn = (HttpURLConnection)
+                    new URL("http://localhost:" + endpoint.getPort() + MetricsEndpoint.METRICS_PATH).openConnection();
+            assert conn.getResponseCode() == 200;
+            assert conn.getContentType().startsWith("text/plain");
+            assert read(conn.getInputStream()).contains("scraped_total 1\n");
+
+            conn = (HttpURLConnection) new URL("http://localhost:" + endpoint.getPort() + "/other").openConnection();
+            assert conn.getResponseCode() == 404;
+
+            // A plain TCP probe connects and closes without a request
+            new Socket("localhost", endpoint.getPort()).close();
+        }
+    }
+
+    static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        in.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMockVantiqServer extends ExtjsdkTestBase {
+
+    static final String SOURCE = "mockSource";
+
+    MockVantiqServer server;
+    ExtensionWebSocketClient client;
+
+    @Before
+    public void setup() throws Exception {
+        server = new MockVantiqServer();
+        client = new ExtensionWebSocketClient(SOURCE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        server.close();
+    }
+
+    @Test
+    public void testConnectAndConfigure() throws Exception {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("setting", "value");
+        server.setSourceConfig(SOURCE, config);
+
+        CompletableFuture<Map> received = new CompletableFuture<>();
+        client.setConfigHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                received.complete((Map) ((Map) message.getObject()).get("config"));
+            }
+        });
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+        assert "value".equals(received.get(5, TimeUnit.SECONDS).get("setting"));
+        assert server.getConnectionCount() == 1;
+    }
+
+    @Test
+    public void testBadToken() throws Exception {
+        server.setValidToken("good");
+        assert !client.initiateFullConnection(server.getUrl(), "bad", false).get(5, TimeUnit.SECONDS);
+        assert !client.isAuthed();
+    }
+
+    @Test
+    public void testNotificationsAcked() throws Exception {
+        server.setRecordNotifications(true);
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Boolean> sent = null;
+        for (int i = 0; i < 10; i++) {
+            sent = client.sendNotificationAsync(Collections.singletonMap("n", i));
+        }
+        assert sent.get(5, TimeUnit.SECONDS);
+        assert server.getNotificationCount(SOURCE) == 10;
+        assert server.getAckCount(SOURCE) == 10;
+        assert server.getNotifications().size() == 10;
+        assert ((Map) server.getNotifications().get(9).get("object")).get("n").equals(9);
+    }
+
+    @Test
+    public void testNotificationLatency() throws Exception {
+        // A source of its own, so that the other tests' notifications don't appear in its metrics
+        client.stop();
+        client = new ExtensionWebSocketClient("latencySource");
+        server.setAckLatency(5, TimeUnit.MILLISECONDS);
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Boolean> sent = null;
+        for (int i = 0; i < 20; i++) {
+            // As though each event had reached the connector a second before it was handed over
+            sent = client.sendNotificationAsync(Collections.singletonMap("n", i), System.currentTimeMillis() - 1000);
+        }
+        assert sent.get(5, TimeUnit.SECONDS);
+
+        ClientMetrics metrics = client.metrics;
+        assert metrics.notificationSerialized.getCount() == 20;
+        assert metrics.notificationWritten.getCount() == 20;
+        assert metrics.notificationAcked.getCount() == 20;
+        assert metrics.notificationSerialized.getQuantile(0.5) <= metrics.notificationWritten.getQuantile(0.5);
+        assert metrics.notificationAcked.getQuantile(0.5) >= 0.005;
+        assert metrics.sourceHandedOver.getQuantile(0.5) >= 1.0;
+        assert metrics.sourceAcked.getQuantile(0.5) >= 1.005;
+
+        // Notifications with no receipt time don't count towards the source latency
+        assert client.sendNotificationAsync(Collections.singletonMap("n", 20)).get(5, TimeUnit.SECONDS);
+        assert metrics.sourceAcked.getCount() == 20;
+
+        String text = MetricsRegistry.getDefault().scrape();
+        assert text.contains("vantiq_connector_notification_latency_seconds{source=\"latencySource\",stage=\"acked\","
+                + "quantile=\"0.99\"} ") : text;
+        assert text.contains("vantiq_connector_notification_source_latency_seconds_count{source=\"latencySource\","
+                + "stage=\"handover\"} 20\n");
+    }
+
+    @Test
+    public void testResumeInOrder() throws Exception {
+        server.setRecordNotifications(true);
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+        server.dropConnections();
+        waitUntilTrue(5000, () -> !client.isConnected());
+
+        // Notifications sent while disconnected are held, and stay ahead of those sent while they are being resent
+        for (int i = 0; i < 100; i++) {
+            client.sendNotification(Collections.singletonMap("n", i));
+        }
+        client.initiateFullConnection(server.getUrl(), "token", false);
+        for (int i = 100; i < 200; i++) {
+            client.sendNotification(Collections.singletonMap("n", i));
+        }
+        waitUntilTrue(5000, () -> server.getAckCount(SOURCE) == 200);
+        assert server.getAckCount(SOURCE) == 200;
+        assert client.failedMessageQueue.isEmpty();
+
+        List<Map> received = server.getNotifications();
+        for (int i = 0; i < 200; i++) {
+            assert ((Map) received.get(i).get("object")).get("n").equals(i) : received.get(i);
+        }
+        // Every notification went through the window, so each acknowledgement was matched to its own notification
+        assert client.getNotificationWindow().getOutstanding() == 0;
+    }
+
+    @Test
+    public void testTimeToRecover() throws Exception {
+        client.setReconnectPolicy(new ReconnectPolicy(20, 100, 0));
+        client.setCloseHandler(LoadHarness.reconnectingCloseHandler(server.getUrl()));
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 3; i++) {
+            long nanos = LoadHarness.timeToRecover(server, SOURCE, 10_000);
+            assert nanos < TimeUnit.SECONDS.toNanos(5) : nanos;
+            waitUntilTrue(5000, client::isConnected);
+            assert client.isConnected();
+        }
+        assert client.sendNotificationAsync(Collections.singletonMap("n", 1)).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testPublish() throws Exception {
+        CompletableFuture<Object> published = new CompletableFuture<>();
+        client.setPublishHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                published.complete(message.getObject());
+            }
+        });
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+
+        server.publish(SOURCE, Collections.singletonMap("key", "published"));
+        assert ((Map) published.get(5, TimeUnit.SECONDS)).get("key").equals("published");
+    }
+
+    @Test
+    public void testChunkedQuery() throws Exception {
+        client.setQueryHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                int rows = (Integer) ((Map) message.getObject()).get("rows");
+                QueryResponseWriter writer =
+                        client.openQueryResponse(ExtensionServiceMessage.extractReplyAddress(message), 3, 0);
+                for (int i = 0; i < rows; i++) {
+                    writer.write(Collections.singletonMap("row", i));
+                }
+                writer.close();
+            }
+        });
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+
+        List<Object> rows = server.query(SOURCE, Collections.singletonMap("rows", 10)).get(5, TimeUnit.SECONDS);
+        assert rows.size() == 10;
+        assert ((Map) rows.get(9)).get("row").equals(9);
+    }
+
+    @Test
+    public void testQueryError() throws Exception {
+        client.setQueryHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                client.sendQueryError(ExtensionServiceMessage.extractReplyAddress(message), "mock.error",
+                        "Failed", null);
+            }
+        });
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+
+        try {
+            server.query(SOURCE, Collections.emptyMap()).get(5, TimeUnit.SECONDS);
+            assert false : "The query should have failed";
+        } catch (ExecutionException e) {
+            assert e.getCause() instanceof IllegalStateException;
+            assert e.getCause().getMessage().contains("mock.error");
+        }
+    }
+
+    @Test
+    public void testLoadHarness() throws Exception {
+        server.setAckLatency(1, TimeUnit.MILLISECONDS);
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+
+        Map<String, Object> payload = Collections.singletonMap("data", "x");
+        LoadHarness.Result result = LoadHarness.run(server, SOURCE, 2000, i -> client.sendNotification(payload),
+                10_000);
+        assert result.events == 2000;
+        assert result.getEventsPerSecond() > 0;
+        assert result.getLatencyNanos(50) >= TimeUnit.MILLISECONDS.toNanos(1) : result;
+        assert result.getLatencyNanos(50) <= result.getLatencyNanos(99);
+        assert server.getNotificationCount(SOURCE) == 2000;
+    }
+}
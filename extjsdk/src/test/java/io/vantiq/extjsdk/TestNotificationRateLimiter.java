@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestNotificationRateLimiter extends ExtjsdkTestBase {
+
+    NotificationRateLimiter limiter;
+
+    @Before
+    public void setup() {
+        limiter = new NotificationRateLimiter();
+    }
+
+    @Test
+    public void testUnlimited() throws InterruptedException {
+        limiter.charge(10_000_000);
+        for (int i = 0; i < 1000; i++) {
+            limiter.acquire();
+        }
+        assert limiter.getThrottledCount() == 0;
+        assert limiter.getThrottledNanos() == 0;
+    }
+
+    @Test
+    public void testEventRate() throws InterruptedException {
+        limiter.setLimits(100, 0);
+
+        // A second's worth may be sent at once
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+        }
+        assert limiter.getThrottledCount() <= 1;
+
+        // After which they are held to the rate
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assert elapsedMs >= 150 : "Took only " + elapsedMs + "ms";
+        assert limiter.getThrottledCount() >= 19;
+        assert limiter.getThrottledNanos() >= TimeUnit.MILLISECONDS.toNanos(150);
+    }
+
+    @Test
+    public void testByteDebt() throws InterruptedException {
+        limiter.setLimits(0, 100_000);
+
+        // A notification larger than the bucket is still let through, but leaves it in debt
+        limiter.acquire();
+        limiter.charge(110_000);
+        assert limiter.getThrottledCount() == 0;
+
+        long start = System.nanoTime();
+        limiter.acquire();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assert elapsedMs >= 90 : "Took only " + elapsedMs + "ms";
+        assert limiter.getThrottledCount() == 1;
+    }
+
+    @Test
+    public void testInvalidLimits() {
+        try {
+            limiter.setLimits(-1, 0);
+            assert false : "A negative limit should be refused";
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+        assert limiter.getEventsPerSecond() == 0;
+    }
+
+    @Test
+    public void testSourceConfig() {
+        FalseClient client = new FalseClient("rateSource");
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put(Utils.NOTIFICATION_RATE_LIMIT_PROPERTY_NAME, 50);
+        client.applySourceRateLimit(config);
+        assert client.rateLimiter.getEventsPerSecond() == 50;
+        assert client.rateLimiter.getBytesPerSecond() == 0;
+
+        // Limits not mentioned keep their value
+        config.clear();
+        config.put(Utils.NOTIFICATION_BYTE_RATE_LIMIT_PROPERTY_NAME, 4096);
+        client.applySourceRateLimit(config);
+        assert client.rateLimiter.getEventsPerSecond() == 50;
+        assert client.rateLimiter.getBytesPerSecond() == 4096;
+
+        config.clear();
+        client.applySourceRateLimit(config);
+        assert client.rateLimiter.getEventsPerSecond() == 50;
+    }
+}
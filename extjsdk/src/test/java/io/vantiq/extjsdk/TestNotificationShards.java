@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestNotificationShards extends ExtjsdkTestBase {
+
+    static final String SOURCE = "shardedSource";
+
+    MockVantiqServer server;
+    ExtensionWebSocketClient client;
+
+    @Before
+    public void setup() throws Exception {
+        server = new MockVantiqServer();
+        client = new ExtensionWebSocketClient(SOURCE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        server.close();
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+        client.setNotificationShards(3);
+        connect();
+        assert server.getConnectionCount() == 3;
+
+        CompletableFuture<?>[] acks = new CompletableFuture<?>[30];
+        for (int i = 0; i < acks.length; i++) {
+            acks[i] = client.sendNotificationAsync(Collections.singletonMap("n", i));
+        }
+        CompletableFuture.allOf(acks).get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            assert client.shards.get(i).getNotificationWindow().getAckedCount() == 10;
+        }
+        assert server.getAckCount(SOURCE) == 30;
+    }
+
+    @Test
+    public void testPartitioned() throws Exception {
+        server.setRecordNotifications(true);
+        client.setNotificationShards(3);
+        connect();
+
+        for (int i = 0; i < 20; i++) {
+            client.sendPartitionedNotification("device", Collections.singletonMap("n", i));
+        }
+        ExtensionWebSocketClient shard = client.shards.forKey("device");
+        waitUntilTrue(5000, () -> shard.getNotificationWindow().getAckedCount() == 20);
+        assert shard.getNotificationWindow().getAckedCount() == 20;
+        for (int i = 0; i < 3; i++) {
+            if (client.shards.get(i) != shard) {
+                assert client.shards.get(i).getNotificationWindow().getAckedCount() == 0;
+            }
+        }
+
+        int n = 0;
+        for (Map notification : server.getNotifications()) {
+            assert ((Map) notification.get("object")).get("n").equals(n++);
+        }
+    }
+
+    @Test
+    public void testShardReconnects() throws Exception {
+        client.setNotificationShards(3);
+        client.setReconnectPolicy(new ReconnectPolicy(50, 50, 0));
+        connect();
+
+        server.dropConnections();
+        waitUntilTrue(5000, () -> !client.isConnected());
+
+        // The additional shards reopen on their own, while the connector decides what to do about its own client
+        waitUntilTrue(5000, () -> client.shards.get(1).isConnected() && client.shards.get(2).isConnected());
+        assert client.shards.get(1).isConnected() && client.shards.get(2).isConnected();
+        assert server.getConnectionCount() == 2;
+
+        // Notifications with no key go to the connected shards
+        assert client.sendNotificationAsync(Collections.singletonMap("n", 1)).get(5, TimeUnit.SECONDS);
+
+        // Stopping the client stops its shards for good
+        client.stop();
+        waitUntilTrue(5000, () -> server.getConnectionCount() == 0);
+        assert server.getConnectionCount() == 0;
+        assert !client.shards.get(1).isConnected();
+    }
+
+    @Test
+    public void testSharedLimits() {
+        client.setNotificationShards(2);
+        ExtensionWebSocketClient shard = client.shards.get(1);
+        assert shard.rateLimiter == client.rateLimiter;
+        assert client.getNotificationShards() == 2;
+
+        client.setWritabilityWaterMarks(10, 20);
+        assert shard.notificationWriter.getHighWaterMark() == 20;
+        assert MetricsRegistry.getDefault().scrape().contains("shard=\"1\"");
+    }
+
+    @Test
+    public void testInvalidShards() {
+        try {
+            client.setNotificationShards(0);
+            assert false : "Zero shards should be refused";
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+
+        client.setNotificationShards(1);
+        assert client.shards == null;
+        assert client.getNotificationShards() == 1;
+        client.setNotificationShards(2);
+        try {
+            client.setNotificationShards(3);
+            assert false : "The shards should only be set once";
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+    }
+
+    private void connect() throws Exception {
+        assert client.initiateFullConnection(server.getUrl(), "token", false).get(5, TimeUnit.SECONDS);
+        for (int i = 1; i < client.shards.size(); i++) {
+            ExtensionWebSocketClient shard = client.shards.get(i);
+            waitUntilTrue(5000, shard::isConnected);
+            assert shard.isConnected();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.junit.Assert.fail;
+
+public class TestNotificationWindow extends ExtjsdkTestBase {
+
+    @Test
+    public void testStartsAtFloor() throws InterruptedException {
+        NotificationWindow window = new NotificationWindow(3, 10);
+        assert window.getWindowSize() == 3;
+
+        for (int i = 0; i < 3; i++) {
+            window.acquire();
+        }
+        assert window.getOutstanding() == 3;
+    }
+
+    @Test
+    public void testBlocksWhenFull() throws InterruptedException {
+        NotificationWindow window = new NotificationWindow(1, 1);
+        window.acquire();
+
+        AtomicBoolean acquired = new AtomicBoolean(false);
+        Thread sender = new Thread(() -> {
+            try {
+                window.acquire();
+                acquired.set(true);
+            } catch (InterruptedException e) {
+                // Test will fail on the assertion below
+            }
+        });
+        sender.start();
+        Thread.sleep(50);
+        assert !acquired.get();
+
+        window.acknowledge(true);
+        waitUntilTrue(5000, acquired::get);
+        assert acquired.get();
+        assert window.getBlockedCount() == 1;
+        assert window.getBlockedNanos() > 0;
+    }
+
+    @Test
+    public void testAdditiveIncrease() throws InterruptedException {
+        NotificationWindow window = new NotificationWindow(2, 4);
+        // Each full window of successful acks should grow the window by one
+        for (int round = 0; round < 10; round++) {
+            int size = window.getWindowSize();
+            for (int i = 0; i < size; i++) {
+                window.acquire();
+            }
+            for (int i = 0; i < size; i++) {
+                window.acknowledge(true);
+            }
+        }
+        assert window.getWindowSize() == 4;
+        assert window.getOutstanding() == 0;
+    }
+
+    @Test
+    public void testErrorHalvesOncePerWindow() throws InterruptedException {
+        NotificationWindow window = new NotificationWindow(2, 64);
+        while (window.getWindowSize() < 16) {
+            window.acquire();
+            window.acknowledge(true);
+        }
+        int grown = window.getWindowSize();
+
+        for (int i = 0; i < 4; i++) {
+            window.acquire();
+        }
+        // All four fail, but they were in flight together, so the window should only be halved once
+        for (int i = 0; i < 4; i++) {
+            window.acknowledge(false);
+        }
+        assert window.getWindowSize() == grown / 2;
+        assert window.getErrorCount() == 4;
+
+        // Never below the floor
+        for (int i = 0; i < 10; i++) {
+            window.acquire();
+            window.acknowledge(false);
+        }
+        assert window.getWindowSize() == 2;
+    }
+
+    @Test
+    public void testResetAndStrayAcks() throws InterruptedException {
+        NotificationWindow window = new NotificationWindow(2, 2);
+        window.acquire();
+        window.acquire();
+        window.reset();
+        assert window.getOutstanding() == 0;
+
+        // Acks with nothing outstanding must not open extra space
+        window.acknowledge(true);
+        window.acknowledge(true);
+        window.acquire();
+        window.acquire();
+        assert window.getOutstanding() == 2;
+
+        window.release();
+        assert window.getOutstanding() == 1;
+    }
+
+    @Test
+    public void testBadLimits() {
+        try {
+            new NotificationWindow(0, 5);
+            fail("A floor of 0 should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+        try {
+            new NotificationWindow(5, 4);
+            fail("A ceiling below the floor should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+}
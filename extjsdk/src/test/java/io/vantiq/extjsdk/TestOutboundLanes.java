@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import okio.ByteString;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestOutboundLanes extends ExtjsdkTestBase {
+
+    FalseClient client;
+    List<Map> written;
+    volatile long socketQueueSize;
+
+    @Before
+    public void setup() {
+        written = new ArrayList<>();
+        socketQueueSize = 0;
+        client = new FalseClient("laneSource");
+        client.initiateWebsocketConnection("unused");
+        client.webSocket = new FalseWebSocket() {
+            @Override
+            public boolean send(@NotNull ByteString bytes) {
+                try {
+                    synchronized (written) {
+                        written.add(mapper.readValue(bytes.toByteArray(), Map.class));
+                    }
+                } catch (IOException e) {
+                    throw new AssertionError("Frame was not valid JSON", e);
+                }
+                return super.send(bytes);
+            }
+
+            @Override
+            public long queueSize() {
+                return socketQueueSize;
+            }
+        };
+        client.webSocketFuture = CompletableFuture.completedFuture(true);
+        client.authFuture = CompletableFuture.completedFuture(true);
+        client.sourceFuture = CompletableFuture.completedFuture(true);
+    }
+
+    @Test
+    public void testPriority() throws Exception {
+        // Written immediately while the websocket has room
+        client.send(notification(0));
+        assert writtenCount() == 1;
+
+        // Once the websocket is backed up, everything waits in its lane
+        socketQueueSize = OutboundLanes.SOCKET_HIGH_WATER_BYTES;
+        client.send(notification(1));
+        client.send(notification(2));
+        client.sendQueryResponse(200, "addr", new LinkedHashMap<>());
+        client.send(control());
+        Thread.sleep(50);
+        assert writtenCount() == 1;
+        assert client.outboundLanes.getQueuedCount() == 4;
+        assert client.outboundLanes.getQueuedBytes(OutboundLanes.Lane.NOTIFICATION) > 0;
+
+        // A notification may not jump ahead of those already waiting in its lane
+        socketQueueSize = 0;
+        waitUntilTrue(5000, () -> writtenCount() == 5);
+        synchronized (written) {
+            assert written.get(1).get("op").equals("validate");
+            assert written.get(2).get("status").equals(200);
+            assert ((Map) written.get(3).get("object")).get("seq").equals(1);
+            assert ((Map) written.get(4).get("object")).get("seq").equals(2);
+        }
+        assert client.outboundLanes.getQueuedCount() == 0;
+    }
+
+    @Test
+    public void testFairness() throws Exception {
+        socketQueueSize = OutboundLanes.SOCKET_HIGH_WATER_BYTES;
+        client.send(notification(0));
+        for (int i = 0; i < 10; i++) {
+            client.sendQueryResponse(100, "addr", new LinkedHashMap<>());
+        }
+        socketQueueSize = 0;
+        waitUntilTrue(5000, () -> writtenCount() == 11);
+
+        // The notification is passed over only so many times before it is written
+        int notificationAt = -1;
+        synchronized (written) {
+            for (int i = 0; i < written.size(); i++) {
+                if ("notification".equals(written.get(i).get("op"))) {
+                    notificationAt = i;
+                }
+            }
+        }
+        assert notificationAt == OutboundLanes.MAX_PASSES;
+    }
+
+    @Test
+    public void testFlushOnStop() throws Exception {
+        socketQueueSize = OutboundLanes.SOCKET_HIGH_WATER_BYTES;
+        client.send(notification(0));
+        client.send(notification(1));
+        client.stop();
+        assert writtenCount() == 2;
+        assert client.outboundLanes.getQueuedCount() == 0;
+    }
+
+    @Test
+    public void testLaneFor() {
+        assert ExtensionWebSocketClient.laneFor(new Response()) == OutboundLanes.Lane.QUERY;
+        assert ExtensionWebSocketClient.laneFor(notification(0)) == OutboundLanes.Lane.NOTIFICATION;
+        assert ExtensionWebSocketClient.laneFor(control()) == OutboundLanes.Lane.CONTROL;
+
+        // As read back from the failed message journal
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", 200);
+        assert ExtensionWebSocketClient.laneFor(response) == OutboundLanes.Lane.QUERY;
+        Map<String, Object> notification = new LinkedHashMap<>();
+        notification.put("op", ExtensionServiceMessage.OP_NOTIFICATION);
+        assert ExtensionWebSocketClient.laneFor(notification) == OutboundLanes.Lane.NOTIFICATION;
+    }
+
+    int writtenCount() {
+        synchronized (written) {
+            return written.size();
+        }
+    }
+
+    ExtensionServiceMessage notification(int seq) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("seq", seq);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("op", ExtensionServiceMessage.OP_NOTIFICATION);
+        m.put("resourceId", "laneSource");
+        m.put("resourceName", ExtensionServiceMessage.RESOURCE_NAME_SOURCES);
+        m.put("object", data);
+        ExtensionServiceMessage msg = new ExtensionServiceMessage("");
+        msg.fromMap(m);
+        return msg;
+    }
+
+    ExtensionServiceMessage control() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("op", "validate");
+        m.put("resourceName", "system.credentials");
+        m.put("object", "token");
+        ExtensionServiceMessage msg = new ExtensionServiceMessage("");
+        msg.fromMap(m);
+        return msg;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okio.ByteString;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestQueryResponseWriter extends ExtjsdkTestBase {
+
+    FalseClient client;
+    List<Map> frames;
+    ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        frames = new ArrayList<>();
+        client = new FalseClient("querySource");
+        client.initiateWebsocketConnection("unused");
+        client.webSocket = new FalseWebSocket() {
+            @Override
+            public boolean send(ByteString bytes) {
+                try {
+                    frames.add(mapper.readValue(bytes.toByteArray(), Map.class));
+                } catch (IOException e) {
+                    throw new AssertionError("Frame was not valid JSON", e);
+                }
+                return super.send(bytes);
+            }
+        };
+        client.webSocketFuture = CompletableFuture.completedFuture(true);
+        client.authFuture = CompletableFuture.completedFuture(true);
+        client.sourceFuture = CompletableFuture.completedFuture(true);
+    }
+
+    @Test
+    public void testRowChunks() {
+        QueryResponseWriter response = client.openQueryResponse("addr", 3, 0);
+        for (int i = 0; i < 7; i++) {
+            response.write(row(i));
+        }
+        response.close();
+
+        assert frames.size() == 3;
+        assert response.getChunksSent() == 3;
+        assert response.getRowCount() == 7;
+        assert response.getLastChunkRows() == 1;
+        int expectedRow = 0;
+        for (int i = 0; i < frames.size(); i++) {
+            Map frame = frames.get(i);
+            int status = i < 2 ? ExtensionWebSocketClient.QUERY_CHUNK_CODE : ExtensionWebSocketClient.QUERY_DATA_CODE;
+            assert frame.get("status").equals(status);
+            assert ((Map) frame.get("headers")).get(ExtensionServiceMessage.RESPONSE_ADDRESS_HEADER).equals("addr");
+            for (Object r : (List) frame.get("body")) {
+                assert ((Map) r).get("id").equals(expectedRow++);
+            }
+        }
+        assert expectedRow == 7;
+    }
+
+    @Test
+    public void testByteChunks() {
+        // Each row is a little over 100 bytes, so only two fit in each chunk
+        QueryResponseWriter response = client.openQueryResponse("addr", 0, 300);
+        for (int i = 0; i < 5; i++) {
+            Map<String, Object> r = row(i);
+            r.put("padding", new String(new char[100]).replace('\0', 'x'));
+            response.write(r);
+        }
+        response.close();
+
+        assert frames.size() == 3;
+        assert ((List) frames.get(0).get("body")).size() == 2;
+        assert ((List) frames.get(1).get("body")).size() == 2;
+        assert ((List) frames.get(2).get("body")).size() == 1;
+    }
+
+    @Test
+    public void testEmptyAndFailure() {
+        QueryResponseWriter response = client.openQueryResponse("addr");
+        response.close();
+        response.close();
+        assert frames.size() == 1;
+        assert frames.get(0).get("status").equals(204);
+
+        frames.clear();
+        response = client.openQueryResponse("addr", 2, 0);
+        for (int i = 0; i < 3; i++) {
+            response.write(row(i));
+        }
+        response.fail("io.vantiq.test.failed", "The query failed.", new Object[0]);
+        response.close();
+        assert frames.size() == 2;
+        assert frames.get(0).get("status").equals(ExtensionWebSocketClient.QUERY_CHUNK_CODE);
+        assert frames.get(1).get("status").equals(400);
+
+        try {
+            response.write(row(4));
+            assert false : "Writing to a closed response should fail";
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+    }
+
+    Map<String, Object> row(int id) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("id", id);
+        r.put("name", "row" + id);
+        return r;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.ByteString;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSharedConnection extends ExtjsdkTestBase {
+
+    MockWebServer server;
+    AtomicInteger upgrades = new AtomicInteger();
+    List<Map> notifications = new CopyOnWriteArrayList<>();
+    List<Map> queryResponses = new CopyOnWriteArrayList<>();
+    volatile WebSocket serverSocket;
+
+    @Before
+    public void setup() throws IOException {
+        server = new MockWebServer();
+        // Offer more upgrades than expected so that a second websocket would be noticed rather than refused
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().withWebSocketUpgrade(new FakeVantiq()));
+        }
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testSourcesShareOneWebsocket() throws Exception {
+        String url = "http://localhost:" + server.getPort();
+        ExtensionWebSocketClient a = sharedClient("sourceA");
+        ExtensionWebSocketClient b = sharedClient("sourceB");
+        List<Object> publishedToA = new CopyOnWriteArrayList<>();
+        List<Object> publishedToB = new CopyOnWriteArrayList<>();
+        a.setPublishHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                publishedToA.add(message.getObject());
+            }
+        });
+        b.setPublishHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                publishedToB.add(message.getObject());
+            }
+        });
+
+        CompletableFuture<Boolean> aConnected = a.initiateFullConnection(url, "token", false);
+        CompletableFuture<Boolean> bConnected = b.initiateFullConnection(url, "token", false);
+        assert aConnected.get(5, TimeUnit.SECONDS);
+        assert bConnected.get(5, TimeUnit.SECONDS);
+        assert upgrades.get() == 1;
+        assert a.isUsingSharedConnection();
+
+        // Messages for a source only reach that source's handlers
+        serverSocket.send(publish("sourceB", 1));
+        serverSocket.send(publish("sourceA", 2));
+        waitUntilTrue(2000, () -> publishedToA.size() == 1 && publishedToB.size() == 1);
+        assert ((Map) publishedToA.get(0)).get("value").equals(2);
+        assert ((Map) publishedToB.get(0)).get("value").equals(1);
+
+        // Each acknowledgement goes back to the client that sent the notification
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("value", 3);
+        a.sendNotification(data);
+        b.sendNotification(data);
+        a.sendNotification(data);
+        waitUntilTrue(2000, () -> a.getNotificationWindow().getOutstanding() == 0
+                && b.getNotificationWindow().getOutstanding() == 0);
+        assert notifications.size() == 3;
+        assert a.getNotificationWindow().getOutstanding() == 0;
+        assert b.getNotificationWindow().getOutstanding() == 0;
+
+        // The websocket stays open until the last source leaves
+        a.stop();
+        assert !a.isOpen();
+        assert b.isConnected();
+        b.stop();
+        waitUntilTrue(2000, () -> SharedConnection.getConnectionCount() == 0);
+        assert SharedConnection.getConnectionCount() == 0;
+    }
+
+    @Test
+    public void testLateJoinerIsAuthenticated() throws Exception {
+        String url = "http://localhost:" + server.getPort();
+        ExtensionWebSocketClient a = sharedClient("sourceA");
+        assert a.initiateFullConnection(url, "token", false).get(5, TimeUnit.SECONDS);
+
+        // Joins after the connection has authenticated
+        ExtensionWebSocketClient b = sharedClient("sourceB");
+        assert b.initiateFullConnection(url, "token", false).get(5, TimeUnit.SECONDS);
+        assert b.isAuthed();
+        assert upgrades.get() == 1;
+
+        // The sources are told when the shared websocket closes
+        serverSocket.close(1000, "Closing");
+        waitUntilTrue(2000, () -> !a.isOpen() && !b.isOpen());
+        assert !a.isOpen();
+        assert !b.isOpen();
+        assert SharedConnection.getConnectionCount() == 0;
+    }
+
+    @Test
+    public void testQueryResponsesAwaitNoAnswer() throws Exception {
+        String url = "http://localhost:" + server.getPort();
+        ExtensionWebSocketClient a = sharedClient("sourceA");
+        ExtensionWebSocketClient b = sharedClient("sourceB");
+        // A answers in several chunks, and B with an error, neither of which Vantiq acknowledges
+        a.setQueryHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                QueryResponseWriter response =
+                        a.openQueryResponse(ExtensionServiceMessage.extractReplyAddress(message), 1, 0);
+                for (int i = 0; i < 3; i++) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("row", i);
+                    response.write(row);
+                }
+                response.close();
+            }
+        });
+        b.setQueryHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                b.sendQueryError(ExtensionServiceMessage.extractReplyAddress(message), "test.error", "Failed", null);
+            }
+        });
+        assert a.initiateFullConnection(url, "token", false).get(5, TimeUnit.SECONDS);
+        assert b.initiateFullConnection(url, "token", false).get(5, TimeUnit.SECONDS);
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("value", 1);
+        serverSocket.send(query("sourceA"));
+        waitUntilTrue(2000, () -> queryResponses.size() == 3);
+        b.sendNotification(data);
+        serverSocket.send(query("sourceB"));
+        waitUntilTrue(2000, () -> queryResponses.size() == 4);
+        a.sendNotification(data);
+        serverSocket.send(query("sourceA"));
+        waitUntilTrue(2000, () -> queryResponses.size() == 7);
+        b.sendNotification(data);
+        a.sendNotification(data);
+
+        // Each acknowledgement still reaches the source that sent the notification
+        waitUntilTrue(2000, () -> notifications.size() == 4 && a.getNotificationWindow().getOutstanding() == 0
+                && b.getNotificationWindow().getOutstanding() == 0);
+        assert queryResponses.size() == 7;
+        assert notifications.size() == 4;
+        assert a.getNotificationWindow().getOutstanding() == 0;
+        assert b.getNotificationWindow().getOutstanding() == 0;
+
+        a.stop();
+        b.stop();
+        waitUntilTrue(2000, () -> SharedConnection.getConnectionCount() == 0);
+    }
+
+    ExtensionWebSocketClient sharedClient(String sourceName) {
+        ExtensionWebSocketClient client = new ExtensionWebSocketClient(sourceName);
+        client.setUseSharedConnection(true);
+        return client;
+    }
+
+    String publish(String sourceName, int value) throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("value", value);
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("op", ExtensionServiceMessage.OP_PUBLISH);
+        msg.put("resourceName", ExtensionServiceMessage.RESOURCE_NAME_SOURCES);
+        msg.put("resourceId", sourceName);
+        msg.put("object", object);
+        return mapper.writeValueAsString(msg);
+    }
+
+    String query(String sourceName) throws IOException {
+        Map<String, Object> headers = new LinkedHashMap<>();
+        headers.put(ExtensionServiceMessage.ORIGIN_ADDRESS_HEADER, sourceName + "-reply");
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("op", ExtensionServiceMessage.OP_QUERY);
+        msg.put("resourceName", ExtensionServiceMessage.RESOURCE_NAME_SOURCES);
+        msg.put("resourceId", sourceName);
+        msg.put("object", new LinkedHashMap<>());
+        msg.put(ExtensionServiceMessage.PROPERTY_MESSAGE_HEADERS, headers);
+        return mapper.writeValueAsString(msg);
+    }
+
+    /**
+     * Answers a connector as Vantiq would: authentication and notifications with a 200 response, and connection
+     * requests with the source's configuration. Query responses are collected without an answer.
+     */
+    class FakeVantiq extends WebSocketListener {
+        @Override
+        public void onOpen(WebSocket webSocket, okhttp3.Response response) {
+            upgrades.incrementAndGet();
+            serverSocket = webSocket;
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, ByteString bytes) {
+            try {
+                Map msg = mapper.readValue(bytes.toByteArray(), Map.class);
+                Object op = msg.get("op");
+                if (op == null) {
+                    queryResponses.add(msg);
+                    return;
+                }
+                Map<String, Object> reply = new LinkedHashMap<>();
+                if (ExtensionServiceMessage.OP_CONNECT_EXTENSION.equals(op)) {
+                    reply.put("op", ExtensionServiceMessage.OP_CONFIGURE_EXTENSION);
+                    reply.put("resourceName", ExtensionServiceMessage.RESOURCE_NAME_SOURCES);
+                    reply.put("resourceId", msg.get("resourceId"));
+                    reply.put("object", new LinkedHashMap<>());
+                } else {
+                    if (ExtensionServiceMessage.OP_NOTIFICATION.equals(op)) {
+                        notifications.add(msg);
+                    }
+                    reply.put("status", 200);
+                }
+                webSocket.send(mapper.writeValueAsString(reply));
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            webSocket.close(1000, null);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import okio.ByteString;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Builds the clients and messages shared by the benchmarks. The benchmarks live in the SDK's package so that they can
+ * put a {@link FalseClient} straight into the connected state, without the authentication and source connection
+ * exchanges.
+ */
+final class BenchmarkSupport {
+    static final String SOURCE_NAME = "benchmarkSource";
+    static final String REPLY_ADDRESS = "bd6d6ba4-5a1e-4f9a-9b48-2a7bbf0cbdc5";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Creates a {@link FalseClient} that behaves as if it were connected to its source.
+     *
+     * @param acknowledge   Whether the client's websocket should acknowledge each frame as soon as it is sent, as
+     *                      Vantiq would acknowledge a notification. Without this, notifications stop once the
+     *                      notification window fills.
+     * @return              The connected client.
+     */
+    static FalseClient connectedClient(boolean acknowledge) {
+        FalseClient client = new FalseClient(SOURCE_NAME);
+        client.initiateWebsocketConnection("ws://unused");
+        if (acknowledge) {
+            client.webSocket = new AcknowledgingWebSocket(client);
+        }
+        client.webSocketFuture = CompletableFuture.completedFuture(true);
+        client.authFuture = CompletableFuture.completedFuture(true);
+        client.sourceFuture = CompletableFuture.completedFuture(true);
+        return client;
+    }
+
+    /**
+     * Creates a row like those a connector sends for a database or file record.
+     *
+     * @param index The row's position, used to vary its values.
+     * @return      The row.
+     */
+    static Map<String, Object> row(int index) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", index);
+        row.put("name", "sensor-" + index);
+        row.put("temperature", 20.0 + (index % 100) / 10.0);
+        row.put("active", index % 2 == 0);
+        row.put("timestamp", "2026-01-01T00:00:00." + String.format("%03d", index % 1000) + "Z");
+        return row;
+    }
+
+    /**
+     * @param count The number of rows.
+     * @return      An array of {@code count} rows.
+     */
+    @SuppressWarnings("rawtypes")
+    static Map[] rows(int count) {
+        Map[] rows = new Map[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = row(i);
+        }
+        return rows;
+    }
+
+    /**
+     * @param fields    The number of fields.
+     * @return          A message object with {@code fields} fields, one of which is a nested row.
+     */
+    static Map<String, Object> payload(int fields) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("nested", row(0));
+        for (int i = 1; i < fields; i++) {
+            payload.put("field" + i, "value of field " + i);
+        }
+        return payload;
+    }
+
+    /**
+     * A {@link FalseWebSocket} that acknowledges each frame as soon as it is sent.
+     */
+    static class AcknowledgingWebSocket extends FalseWebSocket {
+        private final ExtensionWebSocketClient client;
+
+        AcknowledgingWebSocket(ExtensionWebSocketClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public boolean send(@NotNull ByteString bytes) {
+            boolean sent = super.send(bytes);
+            client.acknowledgeNotification();
+            return sent;
+        }
+    }
+}
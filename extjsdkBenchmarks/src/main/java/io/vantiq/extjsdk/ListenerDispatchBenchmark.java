@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.concurrent.TimeUnit;
+
+import okio.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link ExtensionWebSocketListener#onMessage} decoding a received publish and dispatching it to the
+ * publish handler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+    @Param({"10", "1000"})
+    int fields;
+
+    /**
+     * Whether the handler reads the published object, or only looks at the envelope as a router would.
+     */
+    @Param({"true", "false"})
+    boolean readObject;
+
+    FalseClient client;
+    ExtensionWebSocketListener listener;
+    ByteString frame;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        client = BenchmarkSupport.connectedClient(false);
+        listener = client.getListener();
+        client.setPublishHandler(new Handler<ExtensionServiceMessage>() {
+            @Override
+            public void handleMessage(ExtensionServiceMessage message) {
+                blackhole.consume(readObject ? message.getObject() : message.getSourceName());
+            }
+        });
+        frame = TestListener.createPublishMessage(BenchmarkSupport.payload(fields), BenchmarkSupport.SOURCE_NAME);
+    }
+
+    @Benchmark
+    public void onMessage() {
+        listener.onMessage(client.webSocket, frame);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures converting an {@link ExtensionServiceMessage} to JSON and back, the way messages travel between Vantiq and
+ * a connector, with the SDK's shared {@link JsonCodec} and with a plain {@link ObjectMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageRoundTripBenchmark {
+    @Param({"10", "1000"})
+    int fields;
+
+    /**
+     * Whether to use {@link JsonCodec#mapper()} rather than a plain {@link ObjectMapper}.
+     */
+    @Param({"true", "false"})
+    boolean codec;
+
+    ObjectMapper mapper;
+    InboundMessageDecoder decoder;
+    ExtensionServiceMessage message;
+    byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        mapper = codec ? JsonCodec.mapper() : new ObjectMapper();
+        decoder = new InboundMessageDecoder(mapper);
+        message = new ExtensionServiceMessage("");
+        message.op = ExtensionServiceMessage.OP_PUBLISH;
+        message.resourceName = ExtensionServiceMessage.RESOURCE_NAME_SOURCES;
+        message.resourceId = BenchmarkSupport.SOURCE_NAME;
+        message.object = BenchmarkSupport.payload(fields);
+        encoded = mapper.writeValueAsBytes(message.asMap());
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(message.asMap());
+    }
+
+    /**
+     * Decodes a message the way the listener does, without reading its object.
+     */
+    @Benchmark
+    public ExtensionServiceMessage decodeEnvelope() throws IOException {
+        return new ExtensionServiceMessage("").fromMap(decoder.decode(encoded));
+    }
+
+    /**
+     * Decodes a message the way the listener does, then reads its object as a handler would.
+     */
+    @Benchmark
+    public Object decodeObject() throws IOException {
+        return new ExtensionServiceMessage("").fromMap(decoder.decode(encoded)).getObject();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(message.asMap());
+        Map<String, Object> decoded = decoder.decode(bytes);
+        return new ExtensionServiceMessage("").fromMap(decoded).getObject();
+    }
+}
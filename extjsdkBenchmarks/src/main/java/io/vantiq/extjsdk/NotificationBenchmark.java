@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ExtensionWebSocketClient#sendNotification} with several threads competing for the notification
+ * window. Each notification is acknowledged as soon as it is written, so this measures the SDK's own overhead rather
+ * than a round trip to Vantiq.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class NotificationBenchmark {
+    /**
+     * The largest notification window. The smallest is always the SDK's default.
+     */
+    @Param({"5", "500"})
+    int maxWindow;
+
+    FalseClient client;
+    Map<String, Object> notification;
+
+    @Setup
+    public void setup() {
+        client = BenchmarkSupport.connectedClient(true);
+        client.setNotificationWindowLimits(Math.min(NotificationWindow.DEFAULT_MIN_WINDOW, maxWindow), maxWindow);
+        notification = BenchmarkSupport.row(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.stop();
+    }
+
+    @Benchmark
+    public void sendNotification() {
+        client.sendNotification(notification);
+    }
+}
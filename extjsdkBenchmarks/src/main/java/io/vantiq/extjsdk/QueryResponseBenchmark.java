@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ExtensionWebSocketClient#sendQueryResponse(int, String, Map[])} with result sets of the sizes a
+ * database connector returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryResponseBenchmark {
+    @Param({"100", "10000", "100000"})
+    int rows;
+
+    FalseClient client;
+    @SuppressWarnings("rawtypes")
+    Map[] body;
+
+    @Setup
+    public void setup() {
+        client = BenchmarkSupport.connectedClient(false);
+        body = BenchmarkSupport.rows(rows);
+    }
+
+    @Benchmark
+    public void sendQueryResponse() {
+        client.sendQueryResponse(ExtensionWebSocketClient.QUERY_DATA_CODE, BenchmarkSupport.REPLY_ADDRESS, body);
+    }
+}
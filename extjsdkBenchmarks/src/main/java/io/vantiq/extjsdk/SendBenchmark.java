@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extjsdk;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okio.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ExtensionWebSocketClient#send}, which serializes a message and hands it to the websocket.
+ * <p>
+ * {@link #serializeCopying} serializes as the client did before it wrote into a pooled buffer. Run with
+ * {@code -prof gc} to compare the bytes allocated per message: {@code serialize} should allocate well under three
+ * quarters of what {@code serializeCopying} does, since the copying path allocates the message at least twice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendBenchmark {
+    @Param({"10", "1000"})
+    int fields;
+
+    FalseClient client;
+    ObjectMapper mapper = JsonCodec.mapper();
+    Map<String, Object> notification;
+
+    @Setup
+    public void setup() {
+        client = BenchmarkSupport.connectedClient(false);
+        ExtensionServiceMessage message = new ExtensionServiceMessage("");
+        message.op = ExtensionServiceMessage.OP_NOTIFICATION;
+        message.resourceName = ExtensionServiceMessage.RESOURCE_NAME_SOURCES;
+        message.resourceId = BenchmarkSupport.SOURCE_NAME;
+        message.object = BenchmarkSupport.payload(fields);
+        notification = message.asMap();
+    }
+
+    @Benchmark
+    public ByteString serialize() throws IOException {
+        return client.serialize(notification);
+    }
+
+    @Benchmark
+    public ByteString serializeCopying() throws IOException {
+        return ByteString.of(mapper.writeValueAsBytes(notification));
+    }
+
+    @Benchmark
+    public void send() {
+        client.send(notification);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outcome of one chunk of a parameterized batch, executed by
+ * {@link JDBC#processBatchPublish(String, java.util.List, int)} in a transaction of its own. A chunk either commits all
+ * of its rows or none of them.
+ */
+class BatchChunkResult {
+    private final int firstRow;
+    private final int rowCount;
+    private final int[] updateCounts;
+    private final String error;
+
+    private BatchChunkResult(int firstRow, int rowCount, int[] updateCounts, String error) {
+        this.firstRow = firstRow;
+        this.rowCount = rowCount;
+        this.updateCounts = updateCounts;
+        this.error = error;
+    }
+
+    static BatchChunkResult committed(int firstRow, int rowCount, int[] updateCounts) {
+        return new BatchChunkResult(firstRow, rowCount, updateCounts, null);
+    }
+
+    static BatchChunkResult rolledBack(int firstRow, int rowCount, String error) {
+        return new BatchChunkResult(firstRow, rowCount, null, error);
+    }
+
+    /**
+     * @return  The index of the chunk's first row in the rows given.
+     */
+    int getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * @return  The number of rows in the chunk.
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return  The update count of each of the chunk's rows as returned by the driver, or null if the chunk was rolled
+     *          back.
+     */
+    int[] getUpdateCounts() {
+        return updateCounts;
+    }
+
+    /**
+     * @return  Why the chunk was rolled back, or null if it was committed.
+     */
+    String getError() {
+        return error;
+    }
+
+    boolean isCommitted() {
+        return error == null;
+    }
+
+    /**
+     * @return  The result as sent to VANTIQ.
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("firstRow", firstRow);
+        map.put("rowCount", rowCount);
+        map.put("committed", isCommitted());
+        if (updateCounts != null) {
+            map.put("updateCounts", updateCounts);
+        }
+        if (error != null) {
+            map.put("error", error);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "rows " + firstRow + " to " + (firstRow + rowCount - 1) + ": "
+                + (isCommitted() ? "committed " + Arrays.toString(updateCounts) : "rolled back, " + error);
+    }
+}
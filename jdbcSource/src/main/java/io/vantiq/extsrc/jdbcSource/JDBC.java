@@ -9,20 +9,18 @@
 package io.vantiq.extsrc.jdbcSource;
 
 import java.sql.Connection;
-import java.sql.Date;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Time;
-import java.sql.Timestamp;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +32,7 @@ import io.vantiq.extsrc.jdbcSource.exception.VantiqSQLException;
 
 public class JDBC {
     Logger              log  = LoggerFactory.getLogger(this.getClass().getCanonicalName());
-    private Connection  conn = null;
+    private volatile Connection conn = null;
 
     // Boolean flag specifying if publish/query requests are handled synchronously, or asynchronously
     boolean isAsync;
@@ -52,6 +50,21 @@ public class JDBC {
 
     // Used if asynchronous publish/query handling has been specified
     private HikariDataSource ds = null;
+
+    // The number of prepared statements kept open for reuse, by default the size HikariCP recommends for drivers
+    static final int DEFAULT_STATEMENT_CACHE_SIZE = 250;
+
+    // The longest SQL the driver's statement cache is asked to keep, as HikariCP recommends
+    private static final int STATEMENT_CACHE_SQL_LIMIT = 2048;
+
+    // Prepared statements kept open on the single connection. Pooled connections rely on the driver's cache instead.
+    private volatile StatementCache statementCache = null;
+    private int statementCacheSize;
+
+    // Guards the single connection. Statements run under the read lock, so that they can still share the connection.
+    // Batches of rows run under the write lock, so that turning off auto-commit for a batch cannot affect the queries
+    // and polls sharing the connection, and so that batches run one at a time.
+    private final ReadWriteLock connLock = new ReentrantReadWriteLock();
     
     /**
      * The method used to setup the connection to the SQL Database, using the values retrieved from the source config.
@@ -63,6 +76,24 @@ public class JDBC {
      * @throws VantiqSQLException 
      */
     public void setupJDBC(String dbURL, String username, String password, boolean asyncProcessing, int maxPoolSize) throws VantiqSQLException {
+        setupJDBC(dbURL, username, password, asyncProcessing, maxPoolSize, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * The method used to setup the connection to the SQL Database, using the values retrieved from the source config.
+     * @param dbURL                 The Database URL to be used to connect to the SQL Database.
+     * @param username              The username to be used to connect to the SQL Database.
+     * @param password              The password to be used to connect to the SQL Database.
+     * @param asyncProcessing       A boolean flag specifying if publish/query requests are handled synchronously, or
+     *                              asynchronously.
+     * @param maxPoolSize           An integer representing the maxPoolSize for the Connection Pool.
+     * @param statementCacheSize    The number of prepared statements to keep open per connection, or 0 to prepare
+     *                              each statement anew. Pooled connections pass this on to the driver's statement
+     *                              cache, since the pool closes a connection's statements when it is returned.
+     * @throws VantiqSQLException
+     */
+    public void setupJDBC(String dbURL, String username, String password, boolean asyncProcessing, int maxPoolSize,
+                          int statementCacheSize) throws VantiqSQLException {
         try {
             if (asyncProcessing) {
                 // Create a connection pool
@@ -74,6 +105,7 @@ public class JDBC {
                 if (password != null) {
                     connectionPoolConfig.setPassword(password);
                 }
+                configureDriverStatementCache(connectionPoolConfig, dbURL, statementCacheSize);
                 ds = new HikariDataSource(connectionPoolConfig);
                 ds.setConnectionTimeout(CONNECTION_POOL_TIMEOUT);
 
@@ -82,6 +114,7 @@ public class JDBC {
             } else {
                 // Open a single connection
                 conn = DriverManager.getConnection(dbURL,username,password);
+                statementCache = new StatementCache(conn, statementCacheSize);
             }
             
             // Save login credentials for reconnection if necessary
@@ -89,11 +122,35 @@ public class JDBC {
             this.username = username;
             this.password = password;
             this.isAsync = asyncProcessing;
+            this.statementCacheSize = statementCacheSize;
         } catch (SQLException e) {
             // Handle errors for JDBC
             reportSQLError(e);
         } 
     }
+
+    /**
+     * Turns on the driver's own statement cache for pooled connections, using the properties HikariCP recommends for
+     * the drivers that have one. Other drivers are left as configured by the dbURL.
+     * @param config                The connection pool's configuration.
+     * @param dbURL                 The Database URL, which identifies the driver.
+     * @param statementCacheSize    The number of statements to cache per connection, or 0 to leave the driver as it is.
+     */
+    static void configureDriverStatementCache(HikariConfig config, String dbURL, int statementCacheSize) {
+        if (statementCacheSize <= 0) {
+            return;
+        }
+        if (dbURL.startsWith("jdbc:mysql:") || dbURL.startsWith("jdbc:mariadb:")) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(statementCacheSize));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(STATEMENT_CACHE_SQL_LIMIT));
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+        } else if (dbURL.startsWith("jdbc:postgresql:")) {
+            config.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(statementCacheSize));
+        } else if (dbURL.startsWith("jdbc:oracle:")) {
+            config.addDataSourceProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(statementCacheSize));
+        }
+    }
     
     /**
      * The method used to execute the provided query, triggered by a SELECT on the respective source from VANTIQ.
@@ -118,17 +175,145 @@ public class JDBC {
             // Check that connection hasn't closed
             diagnoseConnection();
 
+            connLock.readLock().lock();
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery(sqlQuery)) {
                  rsArray = createMapFromResults(rs);
             } catch (SQLException e) {
                 // Handle errors for JDBC
                 reportSQLError(e);
+            } finally {
+                connLock.readLock().unlock();
             }
         }
 
         return rsArray;
     }
+
+    /**
+     * The method used to execute the provided query with parameters, triggered by a SELECT on the respective source
+     * from VANTIQ.
+     * @param sqlQuery          The query, with positional ({@code ?}) or named ({@code :name}) parameters.
+     * @param params            A List of values for positional parameters, or a Map of values by name for named
+     *                          parameters. If null, the query is executed as in {@link #processQuery(String)}.
+     * @return                  A HashMap Array containing all of the data retrieved by the query, (empty HashMap
+     *                          Array if nothing was returned)
+     * @throws VantiqSQLException
+     */
+    public Map[] processQuery(String sqlQuery, Object params) throws VantiqSQLException {
+        if (params == null) {
+            return processQuery(sqlQuery);
+        }
+        return executePrepared(sqlQuery, params, stmt -> {
+            ArrayList<HashMap<String, Object>> rows = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                forEachRow(rs, rows::add);
+            }
+            return rows.toArray(new HashMap[0]);
+        });
+    }
+
+    /**
+     * The method used to execute the provided query and hand each row on as soon as it is read, so that a large result
+     * never has to be held in memory at once. The cursor stays open until every row has been handled.
+     * @param sqlQuery          A String representation of the query, retrieved from the WITH clause from VANTIQ.
+     * @param fetchSize         The number of rows the driver should fetch from the database at a time, or 0 to use the
+     *                          driver's default. Some drivers only honor this under certain conditions, e.g.
+     *                          PostgreSQL only when auto-commit is off, and MySQL only with {@code useCursorFetch=true}.
+     * @param rowHandler        Called with each row, converted to a HashMap as for {@link #processQuery(String)}.
+     * @return                  The number of rows read.
+     * @throws VantiqSQLException
+     */
+    public long processQuery(String sqlQuery, int fetchSize, Consumer<Map<String, Object>> rowHandler)
+            throws VantiqSQLException {
+        return processQuery(sqlQuery, null, fetchSize, rowHandler);
+    }
+
+    /**
+     * The method used to execute the provided query with parameters and hand each row on as soon as it is read, as for
+     * {@link #processQuery(String, int, Consumer)}.
+     * @param sqlQuery          The query, with positional ({@code ?}) or named ({@code :name}) parameters.
+     * @param params            A List of values for positional parameters, or a Map of values by name for named
+     *                          parameters. If null, the query is executed without being prepared.
+     * @param fetchSize         The number of rows the driver should fetch from the database at a time, or 0 to use the
+     *                          driver's default.
+     * @param rowHandler        Called with each row, converted to a HashMap as for {@link #processQuery(String)}.
+     * @return                  The number of rows read.
+     * @throws VantiqSQLException
+     */
+    public long processQuery(String sqlQuery, Object params, int fetchSize, Consumer<Map<String, Object>> rowHandler)
+            throws VantiqSQLException {
+        if (params != null) {
+            return executePrepared(sqlQuery, params, stmt -> {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return forEachRow(rs, rowHandler);
+                }
+            });
+        }
+        long rowCount = 0;
+
+        if (isAsync) {
+            try (Connection conn = ds.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery(sqlQuery)) {
+                    rowCount = forEachRow(rs, rowHandler);
+                }
+            } catch (SQLException e) {
+                // Handle errors for JDBC
+                reportSQLError(e);
+            }
+        } else {
+            // Check that connection hasn't closed
+            diagnoseConnection();
+
+            connLock.readLock().lock();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery(sqlQuery)) {
+                    rowCount = forEachRow(rs, rowHandler);
+                }
+            } catch (SQLException e) {
+                // Handle errors for JDBC
+                reportSQLError(e);
+            } finally {
+                connLock.readLock().unlock();
+            }
+        }
+
+        return rowCount;
+    }
+    
+    /**
+     * The method used to execute an incremental pollQuery, with the poll's mark bound to its {@code :watermark}
+     * parameter, handing on each row as it is read as for {@link #processQuery(String, int, Consumer)}.
+     * @param pollQuery         The query, which should select only the rows whose watermark column is greater than
+     *                          {@code :watermark}.
+     * @param watermark         The poll's mark.
+     * @param rowHandler        Called with each row, converted to a HashMap as for {@link #processQuery(String)}.
+     * @return                  The greatest value of the watermark column among the rows read, as read from the
+     *                          ResultSet, or null if no rows were read.
+     * @throws VantiqSQLException if the query failed, or its rows have no column named as the watermark column.
+     */
+    Object processPollQuery(String pollQuery, PollWatermark watermark, Consumer<Map<String, Object>> rowHandler)
+            throws VantiqSQLException {
+        return executePrepared(pollQuery, watermark.getParams(), stmt -> {
+            Object greatest = null;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                RowMapper rowMapper = RowMapper.compile(rs.getMetaData());
+                int column = rs.findColumn(watermark.getColumn());
+                do {
+                    rowHandler.accept(rowMapper.map(rs));
+                    greatest = PollWatermark.max(greatest, rs.getObject(column));
+                } while (rs.next());
+            }
+            return greatest;
+        });
+    }
     
     /**
      * The method used to execute the provided query, triggered by a PUBLISH on the respective VANTIQ source.
@@ -151,17 +336,110 @@ public class JDBC {
             // Check that connection hasn't closed
             diagnoseConnection();
 
+            connLock.readLock().lock();
             try (Statement stmt = conn.createStatement()) {
                 publishSuccess = stmt.executeUpdate(sqlQuery);
             } catch (SQLException e) {
                 // Handle errors for JDBC
                 reportSQLError(e);
+            } finally {
+                connLock.readLock().unlock();
             }
         }
 
         return publishSuccess;
     }
 
+    /**
+     * The method used to execute the provided statement with parameters, triggered by a PUBLISH on the respective
+     * VANTIQ source.
+     * @param sqlQuery          The statement, with positional ({@code ?}) or named ({@code :name}) parameters.
+     * @param params            A List of values for positional parameters, or a Map of values by name for named
+     *                          parameters. If null, the statement is executed as in {@link #processPublish(String)}.
+     * @return                  The integer value that is returned by the executeUpdate() method representing the row count.
+     * @throws VantiqSQLException
+     */
+    public int processPublish(String sqlQuery, Object params) throws VantiqSQLException {
+        if (params == null) {
+            return processPublish(sqlQuery);
+        }
+        return executePrepared(sqlQuery, params, PreparedStatement::executeUpdate);
+    }
+
+    /**
+     * Work done with a PreparedStatement once its parameters have been bound.
+     * @param <T>   The type of the work's result.
+     */
+    @FunctionalInterface
+    interface PreparedStatementWork<T> {
+        T execute(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Prepares a statement, binds its parameters, and hands it to {@code work}.
+     * @param sqlQuery          The statement, with positional ({@code ?}) or named ({@code :name}) parameters.
+     * @param params            The values to bind, as for {@link ParameterizedSql#bind(PreparedStatement, Object)}.
+     * @param work              Executes the statement and reads its results.
+     * @return                  The result of {@code work}.
+     * @throws VantiqSQLException
+     */
+    <T> T executePrepared(String sqlQuery, Object params, PreparedStatementWork<T> work) throws VantiqSQLException {
+        try {
+            ParameterizedSql parsed = ParameterizedSql.parse(sqlQuery);
+            return withPreparedStatement(parsed, stmt -> {
+                parsed.bind(stmt, params);
+                return work.execute(stmt);
+            });
+        } catch (SQLException e) {
+            // Handle errors for JDBC
+            reportSQLError(e);
+            return null;
+        }
+    }
+
+    /**
+     * Prepares a statement and hands it to {@code work}. Pooled connections prepare the statement each time and leave
+     * caching it to the driver. The single connection reuses statements from the {@link StatementCache}.
+     * @param parsed            The statement.
+     * @param work              Binds the statement's parameters, executes it and reads its results.
+     * @return                  The result of {@code work}.
+     * @throws SQLException if the statement could not be prepared, or {@code work} failed.
+     * @throws VantiqSQLException if the single connection was lost and could not be re-opened.
+     */
+    private <T> T withPreparedStatement(ParameterizedSql parsed, PreparedStatementWork<T> work)
+            throws SQLException, VantiqSQLException {
+        if (isAsync) {
+            try (Connection conn = ds.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(parsed.getSql())) {
+                return work.execute(stmt);
+            }
+        } else {
+            // Check that connection hasn't closed
+            diagnoseConnection();
+
+            connLock.readLock().lock();
+            try {
+                StatementCache cache = statementCache;
+                PreparedStatement stmt = cache.borrow(parsed.getSql());
+                boolean succeeded = false;
+                try {
+                    T result = work.execute(stmt);
+                    succeeded = true;
+                    return result;
+                } finally {
+                    // A statement that failed may no longer be usable, so only keep those that succeeded
+                    if (succeeded) {
+                        cache.release(parsed.getSql(), stmt);
+                    } else {
+                        cache.discard(stmt);
+                    }
+                }
+            } finally {
+                connLock.readLock().unlock();
+            }
+        }
+    }
+
     /**
      * The method used to execute the provided list of queries, triggered by a PUBLISH on the respective VANTIQ source. These queries
      * are processed as a batch.
@@ -192,6 +470,7 @@ public class JDBC {
             // Check that connection hasn't closed
             diagnoseConnection();
 
+            connLock.readLock().lock();
             try (Statement stmt = conn.createStatement()) {
                 // Adding queries into batch
                 for (int i = 0; i < queryList.size(); i++) {
@@ -203,11 +482,86 @@ public class JDBC {
             } catch (SQLException e) {
                 // Handle errors for JDBC
                 reportSQLError(e);
+            } finally {
+                connLock.readLock().unlock();
             }
         }
 
         return publishSuccess;
     }
+
+    /**
+     * The method used to execute one parameterized statement for each of a list of rows, triggered by a PUBLISH on the
+     * respective VANTIQ source. The rows are sent to the database as batches of {@code batchSize}, each in a transaction
+     * of its own, so that the driver can send a batch in one round trip or rewrite it as a multi-row insert. A batch
+     * that fails is rolled back and the remaining batches are still executed. When processing synchronously, batches
+     * run on the single connection while no other statement is using it, and one at a time.
+     * @param sqlQuery          The statement, with positional ({@code ?}) or named ({@code :name}) parameters.
+     * @param rows              The values to bind for each execution of the statement: a List for positional
+     *                          parameters, or a Map by name for named parameters.
+     * @param batchSize         The number of rows to execute in each batch, or 0 to execute all rows in one batch.
+     * @return                  The outcome of each batch, in order.
+     * @throws VantiqSQLException if the statement could not be prepared, or the connection failed.
+     */
+    public List<BatchChunkResult> processBatchPublish(String sqlQuery, List<?> rows, int batchSize)
+            throws VantiqSQLException {
+        int chunkSize = batchSize > 0 ? batchSize : Math.max(rows.size(), 1);
+        try {
+            ParameterizedSql parsed = ParameterizedSql.parse(sqlQuery);
+            if (isAsync) {
+                try (Connection conn = ds.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(parsed.getSql())) {
+                    return executeBatches(parsed, stmt, rows, chunkSize);
+                }
+            }
+            // Check that connection hasn't closed
+            diagnoseConnection();
+
+            connLock.writeLock().lock();
+            try (PreparedStatement stmt = conn.prepareStatement(parsed.getSql())) {
+                return executeBatches(parsed, stmt, rows, chunkSize);
+            } finally {
+                connLock.writeLock().unlock();
+            }
+        } catch (SQLException e) {
+            // Handle errors for JDBC
+            reportSQLError(e);
+            return null;
+        }
+    }
+
+    /**
+     * Executes the batches of {@link #processBatchPublish(String, List, int)}, each in a transaction of its own, and
+     * leaves the connection's auto-commit as it found it.
+     */
+    private List<BatchChunkResult> executeBatches(ParameterizedSql parsed, PreparedStatement stmt, List<?> rows,
+            int chunkSize) throws SQLException {
+        List<BatchChunkResult> results = new ArrayList<>();
+        Connection conn = stmt.getConnection();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (int first = 0; first < rows.size(); first += chunkSize) {
+                int count = Math.min(chunkSize, rows.size() - first);
+                try {
+                    for (int i = first; i < first + count; i++) {
+                        parsed.bind(stmt, rows.get(i));
+                        stmt.addBatch();
+                    }
+                    int[] updateCounts = stmt.executeBatch();
+                    conn.commit();
+                    results.add(BatchChunkResult.committed(first, count, updateCounts));
+                } catch (SQLException e) {
+                    stmt.clearBatch();
+                    conn.rollback();
+                    results.add(BatchChunkResult.rolledBack(first, count, describeSQLError(e)));
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return results;
+    }
     
     /**
      * Method used to create a map out of the output ResultSet. Map is needed in order to send the data back to VANTIQ
@@ -216,77 +570,74 @@ public class JDBC {
      *                       (or an empty HashMap Array if the ResultSet was empty).
      * @throws VantiqSQLException
      */
-    @SuppressWarnings({"rawtypes", "PMD.CognitiveComplexity", "PMD.SimpleDateFormatNeedsLocale"})
+    @SuppressWarnings({"rawtypes"})
     Map[] createMapFromResults(ResultSet queryResults) throws VantiqSQLException {
         ArrayList<HashMap<String, Object>> rows = new ArrayList<HashMap<String, Object>>();
         try {
-            if (!queryResults.next()) { 
-                return rows.toArray(new HashMap[0]);
-            } else {
-                ResultSetMetaData md = queryResults.getMetaData(); 
-                int columns = md.getColumnCount();
-
-                // These formatters need to be local as they are not threadsafe.  Issue #290
-                DateFormat dfTimestamp  = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
-                DateFormat dfDate       = new SimpleDateFormat("yyyy-MM-dd");
-                DateFormat dfTime       = new SimpleDateFormat("HH:mm:ss.SSSZ");
-                
-                // Iterate over rows of Result Set and create a map for each row
-                do {
-                    HashMap<String, Object> row = new HashMap<>(columns);
-                    for (int i=1; i<=columns; ++i) {
-                        // Check column type to retrieve data in appropriate manner
-                        int columnType = md.getColumnType(i);
-                        switch (columnType) {
-                            case java.sql.Types.DECIMAL:
-                                if (queryResults.getBigDecimal(i) != null) {
-                                    row.put(md.getColumnName(i), queryResults.getBigDecimal(i));
-                                }
-                                break;
-                            case java.sql.Types.DATE:
-                                Date rowDate = queryResults.getDate(i);
-                                if (rowDate != null) {
-                                    row.put(md.getColumnName(i), dfDate.format(rowDate));
-                                }
-                                break;
-                            case java.sql.Types.TIME:
-                                Time rowTime = queryResults.getTime(i);
-                                if (rowTime != null) {
-                                    row.put(md.getColumnName(i), dfTime.format(rowTime));
-                                }
-                                break;
-                            case java.sql.Types.TIMESTAMP:
-                                Timestamp rowTimestamp = queryResults.getTimestamp(i);
-                                if (rowTimestamp != null) {
-                                    row.put(md.getColumnName(i), dfTimestamp.format(rowTimestamp));
-                                }
-                                break;
-                            default:
-                                // If none of the initial cases are met, the data will be converted to a String via getObject()
-                                if(queryResults.getObject(i) != null) {
-                                    row.put(md.getColumnName(i), queryResults.getObject(i));
-                                }
-                                break;
-                        }
-                    }
-                    // Add each row map to the list of rows
-                    rows.add(row);
-                } while(queryResults.next());
-            }
+            forEachRow(queryResults, rows::add);
         } catch (SQLException e) {
             reportSQLError(e);
         }
         return rows.toArray(new HashMap[0]);
     }
+
+    /**
+     * Converts each of the remaining rows of a ResultSet to a HashMap and hands it to {@code rowHandler}, one at a time.
+     * @param queryResults   A ResultSet containing return value from executeQuery()
+     * @param rowHandler     Called with each row as it is read. Columns whose value is null are left out of the row.
+     * @return               The number of rows read.
+     * @throws SQLException
+     */
+    long forEachRow(ResultSet queryResults, Consumer<? super HashMap<String, Object>> rowHandler)
+            throws SQLException {
+        long rowCount = 0;
+        if (!queryResults.next()) {
+            return rowCount;
+        }
+        // Work out how to read each column once, rather than for every cell
+        RowMapper rowMapper = RowMapper.compile(queryResults.getMetaData());
+
+        // Iterate over rows of Result Set and create a map for each row
+        do {
+            // Hand each row on before reading the next
+            rowHandler.accept(rowMapper.map(queryResults));
+            rowCount++;
+        } while(queryResults.next());
+        return rowCount;
+    }
     
+    /**
+     * @return  The number of prepared statements held open for reuse on the single connection.
+     */
+    int getCachedStatementCount() {
+        StatementCache cache = statementCache;
+        return cache == null ? 0 : cache.size();
+    }
+
     /**
      * Method used to try and reconnect if database connection was lost. Used for synchronous processing (connection pool handles this internally).
+     * The connection and its statement cache are replaced under the write lock, so that no other thread is still using
+     * statements borrowed from the old cache when it is closed. Must not be called while holding the read lock.
      * @throws VantiqSQLException
      */
     public void diagnoseConnection() throws VantiqSQLException {
         try {
             if (!conn.isValid(CHECK_CONNECTION_TIMEOUT)) {
-                conn = DriverManager.getConnection(dbURL,username,password);
+                connLock.writeLock().lock();
+                try {
+                    // Another thread may have reconnected while this one waited for the lock
+                    if (!conn.isValid(CHECK_CONNECTION_TIMEOUT)) {
+                        conn = DriverManager.getConnection(dbURL,username,password);
+                        // The cached statements belonged to the old connection
+                        StatementCache oldCache = statementCache;
+                        statementCache = new StatementCache(conn, statementCacheSize);
+                        if (oldCache != null) {
+                            oldCache.close();
+                        }
+                    }
+                } finally {
+                    connLock.writeLock().unlock();
+                }
             }
         } catch (SQLException e) {
             // Handle errors for JDBC
@@ -300,16 +651,33 @@ public class JDBC {
      * @throws VantiqSQLException
      */
     public void reportSQLError(SQLException e) throws VantiqSQLException {
-        String message = this.getClass().getCanonicalName() + ": A database error occurred: " + e.getMessage() +
-                " SQL State: " + e.getSQLState() + ", Error Code: " + e.getErrorCode();
+        String message = this.getClass().getCanonicalName() + ": A database error occurred: " + describeSQLError(e);
         throw new VantiqSQLException(message);
     }
+
+    /**
+     * @param e The SQLException caught by the calling method
+     * @return  The exception's message, SQL State and Error Code, followed by those of the exception it is chained to
+     *          if any. Drivers such as PostgreSQL's report why a batch failed in the chained exception.
+     */
+    static String describeSQLError(SQLException e) {
+        String description = e.getMessage() + " SQL State: " + e.getSQLState() + ", Error Code: " + e.getErrorCode();
+        SQLException next = e.getNextException();
+        if (next != null && next != e) {
+            description += " Caused by: " + next.getMessage() + " SQL State: " + next.getSQLState() + ", Error Code: "
+                    + next.getErrorCode();
+        }
+        return description;
+    }
     
     /**
      * Closes the SQL Connection.
      */
     public void close() {
         // Close single connection if open
+        if (statementCache != null) {
+            statementCache.close();
+        }
         try {
             if (conn!=null) {
                 conn.close();
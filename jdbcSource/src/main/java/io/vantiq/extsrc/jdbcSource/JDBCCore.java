@@ -8,7 +8,7 @@
 
 package io.vantiq.extsrc.jdbcSource;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -21,9 +21,12 @@ import java.util.concurrent.ExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.vantiq.extjsdk.DispatchExecutors;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
 import io.vantiq.extjsdk.ExtensionWebSocketClient;
 import io.vantiq.extjsdk.Handler;
+import io.vantiq.extjsdk.MetricsRegistry;
+import io.vantiq.extjsdk.QueryResponseWriter;
 import io.vantiq.extsrc.jdbcSource.exception.VantiqSQLException;
 
 /**
@@ -44,15 +47,17 @@ public class JDBCCore {
     JDBC                        jdbc    = null;
     
     final Logger log;
-    final static int RECONNECT_INTERVAL = 5000;
     final static int DEFAULT_BUNDLE_SIZE = 500;
+    final static int DEFAULT_BATCH_SIZE = 1000;
     final static String SELECT_STATEMENT_IDENTIFIER = "select";
     
-    // Used to check row bundling in tests
-    public Map[] lastRowBundle = null;
+    // The number of rows in the last message of the latest query response, used to check row bundling in tests
+    public int lastRowBundleSize = 0;
 
     ExecutorService queryPool = null;
     ExecutorService publishPool = null;
+    // Runs the publish and query handlers off the websocket's reader thread. Set by start()
+    ExecutorService handlerExecutor = null;
 
     private static final String SYNCH_LOCK = "synchLock";
 
@@ -100,12 +105,13 @@ public class JDBCCore {
             jdbcConfigHandler.configComplete = false;
             
             boolean sourcesSucceeded = false;
+            int retryCount = 0;
             while (!sourcesSucceeded) {
                 client.initiateFullConnection(targetVantiqServer, authToken);
                 sourcesSucceeded = exitIfConnectionFails(client, 10);
                 if (!sourcesSucceeded) {
                     try {
-                        Thread.sleep(RECONNECT_INTERVAL);
+                        Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                     } catch (InterruptedException e) {
                         log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                     }
@@ -141,9 +147,17 @@ public class JDBCCore {
      * @return          true if the source connection succeeds, (will retry indefinitely and never return false).
      */
     public boolean start(int timeout) {
+        if (handlerExecutor == null) {
+            // Publishes and queries still run one at a time in the order they arrived, but no longer hold up the
+            // acknowledgements of notifications
+            handlerExecutor = DispatchExecutors.serial("jdbcHandlers#" + sourceName);
+        }
         boolean sourcesSucceeded = false;
+        int retryCount = 0;
         while (!sourcesSucceeded) {
             client = new ExtensionWebSocketClient(sourceName);
+            client.setPublishExecutor(handlerExecutor);
+            client.setQueryExecutor(handlerExecutor);
             jdbcConfigHandler = new JDBCHandleConfiguration(this);
             
             client.setConfigHandler(jdbcConfigHandler);
@@ -154,7 +168,7 @@ public class JDBCCore {
             sourcesSucceeded = exitIfConnectionFails(client, timeout);
             if (!sourcesSucceeded) {
                 try {
-                    Thread.sleep(RECONNECT_INTERVAL);
+                    Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                 } catch (InterruptedException e) {
                     log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                 }
@@ -165,8 +179,12 @@ public class JDBCCore {
     
     /**
      * Executes the query that is provided as a String in the options specified by the "query" key, as part of the
-     * object of the Query message. Calls sendDataFromQuery() if the query is executed successfully, otherwise sends
-     * a query error using sendQueryError()
+     * object of the Query message. Calls streamDataFromQuery() for SELECT statements, otherwise sends an empty
+     * response if the statement is executed successfully, or a query error using sendQueryError() if it is not.
+     * If the options include "params", the query is executed as a PreparedStatement with those values bound to its
+     * parameters: a list for positional ({@code ?}) parameters, or an object for named ({@code :name}) parameters.
+     * If the options include "rows" instead, the query is executed once for each row, in batches of "batchSize" rows,
+     * and the outcome of each batch is sent back, or a query error if any batch was rolled back.
      * @param message   The Query message.
      */
     @SuppressWarnings({"PMD.CognitiveComplexity"})
@@ -190,12 +208,15 @@ public class JDBCCore {
         try {
             if (request.get("query") instanceof String) {
                 String queryString = (String) request.get("query");
-                // Check if SQL Query is an update statement, or query statement
-                if (queryString.trim().toLowerCase().startsWith(SELECT_STATEMENT_IDENTIFIER)) {
-                    Map[] queryArray = localJDBC.processQuery(queryString);
-                    sendDataFromQuery(queryArray, message);
+                // Check if SQL Query is a statement to execute for each row, an update statement, or query statement
+                if (request.get("rows") instanceof List) {
+                    sendBatchResults(replyAddress, executeRowBatches(localJDBC, queryString, request));
+                } else if (queryString.trim().toLowerCase().startsWith(SELECT_STATEMENT_IDENTIFIER)) {
+                    streamDataFromQuery(localJDBC, queryString, message);
                 } else {
-                    int data = localJDBC.processPublish(queryString);
+                    long start = System.nanoTime();
+                    int data = localJDBC.processPublish(queryString, request.get("params"));
+                    recordDatabaseTime("update", start);
                     log.trace("The returned integer value from Publish Query is the following: ", data);
 
                     // Send empty response back
@@ -212,7 +233,9 @@ public class JDBCCore {
                         return;
                     }
                 }
+                long start = System.nanoTime();
                 int[] data = localJDBC.processBatchPublish(queryArray);
+                recordDatabaseTime("batchUpdate", start);
                 log.trace("The returned integer array from Publish Query is the following: ", data);
 
                 // Send empty response back
@@ -240,7 +263,8 @@ public class JDBCCore {
     
     /**
      * Executes the query that is provided in the Publish Message. If query is an Array of Strings, then it is executed as a Batch request.
-     * If the query is a single String, then it is executed normally.
+     * If the query is a single String, then it is executed normally, as a PreparedStatement if "params" are given, or
+     * once for each of the "rows" given, in batches.
      * @param message   The Query message.
      */
     public void executePublish(ExtensionServiceMessage message) {
@@ -258,13 +282,20 @@ public class JDBCCore {
 
         // Gather query results, or send a query error if an exception is caught
         try {
-            if (request.get("query") instanceof String) {
+            if (request.get("query") instanceof String && request.get("rows") instanceof List) {
+                // Rolled back batches have been logged, and there is no one to report them to
+                executeRowBatches(localJDBC, (String) request.get("query"), request);
+            } else if (request.get("query") instanceof String) {
                 String queryString = (String) request.get("query");
-                int data = localJDBC.processPublish(queryString);
+                long start = System.nanoTime();
+                int data = localJDBC.processPublish(queryString, request.get("params"));
+                recordDatabaseTime("update", start);
                 log.trace("The returned integer value from Publish Query is the following: ", data);
             } else if (request.get("query") instanceof List) {
                 List queryArray = (List) request.get("query");
+                long start = System.nanoTime();
                 int[] data = localJDBC.processBatchPublish(queryArray);
+                recordDatabaseTime("batchUpdate", start);
                 log.trace("The returned integer array from Publish Query is the following: ", data);
             } else {
                 log.error("Query could not be executed because query was not a String or a List");
@@ -281,6 +312,77 @@ public class JDBCCore {
         }
     }
     
+    /**
+     * Executes a parameterized statement once for each of the "rows" of a Query or Publish message, in batches of the
+     * message's "batchSize" rows, or of {@link #DEFAULT_BATCH_SIZE} if none is given. Each batch is committed or rolled
+     * back on its own, and the batches that were rolled back are logged.
+     * @param localJDBC     The JDBC connection to execute the statement on.
+     * @param queryString   The statement, with positional ({@code ?}) or named ({@code :name}) parameters.
+     * @param request       The object of the message.
+     * @return              The outcome of each batch, in order.
+     * @throws VantiqSQLException if the statement could not be prepared, or the connection failed.
+     */
+    List<BatchChunkResult> executeRowBatches(JDBC localJDBC, String queryString, Map<String, ?> request)
+            throws VantiqSQLException {
+        int batchSize = DEFAULT_BATCH_SIZE;
+        if (request.get("batchSize") instanceof Integer && (Integer) request.get("batchSize") > -1) {
+            batchSize = (Integer) request.get("batchSize");
+        }
+        long start = System.nanoTime();
+        List<BatchChunkResult> results = localJDBC.processBatchPublish(queryString, (List<?>) request.get("rows"),
+                batchSize);
+        recordDatabaseTime("batchUpdate", start);
+        for (BatchChunkResult result : results) {
+            if (result.isCommitted()) {
+                log.trace("Batch of {} committed.", result);
+            } else {
+                log.error("Batch of {} for the statement '{}'.", result, queryString);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Sends the outcome of each batch executed by {@link #executeRowBatches(JDBC, String, Map)} in response to a Query
+     * message, as {@code {batches: [...]}}. If any batch was rolled back, a query error describing those batches is
+     * sent instead. The batches that were committed are not undone.
+     * @param replyAddress  The address to send the response to.
+     * @param results       The outcome of each batch.
+     */
+    void sendBatchResults(String replyAddress, List<BatchChunkResult> results) {
+        List<Map<String, Object>> batches = new ArrayList<>();
+        List<String> rolledBack = new ArrayList<>();
+        int rowCount = 0;
+        int rolledBackRows = 0;
+        for (BatchChunkResult result : results) {
+            batches.add(result.toMap());
+            rowCount += result.getRowCount();
+            if (!result.isCommitted()) {
+                rolledBack.add(result.toString());
+                rolledBackRows += result.getRowCount();
+            }
+        }
+        if (rolledBack.isEmpty()) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("batches", batches);
+            client.sendQueryResponse(200, replyAddress, body);
+        } else {
+            client.sendQueryError(replyAddress, this.getClass().getName() + ".batchRolledBack",
+                    "{0} of {1} rows were rolled back, and the rest were committed. The batches rolled back were {2}",
+                    new Object[] {rolledBackRows, rowCount, String.join("; ", rolledBack)});
+        }
+    }
+
+    /**
+     * Records the time taken by a database operation in the source's metrics.
+     * @param operation     The kind of operation.
+     * @param startNanos    The {@link System#nanoTime()} at which the operation started.
+     */
+    void recordDatabaseTime(String operation, long startNanos) {
+        MetricsRegistry.getDefault().sourceOperationTime(sourceName, operation)
+                .observeNanos(System.nanoTime() - startNanos);
+    }
+
     /**
      * Executes a query (pollQuery) at a certain rate (pollTime), both specified in the Source Configuration.
      * The resulting data is sent as a notification back to the Source. If multiple rows of data are returned,
@@ -297,17 +399,79 @@ public class JDBCCore {
         if (localJDBC == null) {
             return;
         }
+        if (!client.isWritable()) {
+            // Vantiq hasn't caught up with the last poll, so leave the rows in the database until it has
+            log.warn("Skipping the pollQuery since notifications from previous polls are still waiting to be sent.");
+            return;
+        }
         try {
-            Map[] queryMap = localJDBC.processQuery(pollQuery);
-            if (queryMap != null) {
-                for (Map h : queryMap) {
-                    if (client.isConnected()) {
-                        client.sendNotification(h);
-                    } else {
-                        log.warn("The connection to Vantiq is not active, so the pollQuery response was unable to be " +
-                                "sent.");
-                    }
+            // Each row is sent as it is read, rather than after the whole result has been read into memory
+            long start = System.nanoTime();
+            long[] sendNanos = {0};
+            localJDBC.processQuery(pollQuery, 0, row -> {
+                long sendStart = System.nanoTime();
+                if (client.isConnected()) {
+                    sendPolledRow(row);
+                } else {
+                    log.warn("The connection to Vantiq is not active, so the pollQuery response was unable to be " +
+                            "sent.");
                 }
+                sendNanos[0] += System.nanoTime() - sendStart;
+            });
+            // Only the time spent on the database counts, not the time spent sending the rows
+            recordDatabaseTime("poll", start + sendNanos[0]);
+        } catch (VantiqSQLException e) {
+            log.error("Could not execute polling query.", e);
+            log.error("The pollQuery was: " + pollQuery);
+        } catch (Exception e) {
+            log.error("An unexpected error occurred when executing the polling query.", e);
+            log.error("The pollQuery was: " + pollQuery);
+        }
+    }
+    
+    /**
+     * Executes an incremental pollQuery, which binds the greatest value of the watermark column sent so far to its
+     * {@code :watermark} parameter, so that only rows added since the previous poll are sent. Each row is sent as a
+     * separate notification, and the mark is moved on and kept once the whole poll has been sent. A poll that fails
+     * part way through leaves the mark where it was, so the rows it sent are sent again by the next poll.
+     * @param pollQuery     The query string
+     * @param watermark     The poll's mark
+     */
+    public void executePolling(String pollQuery, PollWatermark watermark) {
+        // Getting local copy of JDBC class
+        JDBC localJDBC = null;
+        synchronized (SYNCH_LOCK) {
+            localJDBC = jdbc;
+        }
+
+        if (localJDBC == null) {
+            return;
+        }
+        if (!client.isWritable()) {
+            // Vantiq hasn't caught up with the last poll, so leave the rows in the database until it has
+            log.warn("Skipping the pollQuery since notifications from previous polls are still waiting to be sent.");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long[] sendNanos = {0};
+            boolean[] unsent = {false};
+            Object greatest = localJDBC.processPollQuery(pollQuery, watermark, row -> {
+                long sendStart = System.nanoTime();
+                if (client.isConnected()) {
+                    sendPolledRow(row);
+                } else {
+                    unsent[0] = true;
+                }
+                sendNanos[0] += System.nanoTime() - sendStart;
+            });
+            // Only the time spent on the database counts, not the time spent sending the rows
+            recordDatabaseTime("poll", start + sendNanos[0]);
+            if (unsent[0]) {
+                // Leave the mark where it was, so that the next poll sends the rows again
+                log.warn("The connection to Vantiq is not active, so the pollQuery response was unable to be sent.");
+            } else {
+                watermark.advance(greatest);
             }
         } catch (VantiqSQLException e) {
             log.error("Could not execute polling query.", e);
@@ -318,6 +482,25 @@ public class JDBCCore {
         }
     }
     
+    /**
+     * Queues a row read by a pollQuery as a notification, without waiting for it to be written, so that rows still
+     * waiting to be sent leave the client unwritable and the next poll is skipped until Vantiq catches up.
+     * @param row   The row to send.
+     */
+    void sendPolledRow(Map<String, Object> row) {
+        CompletableFuture<Boolean> acked = client.sendNotificationAsync(row);
+        if (acked.isCompletedExceptionally()) {
+            // The poll returned more rows than the writer's queue holds, so wait for room for the rest
+            client.sendNotification(row);
+        } else {
+            acked.whenComplete((ok, error) -> {
+                if (error != null) {
+                    log.error("A row read by the pollQuery could not be sent.", error);
+                }
+            });
+        }
+    }
+
    /**
     * Called by executeQuery() once the query has been executed, and sends the retrieved data back to VANTIQ.
     * @param queryArray     A HashMap Array containing the retrieved data from processQuery().
@@ -326,37 +509,65 @@ public class JDBCCore {
    public void sendDataFromQuery(Map[] queryArray, ExtensionServiceMessage message) {
        Map<String, ?> request = (Map<String, ?>) message.getObject();
        String replyAddress = ExtensionServiceMessage.extractReplyAddress(message);
+       int bundleFactor = getBundleFactor(request);
        
-       int bundleFactor = DEFAULT_BUNDLE_SIZE;
-       if (request.get("bundleFactor") instanceof Integer && (Integer) request.get("bundleFactor") > -1) {
-           bundleFactor = (Integer) request.get("bundleFactor");
+       // Send the rows in messages of 'bundleFactor' rows, or all in one message if the bundleFactor is 0. The
+       // writer sends an empty 204 response if there are no rows.
+       QueryResponseWriter response = client.openQueryResponse(replyAddress, bundleFactor,
+               bundleFactor == 0 ? 0 : QueryResponseWriter.DEFAULT_MAX_BYTES);
+       response.write(queryArray);
+       response.close();
+       lastRowBundleSize = response.getLastChunkRows();
+   }
+
+   /**
+    * Executes a SELECT statement and sends the rows back to VANTIQ while the cursor is still open, so that only about one
+    * bundle of rows is held in memory however many the query returns. The driver is asked to fetch rows from the
+    * database in batches of the "fetchSize" given in the Query message, or of the bundleFactor if none is given. Any
+    * "params" in the Query message are bound to the statement's parameters.
+    * <p>
+    * If the query fails after some bundles have been sent, the caller's query error ends the response in place of the
+    * remaining rows.
+    * @param localJDBC      The JDBC connection to run the query on.
+    * @param queryString    The SELECT statement.
+    * @param message        The Query message
+    * @throws VantiqSQLException if the query could not be executed or its rows could not be read.
+    */
+   void streamDataFromQuery(JDBC localJDBC, String queryString, ExtensionServiceMessage message)
+           throws VantiqSQLException {
+       Map<String, ?> request = (Map<String, ?>) message.getObject();
+       String replyAddress = ExtensionServiceMessage.extractReplyAddress(message);
+       int bundleFactor = getBundleFactor(request);
+       int fetchSize = bundleFactor;
+       if (request.get("fetchSize") instanceof Integer && (Integer) request.get("fetchSize") > -1) {
+           fetchSize = (Integer) request.get("fetchSize");
        }
-       
-       // Send the results of the query
-       if (queryArray.length == 0) {
-           // If data is empty send empty map with 204 code
-           client.sendQueryResponse(204, replyAddress, new LinkedHashMap<>());
-           lastRowBundle = null;
-       } else if (bundleFactor == 0) {
-           // If the bundleFactor was specified to be 0, then we sent the entire array
-           client.sendQueryResponse(200, replyAddress, queryArray);
-           lastRowBundle = queryArray;
-       } else {
-           // Otherwise, send messages containing 'bundleFactor' number of rows
-           int len = queryArray.length;
-           for (int i = 0; i < len; i += bundleFactor) {
-               Map[] rowBundle = Arrays.copyOfRange(queryArray, i, Math.min(queryArray.length, i + bundleFactor));
-               
-               // If we reached the last row, send with 200 code
-               if  (i + bundleFactor >= len) {
-                   client.sendQueryResponse(200, replyAddress, rowBundle);
-               } else {
-                   // Otherwise, send row with 100 code signifying more data to come 
-                   client.sendQueryResponse(100, replyAddress, rowBundle);
-               }
-               lastRowBundle = rowBundle;
-           }
+
+       QueryResponseWriter response = client.openQueryResponse(replyAddress, bundleFactor,
+               bundleFactor == 0 ? 0 : QueryResponseWriter.DEFAULT_MAX_BYTES);
+       long start = System.nanoTime();
+       long[] sendNanos = {0};
+       localJDBC.processQuery(queryString, request.get("params"), fetchSize, row -> {
+           long sendStart = System.nanoTime();
+           response.write(row);
+           sendNanos[0] += System.nanoTime() - sendStart;
+       });
+       // Only the time spent on the database counts, not the time spent sending the rows
+       recordDatabaseTime("query", start + sendNanos[0]);
+       response.close();
+       lastRowBundleSize = response.getLastChunkRows();
+   }
+
+   /**
+    * @param request    The object of the Query message.
+    * @return           The number of rows to send in each message, from the "bundleFactor" of the Query message if it is
+    *                   valid. 0 means all rows are sent in one message.
+    */
+   private int getBundleFactor(Map<String, ?> request) {
+       if (request.get("bundleFactor") instanceof Integer && (Integer) request.get("bundleFactor") > -1) {
+           return (Integer) request.get("bundleFactor");
        }
+       return DEFAULT_BUNDLE_SIZE;
    }
    
     
@@ -393,6 +604,10 @@ public class JDBCCore {
             client.stop();
             client = null;
         }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdownNow();
+            handlerExecutor = null;
+        }
     }
 
     /**
@@ -8,9 +8,12 @@
 
 package io.vantiq.extsrc.jdbcSource;
 
+import java.io.File;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -19,6 +22,7 @@ import java.util.concurrent.RejectedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.vantiq.extjsdk.AsyncHandler;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
 import io.vantiq.extjsdk.ExtensionWebSocketClient;
 import io.vantiq.extjsdk.Handler;
@@ -39,6 +43,13 @@ import io.vantiq.extsrc.jdbcSource.exception.VantiqSQLException;
  *      <li>{@code username}: The username to log into the SQL Database.
  *      <li>{@code password}: The password to log into the SQL Database.
  *      <li>{@code dbURL}: The URL of the SQL Database to be used. *                      
+ *      <li>{@code statementCacheSize}: Optional. The number of prepared statements to keep open per connection.
+ *                      Defaults to 250. 0 prepares each statement anew.
+ *      <li>{@code pollWatermarkColumn}: Optional. Makes the pollQuery incremental: the greatest value of this column
+ *                      among the rows sent is bound to the pollQuery's {@code :watermark} parameter.
+ *      <li>{@code pollWatermarkInitial}: The {@code :watermark} of the first poll, if no mark has been kept.
+ *      <li>{@code pollWatermarkFile}: Optional. The file the mark is kept in. Defaults to
+ *                      {@code <sourceName>.watermark} in the working directory.
  * </ul>
  */
 
@@ -66,9 +77,13 @@ public class JDBCHandleConfiguration extends Handler<ExtensionServiceMessage> {
     private static final String DB_URL = "dbURL";
     private static final String POLL_TIME = "pollTime";
     private static final String POLL_QUERY = "pollQuery";
+    private static final String POLL_WATERMARK_COLUMN = "pollWatermarkColumn";
+    private static final String POLL_WATERMARK_INITIAL = "pollWatermarkInitial";
+    private static final String POLL_WATERMARK_FILE = "pollWatermarkFile";
     private static final String ASYNCH_PROCESSING = "asynchronousProcessing";
     private static final String MAX_ACTIVE = "maxActiveTasks";
     private static final String MAX_QUEUED = "maxQueuedTasks";
+    private static final String STATEMENT_CACHE_SIZE = "statementCacheSize";
 
     public JDBCHandleConfiguration(JDBCCore source) {
         this.source = source;
@@ -163,6 +178,11 @@ public class JDBCHandleConfiguration extends Handler<ExtensionServiceMessage> {
 
         // Creating the publish and query handlers
         int maxPoolSize = createQueryAndPublishHandlers(generalConfig);
+
+        int statementCacheSize = JDBC.DEFAULT_STATEMENT_CACHE_SIZE;
+        if (generalConfig.get(STATEMENT_CACHE_SIZE) instanceof Integer && (Integer) generalConfig.get(STATEMENT_CACHE_SIZE) > -1) {
+            statementCacheSize = (Integer) generalConfig.get(STATEMENT_CACHE_SIZE);
+        }
         
         // Initialize JDBC Source with config values
         try {
@@ -170,7 +190,7 @@ public class JDBCHandleConfiguration extends Handler<ExtensionServiceMessage> {
                 source.jdbc.close();
             }
             JDBC jdbc = new JDBC();
-            jdbc.setupJDBC(dbURL, username, password, asynchronousProcessing, maxPoolSize);
+            jdbc.setupJDBC(dbURL, username, password, asynchronousProcessing, maxPoolSize, statementCacheSize);
             source.jdbc = jdbc; 
         } catch (VantiqSQLException e) {
             log.error("Configuration failed. Exception occurred while setting up JDBC Source: ", e);
@@ -181,12 +201,20 @@ public class JDBCHandleConfiguration extends Handler<ExtensionServiceMessage> {
         if (generalConfig.get(POLL_TIME) instanceof Integer) {
             if (generalConfig.get(POLL_QUERY) instanceof String) {
                 int pollTime = (Integer) generalConfig.get(POLL_TIME);
-                if (pollTime > 0) {
+                PollWatermark watermark = createPollWatermark(generalConfig);
+                if (watermark != null && watermark.getValue() == null) {
+                    // Comparing with null matches no rows, so no poll would ever send anything
+                    log.error("A pollWatermarkInitial must be specified along with the pollWatermarkColumn.");
+                } else if (pollTime > 0) {
                     String pollQuery = (String) generalConfig.get(POLL_QUERY);
                     TimerTask task = new TimerTask() {
                         @Override
                         public void run() {
-                            source.executePolling(pollQuery);
+                            if (watermark == null) {
+                                source.executePolling(pollQuery);
+                            } else {
+                                source.executePolling(pollQuery, watermark);
+                            }
                         }
                     };
                     // Create new Timer, and schedule the task according to the pollTime
@@ -209,6 +237,27 @@ public class JDBCHandleConfiguration extends Handler<ExtensionServiceMessage> {
         return true;
     }
 
+    /**
+     * Creates the mark of an incremental pollQuery, if a pollWatermarkColumn is configured, reading the mark kept by a
+     * previous run if there is one.
+     * @param generalConfig     The general configuration of the JDBC Source
+     * @return                  The mark, or null if the pollQuery is not incremental.
+     */
+    private PollWatermark createPollWatermark(Map<String, ?> generalConfig) {
+        if (!(generalConfig.get(POLL_WATERMARK_COLUMN) instanceof String)) {
+            return null;
+        }
+        File file;
+        if (generalConfig.get(POLL_WATERMARK_FILE) instanceof String) {
+            file = new File((String) generalConfig.get(POLL_WATERMARK_FILE));
+        } else {
+            file = new File(sourceName + ".watermark");
+        }
+        PollWatermark watermark = PollWatermark.load((String) generalConfig.get(POLL_WATERMARK_COLUMN),
+                generalConfig.get(POLL_WATERMARK_INITIAL), file);
+        return watermark;
+    }
+
     /**
      * Method used to create the query and publish handlers
      * @param generalConfig     The general configuration of the JDBC Source
@@ -241,42 +290,49 @@ public class JDBCHandleConfiguration extends Handler<ExtensionServiceMessage> {
             source.publishPool = new ThreadPoolExecutor(maxActiveTasks, maxActiveTasks, 0l, TimeUnit.MILLISECONDS,
                     new LinkedBlockingQueue<Runnable>(maxQueuedTasks));
 
-            // Creating query/publish handlers with asynchronous processing
-            queryHandler = new Handler<ExtensionServiceMessage>() {
+            // Creating query/publish handlers with asynchronous processing. The listener counts each request until
+            // its task finishes, and turns away any beyond what the pools can hold before they reach the pools.
+            source.client.setMaxQueriesInFlight(maxActiveTasks + maxQueuedTasks);
+            source.client.setMaxPublishesInFlight(maxActiveTasks + maxQueuedTasks);
+            queryHandler = new AsyncHandler<ExtensionServiceMessage>() {
                 @Override
-                public void handleMessage(ExtensionServiceMessage message) {
+                public CompletionStage<?> handleMessageAsync(ExtensionServiceMessage message) {
                     try {
-                        source.queryPool.execute(new Runnable() {
+                        return CompletableFuture.runAsync(new Runnable() {
                             @Override
                             public void run() {
                                 handleQueryRequest(source.client, message);
                             }
-                        });
+                        }, source.queryPool);
                     } catch (RejectedExecutionException e) {
                         log.error("The queue of tasks has filled, and as a result the request was unable to be processed.", e);
                         String replyAddress = ExtensionServiceMessage.extractReplyAddress(message);
                         source.client.sendQueryError(replyAddress, "io.vantiq.extsrc.JDBCHandleConfiguration.queryHandler.queuedTasksFull",
                                 "The queue of tasks has filled, and as a result the request was unable to be processed.", null);
+                        return null;
                     }
                 }
             };
-            publishHandler = new Handler<ExtensionServiceMessage>() {
+            publishHandler = new AsyncHandler<ExtensionServiceMessage>() {
                 @Override
-                public void handleMessage(ExtensionServiceMessage message) {
+                public CompletionStage<?> handleMessageAsync(ExtensionServiceMessage message) {
                     try {
-                        source.publishPool.execute(new Runnable() {
+                        return CompletableFuture.runAsync(new Runnable() {
                             @Override
                             public void run() {
                                 source.executePublish(message);
                             }
-                        });
+                        }, source.publishPool);
                     } catch (RejectedExecutionException e) {
                         log.error("The queue of tasks has filled, and as a result the request was unable to be processed.", e);
+                        return null;
                     }
                 }
             };
         } else {
             // Otherwise, creating query/publish handlers with synchronous processing
+            source.client.setMaxQueriesInFlight(0);
+            source.client.setMaxPublishesInFlight(0);
             queryHandler = new Handler<ExtensionServiceMessage>() {
                 @Override
                 public void handleMessage(ExtensionServiceMessage message) {
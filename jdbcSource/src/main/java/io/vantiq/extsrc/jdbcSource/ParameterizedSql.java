@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A SQL statement with parameters, as sent by VANTIQ along with the values to bind to them.
+ * <p>
+ * Parameters are either positional, written as {@code ?} and bound from a list of values in order, or named, written as
+ * {@code :name} and bound from a map of values by name. A statement may use one form or the other, but not both.
+ * Named parameters are rewritten as {@code ?} for the driver, and a name may appear more than once. Markers inside
+ * quoted strings, quoted identifiers and comments are left alone, as are PostgreSQL's {@code ::} casts.
+ */
+class ParameterizedSql {
+    // SQLState for a statement whose parameters do not match the values given to bind to them
+    static final String WRONG_PARAMETER_COUNT = "07001";
+
+    private final String sql;
+    private final int positionalCount;
+    private final List<String> names;
+
+    private ParameterizedSql(String sql, int positionalCount, List<String> names) {
+        this.sql = sql;
+        this.positionalCount = positionalCount;
+        this.names = names;
+    }
+
+    /**
+     * Finds the parameters of a statement.
+     * @param sql   The statement as sent by VANTIQ.
+     * @return      The statement, with any named parameters rewritten as {@code ?}.
+     * @throws SQLException if the statement uses both positional and named parameters.
+     */
+    @SuppressWarnings({"PMD.CognitiveComplexity", "PMD.CyclomaticComplexity"})
+    static ParameterizedSql parse(String sql) throws SQLException {
+        StringBuilder rewritten = new StringBuilder(sql.length());
+        List<String> names = new ArrayList<>();
+        int positionalCount = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                // Copy the quoted string or identifier whole. A doubled quote inside it ends one run and starts the next.
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                rewritten.append(sql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                end = end < 0 ? length : end + 1;
+                rewritten.append(sql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                rewritten.append(sql, i, end);
+                i = end;
+            } else if (c == '?') {
+                positionalCount++;
+                rewritten.append(c);
+                i++;
+            } else if (c == ':' && i + 1 < length && sql.charAt(i + 1) == ':') {
+                rewritten.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(sql.charAt(i + 1))) {
+                int end = i + 2;
+                while (end < length && Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                names.add(sql.substring(i + 1, end));
+                rewritten.append('?');
+                i = end;
+            } else {
+                rewritten.append(c);
+                i++;
+            }
+        }
+        if (positionalCount > 0 && !names.isEmpty()) {
+            throw new SQLException("The statement uses both positional (?) and named (:name) parameters. Only one "
+                    + "form may be used in a statement.", WRONG_PARAMETER_COUNT);
+        }
+        return new ParameterizedSql(rewritten.toString(), positionalCount, Collections.unmodifiableList(names));
+    }
+
+    /**
+     * @return  The statement to prepare, with any named parameters rewritten as {@code ?}.
+     */
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return  The number of values the statement takes.
+     */
+    int getParameterCount() {
+        return names.isEmpty() ? positionalCount : names.size();
+    }
+
+    /**
+     * Binds values to the statement's parameters.
+     * @param stmt      The statement prepared from {@link #getSql()}.
+     * @param params    A List of values for positional parameters, or a Map of values by name for named parameters.
+     * @throws SQLException if the values do not match the statement's parameters, or could not be bound.
+     */
+    void bind(PreparedStatement stmt, Object params) throws SQLException {
+        if (getParameterCount() == 0) {
+            // Nothing to bind, whatever form the params take
+            return;
+        } else if (names.isEmpty()) {
+            if (!(params instanceof List)) {
+                throw new SQLException("The statement's parameters are positional, so its params must be a list.",
+                        WRONG_PARAMETER_COUNT);
+            }
+            List<?> values = (List<?>) params;
+            if (values.size() != positionalCount) {
+                throw new SQLException("The statement has " + positionalCount + " parameters, but " + values.size()
+                        + " params were given.", WRONG_PARAMETER_COUNT);
+            }
+            for (int i = 0; i < positionalCount; i++) {
+                setParameter(stmt, i + 1, values.get(i));
+            }
+        } else {
+            if (!(params instanceof Map)) {
+                throw new SQLException("The statement's parameters are named, so its params must be an object.",
+                        WRONG_PARAMETER_COUNT);
+            }
+            Map<?, ?> values = (Map<?, ?>) params;
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                if (!values.containsKey(name)) {
+                    throw new SQLException("No value was given for the parameter '" + name + "'.",
+                            WRONG_PARAMETER_COUNT);
+                }
+                setParameter(stmt, i + 1, values.get(name));
+            }
+        }
+    }
+
+    private static void setParameter(PreparedStatement stmt, int index, Object value) throws SQLException {
+        if (value instanceof Map || value instanceof List) {
+            throw new SQLException("Parameter " + index + " is an object or a list, which cannot be bound to a SQL "
+                    + "parameter.");
+        }
+        // Everything else arrives from VANTIQ's JSON as a String, Number or Boolean, which every driver can bind
+        stmt.setObject(index, value);
+    }
+}
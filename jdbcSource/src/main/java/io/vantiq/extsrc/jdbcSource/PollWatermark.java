@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The high-water mark of an incremental pollQuery: the greatest value of one column, such as a timestamp or sequence
+ * id, among the rows sent so far. Each poll binds the mark to the query's {@code :watermark} parameter, so that only
+ * rows added since the previous poll are read and sent.
+ * <p>
+ * The mark is written to a file after each poll, and read back when the source starts, so that a restarted source
+ * carries on from where it stopped rather than sending every row again. Until a poll has completed, the mark is the
+ * one read from the file, or the initial value given in the configuration.
+ * <p>
+ * Values are kept as they are read from the ResultSet, before being formatted for VANTIQ, so that they bind back to
+ * the column's type exactly. Integral numbers are kept as Longs, and date-times as Timestamps.
+ */
+class PollWatermark {
+    private static final Logger log = LoggerFactory.getLogger(PollWatermark.class);
+
+    // The name of the pollQuery's parameter the mark is bound to
+    static final String PARAMETER = "watermark";
+
+    // Keys of the file the mark is kept in
+    private static final String COLUMN_KEY = "column";
+    private static final String TYPE_KEY = "type";
+    private static final String VALUE_KEY = "value";
+
+    private static final String LONG_TYPE = "long";
+    private static final String DECIMAL_TYPE = "decimal";
+    private static final String DOUBLE_TYPE = "double";
+    private static final String TIMESTAMP_TYPE = "timestamp";
+    private static final String DATE_TYPE = "date";
+    private static final String STRING_TYPE = "string";
+
+    private final String column;
+    private final File file;
+    private volatile Object value;
+
+    private PollWatermark(String column, File file, Object value) {
+        this.column = column;
+        this.file = file;
+        this.value = value;
+    }
+
+    /**
+     * Reads the mark kept in {@code file} by a previous run, or starts from {@code initialValue} if there is none. A
+     * mark kept for a different column is ignored.
+     * @param column        The column whose greatest value is tracked.
+     * @param initialValue  The value to start from, used until the first poll if no mark has been kept.
+     * @param file          The file the mark is kept in.
+     * @return              The mark.
+     */
+    static PollWatermark load(String column, Object initialValue, File file) {
+        Object value = normalize(initialValue);
+        if (file.exists()) {
+            Properties kept = new Properties();
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                kept.load(in);
+                if (column.equalsIgnoreCase(kept.getProperty(COLUMN_KEY))) {
+                    value = parse(kept.getProperty(TYPE_KEY), kept.getProperty(VALUE_KEY));
+                    log.info("Resuming polling from the {} kept in '{}': {}", column, file.getAbsolutePath(), value);
+                } else {
+                    log.warn("The pollQuery mark kept in '{}' is for the column '{}' rather than '{}', so polling "
+                            + "starts from the pollWatermarkInitial.", file.getAbsolutePath(),
+                            kept.getProperty(COLUMN_KEY), column);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not read the pollQuery mark kept in '" + file.getAbsolutePath() + "', so polling "
+                        + "starts from the pollWatermarkInitial.", e);
+            }
+        }
+        return new PollWatermark(column, file, value);
+    }
+
+    /**
+     * @return  The column whose greatest value is tracked.
+     */
+    String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return  The mark, or null if there is none yet.
+     */
+    Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return  The pollQuery's params, binding the mark to {@code :watermark}.
+     */
+    Map<String, Object> getParams() {
+        return Collections.singletonMap(PARAMETER, value);
+    }
+
+    /**
+     * Returns the greater of two marks. A value of a different type from the current mark, such as a row's timestamp
+     * when the initial value was given as a String, replaces it.
+     * @param current   The greatest value so far, or null if there is none.
+     * @param candidate A value read from the ResultSet.
+     * @return          The greater of the two.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object max(Object current, Object candidate) {
+        Object normalized = normalize(candidate);
+        if (normalized == null) {
+            return current;
+        }
+        if (current == null || current.getClass() != normalized.getClass()
+                || ((Comparable) normalized).compareTo(current) > 0) {
+            return normalized;
+        }
+        return current;
+    }
+
+    /**
+     * Moves the mark on to the greatest value sent by a poll, and writes it to the mark's file.
+     * @param newValue  The greatest value of the column sent by the poll, or null if the poll sent no rows.
+     */
+    void advance(Object newValue) {
+        if (newValue == null || newValue.equals(value)) {
+            return;
+        }
+        value = newValue;
+        Properties kept = new Properties();
+        kept.setProperty(COLUMN_KEY, column);
+        kept.setProperty(TYPE_KEY, typeOf(newValue));
+        kept.setProperty(VALUE_KEY, format(newValue));
+        // Replace the file whole, so that a crash part way through writing it cannot lose the previous mark
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+                kept.store(out, "pollQuery mark");
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Could not keep the pollQuery mark in '" + file.getAbsolutePath() + "'. A restarted source "
+                    + "will send again the rows sent since the mark was last kept.", e);
+        }
+    }
+
+    /**
+     * Converts a value read from the ResultSet or the configuration to the type the mark is kept as.
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        } else if (value instanceof OffsetDateTime) {
+            return Timestamp.from(((OffsetDateTime) value).toInstant());
+        } else if (value instanceof ZonedDateTime) {
+            return Timestamp.from(((ZonedDateTime) value).toInstant());
+        } else if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            return Date.valueOf((LocalDate) value);
+        } else if (value instanceof Timestamp || value instanceof Date || value instanceof Long
+                || value instanceof BigDecimal || value instanceof Double || value instanceof String || value == null) {
+            return value;
+        }
+        // Anything else is kept as its text, which most drivers will convert back to the column's type
+        return value.toString();
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof Long) {
+            return LONG_TYPE;
+        } else if (value instanceof BigDecimal) {
+            return DECIMAL_TYPE;
+        } else if (value instanceof Double) {
+            return DOUBLE_TYPE;
+        } else if (value instanceof Timestamp) {
+            return TIMESTAMP_TYPE;
+        } else if (value instanceof Date) {
+            return DATE_TYPE;
+        }
+        return STRING_TYPE;
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Timestamp) {
+            // Kept as an instant so that the mark does not depend on the time zone it is read back in
+            return ((Timestamp) value).toInstant().toString();
+        }
+        return value.toString();
+    }
+
+    private static Object parse(String type, String text) {
+        if (text == null) {
+            return null;
+        }
+        switch (type == null ? STRING_TYPE : type) {
+            case LONG_TYPE:
+                return Long.valueOf(text);
+            case DECIMAL_TYPE:
+                return new BigDecimal(text);
+            case DOUBLE_TYPE:
+                return Double.valueOf(text);
+            case TIMESTAMP_TYPE:
+                return Timestamp.from(Instant.parse(text));
+            case DATE_TYPE:
+                return Date.valueOf(text);
+            default:
+                return text;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+
+/**
+ * Converts the rows of one ResultSet to the HashMaps sent to VANTIQ, using a plan built once from the ResultSet's
+ * metadata rather than looking up each column's type and name for every cell.
+ * <p>
+ * The plan holds one extractor per column, chosen by the column's type: primitive getters checked with
+ * {@code wasNull()} for integers, floating point numbers and booleans, {@code getString()} for character columns,
+ * {@code getBigDecimal()} for decimals, and java.time formatters for dates, times and timestamps. Every other column is
+ * read with {@code getObject()}. Each cell is read once, and columns whose value is null are left out of the row.
+ * <p>
+ * Dates, times and timestamps are formatted in the JVM's default time zone, as {@code yyyy-MM-dd},
+ * {@code HH:mm:ss.SSSZ} and {@code yyyy-MM-dd'T'HH:mm:ss.SSSZ} respectively. A RowMapper may be used from one thread
+ * at a time, but the formatters it uses are shared and thread-safe.
+ */
+class RowMapper {
+    static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSSZ");
+
+    /**
+     * Reads one column of the current row.
+     */
+    @FunctionalInterface
+    interface ColumnExtractor {
+        /**
+         * @param rs    The ResultSet, positioned on a row.
+         * @return      The column's value as it is sent to VANTIQ, or null if the column is null.
+         * @throws SQLException if the value could not be read.
+         */
+        Object extract(ResultSet rs) throws SQLException;
+    }
+
+    private final String[] keys;
+    private final ColumnExtractor[] extractors;
+
+    private RowMapper(String[] keys, ColumnExtractor[] extractors) {
+        this.keys = keys;
+        this.extractors = extractors;
+    }
+
+    /**
+     * Builds the plan for the rows of a ResultSet.
+     * @param md    The ResultSet's metadata.
+     * @return      A RowMapper for the ResultSet's rows.
+     * @throws SQLException if the metadata could not be read.
+     */
+    static RowMapper compile(ResultSetMetaData md) throws SQLException {
+        int columns = md.getColumnCount();
+        String[] keys = new String[columns];
+        ColumnExtractor[] extractors = new ColumnExtractor[columns];
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < columns; i++) {
+            // Every row uses the same keys, so intern them rather than hold a copy per result set
+            keys[i] = md.getColumnName(i + 1).intern();
+            extractors[i] = extractorFor(md, i + 1, zone);
+        }
+        return new RowMapper(keys, extractors);
+    }
+
+    /**
+     * Chooses how to read a column. Integer types are only read with primitive getters when signed, since drivers
+     * return wider types than int or long for unsigned columns.
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private static ColumnExtractor extractorFor(ResultSetMetaData md, int column, ZoneId zone) throws SQLException {
+        switch (md.getColumnType(column)) {
+            case Types.INTEGER:
+                if (!md.isSigned(column)) {
+                    break;
+                }
+                return rs -> {
+                    int value = rs.getInt(column);
+                    return rs.wasNull() ? null : value;
+                };
+            case Types.BIGINT:
+                if (!md.isSigned(column)) {
+                    break;
+                }
+                return rs -> {
+                    long value = rs.getLong(column);
+                    return rs.wasNull() ? null : value;
+                };
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return rs -> {
+                    double value = rs.getDouble(column);
+                    return rs.wasNull() ? null : value;
+                };
+            case Types.BOOLEAN:
+                return rs -> {
+                    boolean value = rs.getBoolean(column);
+                    return rs.wasNull() ? null : value;
+                };
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return rs -> rs.getString(column);
+            case Types.DECIMAL:
+                return rs -> rs.getBigDecimal(column);
+            case Types.DATE:
+                return rs -> {
+                    Date value = rs.getDate(column);
+                    return value == null ? null : DATE_FORMAT.format(value.toLocalDate());
+                };
+            case Types.TIME:
+                return rs -> {
+                    Time value = rs.getTime(column);
+                    return value == null ? null
+                            : TIME_FORMAT.format(Instant.ofEpochMilli(value.getTime()).atZone(zone));
+                };
+            case Types.TIMESTAMP:
+                return rs -> {
+                    Timestamp value = rs.getTimestamp(column);
+                    return value == null ? null
+                            : TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(value.getTime()).atZone(zone));
+                };
+            default:
+                break;
+        }
+        return rs -> rs.getObject(column);
+    }
+
+    /**
+     * Converts the row the ResultSet is positioned on.
+     * @param rs    The ResultSet.
+     * @return      The row, keyed by column name. Columns whose value is null are left out.
+     * @throws SQLException if a value could not be read.
+     */
+    HashMap<String, Object> map(ResultSet rs) throws SQLException {
+        HashMap<String, Object> row = new HashMap<>(keys.length * 4 / 3 + 1);
+        for (int i = 0; i < extractors.length; i++) {
+            Object value = extractors[i].extract(rs);
+            if (value != null) {
+                row.put(keys[i], value);
+            }
+        }
+        return row;
+    }
+}
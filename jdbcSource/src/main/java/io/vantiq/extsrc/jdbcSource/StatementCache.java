@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the PreparedStatements of one connection open for reuse, so that running the same SQL again does not have the
+ * database parse and plan it again. At most {@code maxSize} statements are kept, and the least recently used one is
+ * closed to make room for another.
+ * <p>
+ * A statement is taken out of the cache with {@link #borrow(String)} and put back with {@link #release(String,
+ * PreparedStatement)}, so that no two threads use the same statement at once. A thread that asks for SQL another thread
+ * is using gets a statement of its own, and whichever is released last replaces the other in the cache.
+ */
+class StatementCache {
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection conn;
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> idle;
+    private boolean closed = false;
+
+    /**
+     * @param conn      The connection to prepare statements on.
+     * @param maxSize   The most statements to keep open. 0 prepares a new statement for each use.
+     */
+    StatementCache(Connection conn, int maxSize) {
+        this.conn = conn;
+        this.maxSize = maxSize;
+        this.idle = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Takes the statement for {@code sql} from the cache, or prepares one if none is cached.
+     * @param sql   The SQL to prepare.
+     * @return      A statement for {@code sql}, to be handed back with {@link #release(String, PreparedStatement)}.
+     * @throws SQLException if the statement could not be prepared.
+     */
+    PreparedStatement borrow(String sql) throws SQLException {
+        PreparedStatement stmt;
+        synchronized (this) {
+            stmt = idle.remove(sql);
+        }
+        if (stmt == null) {
+            stmt = conn.prepareStatement(sql);
+        } else {
+            stmt.clearParameters();
+        }
+        return stmt;
+    }
+
+    /**
+     * Hands a statement back once its results have been read, for the next use of {@code sql}.
+     * @param sql   The SQL the statement was prepared from.
+     * @param stmt  The statement returned by {@link #borrow(String)}.
+     */
+    void release(String sql, PreparedStatement stmt) {
+        PreparedStatement replaced;
+        synchronized (this) {
+            if (closed || maxSize == 0) {
+                replaced = stmt;
+            } else {
+                replaced = idle.put(sql, stmt);
+            }
+        }
+        if (replaced != null) {
+            closeQuietly(replaced);
+        }
+    }
+
+    /**
+     * Closes a statement returned by {@link #borrow(String)} rather than keeping it for reuse.
+     * @param stmt  The statement to close.
+     */
+    void discard(PreparedStatement stmt) {
+        closeQuietly(stmt);
+    }
+
+    /**
+     * @return  The number of statements currently cached.
+     */
+    synchronized int size() {
+        return idle.size();
+    }
+
+    /**
+     * Closes every cached statement. Statements released afterwards are closed rather than cached.
+     */
+    void close() {
+        List<PreparedStatement> statements;
+        synchronized (this) {
+            closed = true;
+            statements = new ArrayList<>(idle.values());
+            idle.clear();
+        }
+        statements.forEach(StatementCache::closeQuietly);
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            log.debug("An error occurred when closing a cached statement: ", e);
+        }
+    }
+}
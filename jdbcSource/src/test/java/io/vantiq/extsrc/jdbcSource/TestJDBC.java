@@ -32,6 +32,8 @@ import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -172,6 +174,31 @@ public class TestJDBC extends TestJDBCBase {
     static final String INSERT_TABLE_BATCH_QUERY = "INSERT INTO TestQueryBatchUpdate VALUES (1);";
     static final String SELECT_TABLE_BATCH_QUERY = "SELECT * FROM TestQueryBatchUpdate;";
     static final String DROP_TABLE_BATCH_QUERY = "DROP TABLE TestQueryBatchUpdate;";
+
+    // Queries for streaming query test
+    static final String CREATE_TABLE_STREAMING = "CREATE TABLE TestStreaming(id int, name varchar (255));";
+    static final String INSERT_TABLE_STREAMING = "INSERT INTO TestStreaming VALUES (";
+    static final String SELECT_TABLE_STREAMING = "SELECT * FROM TestStreaming ORDER BY id;";
+    static final String DROP_TABLE_STREAMING = "DROP TABLE TestStreaming;";
+
+    // Queries to test parameters
+    static final String CREATE_TABLE_PARAMS = "CREATE TABLE TestParams(id int, first varchar (255), last varchar (255));";
+    static final String INSERT_TABLE_PARAMS = "INSERT INTO TestParams VALUES (?, ?, ?)";
+    static final String SELECT_TABLE_PARAMS = "SELECT * FROM TestParams WHERE id >= :min AND (first = :name OR last = :name) "
+            + "ORDER BY id";
+    static final String DROP_TABLE_PARAMS = "DROP TABLE TestParams;";
+
+    // Queries to test batches of rows
+    static final String CREATE_TABLE_ROW_BATCH = "CREATE TABLE TestRowBatch(id int not null, name varchar (255));";
+    static final String INSERT_TABLE_ROW_BATCH = "INSERT INTO TestRowBatch VALUES (:id, :name)";
+    static final String SELECT_TABLE_ROW_BATCH = "SELECT * FROM TestRowBatch ORDER BY id;";
+    static final String DROP_TABLE_ROW_BATCH = "DROP TABLE TestRowBatch;";
+
+    // Queries to test incremental polling
+    static final String CREATE_TABLE_WATERMARK = "CREATE TABLE TestWatermark(id int, ts TIMESTAMP);";
+    static final String INSERT_TABLE_WATERMARK = "INSERT INTO TestWatermark VALUES (?, ?)";
+    static final String POLL_TABLE_WATERMARK = "SELECT * FROM TestWatermark WHERE ts > :watermark ORDER BY ts";
+    static final String DROP_TABLE_WATERMARK = "DROP TABLE TestWatermark;";
     
     static final String timestampPattern = "\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}.\\d{3}-\\d{4}";
     static final String datePattern = "\\d{4}-\\d{2}-\\d{2}";
@@ -331,6 +358,34 @@ public class TestJDBC extends TestJDBCBase {
             } catch (VantiqSQLException e) {
                 // Shouldn't throw Exception
             }
+
+            // Delete streaming table
+            try {
+                dropTablesJDBC.processPublish(DROP_TABLE_STREAMING);
+            } catch (VantiqSQLException e) {
+                // Shouldn't throw Exception
+            }
+
+            // Delete parameters table
+            try {
+                dropTablesJDBC.processPublish(DROP_TABLE_PARAMS);
+            } catch (VantiqSQLException e) {
+                // Shouldn't throw Exception
+            }
+
+            // Delete row batch table
+            try {
+                dropTablesJDBC.processPublish(DROP_TABLE_ROW_BATCH);
+            } catch (VantiqSQLException e) {
+                // Shouldn't throw Exception
+            }
+
+            // Delete incremental polling table
+            try {
+                dropTablesJDBC.processPublish(DROP_TABLE_WATERMARK);
+            } catch (VantiqSQLException e) {
+                // Shouldn't throw Exception
+            }
             
             // Close the new JDBC Instance
             dropTablesJDBC.close();
@@ -428,6 +483,187 @@ public class TestJDBC extends TestJDBCBase {
         }
     }
     
+    @Test
+    public void testStreamingQuery() throws VantiqSQLException {
+        int numRows = 250;
+
+        // Try the streaming processQuery with a nonsense query
+        try {
+            jdbc.processQuery("jibberish", 50, row -> fail("Should not have returned a row."));
+            fail("Should have thrown exception.");
+        } catch (VantiqSQLException e) {
+            // Expected behavior
+        }
+
+        jdbc.processPublish(CREATE_TABLE_STREAMING);
+        for (int i = 0; i < numRows; i++) {
+            jdbc.processPublish(INSERT_TABLE_STREAMING + i + ", 'Name" + i + "');");
+        }
+
+        // Rows are handed on one at a time, in the order the database returns them
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long rowCount = jdbc.processQuery(SELECT_TABLE_STREAMING, 50, rows::add);
+        assert rowCount == numRows;
+        assert rows.size() == numRows;
+        for (int i = 0; i < numRows; i++) {
+            assert (Integer) rows.get(i).get("id") == i;
+            assert rows.get(i).get("name").equals("Name" + i);
+        }
+
+        // The driver's default fetch size returns the same rows as the whole result does
+        Map[] queryResult = jdbc.processQuery(SELECT_TABLE_STREAMING);
+        rows.clear();
+        assert jdbc.processQuery(SELECT_TABLE_STREAMING, 0, rows::add) == queryResult.length;
+        assert rows.equals(Arrays.asList(queryResult));
+
+        jdbc.processPublish(DROP_TABLE_STREAMING);
+    }
+
+    @Test
+    public void testParameters() throws VantiqSQLException {
+        jdbc.processPublish(CREATE_TABLE_PARAMS);
+
+        // Values that would need quoting in SQL are bound as they are
+        assert jdbc.processPublish(INSERT_TABLE_PARAMS, Arrays.asList(1, "O'Brien", "Santa")) == 1;
+        assert jdbc.processPublish(INSERT_TABLE_PARAMS, Arrays.asList(2, "Santa", "Claus")) == 1;
+        assert jdbc.processPublish(INSERT_TABLE_PARAMS, Arrays.asList(3, "Jack", "Frost")) == 1;
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("min", 1);
+        params.put("name", "Santa");
+        Map[] queryResult = jdbc.processQuery(SELECT_TABLE_PARAMS, params);
+        assert queryResult.length == 2;
+        assert queryResult[0].get("first").equals("O'Brien");
+        assert queryResult[1].get("last").equals("Claus");
+
+        params.put("min", 2);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        assert jdbc.processQuery(SELECT_TABLE_PARAMS, params, 10, rows::add) == 1;
+        assert (Integer) rows.get(0).get("id") == 2;
+
+        // Each statement was prepared once and kept for reuse
+        assert jdbc.getCachedStatementCount() == 2;
+
+        // Parameters that do not match the statement are rejected
+        try {
+            jdbc.processPublish(INSERT_TABLE_PARAMS, Arrays.asList(4, "Tooth"));
+            fail("Should have thrown exception.");
+        } catch (VantiqSQLException e) {
+            // Expected behavior
+        }
+        try {
+            jdbc.processQuery(SELECT_TABLE_PARAMS, Collections.singletonMap("min", 1));
+            fail("Should have thrown exception.");
+        } catch (VantiqSQLException e) {
+            // Expected behavior
+        }
+
+        // Without a cache, statements are prepared for each use
+        JDBC uncachedJDBC = new JDBC();
+        uncachedJDBC.setupJDBC(testDBURL, testDBUsername, testDBPassword, false, 0, 0);
+        assert uncachedJDBC.processQuery(SELECT_TABLE_PARAMS, params).length == 1;
+        assert uncachedJDBC.getCachedStatementCount() == 0;
+        uncachedJDBC.close();
+
+        jdbc.processPublish(DROP_TABLE_PARAMS);
+    }
+
+    @Test
+    public void testRowBatches() throws VantiqSQLException {
+        int numRows = 2500;
+        jdbc.processPublish(CREATE_TABLE_ROW_BATCH);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < numRows; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("name", "Name" + i);
+            rows.add(row);
+        }
+
+        // Each batch of 1000 rows is committed on its own
+        List<BatchChunkResult> results = jdbc.processBatchPublish(INSERT_TABLE_ROW_BATCH, rows, 1000);
+        assert results.size() == 3;
+        for (int i = 0; i < results.size(); i++) {
+            BatchChunkResult result = results.get(i);
+            assert result.isCommitted();
+            assert result.getFirstRow() == i * 1000;
+            assert result.getRowCount() == (i < 2 ? 1000 : 500);
+            assert result.getUpdateCounts().length == result.getRowCount();
+        }
+        assert jdbc.processQuery(SELECT_TABLE_ROW_BATCH).length == numRows;
+
+        // A row that fails rolls back its own batch, and the other batches are still committed
+        jdbc.processPublish("DELETE FROM TestRowBatch;");
+        rows.get(1234).put("id", null);
+        results = jdbc.processBatchPublish(INSERT_TABLE_ROW_BATCH, rows, 1000);
+        assert results.size() == 3;
+        assert results.get(0).isCommitted();
+        assert !results.get(1).isCommitted();
+        assert results.get(1).getError() != null;
+        assert results.get(2).isCommitted();
+        Map[] queryResult = jdbc.processQuery(SELECT_TABLE_ROW_BATCH);
+        assert queryResult.length == numRows - 1000;
+        assert (Integer) queryResult[999].get("id") == 999;
+        assert (Integer) queryResult[1000].get("id") == 2000;
+
+        // The connection commits each statement again afterwards, so other connections see the delete
+        jdbc.processPublish("DELETE FROM TestRowBatch;");
+        JDBC otherJDBC = new JDBC();
+        otherJDBC.setupJDBC(testDBURL, testDBUsername, testDBPassword, false, 0);
+        assert otherJDBC.processQuery(SELECT_TABLE_ROW_BATCH).length == 0;
+        otherJDBC.close();
+
+        // Rows that do not match the statement's parameters are rolled back as any other failure
+        results = jdbc.processBatchPublish(INSERT_TABLE_ROW_BATCH, Collections.singletonList(Arrays.asList(1, "a")), 0);
+        assert results.size() == 1;
+        assert !results.get(0).isCommitted();
+
+        jdbc.processPublish(DROP_TABLE_ROW_BATCH);
+    }
+
+    @Test
+    public void testWatermarkPolling() throws VantiqSQLException, IOException {
+        jdbc.processPublish(CREATE_TABLE_WATERMARK);
+        jdbc.processPublish(INSERT_TABLE_WATERMARK, Arrays.asList(1, "2018-08-15 09:24:18"));
+        jdbc.processPublish(INSERT_TABLE_WATERMARK, Arrays.asList(2, "2018-08-15 09:24:19"));
+
+        File file = File.createTempFile("TestWatermark", ".watermark");
+        file.delete();
+        file.deleteOnExit();
+        PollWatermark watermark = PollWatermark.load("ts", "2000-01-01 00:00:00", file);
+
+        // The first poll reads every row newer than the initial value
+        List<Map<String, Object>> rows = new ArrayList<>();
+        watermark.advance(jdbc.processPollQuery(POLL_TABLE_WATERMARK, watermark, rows::add));
+        assert rows.size() == 2;
+
+        // Later polls only read the rows added since
+        rows.clear();
+        watermark.advance(jdbc.processPollQuery(POLL_TABLE_WATERMARK, watermark, rows::add));
+        assert rows.isEmpty();
+        jdbc.processPublish(INSERT_TABLE_WATERMARK, Arrays.asList(3, "2018-08-15 09:24:20"));
+        watermark.advance(jdbc.processPollQuery(POLL_TABLE_WATERMARK, watermark, rows::add));
+        assert rows.size() == 1;
+        assert (Integer) rows.get(0).get("id") == 3;
+
+        // A restarted source carries on from the mark it kept
+        rows.clear();
+        PollWatermark restarted = PollWatermark.load("ts", "2000-01-01 00:00:00", file);
+        jdbc.processPollQuery(POLL_TABLE_WATERMARK, restarted, rows::add);
+        assert rows.isEmpty();
+
+        // The watermark column must be one of the query's columns
+        try {
+            jdbc.processPollQuery(POLL_TABLE_WATERMARK, PollWatermark.load("jibberish", 0, file), rows::add);
+            fail("Should have thrown exception.");
+        } catch (VantiqSQLException e) {
+            // Expected behavior
+        }
+
+        jdbc.processPublish(DROP_TABLE_WATERMARK);
+    }
+
     @Test
     public void testExtendedTypes() throws VantiqSQLException {
         Map[] queryResult;
@@ -816,22 +1052,21 @@ public class TestJDBC extends TestJDBCBase {
         JsonArray responseBody = (JsonArray) response.getBody();
         assert responseBody.size() == numRows;
         assert core != null;
-        assert core.lastRowBundle != null;
-        assert core.lastRowBundle.length == JDBCCore.DEFAULT_BUNDLE_SIZE;
+        assert core.lastRowBundleSize == JDBCCore.DEFAULT_BUNDLE_SIZE;
 
         // Query with an invalid bundleFactor
         params.put("bundleFactor", "jibberish");
         response = vantiq.query(testSourceName, params);
         responseBody = (JsonArray) response.getBody();
         assert responseBody.size() == numRows;
-        assert core.lastRowBundle.length == JDBCCore.DEFAULT_BUNDLE_SIZE;
+        assert core.lastRowBundleSize == JDBCCore.DEFAULT_BUNDLE_SIZE;
 
         // Query with an invalid bundleFactor
         params.put("bundleFactor", -1);
         response = vantiq.query(testSourceName, params);
         responseBody = (JsonArray) response.getBody();
         assert responseBody.size() == numRows;
-        assert core.lastRowBundle.length == JDBCCore.DEFAULT_BUNDLE_SIZE;
+        assert core.lastRowBundleSize == JDBCCore.DEFAULT_BUNDLE_SIZE;
 
         // Query with bundleFactor that divides evenly into 2000 rows
         int bundleFactor = 200;
@@ -839,7 +1074,7 @@ public class TestJDBC extends TestJDBCBase {
         response = vantiq.query(testSourceName, params);
         responseBody = (JsonArray) response.getBody();
         assert responseBody.size() == numRows;
-        assert core.lastRowBundle.length == bundleFactor;
+        assert core.lastRowBundleSize == bundleFactor;
 
         // Query with bundleFactor that doesn't divide evenly into 2000 rows
         bundleFactor = 600;
@@ -847,7 +1082,7 @@ public class TestJDBC extends TestJDBCBase {
         response = vantiq.query(testSourceName, params);
         responseBody = (JsonArray) response.getBody();
         assert responseBody.size() == numRows;
-        assert core.lastRowBundle.length == numRows % bundleFactor;
+        assert core.lastRowBundleSize == numRows % bundleFactor;
 
         // Drop table and then create it again
         Map<String, Object> dropParams = new LinkedHashMap<>();
@@ -855,12 +1090,12 @@ public class TestJDBC extends TestJDBCBase {
         vantiq.publish("sources", testSourceName, dropParams);
         vantiq.publish("sources", testSourceName, createParams);
 
-        // Check that lastRowBundle is null when the query returns no data
+        // Check that no rows are sent when the query returns no data
         params.remove("bundleFactor");
         response = vantiq.query(testSourceName, params);
         responseBody = (JsonArray) response.getBody();
         assert responseBody.size() == 0;
-        assert core.lastRowBundle == null;
+        assert core.lastRowBundleSize == 0;
 
         // Insert fewer rows, and make sure that using bundleFactor of 0 works
         numRows = 100;
@@ -871,7 +1106,7 @@ public class TestJDBC extends TestJDBCBase {
         response = vantiq.query(testSourceName, params);
         responseBody = (JsonArray) response.getBody();
         assert responseBody.size() == numRows;
-        assert core.lastRowBundle.length == numRows;
+        assert core.lastRowBundleSize == numRows;
     }
 
     @Test
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class TestParameterizedSql {
+
+    @Test
+    public void testPositionalParameters() throws SQLException {
+        ParameterizedSql parsed = ParameterizedSql.parse("INSERT INTO Test VALUES (?, ?, 'Who?', \"col?\")");
+        assertEquals("INSERT INTO Test VALUES (?, ?, 'Who?', \"col?\")", parsed.getSql());
+        assertEquals(2, parsed.getParameterCount());
+
+        Map<Integer, Object> bound = new TreeMap<>();
+        parsed.bind(recordingStatement(bound), Arrays.asList(1, "Santa"));
+        assertEquals(Arrays.asList(1, "Santa"), Arrays.asList(bound.values().toArray()));
+
+        // The wrong number of values, or values by name, are rejected before the driver sees them
+        assertBindFails(parsed, Collections.singletonList(1));
+        assertBindFails(parsed, Collections.singletonMap("id", 1));
+    }
+
+    @Test
+    public void testNamedParameters() throws SQLException {
+        ParameterizedSql parsed = ParameterizedSql.parse("SELECT * FROM Test WHERE id = :id OR age > :age "
+                + "OR parent = :id -- not :this\n AND ts::date = '2018-08-15' /* nor :that */ AND first != ':name'");
+        assertEquals("SELECT * FROM Test WHERE id = ? OR age > ? OR parent = ? -- not :this\n AND ts::date = "
+                + "'2018-08-15' /* nor :that */ AND first != ':name'", parsed.getSql());
+        assertEquals(3, parsed.getParameterCount());
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("id", 7);
+        params.put("age", 25);
+        Map<Integer, Object> bound = new TreeMap<>();
+        parsed.bind(recordingStatement(bound), params);
+        assertEquals(Arrays.asList(7, 25, 7), Arrays.asList(bound.values().toArray()));
+
+        // Every name must have a value, and values must be given by name
+        assertBindFails(parsed, Collections.singletonMap("id", 7));
+        assertBindFails(parsed, Arrays.asList(7, 25, 7));
+    }
+
+    @Test
+    public void testInvalidParameters() throws SQLException {
+        try {
+            ParameterizedSql.parse("SELECT * FROM Test WHERE id = ? AND age = :age");
+            fail("Should not allow both forms of parameter");
+        } catch (SQLException e) {
+            assertEquals(ParameterizedSql.WRONG_PARAMETER_COUNT, e.getSQLState());
+        }
+
+        // Objects and lists cannot be bound to a parameter
+        ParameterizedSql parsed = ParameterizedSql.parse("SELECT * FROM Test WHERE id = ?");
+        assertBindFails(parsed, Collections.singletonList(Collections.singletonMap("id", 1)));
+
+        // A statement without parameters accepts any params
+        ParameterizedSql noParams = ParameterizedSql.parse("SELECT * FROM Test");
+        noParams.bind(recordingStatement(new TreeMap<>()), Collections.emptyMap());
+        noParams.bind(recordingStatement(new TreeMap<>()), Collections.emptyList());
+    }
+
+    private static void assertBindFails(ParameterizedSql parsed, Object params) {
+        try {
+            parsed.bind(recordingStatement(new TreeMap<>()), params);
+            fail("Should not have bound " + params);
+        } catch (SQLException e) {
+            // Expected behavior
+        }
+    }
+
+    /**
+     * Creates a PreparedStatement that records the values set on it by index.
+     */
+    private static PreparedStatement recordingStatement(Map<Integer, Object> bound) {
+        return (PreparedStatement) Proxy.newProxyInstance(TestParameterizedSql.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("setObject")) {
+                        bound.put((Integer) args[0], args[1]);
+                    }
+                    return null;
+                });
+    }
+}
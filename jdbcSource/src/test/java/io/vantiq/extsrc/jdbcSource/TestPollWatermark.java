@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestPollWatermark {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGreatestValue() {
+        // Integral numbers compare as Longs whatever type the driver returns them as
+        assertEquals(7L, PollWatermark.max(null, 7));
+        assertEquals(9L, PollWatermark.max(7L, 9L));
+        assertEquals(9L, PollWatermark.max(9L, 8));
+        assertEquals(9L, PollWatermark.max(9L, null));
+
+        // Date-times compare as Timestamps
+        Timestamp earlier = Timestamp.valueOf("2018-08-15 09:24:18");
+        Timestamp later = Timestamp.valueOf("2018-08-15 09:24:18.5");
+        assertEquals(later, PollWatermark.max(earlier, later));
+        assertEquals(later, PollWatermark.max(later, earlier));
+        OffsetDateTime offsetLater = OffsetDateTime.of(2030, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        assertEquals(Timestamp.from(offsetLater.toInstant()), PollWatermark.max(later, offsetLater));
+
+        // A value of another type, such as a row's timestamp after an initial value given as a String, replaces it
+        assertEquals(earlier, PollWatermark.max("2018-01-01 00:00:00", earlier));
+    }
+
+    @Test
+    public void testMarkIsKept() {
+        File file = new File(folder.getRoot(), "src.watermark");
+
+        // With nothing kept, polling starts from the initial value
+        PollWatermark watermark = PollWatermark.load("id", 0, file);
+        assertEquals(0L, watermark.getValue());
+        assertEquals(0L, watermark.getParams().get(PollWatermark.PARAMETER));
+        assertFalse(file.exists());
+
+        // A poll that sent no rows leaves the mark where it was
+        watermark.advance(null);
+        assertEquals(0L, watermark.getValue());
+        assertFalse(file.exists());
+
+        watermark.advance(new BigDecimal("12.50"));
+        assertEquals(new BigDecimal("12.50"), PollWatermark.load("id", 0, file).getValue());
+
+        // Timestamps are kept to the nanosecond
+        Timestamp ts = Timestamp.valueOf("2018-08-15 09:24:18.123456789");
+        watermark.advance(ts);
+        assertEquals(ts, PollWatermark.load("ID", 0, file).getValue());
+
+        // A mark kept for another column is ignored
+        assertEquals(5L, PollWatermark.load("updated", 5L, file).getValue());
+        assertNull(PollWatermark.load("updated", null, file).getValue());
+    }
+}
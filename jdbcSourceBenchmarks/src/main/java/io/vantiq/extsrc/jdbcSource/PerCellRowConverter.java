@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+
+/**
+ * The row conversion {@link JDBC} used before {@link RowMapper}, kept as the benchmarks' baseline. It asks the
+ * metadata for each cell's type and name, reads most cells twice, and formats dates with {@link SimpleDateFormat}s.
+ */
+class PerCellRowConverter {
+    // These formatters need to be local as they are not threadsafe.  Issue #290
+    DateFormat dfTimestamp  = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    DateFormat dfDate       = new SimpleDateFormat("yyyy-MM-dd");
+    DateFormat dfTime       = new SimpleDateFormat("HH:mm:ss.SSSZ");
+
+    HashMap<String, Object> convert(ResultSet queryResults) throws SQLException {
+        ResultSetMetaData md = queryResults.getMetaData();
+        int columns = md.getColumnCount();
+        HashMap<String, Object> row = new HashMap<>(columns);
+        for (int i=1; i<=columns; ++i) {
+            // Check column type to retrieve data in appropriate manner
+            int columnType = md.getColumnType(i);
+            switch (columnType) {
+                case java.sql.Types.DECIMAL:
+                    if (queryResults.getBigDecimal(i) != null) {
+                        row.put(md.getColumnName(i), queryResults.getBigDecimal(i));
+                    }
+                    break;
+                case java.sql.Types.DATE:
+                    Date rowDate = queryResults.getDate(i);
+                    if (rowDate != null) {
+                        row.put(md.getColumnName(i), dfDate.format(rowDate));
+                    }
+                    break;
+                case java.sql.Types.TIME:
+                    Time rowTime = queryResults.getTime(i);
+                    if (rowTime != null) {
+                        row.put(md.getColumnName(i), dfTime.format(rowTime));
+                    }
+                    break;
+                case java.sql.Types.TIMESTAMP:
+                    Timestamp rowTimestamp = queryResults.getTimestamp(i);
+                    if (rowTimestamp != null) {
+                        row.put(md.getColumnName(i), dfTimestamp.format(rowTimestamp));
+                    }
+                    break;
+                default:
+                    // If none of the initial cases are met, the data will be converted to a String via getObject()
+                    if(queryResults.getObject(i) != null) {
+                        row.put(md.getColumnName(i), queryResults.getObject(i));
+                    }
+                    break;
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026 Vantiq, Inc.
+ *
+ * All rights reserved.
+ *
+ * SPDX: MIT
+ */
+
+package io.vantiq.extsrc.jdbcSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures converting the rows of a query's ResultSet into the maps sent to VANTIQ, with the {@link RowMapper} column
+ * plan that {@link JDBC} uses and with the per-cell metadata lookups it replaced ({@link PerCellRowConverter}).
+ * <p>
+ * The rows come from an in-memory H2 database, and mix the column types a typical table has: integers, strings,
+ * decimals, doubles, dates, times, timestamps, and nulls. Each benchmark runs the same query and converts all of its
+ * rows, so results are per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+    static final String SELECT_ROWS = "SELECT * FROM BenchmarkRows";
+
+    @Param({"1000", "10000"})
+    int rows;
+
+    Connection conn;
+    JDBC jdbc;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:rowMapping;DB_CLOSE_DELAY=-1");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS BenchmarkRows");
+            stmt.execute("CREATE TABLE BenchmarkRows(id int, sequence bigint, first varchar(255), last varchar(255), "
+                    + "price decimal(10,2), score double, created timestamp, birthday date, shift time, "
+                    + "note varchar(255))");
+        }
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO BenchmarkRows VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setInt(1, i);
+                insert.setLong(2, 1_000_000_000L + i);
+                insert.setString(3, "First" + i);
+                insert.setString(4, "Last" + i);
+                insert.setBigDecimal(5, java.math.BigDecimal.valueOf(i, 2));
+                insert.setDouble(6, i / 7.0);
+                insert.setTimestamp(7, new java.sql.Timestamp(1_534_350_258_000L + i * 1000L));
+                insert.setDate(8, java.sql.Date.valueOf("2018-08-15"));
+                insert.setTime(9, java.sql.Time.valueOf("09:24:18"));
+                // Leave every other note null, as optional columns often are
+                insert.setString(10, i % 2 == 0 ? null : "Note" + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        jdbc = new JDBC();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public long compiledPlan(Blackhole bh) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_ROWS)) {
+            return jdbc.forEachRow(rs, bh::consume);
+        }
+    }
+
+    @Benchmark
+    public long perCellLookup(Blackhole bh) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_ROWS)) {
+            long count = 0;
+            PerCellRowConverter converter = new PerCellRowConverter();
+            while (rs.next()) {
+                HashMap<String, Object> row = converter.convert(rs);
+                bh.consume(row);
+                count++;
+            }
+            return count;
+        }
+    }
+}
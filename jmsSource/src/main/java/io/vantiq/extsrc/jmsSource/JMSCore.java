@@ -12,6 +12,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -20,6 +21,7 @@ import javax.jms.JMSException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.vantiq.extjsdk.DispatchExecutors;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
 import io.vantiq.extjsdk.ExtensionWebSocketClient;
 import io.vantiq.extjsdk.Handler;
@@ -46,12 +48,13 @@ public class JMSCore {
 
     // Used to connect to/communicate with VANTIQ
     ExtensionWebSocketClient client = null;
+    // Runs the publish and query handlers off the websocket's reader thread. Set by start()
+    ExecutorService handlerExecutor = null;
     
     // Used to coordinate communication with the JMS Server
     JMS jms = null;
 
     final Logger log;
-    final static int RECONNECT_INTERVAL = 5000;
     final static int CONNECTION_TIMEOUT = 10;
     
     private static final String SYNCH_LOCK = "synchLock";
@@ -90,12 +93,13 @@ public class JMSCore {
             jmsConfigHandler.configComplete = false;
 
             boolean sourcesSucceeded = false;
+            int retryCount = 0;
             while (!sourcesSucceeded) {
                 client.initiateFullConnection(targetVantiqServer, authToken);
                 sourcesSucceeded = exitIfConnectionFails(client, CONNECTION_TIMEOUT);
                 if (!sourcesSucceeded) {
                     try {
-                        Thread.sleep(RECONNECT_INTERVAL);
+                        Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                     } catch (InterruptedException e) {
                         log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                     }
@@ -131,9 +135,17 @@ public class JMSCore {
      * @return          true if the source connection succeeds, (will retry indefinitely and never return false).
      */
     public boolean start(int timeout) {
+        if (handlerExecutor == null) {
+            // Publishes and queries still run one at a time in the order they arrived, but no longer hold up the
+            // acknowledgements of notifications
+            handlerExecutor = DispatchExecutors.serial("jmsHandlers#" + sourceName);
+        }
         boolean sourcesSucceeded = false;
+        int retryCount = 0;
         while (!sourcesSucceeded) {
             client = new ExtensionWebSocketClient(sourceName);
+            client.setPublishExecutor(handlerExecutor);
+            client.setQueryExecutor(handlerExecutor);
             jmsConfigHandler = new JMSHandleConfiguration(this);
 
             client.setConfigHandler(jmsConfigHandler);
@@ -144,7 +156,7 @@ public class JMSCore {
             sourcesSucceeded = exitIfConnectionFails(client, timeout);
             if (!sourcesSucceeded) {
                 try {
-                    Thread.sleep(RECONNECT_INTERVAL);
+                    Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                 } catch (InterruptedException e) {
                     log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                 }
@@ -317,6 +329,10 @@ public class JMSCore {
             client.stop();
             client = null;
         }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdownNow();
+            handlerExecutor = null;
+        }
     }
 
     /**
@@ -9,6 +9,7 @@
 package io.vantiq.extsrc.jmsSource.communication;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -37,6 +38,7 @@ public class JMSMessageListener implements MessageListener {
     private boolean isQueue;
     
     private boolean closing = false;
+    private boolean paused = false;
     
     private ExtensionWebSocketClient client;
     private Context context;
@@ -112,7 +114,32 @@ public class JMSMessageListener implements MessageListener {
             // Making sure msgMap has the appropriate data
             if (msgMap != null && msgMap.get("headers") instanceof Map && 
                     (msgMap.get("queue") instanceof String || msgMap.get("topic") instanceof String)) {
-                client.sendNotification(msgMap);
+                // Keep each message group in order when notifications are spread across several connections
+                String group = msg.getStringProperty("JMSXGroupID");
+                // The time the message was handed to its provider, or 0 if the producer disabled timestamps
+                long sentAt = msg.getJMSTimestamp();
+                // Queue the message rather than wait for it to be written, so that delivery pauses as soon as
+                // notifications back up
+                CompletableFuture<Boolean> acked = group != null
+                        ? client.sendPartitionedNotificationAsync(group, msgMap, sentAt)
+                        : client.sendNotificationAsync(msgMap, sentAt);
+                if (acked.isCompletedExceptionally()) {
+                    // The writer's queue filled before delivery paused, so wait for room rather than lose the message
+                    if (group != null) {
+                        client.sendPartitionedNotification(group, msgMap, sentAt);
+                    } else {
+                        client.sendNotification(msgMap, sentAt);
+                    }
+                } else {
+                    acked.whenComplete((ok, error) -> {
+                        if (error != null) {
+                            log.error("A message from {} could not be sent to VANTIQ.", destName, error);
+                        }
+                    });
+                }
+                if (!client.isWritable()) {
+                    pause();
+                }
             } else {
                 log.error("The JMS Message Handler {} incorrectly formatted the incoming message. No Message will be sent "
                         + "back to VANTIQ.", messageHandler.getClass().getName());
@@ -133,6 +160,43 @@ public class JMSMessageListener implements MessageListener {
         }
     }
     
+    /**
+     * Stops the delivery of messages until the client is writable again, leaving them with the JMS Server rather than
+     * blocking the delivery thread. A MessageListener may not stop its own connection, so this is done on another
+     * thread.
+     */
+    private void pause() {
+        synchronized (this) {
+            if (paused || closing) {
+                return;
+            }
+            paused = true;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                connection.stop();
+            } catch (JMSException e) {
+                log.warn("Unable to pause delivery of messages from {}.", destName, e);
+            }
+            client.onWritable(this::resume);
+        });
+    }
+
+    /**
+     * Restarts the delivery of messages stopped by {@link #pause()}.
+     */
+    private synchronized void resume() {
+        paused = false;
+        if (closing) {
+            return;
+        }
+        try {
+            connection.start();
+        } catch (JMSException e) {
+            log.error("Unable to resume delivery of messages from {}.", destName, e);
+        }
+    }
+
     /**
      * A method used to close the JMS Session and Connection
      * @throws JMSException
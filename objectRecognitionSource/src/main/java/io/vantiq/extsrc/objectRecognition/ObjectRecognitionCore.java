@@ -74,7 +74,6 @@ public class ObjectRecognitionCore {
     public Boolean suppressEmptyNeuralNetResults = false;
     
     final Logger log;
-    final static int RECONNECT_INTERVAL = 5000;
 
     // Constants for Query Parameters
     private static final String IMAGE_NAME = "imageName";
@@ -132,6 +131,7 @@ public class ObjectRecognitionCore {
             objRecConfigHandler.configComplete = false;
             
             boolean sourcesSucceeded = false;
+            int retryCount = 0;
             while (!sourcesSucceeded) {
                 client.setQueryHandler(defaultQueryHandler);
                 
@@ -139,7 +139,7 @@ public class ObjectRecognitionCore {
                 sourcesSucceeded = exitIfConnectionFails(client, 10);
                 
                 try {
-                    Thread.sleep(RECONNECT_INTERVAL);
+                    Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                 } catch (InterruptedException e) {
                     log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                 }
@@ -195,6 +195,7 @@ public class ObjectRecognitionCore {
      */
     public boolean start(int timeout) {
         boolean sourcesSucceeded = false;
+        int retryCount = 0;
         boolean limitExceeded = false;
         int attempts = 0;
         while (!sourcesSucceeded && !limitExceeded) {
@@ -209,7 +210,7 @@ public class ObjectRecognitionCore {
             
             sourcesSucceeded = exitIfConnectionFails(client, timeout);
             try {
-                Thread.sleep(RECONNECT_INTERVAL);
+                Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                 if (retryLimit > 0) {
                     attempts += 1;
                     limitExceeded = (attempts >= retryLimit);
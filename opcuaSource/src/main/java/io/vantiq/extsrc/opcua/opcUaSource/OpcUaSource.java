@@ -9,9 +9,12 @@
 package io.vantiq.extsrc.opcua.opcUaSource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vantiq.extjsdk.AsyncHandler;
+import io.vantiq.extjsdk.DispatchExecutors;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
 import io.vantiq.extjsdk.ExtensionWebSocketClient;
 import io.vantiq.extjsdk.Handler;
+import io.vantiq.extjsdk.JsonCodec;
 import io.vantiq.extsrc.opcua.uaOperations.OpcConstants;
 import io.vantiq.extsrc.opcua.uaOperations.OpcExtConfigException;
 import io.vantiq.extsrc.opcua.uaOperations.OpcExtRuntimeException;
@@ -26,9 +29,11 @@ import java.net.HttpURLConnection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -37,11 +42,17 @@ public class OpcUaSource {
 
     private static Map<String, Map> configurations = new ConcurrentHashMap<String, Map>();
 
+    // Publishes and queries block on the OPC server, so they run on the source's own pool rather than the shared one
+    private static final int OPC_THREADS = 4;
+    private static final int OPC_QUEUE_SIZE = 256;
+
     ExtensionWebSocketClient vantiqClient = null;
     OpcUaESClient opcClient = null;
     String sourceName = null;
     Map configurationDoc = null;
-    ObjectMapper oMapper = new ObjectMapper();
+    boolean conflateUpdates = false;
+    ObjectMapper oMapper = JsonCodec.mapper();
+    ExecutorService opcExecutor = DispatchExecutors.bounded("opcUaSource", OPC_THREADS, OPC_QUEUE_SIZE);
 
     public void connectToOpc(Map config) {
         try {
@@ -56,6 +67,7 @@ public class OpcUaSource {
             vantiqClient.close();
             vantiqClient = null;
         }
+        opcExecutor.shutdown();
     }
 
     public boolean connectToVantiq(String sourceName, Map<String, String> connectionInfo) {
@@ -194,15 +206,16 @@ public class OpcUaSource {
      * which source sent the Publish.
      */
     // Passes data to the UDP server or tells the program to stop
-    private Handler<ExtensionServiceMessage> publishHandler = new Handler<ExtensionServiceMessage>() {
+    private Handler<ExtensionServiceMessage> publishHandler = new AsyncHandler<ExtensionServiceMessage>() {
         @Override
-        public void handleMessage(ExtensionServiceMessage message) {
+        public CompletionStage<?> handleMessageAsync(ExtensionServiceMessage message) {
 
             if (opcClient != null && opcClient.isConnected()) {
                 log.debug("Sending publish request to OPC");
-                performPublish(message);
+                return performPublish(message);
             } else {
                 log.warn("OPC client not yet connected.  Publish dropped.");
+                return null;
             }
 
         }
@@ -212,19 +225,20 @@ public class OpcUaSource {
      * Shuts down the server when a query is received. This is largely a debug decision, as a) queries are not expected
      * for UDP sources, and b) problems occur when the WebSocket connection is violently shut down
      */
-    private Handler<ExtensionServiceMessage> queryHandler = new Handler<ExtensionServiceMessage>() {
+    private Handler<ExtensionServiceMessage> queryHandler = new AsyncHandler<ExtensionServiceMessage>() {
         @Override
-        public void handleMessage(ExtensionServiceMessage msg) {
+        public CompletionStage<?> handleMessageAsync(ExtensionServiceMessage msg) {
             log.debug("Query handler:  Got query: {}", msg);
             String replyAddress = ExtensionServiceMessage.extractReplyAddress(msg);
             if (opcClient != null &&  opcClient.isConnected()) {
                 log.debug("Sending query request to OPC");
-                performQuery(msg);
+                return performQuery(msg);
 
             } else {
                 log.warn("OPC client not yet connected.  Query dropped.");
                 vantiqClient.sendQueryError(replyAddress, this.getClass().getName() + ".opcNoConnection",
                         "OPC client not yet connected.  Query services are not available.", new Object[] {});
+                return null;
             }
         }
     };
@@ -238,6 +252,10 @@ public class OpcUaSource {
         public void handleMessage(ExtensionServiceMessage message) {
             String sourceName = message.getSourceName();
             configurationDoc = (Map) ((Map) message.getObject()).get("config");
+            Object opcConfig = configurationDoc == null ? null
+                    : configurationDoc.get(OpcConstants.CONFIG_OPC_UA_INFORMATION);
+            conflateUpdates = opcConfig instanceof Map
+                    && Boolean.TRUE.equals(((Map) opcConfig).get(OpcConstants.CONFIG_CONFLATE_UPDATES));
 
             // TODO -- Need to qualify source name (i.e. resourceId) with namespace name.
             // Save the config away so that we can refer to it in the future...
@@ -313,7 +331,16 @@ public class OpcUaSource {
             updateMsg.put(OpcConstants.CONFIG_MI_IDENTIFIER_TYPE, stringifyNodeIdType(nodeInfo.getType()));
             updateMsg.put(OpcConstants.OPC_VALUE_IN_VANTIQ, newValue);
             updateMsg.put(OpcConstants.NODE_ID, nodeInfo.toParseableString());
-            vantiqClient.sendNotification(updateMsg);
+            if (conflateUpdates) {
+                // Only the latest value of each node matters, so let newer values replace any not yet sent rather
+                // than holding up the subscription
+                if (!vantiqClient.sendConflatedNotification(nodeInfo, updateMsg)) {
+                    log.warn("Dropped an update for node {} since the notification queue is full.",
+                            nodeInfo.toParseableString());
+                }
+            } else {
+                vantiqClient.sendNotification(updateMsg);
+            }
         }
         catch (Throwable e) {
             log.error("Trapped unexpected error during event processing: ", e);
@@ -344,14 +371,15 @@ public class OpcUaSource {
 
     /**
      * Decode the publish message and have our client perform the work.
-     * We set this up to run asynchronously, so that we don't have to worry about
+     * We set this up to run asynchronously on the SDK's shared executor, so that we don't have to worry about
      * hogging the handlers...
      *
      * @param msg publish message initiating the workflow
+     * @return    A future that completes when the publish has been performed
      */
-    void performPublish(ExtensionServiceMessage msg) {
+    CompletableFuture<Void> performPublish(ExtensionServiceMessage msg) {
         log.debug("performPublish -- given message: {}", msg);
-        CompletableFuture.runAsync(() -> {
+        return CompletableFuture.runAsync(() -> {
             Map pubMsg;
             Object maybeMap = msg.getObject();
             if (opcClient == null || !opcClient.isConnected()) {
@@ -391,17 +419,18 @@ public class OpcUaSource {
                     log.error("Publish failed:  Unknown intent: {}", intent);
                 }
             }
-        });
+        }, opcExecutor);
     }
 
     /**
      * Decode the query request & have the OpcClient perform the work.
      *
      * @param msg query message containing the request
+     * @return    A future that completes when the query has been answered
      */
-    void performQuery(ExtensionServiceMessage msg) {
+    CompletableFuture<Void> performQuery(ExtensionServiceMessage msg) {
         log.debug("performQuery -- given message: {}", msg);
-        CompletableFuture.runAsync(() -> {
+        return CompletableFuture.runAsync(() -> {
             String replyAddress = ExtensionServiceMessage.extractReplyAddress(msg);
             Map qryMsg;
             Object maybeMap = msg.getObject();
@@ -488,7 +517,7 @@ public class OpcUaSource {
                     log.error("Query failed: Unknown queryStyle: ", style);
                 }
             }
-        });
+        }, opcExecutor);
     }
 
     private static void checkNodeId(String operation, String nsu, String nsIndex, String identifier) {
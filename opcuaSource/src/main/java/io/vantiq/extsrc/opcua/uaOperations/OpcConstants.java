@@ -28,6 +28,7 @@ public class OpcConstants {
     public static final String CONFIG_IDENTITY_ANONYMOUS = "identityAnonymous";
     public static final String CONFIG_IDENTITY_CERTIFICATE = "identityCertificate";
     public static final String CONFIG_IDENTITY_USERNAME_PASSWORD = "identityUsernamePassword";
+    public static final String CONFIG_CONFLATE_UPDATES = "conflateUpdates";
 
     // Constants related to the interaction with Vantiq operations.
     // Some config constants are used there for consistency.
@@ -32,7 +32,6 @@ public class TestConnectorCore {
     List<String> filenames = new ArrayList<>();
 
     final Logger log;
-    final static int RECONNECT_INTERVAL = 5000;
 
     public static final String ENVIRONMENT_VARIABLES = "environmentVariables";
     public static final String FILENAMES = "filenames";
@@ -149,6 +148,7 @@ public class TestConnectorCore {
      */
     public void doFullClientConnection(int timeout) {
         boolean sourcesSucceeded = false;
+        int retryCount = 0;
         while (!sourcesSucceeded) {
             // Either try to reconnect, or initiate a new full connection
             if (client.isOpen() && client.isAuthed()) {
@@ -161,7 +161,7 @@ public class TestConnectorCore {
             sourcesSucceeded = exitIfConnectionFails(timeout);
             if (!sourcesSucceeded) {
                 try {
-                    Thread.sleep(RECONNECT_INTERVAL);
+                    Thread.sleep(client.getReconnectPolicy().getDelayMs(retryCount++));
                 } catch (InterruptedException e) {
                     log.error("An error occurred when trying to sleep the current thread. Error Message: ", e);
                 }
@@ -25,7 +25,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.*;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vantiq.extjsdk.JsonCodec;
 import io.vantiq.extjsdk.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -462,6 +462,10 @@ public class ConfigurableUDPSource {
      * The authentication token used to connect to Vantiq
      */
     static String authToken = null;
+    /**
+     * Whether the sources share a single websocket connection to Vantiq
+     */
+    static boolean sharedConnection = false;
 
     /**
      * Turn the given JSON file into a {@link Map}. 
@@ -502,10 +506,9 @@ public class ConfigurableUDPSource {
         
         File configFile = new File(fileName);
         log.debug("{}", configFile.getAbsolutePath());
-        ObjectMapper mapper = new ObjectMapper();
         try {
             //noinspection unchecked
-            config = mapper.readValue(configFile, Map.class);
+            config = JsonCodec.mapReader().readValue(configFile);
         } catch (IOException e) {
             throw new RuntimeException("Could not find valid server config file. Expected location: '" 
                     + configFile.getAbsolutePath() + "'", e);
@@ -539,6 +542,9 @@ public class ConfigurableUDPSource {
             throw new RuntimeException("Missing authentication token in config file. Please place in 'authToken'.");
         }
 
+        // May be a String in a properties file or a Boolean in a JSON file
+        sharedConnection = Boolean.parseBoolean(String.valueOf(config.get("sharedConnection")));
+
         if (config.get("defaultBindAddress") instanceof String) {
             try {
                 String address = (String) config.get("defaultBindAddress");
@@ -630,6 +636,7 @@ public class ConfigurableUDPSource {
             client.setConfigHandler(UDPConfig);
             client.setReconnectHandler(UDPReconnectHandler);
             client.setCloseHandler(UDPCloseHandler);
+            client.setUseSharedConnection(sharedConnection);
 
             // Initiate the WebSocket connection, authentication, and source connection for the source
             CompletableFuture<Boolean> future;
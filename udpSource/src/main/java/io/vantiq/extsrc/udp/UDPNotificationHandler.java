@@ -14,6 +14,7 @@ package io.vantiq.extsrc.udp;
 import io.vantiq.extjsdk.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvParser;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
@@ -87,6 +88,11 @@ import java.util.regex.Pattern;
  *                      on the message to be sent. Any values not transformed will not be passed unless
  *                      passUnspecifiedIn is set to true, and any values that are transformed will not appear in the
  *                      final message regardless of settings.
+ *      <li>conflateOn: Optional. The location in the outgoing message of a value identifying what the message reports
+ *                      on, such as a sensor id. When set, a message that has not been sent yet is replaced by a newer
+ *                      message with the same value at that location, so only the latest message for each value is
+ *                      sent when messages arrive faster than Vantiq accepts them. Messages without a value at the
+ *                      location are sent normally. Default is null.
  * </ul></dd>
  * 
  * <dt><span class="strong">XML Options</span></dt>
@@ -151,9 +157,21 @@ public class UDPNotificationHandler extends Handler<DatagramPacket>{
      */
     final private Logger log;
     /**
-     * An {@link ObjectMapper} used to translate received objects into {@link Map}
+     * The mappers and readers for XML and CSV. Like {@link JsonCodec}'s, they are thread-safe and shared by every
+     * handler, so that each message is not parsed with a newly built deserializer.
      */
-    private ObjectMapper mapper = new ObjectMapper();
+    private static final XmlMapper XML_MAPPER = new XmlMapper();
+    private static final ObjectReader XML_READER = XML_MAPPER.readerFor(Map.class);
+    private static final ObjectReader CSV_READER = new CsvMapper().enable(CsvParser.Feature.WRAP_AS_ARRAY)
+            .readerFor(List.class).with(CsvSchema.emptySchema().withHeader());
+    /**
+     * An {@link ObjectMapper} for the format of the received objects
+     */
+    private ObjectMapper mapper = JsonCodec.mapper();
+    /**
+     * An {@link ObjectReader} used to translate received objects into {@link Map}
+     */
+    private ObjectReader reader = JsonCodec.mapReader();
     /**
      * Whether the incoming data will be in XML format
      */
@@ -186,6 +204,10 @@ public class UDPNotificationHandler extends Handler<DatagramPacket>{
      * The locations to which each capture group will be placed
      */
     private String[] patternLocations = null;
+    /**
+     * The location of the key on which outgoing messages are conflated. null if not requested.
+     */
+    private String conflateKey = null;
 
     /**
      * Sets up the handler based on the configuration document passed.
@@ -204,14 +226,14 @@ public class UDPNotificationHandler extends Handler<DatagramPacket>{
         }
         if (incoming.get("expectXmlIn") instanceof Boolean && (boolean) incoming.get("expectXmlIn")) {
             expectingXml = true;
-            mapper = new XmlMapper();
+            mapper = XML_MAPPER;
+            reader = XML_READER;
         }
         if (incoming.get("passXmlRootNameIn") instanceof String) {
             xmlRootLoc = (String) incoming.get("passXmlRootNameIn");
         }
         if (incoming.get("expectCsvIn") instanceof Boolean && (boolean) incoming.get("expectCsvIn")) {
             expectingCsv = true;
-            mapper = new CsvMapper().enable(CsvParser.Feature.WRAP_AS_ARRAY);
         }
         if (incoming.get("passBytesInAs") instanceof String) {
             bytesLocation = (String) incoming.get("passBytesInAs");
@@ -219,6 +241,9 @@ public class UDPNotificationHandler extends Handler<DatagramPacket>{
         if (incoming.get("passPureMapIn") instanceof Boolean && (boolean) incoming.get("passPureMapIn")) {
             passingPureMap = true;
         }
+        if (incoming.get("conflateOn") instanceof String) {
+            conflateKey = (String) incoming.get("conflateOn");
+        }
         if(incoming.get("passUnspecifiedIn") instanceof Boolean && (boolean) incoming.get("passUnspecifiedIn")) {
             passingUnspecified = true;
         }
@@ -283,6 +308,8 @@ public class UDPNotificationHandler extends Handler<DatagramPacket>{
      */
     @Override
     public void handleMessage(DatagramPacket packet) {
+        // The listener hands each packet over as soon as it arrives, so this stands in for its arrival time
+        long receivedAt = System.currentTimeMillis();
         Map receivedMsg = null;
         Map<String,Object> sendMsg = new LinkedHashMap<>();
         if (bytesLocation != null || regexPattern != null) {
@@ -290,9 +317,8 @@ public class UDPNotificationHandler extends Handler<DatagramPacket>{
         }
         else if (expectingCsv) {
             try  {
-                List<Object> csv = mapper.readerFor(List.class).with(CsvSchema.emptySchema().withHeader())
-                        .readValue(packet.getData());
-                client.sendNotification(csv);
+                List<Object> csv = CSV_READER.readValue(packet.getData());
+                client.sendPartitionedNotification(packet.getSocketAddress(), csv, receivedAt);
             }
             catch (Exception e){
                 log.warn("Failed to interpret UDP message as CSV.", e);
@@ -301,7 +327,7 @@ public class UDPNotificationHandler extends Handler<DatagramPacket>{
         }
         else{
             try {
-                receivedMsg = mapper.readValue(packet.getData(), Map.class);
+                receivedMsg = reader.readValue(packet.getData());
             } 
             catch (Exception e) {
                 if (expectingXml) {
@@ -372,7 +398,15 @@ public class UDPNotificationHandler extends Handler<DatagramPacket>{
             MapTransformer.createTransformVal(sendMsg, recPortKey, packet.getPort());
         }
 
-        client.sendNotification(sendMsg);
+        Object key = conflateKey == null ? null : MapTransformer.getTransformVal(sendMsg, conflateKey);
+        if (key != null) {
+            if (!client.sendConflatedNotification(key, sendMsg)) {
+                log.warn("Dropped a UDP message since the notification queue is full.");
+            }
+        } else {
+            // Keep each sender's messages in order when they are spread across several connections
+            client.sendPartitionedNotification(packet.getSocketAddress(), sendMsg, receivedAt);
+        }
     }
 
     /**
@@ -13,9 +13,9 @@ package io.vantiq.extsrc.udp;
 
 import io.vantiq.extjsdk.Handler;
 import io.vantiq.extjsdk.ExtensionServiceMessage;
+import io.vantiq.extjsdk.JsonCodec;
 
 import com.fasterxml.jackson.core.JsonGenerator.Feature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
@@ -133,9 +133,16 @@ public class UDPPublishHandler extends Handler<ExtensionServiceMessage>{
      */
     private DatagramSocket socket;
     /**
-     * The {@link ObjectMapper} used to turn a message into bytes before sending it with {@link #socket}.
+     * The {@link ObjectWriter} used to turn a message into bytes before sending it with {@link #socket}.
      */
-    private ObjectWriter writer = new ObjectMapper().writer();
+    private ObjectWriter writer = JsonCodec.writer();
+    /**
+     * The writers for XML and CSV. They are thread-safe and shared by every handler, so that each message is not
+     * serialized with a newly built mapper.
+     */
+    private static final ObjectWriter XML_WRITER = new XmlMapper().writer();
+    private static final ObjectWriter CSV_WRITER = new CsvMapper()
+            .enable(CsvGenerator.Feature.STRICT_CHECK_FOR_QUOTING).enable(Feature.IGNORE_UNKNOWN).writer();
 
     /**
      * An Slf4j logger.
@@ -213,7 +220,7 @@ public class UDPPublishHandler extends Handler<ExtensionServiceMessage>{
             transforms = MapTransformer.getValidTransforms((List) outgoing.get("transformations"));
         }
         if (outgoing.get("sendXmlRoot") instanceof String) {
-            writer = new XmlMapper().writer().withRootName((String)outgoing.get("sendXmlRoot"));
+            writer = XML_WRITER.withRootName((String)outgoing.get("sendXmlRoot"));
         }
         if (outgoing.get("passPureMapOut") instanceof Boolean && (boolean) outgoing.get("passPureMapOut")) {
             passingPureMap = true;
@@ -347,8 +354,6 @@ public class UDPPublishHandler extends Handler<ExtensionServiceMessage>{
         String out = null;
         
         try {
-            CsvMapper mapper = new CsvMapper();
-            mapper.enable(CsvGenerator.Feature.STRICT_CHECK_FOR_QUOTING).enable(Feature.IGNORE_UNKNOWN);
             if (csvSchemaLocation != null) {
                 CsvSchema.Builder csvSchemaBuilder = CsvSchema.builder();
                 if (map.get(csvSchemaLocation) instanceof List) {
@@ -366,7 +371,7 @@ public class UDPPublishHandler extends Handler<ExtensionServiceMessage>{
             else if (csvSchemaLocation != null) { // A location is set but no valid schema given
                 return null;
             }
-            out = mapper.writer().with(csvSchema).writeValueAsString(map.get(csvSource));
+            out = CSV_WRITER.with(csvSchema).writeValueAsString(map.get(csvSource));
         }
         catch (Exception e) {
             log.warn("Failed to create CSV message", e);
@@ -335,6 +335,11 @@ public class TestUDPNotificationHandler {
             latestData = data;
         }
 
+        @Override
+        public void sendPartitionedNotification(Object key, Object data, long receivedAt) {
+            latestData = data;
+        }
+
         boolean compareSource(String expectedSource) {
             return expectedSource.equals(sourceName);
         }